@@ -27,4 +27,7 @@ public class Bot extends BaseEntity {
 
     @Column(name = "bot_telegram_user_name")
     private String botTelegramUserName;
+
+    @Column(name = "webhook_secret")
+    private String webhookSecret;
 }
@@ -0,0 +1,32 @@
+package io.github.yienruuuuu.bean.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * 節點租約，存活的節點定期續約，用來決定 Bot 分配到哪個節點。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "bot_node_lease", schema = "tg_manager_bot")
+public class BotNodeLease extends BaseEntity {
+    @Id
+    @Column(name = "node_id", nullable = false, length = 64)
+    private String nodeId;
+
+    @Column(name = "host")
+    private String host;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
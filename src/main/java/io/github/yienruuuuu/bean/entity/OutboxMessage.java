@@ -0,0 +1,70 @@
+package io.github.yienruuuuu.bean.entity;
+
+import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.bean.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * 待發送到 Telegram 的訊息，與貼文在同一個交易內寫入，由發送端批次取出送出。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "outbox_message", schema = "tg_manager_bot")
+public class OutboxMessage extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "bot_type", nullable = false, length = 50)
+    private BotType botType;
+
+    @Column(name = "post_id", length = 36)
+    private String postId;
+
+    @Column(name = "method", nullable = false, length = 32)
+    private String method;
+
+    @Column(name = "chat_id", nullable = false, length = 64)
+    private String chatId;
+
+    @Column(name = "text", columnDefinition = "TEXT")
+    private String text;
+
+    @Column(name = "media_json", columnDefinition = "TEXT")
+    private String mediaJson;
+
+    @Column(name = "reply_to_message_id")
+    private Integer replyToMessageId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private OutboxStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "locked_until")
+    private Instant lockedUntil;
+
+    @Column(name = "telegram_message_ids", length = 512)
+    private String telegramMessageIds;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "sent_at")
+    private Instant sentAt;
+}
@@ -0,0 +1,36 @@
+package io.github.yienruuuuu.bean.entity;
+
+import io.github.yienruuuuu.bean.enums.BotType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 已處理更新記錄，重啟後用來略過 Telegram 重送的更新。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "processed_update", schema = "tg_manager_bot")
+public class ProcessedUpdate extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "bot_type", nullable = false, length = 50)
+    private BotType botType;
+
+    @Column(name = "update_id", nullable = false)
+    private Integer updateId;
+
+    @Column(name = "source_chat_id")
+    private Long sourceChatId;
+
+    @Column(name = "source_message_id")
+    private Integer sourceMessageId;
+}
@@ -0,0 +1,35 @@
+package io.github.yienruuuuu.bean.entity;
+
+import io.github.yienruuuuu.bean.enums.BotType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * 每日序號計數器，記錄各流程當日已預留出去的最大序號。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "serial_counter", schema = "tg_manager_bot")
+public class SerialCounter extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "pipeline", nullable = false, length = 50)
+    private BotType pipeline;
+
+    @Column(name = "serial_date", nullable = false)
+    private LocalDate serialDate;
+
+    @Column(name = "last_value", nullable = false)
+    private Long lastValue;
+}
@@ -0,0 +1,18 @@
+package io.github.yienruuuuu.bean.enums;
+
+/**
+ * 更新消費模式。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public enum ConsumerMode {
+    /**
+     * 單執行緒依序處理所有更新（套件預設行為）。
+     */
+    SINGLE,
+    /**
+     * 依 chat id 分派至多條工作通道，同一 chat 保持順序、不同 chat 平行處理。
+     */
+    LANES
+}
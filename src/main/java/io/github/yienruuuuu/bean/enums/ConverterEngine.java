@@ -0,0 +1,18 @@
+package io.github.yienruuuuu.bean.enums;
+
+/**
+ * 簡轉繁引擎。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public enum ConverterEngine {
+    /**
+     * 啟動時載入 OpenCC 詞典建成字典樹，單次掃描做最長匹配。
+     */
+    TRIE,
+    /**
+     * 直接呼叫 opencc4j（原本的做法）。
+     */
+    OPENCC
+}
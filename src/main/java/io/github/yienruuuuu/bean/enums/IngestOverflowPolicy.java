@@ -0,0 +1,22 @@
+package io.github.yienruuuuu.bean.enums;
+
+/**
+ * 接收佇列已滿時的處理策略。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public enum IngestOverflowPolicy {
+    /**
+     * 阻塞接收端直到佇列有空位，長輪詢會因此暫停抓取。
+     */
+    BLOCK,
+    /**
+     * 丟棄低優先度更新（管理員對話訊息、編輯事件），其餘更新仍阻塞等待。
+     */
+    DROP_LOW_PRIORITY,
+    /**
+     * 溢出的更新寫入磁碟，待佇列消化後依序讀回。
+     */
+    SPILL
+}
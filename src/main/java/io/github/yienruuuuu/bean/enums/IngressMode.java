@@ -0,0 +1,18 @@
+package io.github.yienruuuuu.bean.enums;
+
+/**
+ * 更新接收方式。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public enum IngressMode {
+    /**
+     * 以 getUpdates 長輪詢接收更新。
+     */
+    LONG_POLLING,
+    /**
+     * 由 Telegram 以 webhook 推送更新至本服務。
+     */
+    WEBHOOK
+}
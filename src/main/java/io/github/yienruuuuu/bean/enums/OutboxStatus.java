@@ -0,0 +1,30 @@
+package io.github.yienruuuuu.bean.enums;
+
+/**
+ * 發送匣記錄狀態。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public enum OutboxStatus {
+    /**
+     * 等待發送。
+     */
+    PENDING,
+    /**
+     * 已被發送端取得，租約到期前其他發送端不會處理。
+     */
+    SENDING,
+    /**
+     * 已送達 Telegram。
+     */
+    SENT,
+    /**
+     * 超過重試次數或無法重試的錯誤，不再發送。
+     */
+    FAILED,
+    /**
+     * 結果不明（已送出但未收到回應、發送途中租約逾期），Telegram 可能已收到，不自動重送，待人工確認。
+     */
+    UNCERTAIN
+}
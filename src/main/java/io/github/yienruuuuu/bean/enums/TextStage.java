@@ -0,0 +1,22 @@
+package io.github.yienruuuuu.bean.enums;
+
+/**
+ * 貼文文字處理管線的步驟，依設定的順序執行。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public enum TextStage {
+    /**
+     * 移除黑名單字串。
+     */
+    BLACKLIST,
+    /**
+     * 簡體轉繁體。
+     */
+    CONVERT,
+    /**
+     * 去除前後空白（與 {@link String#trim()} 相同）。
+     */
+    TRIM
+}
@@ -38,6 +38,12 @@ public class AppConfig {
     @Value("${bot.resend-interval-ms:2000}")
     private long botResendIntervalMs;
 
+    @Value("${bot.blacklist.refresh-interval-ms:30000}")
+    private long blacklistRefreshIntervalMs;
+
+    @Value("${bot.blacklist.normalized-matching:false}")
+    private boolean blacklistNormalizedMatching;
+
     /**
      * 建立全域 ObjectMapper，加入 Java 8 時間序列化支援。
      *
@@ -0,0 +1,33 @@
+package io.github.yienruuuuu.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 更新處理持久化相關設定。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Configuration
+@Getter
+public class DurabilityConfig {
+    @Value("${bot.journal.enabled:true}")
+    private boolean journalEnabled;
+
+    @Value("${bot.journal.dir:./data/journal}")
+    private String journalDir;
+
+    @Value("${bot.journal.segment-bytes:16777216}")
+    private int journalSegmentBytes;
+
+    @Value("${bot.journal.force-on-append:false}")
+    private boolean journalForceOnAppend;
+
+    @Value("${bot.ledger.window-size:10000}")
+    private int ledgerWindowSize;
+
+    @Value("${bot.ledger.retention-hours:168}")
+    private long ledgerRetentionHours;
+}
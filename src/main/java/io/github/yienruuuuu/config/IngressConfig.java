@@ -0,0 +1,93 @@
+package io.github.yienruuuuu.config;
+
+import io.github.yienruuuuu.bean.enums.ConsumerMode;
+import io.github.yienruuuuu.bean.enums.IngestOverflowPolicy;
+import io.github.yienruuuuu.bean.enums.IngressMode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 更新接收與分派相關設定。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Configuration
+@Getter
+public class IngressConfig {
+    @Value("${bot.ingress.mode:LONG_POLLING}")
+    private IngressMode ingressMode;
+
+    @Value("${bot.consumer.mode:SINGLE}")
+    private ConsumerMode consumerMode;
+
+    @Value("${bot.consumer.lane-count:4}")
+    private int consumerLaneCount;
+
+    @Value("${bot.webhook.base-url:}")
+    private String webhookBaseUrl;
+
+    @Value("${bot.webhook.max-connections:40}")
+    private int webhookMaxConnections;
+
+    @Value("${bot.webhook.queue-capacity:1000}")
+    private int webhookQueueCapacity;
+
+    @Value("${bot.webhook.batch-size:50}")
+    private int webhookBatchSize;
+
+    @Value("${bot.webhook.batch-linger-ms:20}")
+    private long webhookBatchLingerMs;
+
+    @Value("${bot.webhook.replay-enabled:false}")
+    private boolean webhookReplayEnabled;
+
+    @Value("${bot.ingest.capacity:1000}")
+    private int ingestCapacity;
+
+    @Value("${bot.ingest.overflow-policy:BLOCK}")
+    private IngestOverflowPolicy ingestOverflowPolicy;
+
+    @Value("${bot.ingest.batch-size:100}")
+    private int ingestBatchSize;
+
+    @Value("${bot.ingest.spill-dir:./data/spill}")
+    private String ingestSpillDir;
+
+    @Value("${bot.leader.enabled:false}")
+    private boolean leaderEnabled;
+
+    @Value("${bot.leader.check-interval-ms:2000}")
+    private long leaderCheckIntervalMs;
+
+    @Value("${bot.leader.warm-up-interval-ms:60000}")
+    private long leaderWarmUpIntervalMs;
+
+    @Value("${bot.leader.handoff-timeout-ms:10000}")
+    private long leaderHandoffTimeoutMs;
+
+    @Value("${bot.leader.keepalive-idle-seconds:10}")
+    private int leaderKeepaliveIdleSeconds;
+
+    @Value("${bot.leader.keepalive-interval-seconds:5}")
+    private int leaderKeepaliveIntervalSeconds;
+
+    @Value("${bot.leader.keepalive-count:3}")
+    private int leaderKeepaliveCount;
+
+    @Value("${bot.shard.enabled:false}")
+    private boolean shardEnabled;
+
+    @Value("${bot.shard.node-id:}")
+    private String shardNodeId;
+
+    @Value("${bot.shard.lease-ttl-ms:15000}")
+    private long shardLeaseTtlMs;
+
+    @Value("${bot.shard.heartbeat-interval-ms:5000}")
+    private long shardHeartbeatIntervalMs;
+
+    @Value("${bot.shard.virtual-nodes:64}")
+    private int shardVirtualNodes;
+}
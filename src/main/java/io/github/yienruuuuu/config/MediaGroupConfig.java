@@ -0,0 +1,51 @@
+package io.github.yienruuuuu.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * media group（相簿）組裝相關設定。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Configuration
+@Getter
+public class MediaGroupConfig {
+    @Value("${bot.media-group.flush-delay-ms:2000}")
+    private long flushDelayMs;
+
+    @Value("${bot.media-group.max-items:10}")
+    private int maxItems;
+
+    @Value("${bot.media-group.boundary-grace-ms:300}")
+    private long boundaryGraceMs;
+
+    @Value("${bot.media-group.min-quiet-ms:300}")
+    private long minQuietMs;
+
+    @Value("${bot.media-group.quiet-multiplier:2.0}")
+    private double quietMultiplier;
+
+    @Value("${bot.media-group.min-samples:20}")
+    private int minSamples;
+
+    @Value("${bot.media-group.tick-ms:50}")
+    private long tickMs;
+
+    @Value("${bot.media-group.wheel-size:128}")
+    private int wheelSize;
+
+    @Value("${bot.media-group.max-open-groups:500}")
+    private int maxOpenGroups;
+
+    @Value("${bot.media-group.max-buffered-bytes:1048576}")
+    private long maxBufferedBytes;
+
+    @Value("${bot.media-group.snapshot-enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${bot.media-group.snapshot-file:./data/media-group-snapshot.json}")
+    private String snapshotFile;
+}
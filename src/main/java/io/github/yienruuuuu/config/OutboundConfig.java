@@ -0,0 +1,144 @@
+package io.github.yienruuuuu.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 對 Telegram 發出請求的相關設定。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Configuration
+@Getter
+public class OutboundConfig {
+    @Value("${bot.outbound.io-threads:8}")
+    private int ioThreads;
+
+    @Value("${bot.outbound.rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
+
+    @Value("${bot.outbound.rate-limit.global-per-second:30}")
+    private double globalPerSecond;
+
+    @Value("${bot.outbound.rate-limit.global-burst:10}")
+    private int globalBurst;
+
+    @Value("${bot.outbound.rate-limit.group-per-minute:20}")
+    private double groupPerMinute;
+
+    @Value("${bot.outbound.rate-limit.group-burst:3}")
+    private int groupBurst;
+
+    @Value("${bot.outbound.rate-limit.private-per-second:1}")
+    private double privatePerSecond;
+
+    @Value("${bot.outbound.rate-limit.private-burst:1}")
+    private int privateBurst;
+
+    @Value("${bot.outbound.retry.enabled:true}")
+    private boolean retryEnabled;
+
+    @Value("${bot.outbound.retry.send-max-attempts:5}")
+    private int retrySendMaxAttempts;
+
+    @Value("${bot.outbound.retry.edit-max-attempts:3}")
+    private int retryEditMaxAttempts;
+
+    @Value("${bot.outbound.retry.other-max-attempts:3}")
+    private int retryOtherMaxAttempts;
+
+    @Value("${bot.outbound.retry.base-backoff-ms:500}")
+    private long retryBaseBackoffMs;
+
+    @Value("${bot.outbound.retry.max-backoff-ms:30000}")
+    private long retryMaxBackoffMs;
+
+    @Value("${bot.outbound.retry.max-retry-after-seconds:120}")
+    private int retryMaxRetryAfterSeconds;
+
+    @Value("${bot.outbound.http.max-idle-connections:10}")
+    private int httpMaxIdleConnections;
+
+    @Value("${bot.outbound.http.keep-alive-seconds:300}")
+    private long httpKeepAliveSeconds;
+
+    @Value("${bot.outbound.http.http2-enabled:true}")
+    private boolean httpHttp2Enabled;
+
+    @Value("${bot.outbound.http.max-requests:64}")
+    private int httpMaxRequests;
+
+    @Value("${bot.outbound.http.max-requests-per-host:32}")
+    private int httpMaxRequestsPerHost;
+
+    @Value("${bot.outbound.http.connect-timeout-ms:5000}")
+    private long httpConnectTimeoutMs;
+
+    @Value("${bot.outbound.http.read-timeout-ms:15000}")
+    private long httpReadTimeoutMs;
+
+    @Value("${bot.outbound.http.upload-timeout-ms:120000}")
+    private long httpUploadTimeoutMs;
+
+    @Value("${bot.outbound.http.long-polling-read-timeout-ms:75000}")
+    private long httpLongPollingReadTimeoutMs;
+
+    @Value("${bot.outbound.http.prewarm-connections:2}")
+    private int httpPrewarmConnections;
+
+    @Value("${bot.outbound.status-edit.interval-ms:3000}")
+    private long statusEditIntervalMs;
+
+    @Value("${bot.outbound.status-edit.max-defer-ms:10000}")
+    private long statusEditMaxDeferMs;
+
+    @Value("${bot.outbox.dispatcher-enabled:true}")
+    private boolean outboxDispatcherEnabled;
+
+    @Value("${bot.outbox.dispatcher-threads:2}")
+    private int outboxDispatcherThreads;
+
+    @Value("${bot.outbox.batch-size:10}")
+    private int outboxBatchSize;
+
+    @Value("${bot.outbox.poll-interval-ms:1000}")
+    private long outboxPollIntervalMs;
+
+    @Value("${bot.outbox.lease-seconds:0}")
+    private long outboxLeaseSeconds;
+
+    @Value("${bot.outbox.max-attempts:10}")
+    private int outboxMaxAttempts;
+
+    @Value("${bot.outbox.retry-backoff-ms:5000}")
+    private long outboxRetryBackoffMs;
+
+    @Value("${bot.outbox.retention-hours:168}")
+    private long outboxRetentionHours;
+
+    @Value("${bot.outbound.breaker.enabled:true}")
+    private boolean breakerEnabled;
+
+    @Value("${bot.outbound.breaker.window-seconds:30}")
+    private int breakerWindowSeconds;
+
+    @Value("${bot.outbound.breaker.minimum-calls:10}")
+    private int breakerMinimumCalls;
+
+    @Value("${bot.outbound.breaker.failure-rate-percent:50}")
+    private double breakerFailureRatePercent;
+
+    @Value("${bot.outbound.breaker.slow-call-ms:5000}")
+    private long breakerSlowCallMs;
+
+    @Value("${bot.outbound.breaker.slow-call-rate-percent:80}")
+    private double breakerSlowCallRatePercent;
+
+    @Value("${bot.outbound.breaker.open-ms:30000}")
+    private long breakerOpenMs;
+
+    @Value("${bot.outbound.breaker.half-open-probes:3}")
+    private int breakerHalfOpenProbes;
+}
@@ -0,0 +1,18 @@
+package io.github.yienruuuuu.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 貼文序號配置相關設定。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Configuration
+@Getter
+public class SerialConfig {
+    @Value("${bot.serial.block-size:20}")
+    private int blockSize;
+}
@@ -0,0 +1,43 @@
+package io.github.yienruuuuu.config;
+
+import io.github.yienruuuuu.bean.enums.ConverterEngine;
+import io.github.yienruuuuu.bean.enums.TextStage;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * 貼文文字處理相關設定。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Configuration
+@Getter
+public class TextConfig {
+    @Value("${bot.text.converter:TRIE}")
+    private ConverterEngine converterEngine;
+
+    @Value("${bot.text.st-phrases-resource:data/dictionary/STPhrases.txt}")
+    private String stPhrasesResource;
+
+    @Value("${bot.text.st-characters-resource:data/dictionary/STCharacters.txt}")
+    private String stCharactersResource;
+
+    @Value("${bot.text.ts-characters-resource:data/dictionary/TSCharacters.txt}")
+    private String tsCharactersResource;
+
+    @Value("${bot.text.verify-sample-rate:0.01}")
+    private double verifySampleRate;
+
+    @Value("${bot.text.main-stages:BLACKLIST,CONVERT,TRIM}")
+    private List<TextStage> mainStages;
+
+    @Value("${bot.text.sub-stages:}")
+    private List<TextStage> subStages;
+
+    @Value("${bot.text.cache-size:10000}")
+    private long cacheSize;
+}
@@ -0,0 +1,30 @@
+package io.github.yienruuuuu.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 更新追蹤日誌設定。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Configuration
+@Getter
+public class UpdateTraceConfig {
+    @Value("${bot.trace.enabled:true}")
+    private boolean enabled;
+
+    @Value("${bot.trace.sample-rate:1.0}")
+    private double sampleRate;
+
+    @Value("${bot.trace.update-types:}")
+    private String updateTypes;
+
+    @Value("${bot.trace.chat-ids:}")
+    private String chatIds;
+
+    @Value("${bot.trace.queue-capacity:1000}")
+    private int queueCapacity;
+}
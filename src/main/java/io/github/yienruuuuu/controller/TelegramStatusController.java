@@ -0,0 +1,252 @@
+package io.github.yienruuuuu.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.service.application.telegram.TelegramBotService;
+import io.github.yienruuuuu.service.application.telegram.consumer.UpdateIngestQueue;
+import io.github.yienruuuuu.service.application.telegram.leader.BotShardMembership;
+import io.github.yienruuuuu.service.application.telegram.mediagroup.InterArrivalEstimator;
+import io.github.yienruuuuu.service.application.telegram.mediagroup.MediaGroupAssembler;
+import io.github.yienruuuuu.service.application.telegram.outbound.CircuitBreaker;
+import io.github.yienruuuuu.service.application.telegram.outbound.CircuitBreakerRegistry;
+import io.github.yienruuuuu.service.application.telegram.outbound.OutboundRateLimiter;
+import io.github.yienruuuuu.service.application.telegram.outbound.TelegramHttpTransport;
+import io.github.yienruuuuu.service.application.telegram.text.TextPipeline;
+import io.github.yienruuuuu.service.application.telegram.text.TextPipelines;
+import io.github.yienruuuuu.service.application.telegram.webhook.TelegramWebhookService;
+import io.github.yienruuuuu.service.business.ChineseConvertService;
+import io.github.yienruuuuu.service.business.OutboxService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 提供機器人處理管線的執行狀態。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@RestController
+@RequestMapping("/api/admin/status")
+public class TelegramStatusController {
+    private final TelegramBotService telegramBotService;
+    private final TelegramWebhookService telegramWebhookService;
+    private final OutboundRateLimiter outboundRateLimiter;
+    private final TelegramHttpTransport telegramHttpTransport;
+    private final OutboxService outboxService;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final MediaGroupAssembler mediaGroupAssembler;
+    private final BotShardMembership botShardMembership;
+    private final ChineseConvertService chineseConvertService;
+    private final TextPipelines textPipelines;
+
+    public TelegramStatusController(
+            TelegramBotService telegramBotService,
+            TelegramWebhookService telegramWebhookService,
+            OutboundRateLimiter outboundRateLimiter,
+            TelegramHttpTransport telegramHttpTransport,
+            OutboxService outboxService,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            MediaGroupAssembler mediaGroupAssembler,
+            BotShardMembership botShardMembership,
+            ChineseConvertService chineseConvertService,
+            TextPipelines textPipelines
+    ) {
+        this.telegramBotService = telegramBotService;
+        this.telegramWebhookService = telegramWebhookService;
+        this.outboundRateLimiter = outboundRateLimiter;
+        this.telegramHttpTransport = telegramHttpTransport;
+        this.outboxService = outboxService;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.mediaGroupAssembler = mediaGroupAssembler;
+        this.botShardMembership = botShardMembership;
+        this.chineseConvertService = chineseConvertService;
+        this.textPipelines = textPipelines;
+    }
+
+    @GetMapping("/lanes")
+    public List<LaneStatusResponse> listLanes() {
+        List<LaneStatusResponse> responses = new ArrayList<>();
+        for (Map.Entry<BotType, int[]> entry : telegramBotService.getLaneDepths().entrySet()) {
+            int total = 0;
+            for (int depth : entry.getValue()) {
+                total += depth;
+            }
+            responses.add(new LaneStatusResponse(entry.getKey().name(), entry.getValue(), total));
+        }
+        return responses;
+    }
+
+    @GetMapping("/ingest")
+    public List<IngestStatusResponse> listIngestQueues() {
+        List<IngestStatusResponse> responses = new ArrayList<>();
+        for (Map.Entry<BotType, UpdateIngestQueue> entry : telegramBotService.getIngestQueues().entrySet()) {
+            UpdateIngestQueue queue = entry.getValue();
+            IngestStatusResponse response = new IngestStatusResponse();
+            response.botType = entry.getKey().name();
+            response.policy = queue.getPolicy().name();
+            response.depth = queue.getDepth();
+            response.capacity = queue.getCapacity();
+            response.spilledPending = queue.getSpilledPending();
+            response.spilledTotal = queue.getSpilledCount();
+            response.droppedTotal = queue.getDroppedCount();
+            response.averageWaitMs = queue.getAverageWaitMs();
+            response.maxWaitMs = queue.getMaxWaitMs();
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    @GetMapping("/webhook")
+    public Map<Integer, Integer> listWebhookQueues() {
+        return telegramWebhookService.getQueueDepths();
+    }
+
+    @GetMapping("/outbound")
+    public Map<String, Long> getOutboundStatus() {
+        Map<String, Long> status = new LinkedHashMap<>();
+        status.put("throttledCount", outboundRateLimiter.getThrottledCount());
+        status.put("throttledMillis", outboundRateLimiter.getThrottledMillis());
+        status.put("httpConnections", (long) telegramHttpTransport.getConnectionCount());
+        status.put("httpIdleConnections", (long) telegramHttpTransport.getIdleConnectionCount());
+        status.put("httpRunningCalls", (long) telegramHttpTransport.getRunningCallsCount());
+        status.put("outboxPending", outboxService.countPending());
+        status.put("outboxUncertain", outboxService.countUncertain());
+        return status;
+    }
+
+    @GetMapping("/media-groups")
+    public Map<String, Long> getMediaGroupStatus() {
+        InterArrivalEstimator estimator = mediaGroupAssembler.getInterArrivalEstimator();
+        Map<String, Long> status = new LinkedHashMap<>();
+        status.put("openGroups", (long) mediaGroupAssembler.getOpenGroupCount());
+        status.put("bufferedBytes", mediaGroupAssembler.getBufferedBytes());
+        status.put("quietPeriodMs", mediaGroupAssembler.getQuietPeriodMs());
+        status.put("interArrivalSamples", (long) estimator.getSampleCount());
+        status.put("interArrivalP50Ms", estimator.getP50Ms());
+        status.put("interArrivalP99Ms", estimator.getP99Ms());
+        status.put("flushedBySize", mediaGroupAssembler.getFlushedBySize());
+        status.put("flushedByBoundary", mediaGroupAssembler.getFlushedByBoundary());
+        status.put("flushedByQuietPeriod", mediaGroupAssembler.getFlushedByQuietPeriod());
+        status.put("flushedByEviction", mediaGroupAssembler.getFlushedByEviction());
+        status.put("flushedByHandoff", mediaGroupAssembler.getFlushedByHandoff());
+        status.put("lateItems", mediaGroupAssembler.getLateItems());
+        return status;
+    }
+
+    @GetMapping("/leadership")
+    public Map<String, String> getLeadership() {
+        Map<String, String> status = new LinkedHashMap<>();
+        telegramBotService.getLeadership().forEach((type, leader) -> status.put(type.name(), leader ? "LEADER" : "STANDBY"));
+        return status;
+    }
+
+    @GetMapping("/shards")
+    public Map<String, Object> getShards() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", botShardMembership.isEnabled());
+        status.put("nodeId", botShardMembership.getNodeId());
+        status.put("liveNodes", botShardMembership.getLiveNodes());
+        status.put("leadership", getLeadership());
+        return status;
+    }
+
+    @GetMapping("/text-conversion")
+    public Map<String, Object> getTextConversion() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("engine", chineseConvertService.getActiveEngine().name());
+        status.put("conversions", chineseConvertService.getConversions());
+        status.put("skipped", chineseConvertService.getSkipped());
+        status.put("timeSavedMs", chineseConvertService.getTimeSavedMs());
+        status.put("verified", chineseConvertService.getVerified());
+        status.put("mismatches", chineseConvertService.getMismatches());
+        return status;
+    }
+
+    @GetMapping("/text-cache")
+    public List<TextCacheStatusResponse> listTextCaches() {
+        List<TextCacheStatusResponse> responses = new ArrayList<>();
+        for (BotType type : BotType.values()) {
+            TextPipeline pipeline = textPipelines.get(type);
+            CacheStats stats = pipeline.getCacheStats();
+            if (stats == null) {
+                continue;
+            }
+            TextCacheStatusResponse response = new TextCacheStatusResponse();
+            response.botType = type.name();
+            response.size = pipeline.getCacheSize();
+            response.hits = stats.hitCount();
+            response.misses = stats.missCount();
+            response.hitRatio = stats.hitRate();
+            response.evictions = stats.evictionCount();
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    @GetMapping("/breakers")
+    public List<BreakerStatusResponse> listBreakers() {
+        List<BreakerStatusResponse> responses = new ArrayList<>();
+        for (Map.Entry<String, CircuitBreaker.Snapshot> entry : circuitBreakerRegistry.snapshots().entrySet()) {
+            CircuitBreaker.Snapshot snapshot = entry.getValue();
+            BreakerStatusResponse response = new BreakerStatusResponse();
+            response.name = entry.getKey();
+            response.state = snapshot.getState().name();
+            response.calls = snapshot.getCalls();
+            response.failures = snapshot.getFailures();
+            response.slowCalls = snapshot.getSlowCalls();
+            response.openRemainingMs = snapshot.getOpenRemainingMs();
+            response.openedTotal = snapshot.getOpenedCount();
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    public static class LaneStatusResponse {
+        public String botType;
+        public int[] laneDepths;
+        public int totalDepth;
+
+        public LaneStatusResponse(String botType, int[] laneDepths, int totalDepth) {
+            this.botType = botType;
+            this.laneDepths = laneDepths;
+            this.totalDepth = totalDepth;
+        }
+    }
+
+    public static class IngestStatusResponse {
+        public String botType;
+        public String policy;
+        public int depth;
+        public int capacity;
+        public long spilledPending;
+        public long spilledTotal;
+        public long droppedTotal;
+        public double averageWaitMs;
+        public long maxWaitMs;
+    }
+
+    public static class BreakerStatusResponse {
+        public String name;
+        public String state;
+        public int calls;
+        public int failures;
+        public int slowCalls;
+        public long openRemainingMs;
+        public long openedTotal;
+    }
+
+    public static class TextCacheStatusResponse {
+        public String botType;
+        public long size;
+        public long hits;
+        public long misses;
+        public double hitRatio;
+        public long evictions;
+    }
+}
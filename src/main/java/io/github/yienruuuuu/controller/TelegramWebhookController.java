@@ -0,0 +1,65 @@
+package io.github.yienruuuuu.controller;
+
+import io.github.yienruuuuu.config.IngressConfig;
+import io.github.yienruuuuu.service.application.telegram.webhook.TelegramWebhookService;
+import io.github.yienruuuuu.service.application.telegram.webhook.TelegramWebhookService.WebhookResult;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 接收 Telegram webhook 推送的更新。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@RestController
+public class TelegramWebhookController {
+    private static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+    private final TelegramWebhookService telegramWebhookService;
+    private final IngressConfig ingressConfig;
+
+    public TelegramWebhookController(TelegramWebhookService telegramWebhookService, IngressConfig ingressConfig) {
+        this.telegramWebhookService = telegramWebhookService;
+        this.ingressConfig = ingressConfig;
+    }
+
+    @PostMapping("/telegram/webhook/{botId}")
+    public ResponseEntity<Void> receive(
+            @PathVariable("botId") Integer botId,
+            @RequestHeader(value = SECRET_HEADER, required = false) String secretToken,
+            @RequestBody String body
+    ) {
+        return toResponse(telegramWebhookService.accept(botId, secretToken, body));
+    }
+
+    /**
+     * 本機測試用：以 JSON 陣列重播更新，略過 secret 驗證。
+     */
+    @PostMapping("/api/admin/webhook/replay/{botId}")
+    public ResponseEntity<Void> replay(@PathVariable("botId") Integer botId, @RequestBody String body) {
+        if (!ingressConfig.isWebhookReplayEnabled()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return toResponse(telegramWebhookService.replay(botId, body));
+    }
+
+    private ResponseEntity<Void> toResponse(WebhookResult result) {
+        if (result == WebhookResult.NOT_FOUND) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        if (result == WebhookResult.FORBIDDEN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (result == WebhookResult.UNAVAILABLE) {
+            // 尚未收下，回 503 讓 Telegram 稍後重送
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        // 無法解析的內容重送也無法成功，直接回 200 避免 Telegram 反覆重試
+        return ResponseEntity.ok().build();
+    }
+}
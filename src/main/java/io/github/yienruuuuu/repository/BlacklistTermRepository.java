@@ -2,10 +2,21 @@ package io.github.yienruuuuu.repository;
 
 import io.github.yienruuuuu.bean.entity.BlacklistTerm;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 /**
  * @author Eric.Lee
  * Date: 2026/01/23
  */
 public interface BlacklistTermRepository extends JpaRepository<BlacklistTerm, Integer> {
+    List<BlacklistTerm> findAllByOrderByIdAsc();
+
+    /**
+     * 黑名單內容的指紋（筆數、id 總和、最後更新時間），用來判斷是否需要重建比對器。
+     */
+    @Query(value = "select count(*) || ':' || coalesce(sum(id), 0) || ':' || coalesce(max(updated_at)::text, '') " +
+            "from tg_manager_bot.blacklist_term", nativeQuery = true)
+    String findFingerprint();
 }
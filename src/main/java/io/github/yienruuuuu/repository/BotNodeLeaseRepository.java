@@ -0,0 +1,35 @@
+package io.github.yienruuuuu.repository;
+
+import io.github.yienruuuuu.bean.entity.BotNodeLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+/**
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public interface BotNodeLeaseRepository extends JpaRepository<BotNodeLease, String> {
+    /**
+     * 新增或續約節點租約，到期時間以資料庫時間計算，節點間時鐘誤差不影響判斷。
+     */
+    @Modifying
+    @Query(value = "insert into tg_manager_bot.bot_node_lease (node_id, host, expires_at, created_at, updated_at) " +
+            "values (?1, ?2, now() + make_interval(secs => ?3 / 1000.0), now(), now()) " +
+            "on conflict (node_id) do update set host = excluded.host, expires_at = excluded.expires_at, updated_at = now()",
+            nativeQuery = true)
+    int renew(String nodeId, String host, long ttlMs);
+
+    @Query(value = "select node_id from tg_manager_bot.bot_node_lease where expires_at > now() order by node_id", nativeQuery = true)
+    List<String> findLiveNodeIds();
+
+    /**
+     * 刪除到期超過指定時間的租約；與續約相同以資料庫時間判斷，不經 JDBC 時區轉換。
+     */
+    @Modifying
+    @Query(value = "delete from tg_manager_bot.bot_node_lease where expires_at < now() - make_interval(secs => ?1 / 1000.0)",
+            nativeQuery = true)
+    int deleteExpiredLongerThan(long graceMs);
+}
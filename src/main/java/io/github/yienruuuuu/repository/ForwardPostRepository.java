@@ -18,8 +18,6 @@ public interface ForwardPostRepository extends JpaRepository<ForwardPost, String
      */
     List<ForwardPost> findAllByOrderByCreatedAtAsc();
 
-    ForwardPost findTopBySerialStartingWithOrderBySerialDesc(String serialPrefix);
-
     @Query("select p.outputText from ForwardPost p where p.outputText is not null and p.outputText <> ''")
     List<String> findAllOutputText();
 }
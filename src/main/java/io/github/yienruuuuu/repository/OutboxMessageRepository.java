@@ -0,0 +1,74 @@
+package io.github.yienruuuuu.repository;
+
+import io.github.yienruuuuu.bean.entity.OutboxMessage;
+import io.github.yienruuuuu.bean.enums.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+    /**
+     * 鎖定一批可發送的記錄；每個 Bot 與 chat 只取最早一筆未完成（PENDING 或 SENDING）的記錄，
+     * 前一筆送達或確定失敗前，同一 chat 後面的記錄不會被取出，跨批次、跨節點都維持發送順序。
+     * 已被其他交易鎖住的列直接略過。時間由呼叫端帶入，與寫入時一樣經 hibernate.jdbc.time_zone 轉換。
+     */
+    @Query(value = "select * from tg_manager_bot.outbox_message o " +
+            "where o.status = 'PENDING' and o.next_attempt_at <= ?2 " +
+            "and not exists (select 1 from tg_manager_bot.outbox_message e " +
+            "where e.bot_type = o.bot_type and e.chat_id = o.chat_id " +
+            "and e.status in ('PENDING', 'SENDING') and e.id < o.id) " +
+            "order by o.id limit ?1 for update skip locked", nativeQuery = true)
+    List<OutboxMessage> lockNextBatch(int limit, Instant now);
+
+    /**
+     * 同 {@link #lockNextBatch(int, Instant)}，只取指定 Bot 類型的記錄。
+     */
+    @Query(value = "select * from tg_manager_bot.outbox_message o " +
+            "where o.bot_type in (?3) " +
+            "and o.status = 'PENDING' and o.next_attempt_at <= ?2 " +
+            "and not exists (select 1 from tg_manager_bot.outbox_message e " +
+            "where e.bot_type = o.bot_type and e.chat_id = o.chat_id " +
+            "and e.status in ('PENDING', 'SENDING') and e.id < o.id) " +
+            "order by o.id limit ?1 for update skip locked", nativeQuery = true)
+    List<OutboxMessage> lockNextBatchForBotTypes(int limit, Instant now, Collection<String> botTypes);
+
+    /**
+     * 租約逾期的 SENDING 記錄表示發送端在呼叫途中中斷，Telegram 可能已收到，改為 UNCERTAIN 待人工確認，不自動重送。
+     */
+    @Modifying
+    @Query(value = "update tg_manager_bot.outbox_message " +
+            "set status = 'UNCERTAIN', locked_until = null, last_error = ?2, updated_at = ?1 " +
+            "where status = 'SENDING' and locked_until < ?1", nativeQuery = true)
+    int markExpiredLeasesUncertain(Instant now, String reason);
+
+    /**
+     * 同 {@link #markExpiredLeasesUncertain(Instant, String)}，只處理指定 Bot 類型的記錄。
+     */
+    @Modifying
+    @Query(value = "update tg_manager_bot.outbox_message " +
+            "set status = 'UNCERTAIN', locked_until = null, last_error = ?2, updated_at = ?1 " +
+            "where status = 'SENDING' and locked_until < ?1 and bot_type in (?3)", nativeQuery = true)
+    int markExpiredLeasesUncertainForBotTypes(Instant now, String reason, Collection<String> botTypes);
+
+    /**
+     * 延長仍在發送中的記錄租約；已不是 SENDING 的記錄（例如租約曾逾期而改為 UNCERTAIN）不受影響。
+     */
+    @Modifying
+    @Query(value = "update tg_manager_bot.outbox_message set locked_until = ?2, updated_at = ?3 " +
+            "where id in (?1) and status = 'SENDING'", nativeQuery = true)
+    int extendLeases(Collection<Long> ids, Instant lockedUntil, Instant now);
+
+    long countByStatus(OutboxStatus status);
+
+    @Modifying
+    @Query("delete from OutboxMessage o where o.status = ?1 and o.updatedAt < ?2")
+    int deleteByStatusAndUpdatedAtBefore(OutboxStatus status, Instant before);
+}
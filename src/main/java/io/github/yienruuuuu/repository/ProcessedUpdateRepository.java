@@ -0,0 +1,28 @@
+package io.github.yienruuuuu.repository;
+
+import io.github.yienruuuuu.bean.entity.ProcessedUpdate;
+import io.github.yienruuuuu.bean.enums.BotType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public interface ProcessedUpdateRepository extends JpaRepository<ProcessedUpdate, Long> {
+    List<ProcessedUpdate> findByBotTypeOrderByIdDesc(BotType botType, Pageable pageable);
+
+    @Modifying
+    @Query(value = "insert into tg_manager_bot.processed_update (bot_type, update_id, source_chat_id, source_message_id, created_at, updated_at) " +
+            "values (?1, ?2, ?3, ?4, ?5, ?5) on conflict (bot_type, update_id) do nothing", nativeQuery = true)
+    int insertIfAbsent(String botType, Integer updateId, Long sourceChatId, Integer sourceMessageId, Instant createdAt);
+
+    @Modifying
+    @Query("delete from ProcessedUpdate p where p.createdAt < ?1")
+    int deleteByCreatedAtBefore(Instant before);
+}
@@ -0,0 +1,23 @@
+package io.github.yienruuuuu.repository;
+
+import io.github.yienruuuuu.bean.entity.SerialCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+
+/**
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public interface SerialCounterRepository extends JpaRepository<SerialCounter, Long> {
+    /**
+     * 以單一 upsert 將計數器往前推進 blockSize，回傳推進後的值；同一列的並行呼叫由列鎖排隊，不會拿到重疊區段。
+     */
+    @Query(value = "insert into tg_manager_bot.serial_counter (pipeline, serial_date, last_value, created_at, updated_at) " +
+            "values (?1, ?2, ?3, now(), now()) " +
+            "on conflict (pipeline, serial_date) do update " +
+            "set last_value = tg_manager_bot.serial_counter.last_value + excluded.last_value, updated_at = now() " +
+            "returning last_value", nativeQuery = true)
+    long advance(String pipeline, LocalDate serialDate, long blockSize);
+}
@@ -18,8 +18,6 @@ public interface SubForwardPostRepository extends JpaRepository<SubForwardPost,
      */
     List<SubForwardPost> findAllByOrderByCreatedAtAsc();
 
-    SubForwardPost findTopBySerialStartingWithOrderBySerialDesc(String serialPrefix);
-
     @Query("select p.outputText from SubForwardPost p where p.outputText is not null and p.outputText <> ''")
     List<String> findAllOutputText();
 }
@@ -1,17 +1,30 @@
 package io.github.yienruuuuu.service.application.telegram;
 
 import io.github.yienruuuuu.bean.entity.Bot;
-import io.github.yienruuuuu.repository.BotRepository;
+import io.github.yienruuuuu.config.OutboundConfig;
+import io.github.yienruuuuu.service.application.telegram.outbound.CircuitBreaker;
+import io.github.yienruuuuu.service.application.telegram.outbound.CircuitBreakerRegistry;
+import io.github.yienruuuuu.service.application.telegram.outbound.CircuitOpenException;
+import io.github.yienruuuuu.service.application.telegram.outbound.OutboundRateLimiter;
+import io.github.yienruuuuu.service.application.telegram.outbound.TelegramCallException;
+import io.github.yienruuuuu.service.application.telegram.outbound.TelegramHttpTransport;
+import io.github.yienruuuuu.service.application.telegram.outbound.TelegramRetryPolicy;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.client.okhttp.OkHttpTelegramClient;
 import org.telegram.telegrambots.meta.api.methods.botapimethods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.invoices.SendInvoice;
 import org.telegram.telegrambots.meta.api.methods.send.SendAnimation;
 import org.telegram.telegrambots.meta.api.methods.send.SendAudio;
 import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
 import org.telegram.telegrambots.meta.api.methods.send.SendMediaGroup;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
 import org.telegram.telegrambots.meta.api.methods.send.SendVideo;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageReplyMarkup;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.meta.generics.TelegramClient;
 import org.telegram.telegrambots.meta.api.objects.message.Message;
@@ -19,7 +32,15 @@ import org.telegram.telegrambots.meta.api.objects.message.Message;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Eric.Lee
@@ -28,16 +49,50 @@ import java.util.concurrent.ConcurrentHashMap;
 @Component
 @Slf4j
 public class TelegramBotClient {
-    private final BotRepository botRepository;
+    // Telegram 對同一 chat 的限制以訊息次數計，一則相簿整批只算一次
+    private static final int MEDIA_GROUP_WEIGHT = 1;
+    private final TelegramHttpTransport telegramHttpTransport;
+    private final OutboundRateLimiter outboundRateLimiter;
     private final Map<Integer, TelegramClient> clientCache = new ConcurrentHashMap<>();
+    private final Map<Integer, TelegramClient> uploadClientCache = new ConcurrentHashMap<>();
+    private final TelegramRetryPolicy telegramRetryPolicy;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    //發送專用的 I/O 執行緒
+    private final ExecutorService ioExecutor;
+    //限速與重試等待用的計時器
+    private final ScheduledExecutorService retryScheduler;
 
     /**
      * 建立 TelegramBotClient，負責管理 TelegramClient 快取。
      *
-     * @param botRepository Bot 資料存取物件
+     * @param telegramHttpTransport 共用 HTTP 傳輸層
+     * @param outboundRateLimiter 發送限速器
+     * @param telegramRetryPolicy 重試策略
+     * @param circuitBreakerRegistry 熔斷器
+     * @param outboundConfig 發送相關設定
      */
-    public TelegramBotClient(BotRepository botRepository) {
-        this.botRepository = botRepository;
+    public TelegramBotClient(
+            TelegramHttpTransport telegramHttpTransport,
+            OutboundRateLimiter outboundRateLimiter,
+            TelegramRetryPolicy telegramRetryPolicy,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            OutboundConfig outboundConfig
+    ) {
+        this.telegramHttpTransport = telegramHttpTransport;
+        this.outboundRateLimiter = outboundRateLimiter;
+        this.telegramRetryPolicy = telegramRetryPolicy;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "telegram-retry-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.ioExecutor = Executors.newFixedThreadPool(Math.max(1, outboundConfig.getIoThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "telegram-io-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
 
@@ -51,13 +106,7 @@ public class TelegramBotClient {
      * @return API 回傳結果，失敗時回傳 null
      */
     public <T extends Serializable, Method extends BotApiMethod<T>> T send(Method method, Bot bot) {
-        TelegramClient telegramClient = getOrCreateTelegramClient(bot);
-        try {
-            return telegramClient.execute(method);
-        } catch (TelegramApiException e) {
-            handleException(e, method.getMethod());
-            return null;
-        }
+        return execute(bot, method.getMethod(), resolveChatId(method), resolveWeight(method), client -> client.execute(method));
     }
 
     /**
@@ -68,13 +117,7 @@ public class TelegramBotClient {
      * @return 回傳的訊息列表，失敗時回傳 null
      */
     public List<Message> send(SendMediaGroup method, Bot bot) {
-        TelegramClient telegramClient = getOrCreateTelegramClient(bot);
-        try {
-            return telegramClient.execute(method);
-        } catch (TelegramApiException e) {
-            handleException(e, method.getMethod());
-            return null;
-        }
+        return execute(bot, method.getMethod(), method.getChatId(), MEDIA_GROUP_WEIGHT, client -> client.execute(method));
     }
 
     /**
@@ -85,13 +128,7 @@ public class TelegramBotClient {
      * @return 回傳的訊息，失敗時回傳 null
      */
     public Message send(SendPhoto method, Bot bot) {
-        TelegramClient telegramClient = getOrCreateTelegramClient(bot);
-        try {
-            return telegramClient.execute(method);
-        } catch (TelegramApiException e) {
-            handleException(e, method.getMethod());
-            return null;
-        }
+        return execute(bot, method.getMethod(), method.getChatId(), 1, client -> client.execute(method));
     }
 
     /**
@@ -102,13 +139,7 @@ public class TelegramBotClient {
      * @return 回傳的訊息，失敗時回傳 null
      */
     public Message send(SendVideo method, Bot bot) {
-        TelegramClient telegramClient = getOrCreateTelegramClient(bot);
-        try {
-            return telegramClient.execute(method);
-        } catch (TelegramApiException e) {
-            handleException(e, method.getMethod());
-            return null;
-        }
+        return execute(bot, method.getMethod(), method.getChatId(), 1, client -> client.execute(method));
     }
 
     /**
@@ -119,13 +150,7 @@ public class TelegramBotClient {
      * @return 回傳的訊息，失敗時回傳 null
      */
     public Message send(SendDocument method, Bot bot) {
-        TelegramClient telegramClient = getOrCreateTelegramClient(bot);
-        try {
-            return telegramClient.execute(method);
-        } catch (TelegramApiException e) {
-            handleException(e, method.getMethod());
-            return null;
-        }
+        return execute(bot, method.getMethod(), method.getChatId(), 1, client -> client.execute(method));
     }
 
     /**
@@ -136,13 +161,7 @@ public class TelegramBotClient {
      * @return 回傳的訊息，失敗時回傳 null
      */
     public Message send(SendAudio method, Bot bot) {
-        TelegramClient telegramClient = getOrCreateTelegramClient(bot);
-        try {
-            return telegramClient.execute(method);
-        } catch (TelegramApiException e) {
-            handleException(e, method.getMethod());
-            return null;
-        }
+        return execute(bot, method.getMethod(), method.getChatId(), 1, client -> client.execute(method));
     }
 
     /**
@@ -153,35 +172,362 @@ public class TelegramBotClient {
      * @return 回傳的訊息，失敗時回傳 null
      */
     public Message send(SendAnimation method, Bot bot) {
-        TelegramClient telegramClient = getOrCreateTelegramClient(bot);
+        return execute(bot, method.getMethod(), method.getChatId(), 1, client -> client.execute(method));
+    }
+
+    /**
+     * 設定 webhook。
+     *
+     * @param method SetWebhook 方法
+     * @param bot    目標 Bot
+     * @return 是否設定成功，失敗時回傳 null
+     */
+    public Boolean send(SetWebhook method, Bot bot) {
+        return execute(bot, method.getMethod(), null, 0, client -> client.execute(method));
+    }
+
+    /**
+     * 非同步版本的通用 send，在 I/O 執行緒上呼叫 Telegram API。
+     *
+     * @param method Telegram API 方法
+     * @param bot    目標 Bot
+     * @param <T>    回傳型別
+     * @param <Method> 方法型別
+     * @return API 回傳結果；失敗時以 {@link TelegramCallException} 完成
+     */
+    public <T extends Serializable, Method extends BotApiMethod<T>> CompletableFuture<T> sendAsync(Method method, Bot bot) {
+        return executeAsync(bot, method.getMethod(), resolveChatId(method), resolveWeight(method), client -> client.execute(method));
+    }
+
+    /**
+     * 非同步發送媒體群組（相簿）訊息。
+     *
+     * @param method SendMediaGroup 方法
+     * @param bot    目標 Bot
+     * @return 回傳的訊息列表；失敗時以 {@link TelegramCallException} 完成
+     */
+    public CompletableFuture<List<Message>> sendAsync(SendMediaGroup method, Bot bot) {
+        return executeAsync(bot, method.getMethod(), method.getChatId(), MEDIA_GROUP_WEIGHT, client -> client.execute(method));
+    }
+
+    /**
+     * 非同步發送圖片訊息。
+     *
+     * @param method SendPhoto 方法
+     * @param bot    目標 Bot
+     * @return 回傳的訊息；失敗時以 {@link TelegramCallException} 完成
+     */
+    public CompletableFuture<Message> sendAsync(SendPhoto method, Bot bot) {
+        return executeAsync(bot, method.getMethod(), method.getChatId(), 1, client -> client.execute(method));
+    }
+
+    /**
+     * 非同步發送影片訊息。
+     *
+     * @param method SendVideo 方法
+     * @param bot    目標 Bot
+     * @return 回傳的訊息；失敗時以 {@link TelegramCallException} 完成
+     */
+    public CompletableFuture<Message> sendAsync(SendVideo method, Bot bot) {
+        return executeAsync(bot, method.getMethod(), method.getChatId(), 1, client -> client.execute(method));
+    }
+
+    /**
+     * 非同步發送文件訊息。
+     *
+     * @param method SendDocument 方法
+     * @param bot    目標 Bot
+     * @return 回傳的訊息；失敗時以 {@link TelegramCallException} 完成
+     */
+    public CompletableFuture<Message> sendAsync(SendDocument method, Bot bot) {
+        return executeAsync(bot, method.getMethod(), method.getChatId(), 1, client -> client.execute(method));
+    }
+
+    /**
+     * 非同步發送音訊訊息。
+     *
+     * @param method SendAudio 方法
+     * @param bot    目標 Bot
+     * @return 回傳的訊息；失敗時以 {@link TelegramCallException} 完成
+     */
+    public CompletableFuture<Message> sendAsync(SendAudio method, Bot bot) {
+        return executeAsync(bot, method.getMethod(), method.getChatId(), 1, client -> client.execute(method));
+    }
+
+    /**
+     * 非同步發送動圖訊息。
+     *
+     * @param method SendAnimation 方法
+     * @param bot    目標 Bot
+     * @return 回傳的訊息；失敗時以 {@link TelegramCallException} 完成
+     */
+    public CompletableFuture<Message> sendAsync(SendAnimation method, Bot bot) {
+        return executeAsync(bot, method.getMethod(), method.getChatId(), 1, client -> client.execute(method));
+    }
+
+    /**
+     * 記錄非同步呼叫的失敗，供不需要結果的呼叫端掛在 future 後使用。
+     *
+     * @param error 失敗原因，成功時為 null
+     */
+    public void logFailure(Throwable error) {
+        if (error == null) {
+            return;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TelegramCallException callException && callException.getCause() instanceof TelegramApiException apiException) {
+            handleException(apiException, callException.getAction());
+            return;
+        }
+        if (cause instanceof CircuitOpenException) {
+            log.warn(cause.getMessage());
+            return;
+        }
+        log.error("Telegram 非同步呼叫失敗: ", cause);
+    }
+
+    /**
+     * 關閉計時器與 I/O 執行緒，等待已送出的請求完成；尚在等待重試的請求不再送出。
+     */
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdown();
+        ioExecutor.shutdown();
         try {
-            return telegramClient.execute(method);
-        } catch (TelegramApiException e) {
-            handleException(e, method.getMethod());
+            if (!ioExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Telegram I/O 執行緒關閉逾時");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 所有請求的共用執行路徑：熔斷器開啟時直接失敗；否則預約限速許可後延後到可送出的時間，
+     * 再於 I/O 執行緒上呼叫，失敗時依重試策略以計時器排程下一次嘗試。
+     *
+     * @param bot    目標 Bot
+     * @param action 呼叫的方法名稱
+     * @param chatId 目標 chat id，非針對 chat 的請求為 null
+     * @param weight 限速令牌數，0 表示不限速
+     * @param call   實際的 API 呼叫
+     * @param <R>    回傳型別
+     * @return API 回傳結果的 future
+     */
+    private <R> CompletableFuture<R> executeAsync(Bot bot, String action, String chatId, int weight, TelegramCall<R> call) {
+        PendingCall<R> pendingCall = new PendingCall<>(bot, action, chatId, weight, call, circuitBreakerRegistry.buildName(bot.getId(), action));
+        attempt(pendingCall, 1);
+        return pendingCall.result;
+    }
+
+    /**
+     * 執行一次呼叫；限速等待與重試等待都交給計時器排程，不佔用 I/O 執行緒。
+     *
+     * @param pendingCall 待完成的呼叫
+     * @param attempt     第幾次嘗試（從 1 開始）
+     * @param <R>         回傳型別
+     */
+    private <R> void attempt(PendingCall<R> pendingCall, int attempt) {
+        CircuitBreaker breaker = circuitBreakerRegistry.resolve(pendingCall.bot.getId(), pendingCall.action);
+        if (breaker != null && breaker.isRejecting()) {
+            pendingCall.result.completeExceptionally(new CircuitOpenException(pendingCall.action, pendingCall.breakerName));
+            return;
+        }
+        Runnable task = () -> {
+            long permit = breaker == null ? 0L : breaker.tryAcquire();
+            if (permit == CircuitBreaker.NO_PERMIT) {
+                pendingCall.result.completeExceptionally(new CircuitOpenException(pendingCall.action, pendingCall.breakerName));
+                return;
+            }
+            long startNanos = System.nanoTime();
+            try {
+                R result = invoke(pendingCall.bot, pendingCall.action, pendingCall.call);
+                recordBreaker(breaker, pendingCall.breakerName, permit, null, startNanos);
+                pendingCall.result.complete(result);
+            } catch (TelegramCallException e) {
+                recordBreaker(breaker, pendingCall.breakerName, permit, e, startNanos);
+                retryOrFail(pendingCall, attempt, e);
+            } catch (RuntimeException e) {
+                recordBreaker(breaker, pendingCall.breakerName, permit, e, startNanos);
+                pendingCall.result.completeExceptionally(e);
+            }
+        };
+        try {
+            long delayNanos = outboundRateLimiter.reserveDelay(pendingCall.bot.getId(), pendingCall.chatId, pendingCall.weight);
+            if (delayNanos > 0) {
+                retryScheduler.schedule(() -> submitOrFail(pendingCall, task), delayNanos, TimeUnit.NANOSECONDS);
+            } else {
+                ioExecutor.execute(task);
+            }
+        } catch (RejectedExecutionException e) {
+            pendingCall.result.completeExceptionally(e);
+        }
+    }
+
+    private void recordBreaker(CircuitBreaker breaker, String breakerName, long permit, Throwable error, long startNanos) {
+        if (breaker != null) {
+            circuitBreakerRegistry.record(breaker, breakerName, permit, error, System.nanoTime() - startNanos);
+        }
+    }
+
+    private <R> void submitOrFail(PendingCall<R> pendingCall, Runnable task) {
+        try {
+            ioExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            pendingCall.result.completeExceptionally(e);
+        }
+    }
+
+    private <R> void retryOrFail(PendingCall<R> pendingCall, int attempt, TelegramCallException error) {
+        long delayMs = telegramRetryPolicy.nextDelayMs(pendingCall.action, attempt, error);
+        if (delayMs == TelegramRetryPolicy.NO_RETRY) {
+            pendingCall.result.completeExceptionally(error);
+            return;
+        }
+        if (error.getRetryAfterSeconds() != null) {
+            outboundRateLimiter.backOff(pendingCall.bot.getId(), pendingCall.chatId, delayMs);
+        }
+        log.warn("{} 第 {} 次呼叫失敗，{} ms 後重試: {}", pendingCall.action, attempt, delayMs, error.getMessage());
+        try {
+            retryScheduler.schedule(() -> attempt(pendingCall, attempt + 1), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            pendingCall.result.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * 同步請求的執行路徑：與非同步共用限速、熔斷與重試策略，但直接在呼叫端執行緒上呼叫與等待，
+     * 不佔用 I/O 執行緒，也不會因 I/O 執行緒滿載而讓呼叫端卡在等待結果上。
+     *
+     * @param bot    目標 Bot
+     * @param action 呼叫的方法名稱
+     * @param chatId 目標 chat id，非針對 chat 的請求為 null
+     * @param weight 限速令牌數，0 表示不限速
+     * @param call   實際的 API 呼叫
+     * @param <R>    回傳型別
+     * @return API 回傳結果，失敗時回傳 null
+     */
+    private <R> R execute(Bot bot, String action, String chatId, int weight, TelegramCall<R> call) {
+        String breakerName = circuitBreakerRegistry.buildName(bot.getId(), action);
+        CircuitBreaker breaker = circuitBreakerRegistry.resolve(bot.getId(), action);
+        int attempt = 1;
+        try {
+            while (true) {
+                if (breaker != null && breaker.isRejecting()) {
+                    logFailure(new CircuitOpenException(action, breakerName));
+                    return null;
+                }
+                long delayNanos = outboundRateLimiter.reserveDelay(bot.getId(), chatId, weight);
+                if (delayNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delayNanos);
+                }
+                long permit = breaker == null ? 0L : breaker.tryAcquire();
+                if (permit == CircuitBreaker.NO_PERMIT) {
+                    logFailure(new CircuitOpenException(action, breakerName));
+                    return null;
+                }
+                long startNanos = System.nanoTime();
+                try {
+                    R result = invoke(bot, action, call);
+                    recordBreaker(breaker, breakerName, permit, null, startNanos);
+                    return result;
+                } catch (TelegramCallException e) {
+                    recordBreaker(breaker, breakerName, permit, e, startNanos);
+                    long delayMs = telegramRetryPolicy.nextDelayMs(action, attempt, e);
+                    if (delayMs == TelegramRetryPolicy.NO_RETRY) {
+                        logFailure(e);
+                        return null;
+                    }
+                    if (e.getRetryAfterSeconds() != null) {
+                        outboundRateLimiter.backOff(bot.getId(), chatId, delayMs);
+                    }
+                    log.warn("{} 第 {} 次呼叫失敗，{} ms 後重試: {}", action, attempt, delayMs, e.getMessage());
+                    TimeUnit.MILLISECONDS.sleep(delayMs);
+                    attempt++;
+                } catch (RuntimeException e) {
+                    recordBreaker(breaker, breakerName, permit, e, startNanos);
+                    logFailure(e);
+                    return null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("{} 同步呼叫等待中被中斷", action);
             return null;
         }
     }
 
+    private <R> R invoke(Bot bot, String action, TelegramCall<R> call) {
+        TelegramClient telegramClient = getOrCreateTelegramClient(bot, action);
+        try {
+            return call.execute(telegramClient);
+        } catch (TelegramApiException e) {
+            throw new TelegramCallException(action, e);
+        }
+    }
+
     /**
-     * 從快取中取得 TelegramClient，若不存在則建立並快取。
+     * 取得會產生或修改訊息之請求的目標 chat id；其餘請求不受 chat 限速。
      *
-     * @param bot Bot 實體
+     * @param method Telegram API 方法
+     * @return chat id，無對應 chat 時回傳 null
+     */
+    private String resolveChatId(BotApiMethod<?> method) {
+        if (method instanceof SendMessage sendMessage) {
+            return sendMessage.getChatId();
+        }
+        if (method instanceof EditMessageText editMessageText) {
+            return editMessageText.getChatId();
+        }
+        if (method instanceof EditMessageReplyMarkup editMessageReplyMarkup) {
+            return editMessageReplyMarkup.getChatId();
+        }
+        if (method instanceof SendInvoice sendInvoice) {
+            return sendInvoice.getChatId();
+        }
+        return null;
+    }
+
+    /**
+     * 只有送出或修改訊息的請求計入 Telegram 的訊息速率限制。
+     *
+     * @param method Telegram API 方法
+     * @return 令牌數
+     */
+    private int resolveWeight(BotApiMethod<?> method) {
+        if (method instanceof SendMessage
+                || method instanceof EditMessageText
+                || method instanceof EditMessageReplyMarkup
+                || method instanceof SendInvoice) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * 從快取中取得 TelegramClient，若不存在則建立並快取；上傳檔案的方法使用較長逾時的 client。
+     *
+     * @param bot    Bot 實體
+     * @param action 方法名稱
      * @return TelegramClient
      */
-    private TelegramClient getOrCreateTelegramClient(Bot bot) {
-        return clientCache.computeIfAbsent(bot.getId(), this::createTelegramClient);
+    private TelegramClient getOrCreateTelegramClient(Bot bot, String action) {
+        if (telegramHttpTransport.isUpload(action)) {
+            return uploadClientCache.computeIfAbsent(bot.getId(), key -> createTelegramClient(bot, action));
+        }
+        return clientCache.computeIfAbsent(bot.getId(), key -> createTelegramClient(bot, action));
     }
 
     /**
-     * 依據 botId 建立 TelegramClient。
+     * 以共用 HTTP 傳輸層建立 TelegramClient，所有 Bot token 共用同一個連線池。
      *
-     * @param botId Bot 主鍵
+     * @param bot    Bot 實體
+     * @param action 方法名稱
      * @return TelegramClient
      */
-    private TelegramClient createTelegramClient(Integer botId) {
-        Bot bot = botRepository.findBotById(botId);
-        log.info("創建 TelegramClient for botId: {}", botId);
-        return new OkHttpTelegramClient(bot.getBotToken());
+    private TelegramClient createTelegramClient(Bot bot, String action) {
+        log.info("創建 TelegramClient for botId: {}", bot.getId());
+        return new OkHttpTelegramClient(telegramHttpTransport.clientFor(action), bot.getBotToken());
     }
 
     /**
@@ -198,4 +544,28 @@ public class TelegramBotClient {
         }
         log.error("{} 操作失敗: ", action, e);
     }
+
+    @FunctionalInterface
+    private interface TelegramCall<R> {
+        R execute(TelegramClient client) throws TelegramApiException;
+    }
+
+    private static class PendingCall<R> {
+        private final Bot bot;
+        private final String action;
+        private final String chatId;
+        private final int weight;
+        private final TelegramCall<R> call;
+        private final String breakerName;
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+
+        private PendingCall(Bot bot, String action, String chatId, int weight, TelegramCall<R> call, String breakerName) {
+            this.bot = bot;
+            this.action = action;
+            this.chatId = chatId;
+            this.weight = weight;
+            this.call = call;
+            this.breakerName = breakerName;
+        }
+    }
 }
@@ -1,24 +1,47 @@
 package io.github.yienruuuuu.service.application.telegram;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.yienruuuuu.bean.entity.Bot;
 import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.bean.enums.ConsumerMode;
+import io.github.yienruuuuu.bean.enums.IngressMode;
+import io.github.yienruuuuu.config.IngressConfig;
 import io.github.yienruuuuu.repository.BotRepository;
 import io.github.yienruuuuu.service.application.telegram.cashier_bot.CashierBotConsumer;
+import io.github.yienruuuuu.service.application.telegram.consumer.UpdateIngestQueue;
+import io.github.yienruuuuu.service.application.telegram.consumer.UpdateLaneDispatcher;
+import io.github.yienruuuuu.service.application.telegram.journal.UpdateJournal;
+import io.github.yienruuuuu.service.application.telegram.leader.BotLeaderElector;
+import io.github.yienruuuuu.service.application.telegram.leader.BotLeadershipListener;
 import io.github.yienruuuuu.service.application.telegram.main_bot.MainBotConsumer;
+import io.github.yienruuuuu.service.application.telegram.mediagroup.MediaGroupAssembler;
+import io.github.yienruuuuu.service.application.telegram.outbound.TelegramHttpTransport;
 import io.github.yienruuuuu.service.application.telegram.sub_bot.SubBotConsumer;
+import io.github.yienruuuuu.service.application.telegram.webhook.TelegramWebhookService;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.telegram.telegrambots.longpolling.TelegramBotsLongPollingApplication;
+import org.telegram.telegrambots.longpolling.interfaces.LongPollingUpdateConsumer;
 import org.telegram.telegrambots.longpolling.util.LongPollingSingleThreadUpdateConsumer;
 import org.telegram.telegrambots.meta.api.methods.GetMe;
 import org.telegram.telegrambots.meta.api.methods.commands.SetMyCommands;
+import org.telegram.telegrambots.meta.api.methods.updates.DeleteWebhook;
 import org.telegram.telegrambots.meta.api.objects.commands.BotCommand;
+import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.api.objects.User;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
 /**
  * @author Eric.Lee
  * Date: 2026/01/23
@@ -26,6 +49,10 @@ import java.util.List;
 @Slf4j
 @Service
 public class TelegramBotService {
+    // telegrambots 長輪詢預設的 getUpdates limit，批次未滿代表 Telegram 端已無待取更新
+    private static final int LONG_POLLING_BATCH_LIMIT = 100;
+    private static final long LANE_SHUTDOWN_TIMEOUT_MS = 10_000L;
+    private static final long DRAIN_POLL_INTERVAL_MS = 50L;
     //TG長輪巡物件
     private TelegramBotsLongPollingApplication botsApplication;
     //Repo
@@ -35,6 +62,17 @@ public class TelegramBotService {
     private final MainBotConsumer mainBotConsumer;
     private final CashierBotConsumer cashierBotConsumer;
     private final SubBotConsumer subBotConsumer;
+    private final IngressConfig ingressConfig;
+    private final TelegramWebhookService telegramWebhookService;
+    private final UpdateJournal updateJournal;
+    private final ObjectMapper objectMapper;
+    private final TelegramHttpTransport telegramHttpTransport;
+    private final MediaGroupAssembler mediaGroupAssembler;
+    private final BotLeaderElector botLeaderElector;
+    //各 Bot 的接收佇列
+    private final Map<BotType, UpdateIngestQueue> ingestQueues = new ConcurrentHashMap<>();
+    //各 Bot 的通道分派器（僅 LANES 模式）
+    private final Map<BotType, UpdateLaneDispatcher> laneDispatchers = new ConcurrentHashMap<>();
 
     /**
      * 建立 TelegramBotService，注入主要依賴。
@@ -42,28 +80,53 @@ public class TelegramBotService {
      * @param mainBotConsumer 主要更新消費者
      * @param botRepository   Bot 資料存取物件
      * @param telegramBotClient Telegram API 呼叫封裝
+     * @param ingressConfig   更新接收設定
+     * @param telegramWebhookService webhook 接收服務
+     * @param updateJournal 更新日誌
+     * @param objectMapper JSON 序列化工具
+     * @param telegramHttpTransport 共用 HTTP 傳輸層
+     * @param mediaGroupAssembler media group 組裝器
+     * @param botLeaderElector 長輪詢選主器
      */
     public TelegramBotService(
             MainBotConsumer mainBotConsumer,
             CashierBotConsumer cashierBotConsumer,
             SubBotConsumer subBotConsumer,
             BotRepository botRepository,
-            TelegramBotClient telegramBotClient
+            TelegramBotClient telegramBotClient,
+            IngressConfig ingressConfig,
+            TelegramWebhookService telegramWebhookService,
+            UpdateJournal updateJournal,
+            ObjectMapper objectMapper,
+            TelegramHttpTransport telegramHttpTransport,
+            MediaGroupAssembler mediaGroupAssembler,
+            BotLeaderElector botLeaderElector
     ) {
         this.botRepository = botRepository;
         this.telegramBotClient = telegramBotClient;
         this.mainBotConsumer = mainBotConsumer;
         this.cashierBotConsumer = cashierBotConsumer;
         this.subBotConsumer = subBotConsumer;
+        this.ingressConfig = ingressConfig;
+        this.telegramWebhookService = telegramWebhookService;
+        this.updateJournal = updateJournal;
+        this.objectMapper = objectMapper;
+        this.telegramHttpTransport = telegramHttpTransport;
+        this.mediaGroupAssembler = mediaGroupAssembler;
+        this.botLeaderElector = botLeaderElector;
     }
 
     /**
      * 啟動後註冊機器人並更新資料庫中的 Bot 資訊。
+     * 長輪詢且啟用選主時，只先暖機並加入競選，取得主控權後才開始接收。
      */
     @PostConstruct
     public void registerBots() {
-        // 初始化 TG 長輪詢應用
-        botsApplication = new TelegramBotsLongPollingApplication();
+        boolean webhookMode = ingressConfig.getIngressMode() == IngressMode.WEBHOOK;
+        if (!webhookMode) {
+            // 初始化 TG 長輪詢應用，與發送端共用連線池
+            botsApplication = new TelegramBotsLongPollingApplication(ObjectMapper::new, telegramHttpTransport::getLongPollingClient);
+        }
         List<Bot> bots = botRepository.findAll();
         if (bots.isEmpty()) {
             log.warn("未找到任何 Bot 設定，無法註冊");
@@ -79,28 +142,135 @@ public class TelegramBotService {
                 log.warn("未找到對應的 consumer，BotType: {}", botEntity.getType());
                 continue;
             }
-            try {
-                botsApplication.registerBot(botEntity.getBotToken(), consumer);
-                log.info("機器人 {} 註冊完成", botEntity.getType());
-            } catch (TelegramApiException e) {
-                log.error("機器人 {} 註冊發生錯誤 , 錯誤訊息 : ", botEntity.getType(), e);
+            if (!webhookMode && ingressConfig.isLeaderEnabled()) {
+                // 待命節點先取得 Bot 資訊，讓連線池與快取在接手前就緒
+                updateBotData(botEntity);
+                botLeaderElector.join(botEntity, new PollingLeadershipListener(consumer));
                 continue;
             }
-            // 更新資料庫中的 Bot 資料設定
-            updateBotData(botEntity);
-            // 建立指令
-            if (BotType.MAIN.equals(botEntity.getType())) {
-                registerBotCommands(botEntity);
+            activate(botEntity, consumer, webhookMode);
+        }
+    }
+
+    /**
+     * 開始接收 Bot 的更新：重播上次未完成的更新、註冊接收端、回寫 Bot 資訊並建立指令。
+     *
+     * @param botEntity   Bot 實體
+     * @param consumer    單筆更新消費者
+     * @param webhookMode 是否為 webhook 模式
+     * @return 是否註冊成功
+     */
+    private boolean activate(Bot botEntity, LongPollingSingleThreadUpdateConsumer consumer, boolean webhookMode) {
+        // 先重播上次未完成的更新，再開始接收新更新
+        updateJournal.replay(botEntity.getType(), consumer);
+        LongPollingUpdateConsumer pipeline = buildIngestQueue(botEntity.getType(), buildPipeline(botEntity.getType(), consumer));
+        if (webhookMode) {
+            if (!telegramWebhookService.register(botEntity, pipeline,
+                    isJournaled(botEntity.getType()) ? updateJournal : null)) {
+                return false;
             }
-            if (BotType.CASHIER.equals(botEntity.getType())) {
-                registerCashierCommands(botEntity);
+        } else if (!registerLongPolling(botEntity, pipeline)) {
+            return false;
+        }
+        // 更新資料庫中的 Bot 資料設定
+        updateBotData(botEntity);
+        // 建立指令
+        if (BotType.MAIN.equals(botEntity.getType())) {
+            registerBotCommands(botEntity);
+        }
+        if (BotType.CASHIER.equals(botEntity.getType())) {
+            registerCashierCommands(botEntity);
+        }
+        if (BotType.SUB.equals(botEntity.getType())) {
+            registerSubBotCommands(botEntity);
+        }
+        return true;
+    }
+
+    /**
+     * 交出長輪詢主控權：停止輪詢，等已收到的更新處理完，送出未收齊的相簿並中止重送。
+     * 已取得的更新在本節點處理完畢；Telegram 只會把之後的更新交給接手的節點。
+     *
+     * @param botEntity Bot 實體
+     */
+    private void deactivate(Bot botEntity) {
+        BotType type = botEntity.getType();
+        try {
+            botsApplication.unregisterBot(botEntity.getBotToken());
+        } catch (TelegramApiException e) {
+            log.error("機器人 {} 停止長輪詢發生錯誤 , 錯誤訊息 : ", type, e);
+        }
+        awaitDrained(type, ingressConfig.getLeaderHandoffTimeoutMs());
+        int flushed = mediaGroupAssembler.flushAll(type);
+        if (BotType.MAIN.equals(type)) {
+            mainBotConsumer.haltResend();
+        }
+        if (BotType.SUB.equals(type)) {
+            subBotConsumer.haltResend();
+        }
+        log.info("機器人 {} 已交出長輪詢主控權，提前送出 {} 組 media group", type, flushed);
+    }
+
+    /**
+     * 等待接收佇列與通道清空，逾時則不再等待。
+     *
+     * @param type      Bot 類型
+     * @param timeoutMs 最長等待毫秒數
+     */
+    private void awaitDrained(BotType type, long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (pendingDepth(type) > 0) {
+            if (System.nanoTime() >= deadline) {
+                log.warn("機器人 {} 交出主控權時仍有 {} 筆更新未處理", type, pendingDepth(type));
+                return;
             }
-            if (BotType.SUB.equals(botEntity.getType())) {
-                registerSubBotCommands(botEntity);
+            try {
+                TimeUnit.MILLISECONDS.sleep(DRAIN_POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             }
         }
     }
 
+    private long pendingDepth(BotType type) {
+        long depth = 0;
+        UpdateIngestQueue ingestQueue = ingestQueues.get(type);
+        if (ingestQueue != null) {
+            depth += ingestQueue.getDepth() + ingestQueue.getSpilledPending();
+        }
+        UpdateLaneDispatcher dispatcher = laneDispatchers.get(type);
+        if (dispatcher != null) {
+            depth += Arrays.stream(dispatcher.getLaneDepths()).sum();
+        }
+        return depth;
+    }
+
+    /**
+     * 以長輪詢註冊機器人；先移除殘留的 webhook，避免 getUpdates 衝突。
+     *
+     * @param botEntity Bot 實體
+     * @param pipeline  更新處理管線
+     * @return 是否註冊成功
+     */
+    private boolean registerLongPolling(Bot botEntity, LongPollingUpdateConsumer pipeline) {
+        telegramBotClient.send(DeleteWebhook.builder().build(), botEntity);
+        try {
+            BotType type = botEntity.getType();
+            // 在進入接收佇列前記錄批次邊界，讓相簿在最後一則到達後即可送出
+            LongPollingUpdateConsumer observed = updates -> {
+                mediaGroupAssembler.observeBatch(type, updates, updates.size() >= LONG_POLLING_BATCH_LIMIT);
+                pipeline.consume(updates);
+            };
+            botsApplication.registerBot(botEntity.getBotToken(), observed);
+            log.info("機器人 {} 註冊完成", botEntity.getType());
+            return true;
+        } catch (TelegramApiException e) {
+            log.error("機器人 {} 註冊發生錯誤 , 錯誤訊息 : ", botEntity.getType(), e);
+            return false;
+        }
+    }
+
     /**
      * 取得機器人自我資訊並回寫資料庫。
      *
@@ -172,15 +342,157 @@ public class TelegramBotService {
     }
 
     /**
-     * 關閉長輪詢並釋放資源。
+     * 依消費模式組出實際註冊的消費者。
+     * LANES 模式下，MAIN 與 SUB 會改由通道分派器依 chat id 平行處理。
+     *
+     * @param type     Bot 類型
+     * @param consumer 單筆更新消費者
+     * @return 註冊到長輪詢的消費者
+     */
+    private LongPollingUpdateConsumer buildPipeline(BotType type, LongPollingSingleThreadUpdateConsumer consumer) {
+        if (ingressConfig.getConsumerMode() != ConsumerMode.LANES) {
+            return consumer;
+        }
+        if (!BotType.MAIN.equals(type) && !BotType.SUB.equals(type)) {
+            return consumer;
+        }
+        int laneCount = Math.max(1, ingressConfig.getConsumerLaneCount());
+        int laneCapacity = Math.max(1, ingressConfig.getIngestCapacity() / laneCount);
+        UpdateLaneDispatcher dispatcher = new UpdateLaneDispatcher(type.name(), consumer, laneCount, laneCapacity);
+        UpdateLaneDispatcher previous = laneDispatchers.put(type, dispatcher);
+        if (previous != null) {
+            previous.shutdown(0L);
+        }
+        log.info("機器人 {} 使用通道模式，通道數 {}", type, ingressConfig.getConsumerLaneCount());
+        return dispatcher;
+    }
+
+    /**
+     * 在處理管線前加上有界接收佇列。
+     *
+     * @param type     Bot 類型
+     * @param pipeline 更新處理管線
+     * @return 註冊到接收端的消費者
+     */
+    private LongPollingUpdateConsumer buildIngestQueue(BotType type, LongPollingUpdateConsumer pipeline) {
+        UpdateIngestQueue ingestQueue = new UpdateIngestQueue(
+                type,
+                isJournaled(type) ? updateJournal : null,
+                pipeline,
+                ingressConfig.getIngestCapacity(),
+                ingressConfig.getIngestBatchSize(),
+                ingressConfig.getIngestOverflowPolicy(),
+                resolveLowPriority(type),
+                objectMapper,
+                Paths.get(ingressConfig.getIngestSpillDir())
+        );
+        UpdateIngestQueue previous = ingestQueues.put(type, ingestQueue);
+        if (previous != null) {
+            previous.shutdown(0L);
+        }
+        return ingestQueue;
+    }
+
+    /**
+     * 只有 MAIN 與 SUB 的 consumer 會在處理完成後寫入完成標記，其餘 Bot 不寫日誌，避免記錄永遠未完成。
+     *
+     * @param type Bot 類型
+     * @return 是否寫入更新日誌
+     */
+    private boolean isJournaled(BotType type) {
+        return BotType.MAIN.equals(type) || BotType.SUB.equals(type);
+    }
+
+    /**
+     * 低優先度更新：MAIN 與 SUB 的管理員對話訊息（如 /resend 提示）與編輯事件；
+     * CASHIER 的對話訊息含付款結果，只有編輯事件可丟棄。
+     *
+     * @param type Bot 類型
+     * @return 低優先度判斷
+     */
+    private Predicate<Update> resolveLowPriority(BotType type) {
+        if (BotType.CASHIER.equals(type)) {
+            return update -> update.hasEditedMessage() || update.hasEditedChannelPost();
+        }
+        return update -> update.hasMessage() || update.hasEditedMessage() || update.hasEditedChannelPost();
+    }
+
+    /**
+     * 取得各 Bot 在本節點的長輪詢主控狀態，未啟用選主時為空。
+     *
+     * @return Bot 類型對應是否為主控
+     */
+    public Map<BotType, Boolean> getLeadership() {
+        return botLeaderElector.getLeadership();
+    }
+
+    /**
+     * 取得各 Bot 的接收佇列。
+     *
+     * @return Bot 類型對應接收佇列
+     */
+    public Map<BotType, UpdateIngestQueue> getIngestQueues() {
+        return new LinkedHashMap<>(ingestQueues);
+    }
+
+    /**
+     * 取得各 Bot 通道目前的佇列深度。
+     *
+     * @return Bot 類型對應各通道深度
+     */
+    public Map<BotType, int[]> getLaneDepths() {
+        Map<BotType, int[]> result = new LinkedHashMap<>();
+        laneDispatchers.forEach((type, dispatcher) -> result.put(type, dispatcher.getLaneDepths()));
+        return result;
+    }
+
+    /**
+     * 關閉長輪詢並釋放資源。啟用選主時先交出持有的主控權，每個 Bot 處理完已收到的更新、送出未收齊的相簿、
+     * 中止重送後才釋放鎖，接手節點不會在交接完成前開始輪詢，相簿也不會留在本節點的快照裡。
      *
      * @throws Exception 關閉過程可能拋出的例外
      */
     @PreDestroy
     public void shutdownBot() throws Exception {
+        if (ingressConfig.isLeaderEnabled()) {
+            botLeaderElector.resignAll();
+        }
         if (botsApplication != null) {
             log.info("關閉機器人並釋放資源");
             botsApplication.close();
         }
+        telegramWebhookService.shutdown();
+        ingestQueues.values().forEach(ingestQueue -> ingestQueue.shutdown(LANE_SHUTDOWN_TIMEOUT_MS));
+        ingestQueues.clear();
+        laneDispatchers.values().forEach(dispatcher -> dispatcher.shutdown(LANE_SHUTDOWN_TIMEOUT_MS));
+        laneDispatchers.clear();
+    }
+
+    /**
+     * 依長輪詢主控權啟停 Bot 的接收。
+     */
+    private class PollingLeadershipListener implements BotLeadershipListener {
+        private final LongPollingSingleThreadUpdateConsumer consumer;
+
+        private PollingLeadershipListener(LongPollingSingleThreadUpdateConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void onLeadershipAcquired(Bot bot) {
+            if (!activate(bot, consumer, false)) {
+                throw new IllegalStateException("機器人 " + bot.getType() + " 註冊長輪詢失敗");
+            }
+        }
+
+        @Override
+        public void onLeadershipRevoked(Bot bot) {
+            deactivate(bot);
+        }
+
+        @Override
+        public void onStandby(Bot bot) {
+            telegramBotClient.send(GetMe.builder().build(), bot);
+        }
     }
 }
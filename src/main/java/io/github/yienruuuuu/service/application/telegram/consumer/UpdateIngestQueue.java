@@ -0,0 +1,457 @@
+package io.github.yienruuuuu.service.application.telegram.consumer;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.bean.enums.IngestOverflowPolicy;
+import io.github.yienruuuuu.service.application.telegram.journal.UpdateJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.longpolling.interfaces.LongPollingUpdateConsumer;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * 介於更新接收端與處理管線之間的有界接收佇列。
+ * 接收端只做無鎖入列，由專屬執行緒批次交給下游；佇列滿時依溢出策略
+ * 阻塞接收端（長輪詢因此暫停抓取）、丟棄低優先度更新，或寫入磁碟待稍後讀回。
+ * <p>
+ * 關閉時仍未處理的更新一律寫入磁碟，下次啟動時優先讀回。
+ * <p>
+ * {@link #consume} 回傳後長輪詢就會推進 offset（webhook 則回應 200），因此更新在入列前先寫入更新日誌；
+ * 程序異常終止時，記憶體佇列與溢出檔中的更新都能由日誌重播。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+public class UpdateIngestQueue implements LongPollingUpdateConsumer {
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final String SPILL_SUFFIX = ".spill";
+    private final String name;
+    private final BotType botType;
+    private final UpdateJournal updateJournal;
+    private final LongPollingUpdateConsumer downstream;
+    private final int capacity;
+    private final int batchSize;
+    private final IngestOverflowPolicy policy;
+    private final Predicate<Update> lowPriority;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader updateReader;
+    private final Path spillDir;
+    private final ConcurrentLinkedQueue<IngestEntry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicLong spilledPending = new AtomicLong();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder spilledCount = new LongAdder();
+    private final LongAdder deliveredCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final Object spillLock = new Object();
+    private final Deque<Path> sealedSpillFiles = new ArrayDeque<>();
+    private Path activeSpillFile;
+    private BufferedWriter spillWriter;
+    private long spillSeq;
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    /**
+     * 建立接收佇列，載入上次遺留的溢出檔並啟動處理執行緒。
+     *
+     * @param botType       Bot 類型
+     * @param updateJournal 更新日誌，null 表示此 Bot 不寫日誌
+     * @param downstream   下游處理管線
+     * @param capacity     記憶體佇列容量
+     * @param batchSize    單批交給下游的最大筆數
+     * @param policy       溢出策略
+     * @param lowPriority  判斷是否為低優先度更新
+     * @param objectMapper JSON 序列化工具
+     * @param spillDir     溢出檔目錄
+     */
+    public UpdateIngestQueue(
+            BotType botType,
+            UpdateJournal updateJournal,
+            LongPollingUpdateConsumer downstream,
+            int capacity,
+            int batchSize,
+            IngestOverflowPolicy policy,
+            Predicate<Update> lowPriority,
+            ObjectMapper objectMapper,
+            Path spillDir
+    ) {
+        this.name = botType.name();
+        this.botType = botType;
+        this.updateJournal = updateJournal;
+        this.downstream = downstream;
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.policy = policy;
+        this.lowPriority = lowPriority;
+        this.objectMapper = objectMapper;
+        this.updateReader = objectMapper.readerFor(Update.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.spillDir = spillDir;
+        loadLeftoverSpillFiles();
+        this.drainer = new Thread(this::runLoop, name + "-ingest");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * 先將一批更新寫入日誌，再放入佇列；回傳時更新已持久保存。
+     *
+     * @param updates Telegram 更新列表
+     */
+    @Override
+    public void consume(List<Update> updates) {
+        if (updateJournal != null && !updateJournal.appendAll(botType, updates)) {
+            log.error("{} 更新寫入日誌失敗，這批更新只保存在記憶體佇列", name);
+        }
+        for (Update update : updates) {
+            offer(update);
+        }
+    }
+
+    /**
+     * 取得記憶體佇列深度。
+     *
+     * @return 佇列深度
+     */
+    public int getDepth() {
+        return depth.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public IngestOverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * 取得仍在磁碟上等待讀回的更新數量。
+     *
+     * @return 待讀回筆數
+     */
+    public long getSpilledPending() {
+        return spilledPending.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public long getSpilledCount() {
+        return spilledCount.sum();
+    }
+
+    /**
+     * 取得更新在佇列中的平均等待時間。
+     *
+     * @return 平均等待毫秒數
+     */
+    public double getAverageWaitMs() {
+        long delivered = deliveredCount.sum();
+        if (delivered == 0) {
+            return 0.0;
+        }
+        return totalWaitNanos.sum() / (double) delivered / 1_000_000.0;
+    }
+
+    /**
+     * 取得更新在佇列中的最長等待時間。
+     *
+     * @return 最長等待毫秒數
+     */
+    public long getMaxWaitMs() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    /**
+     * 停止處理執行緒；逾時仍未處理的更新寫入磁碟，下次啟動時讀回。
+     *
+     * @param timeoutMs 等待上限（毫秒）
+     */
+    public void shutdown(long timeoutMs) {
+        running = false;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int remaining = 0;
+        IngestEntry entry;
+        while ((entry = queue.poll()) != null) {
+            depth.decrementAndGet();
+            spill(entry.update);
+            remaining++;
+        }
+        if (remaining > 0) {
+            log.warn("{} 接收佇列關閉時尚有 {} 筆更新，已寫入溢出檔", name, remaining);
+        }
+        synchronized (spillLock) {
+            sealActiveSpillFile();
+        }
+    }
+
+    private void offer(Update update) {
+        if (update == null) {
+            return;
+        }
+        if (policy == IngestOverflowPolicy.SPILL || !running) {
+            if (!running || spilledPending.get() > 0 || !tryEnqueue(update)) {
+                spill(update);
+            }
+            return;
+        }
+        while (!tryEnqueue(update)) {
+            if (policy == IngestOverflowPolicy.DROP_LOW_PRIORITY && lowPriority.test(update)) {
+                droppedCount.increment();
+                log.warn("{} 接收佇列已滿，丟棄低優先度更新 {}", name, update.getUpdateId());
+                if (updateJournal != null) {
+                    // 刻意丟棄的更新不需在重啟後重播
+                    updateJournal.complete(botType, update.getUpdateId());
+                }
+                return;
+            }
+            if (!running) {
+                spill(update);
+                return;
+            }
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+    }
+
+    private boolean tryEnqueue(Update update) {
+        int current;
+        do {
+            current = depth.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!depth.compareAndSet(current, current + 1));
+        queue.offer(new IngestEntry(update, System.nanoTime()));
+        LockSupport.unpark(drainer);
+        return true;
+    }
+
+    private void runLoop() {
+        while (running || depth.get() > 0) {
+            List<Update> batch = pollBatch();
+            if (!batch.isEmpty()) {
+                deliver(batch);
+                continue;
+            }
+            if (running && spilledPending.get() > 0) {
+                drainOneSpillFile();
+                continue;
+            }
+            if (running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private List<Update> pollBatch() {
+        List<Update> batch = new ArrayList<>(Math.min(batchSize, Math.max(1, depth.get())));
+        long now = System.nanoTime();
+        IngestEntry entry;
+        while (batch.size() < batchSize && (entry = queue.poll()) != null) {
+            depth.decrementAndGet();
+            recordWait(now - entry.enqueuedNanos);
+            batch.add(entry.update);
+        }
+        return batch;
+    }
+
+    private void deliver(List<Update> batch) {
+        try {
+            downstream.consume(batch);
+        } catch (Exception e) {
+            log.error("{} 接收佇列批次處理失敗，共 {} 筆", name, batch.size(), e);
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        deliveredCount.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private void spill(Update update) {
+        synchronized (spillLock) {
+            try {
+                if (spillWriter == null) {
+                    openSpillWriter();
+                }
+                spillWriter.write(System.currentTimeMillis() + "\t" + objectMapper.writeValueAsString(update));
+                spillWriter.newLine();
+                spillWriter.flush();
+                spilledPending.incrementAndGet();
+                spilledCount.increment();
+            } catch (IOException e) {
+                droppedCount.increment();
+                log.error("{} 更新寫入溢出檔失敗，updateId={}", name, update.getUpdateId(), e);
+            }
+        }
+        LockSupport.unpark(drainer);
+    }
+
+    /**
+     * 封存目前的溢出檔並讀回最舊的一個，逐批交給下游。
+     */
+    private void drainOneSpillFile() {
+        Path file;
+        synchronized (spillLock) {
+            if (sealedSpillFiles.isEmpty()) {
+                sealActiveSpillFile();
+            }
+            file = sealedSpillFiles.pollFirst();
+            if (file == null) {
+                spilledPending.set(0L);
+                return;
+            }
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<Update> batch = new ArrayList<>(batchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Update update = parseSpillLine(file, line);
+                if (update == null) {
+                    spilledPending.decrementAndGet();
+                    continue;
+                }
+                batch.add(update);
+                if (batch.size() >= batchSize) {
+                    deliver(batch);
+                    spilledPending.addAndGet(-batch.size());
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                deliver(batch);
+                spilledPending.addAndGet(-batch.size());
+            }
+        } catch (IOException e) {
+            // 檔案保留到下一輪重讀，已交付的更新由已處理帳本略過
+            log.error("{} 讀回溢出檔 {} 失敗，稍後重試", name, file.getFileName(), e);
+            synchronized (spillLock) {
+                sealedSpillFiles.addLast(file);
+            }
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("{} 刪除溢出檔 {} 失敗", name, file.getFileName(), e);
+        }
+        synchronized (spillLock) {
+            if (sealedSpillFiles.isEmpty() && spillWriter == null) {
+                spilledPending.set(0L);
+            }
+        }
+    }
+
+    /**
+     * 解析溢出檔的一行；格式錯誤時記錄並回傳 null，由呼叫端略過後繼續讀取。
+     */
+    private Update parseSpillLine(Path file, String line) {
+        int tab = line.indexOf('\t');
+        if (tab <= 0) {
+            log.warn("{} 溢出檔 {} 有格式錯誤的行，略過", name, file.getFileName());
+            return null;
+        }
+        try {
+            long spilledAtMs = Long.parseLong(line.substring(0, tab));
+            Update update = updateReader.readValue(line.substring(tab + 1));
+            recordWait(TimeUnit.MILLISECONDS.toNanos(Math.max(0L, System.currentTimeMillis() - spilledAtMs)));
+            return update;
+        } catch (IOException | RuntimeException e) {
+            log.warn("{} 溢出檔 {} 有無法解析的行，略過: {}", name, file.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void openSpillWriter() throws IOException {
+        Files.createDirectories(spillDir);
+        spillSeq++;
+        activeSpillFile = spillDir.resolve(String.format("%s-%d-%06d%s", name, System.currentTimeMillis(), spillSeq, SPILL_SUFFIX));
+        spillWriter = Files.newBufferedWriter(activeSpillFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private void sealActiveSpillFile() {
+        if (spillWriter == null) {
+            return;
+        }
+        try {
+            spillWriter.close();
+        } catch (IOException e) {
+            log.warn("{} 關閉溢出檔失敗", name, e);
+        }
+        sealedSpillFiles.addLast(activeSpillFile);
+        spillWriter = null;
+        activeSpillFile = null;
+    }
+
+    private void loadLeftoverSpillFiles() {
+        if (!Files.isDirectory(spillDir)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.list(spillDir)) {
+            stream.filter(path -> {
+                        String fileName = path.getFileName().toString();
+                        return fileName.startsWith(name + "-") && fileName.endsWith(SPILL_SUFFIX);
+                    })
+                    .sorted()
+                    .forEach(path -> {
+                        sealedSpillFiles.addLast(path);
+                        spilledPending.addAndGet(countLines(path));
+                    });
+        } catch (IOException e) {
+            log.warn("{} 讀取遺留溢出檔失敗", name, e);
+        }
+        if (spilledPending.get() > 0) {
+            log.info("{} 載入遺留溢出更新 {} 筆", name, spilledPending.get());
+        }
+    }
+
+    private long countLines(Path path) {
+        try (Stream<String> lines = Files.lines(path, StandardCharsets.UTF_8)) {
+            return lines.count();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static class IngestEntry {
+        private final Update update;
+        private final long enqueuedNanos;
+
+        private IngestEntry(Update update, long enqueuedNanos) {
+            this.update = update;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
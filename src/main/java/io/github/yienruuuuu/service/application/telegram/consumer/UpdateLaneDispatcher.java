@@ -0,0 +1,179 @@
+package io.github.yienruuuuu.service.application.telegram.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.longpolling.interfaces.LongPollingUpdateConsumer;
+import org.telegram.telegrambots.longpolling.util.LongPollingSingleThreadUpdateConsumer;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 依 chat id 將更新分派到固定數量的工作通道。
+ * 每條通道為單一執行緒，因此同一個來源頻道或管理員對話的更新維持原順序，
+ * 不相關的 chat 則可平行處理。通道佇列有上限，滿時阻塞上游直到有空位。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+public class UpdateLaneDispatcher implements LongPollingUpdateConsumer {
+    private final String name;
+    private final LongPollingSingleThreadUpdateConsumer delegate;
+    private final ThreadPoolExecutor[] lanes;
+
+    /**
+     * 建立通道分派器。
+     *
+     * @param name      分派器名稱，用於執行緒命名與日誌
+     * @param delegate  實際處理單筆更新的消費者
+     * @param laneCount 通道數量
+     * @param laneCapacity 單一通道佇列上限
+     */
+    public UpdateLaneDispatcher(String name, LongPollingSingleThreadUpdateConsumer delegate, int laneCount, int laneCapacity) {
+        this.name = name;
+        this.delegate = delegate;
+        this.lanes = new ThreadPoolExecutor[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            String threadName = name + "-lane-" + i;
+            lanes[i] = new ThreadPoolExecutor(
+                    1,
+                    1,
+                    0L,
+                    TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(Math.max(1, laneCapacity)),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    UpdateLaneDispatcher::blockUntilQueued
+            );
+        }
+    }
+
+    /**
+     * 將一批更新依 chat id 分派到對應通道。
+     *
+     * @param updates Telegram 更新列表
+     */
+    @Override
+    public void consume(List<Update> updates) {
+        for (Update update : updates) {
+            dispatch(update);
+        }
+    }
+
+    /**
+     * 將單筆更新送入對應通道。
+     *
+     * @param update Telegram 更新
+     */
+    public void dispatch(Update update) {
+        lanes[resolveLaneIndex(update)].execute(() -> consumeSafely(update));
+    }
+
+    /**
+     * 取得各通道目前排隊中的更新數量。
+     *
+     * @return 各通道佇列深度
+     */
+    public int[] getLaneDepths() {
+        int[] depths = new int[lanes.length];
+        for (int i = 0; i < lanes.length; i++) {
+            depths[i] = lanes[i].getQueue().size() + lanes[i].getActiveCount();
+        }
+        return depths;
+    }
+
+    /**
+     * 停止接收新更新，並等待已排隊的更新處理完畢。
+     *
+     * @param timeoutMs 等待上限（毫秒）
+     */
+    public void shutdown(long timeoutMs) {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        for (ThreadPoolExecutor lane : lanes) {
+            long remaining = Math.max(0L, deadline - System.currentTimeMillis());
+            try {
+                if (!lane.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+                    log.warn("{} 通道關閉逾時，剩餘 {} 筆更新未處理", name, lane.getQueue().size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void blockUntilQueued(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("lane is shut down");
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("interrupted while waiting for lane capacity", e);
+        }
+    }
+
+    private void consumeSafely(Update update) {
+        try {
+            delegate.consume(update);
+        } catch (Exception e) {
+            log.error("{} 處理更新失敗，updateId={}", name, update.getUpdateId(), e);
+        }
+    }
+
+    private int resolveLaneIndex(Update update) {
+        Long chatId = resolveChatId(update);
+        if (chatId == null) {
+            return 0;
+        }
+        return Math.floorMod(Long.hashCode(chatId), lanes.length);
+    }
+
+    /**
+     * 取得更新所屬的 chat id，用於決定分派通道。
+     *
+     * @param update Telegram 更新
+     * @return chat id，無法判斷時回傳 null
+     */
+    public static Long resolveChatId(Update update) {
+        if (update == null) {
+            return null;
+        }
+        if (update.hasChannelPost()) {
+            return update.getChannelPost().getChatId();
+        }
+        if (update.hasMessage()) {
+            return update.getMessage().getChatId();
+        }
+        if (update.hasEditedChannelPost()) {
+            return update.getEditedChannelPost().getChatId();
+        }
+        if (update.hasEditedMessage()) {
+            return update.getEditedMessage().getChatId();
+        }
+        if (update.hasCallbackQuery()) {
+            CallbackQuery callbackQuery = update.getCallbackQuery();
+            if (callbackQuery.getMessage() != null) {
+                return callbackQuery.getMessage().getChatId();
+            }
+            return callbackQuery.getFrom() == null ? null : callbackQuery.getFrom().getId();
+        }
+        if (update.hasPreCheckoutQuery() && update.getPreCheckoutQuery().getFrom() != null) {
+            return update.getPreCheckoutQuery().getFrom().getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,460 @@
+package io.github.yienruuuuu.service.application.telegram.journal;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.config.DurabilityConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.longpolling.util.LongPollingSingleThreadUpdateConsumer;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 以記憶體映射區段檔實作的更新日誌（append-only）。
+ * 接收端在回應 Telegram（長輪詢推進 offset、webhook 回 200）之前寫入原始更新，貼文保存後寫入完成標記；
+ * 程序異常終止後，啟動時會把未完成的更新重新交給 consumer，達成 at-least-once 處理。
+ * 映射區段的內容在程序異常終止後仍由作業系統寫回；要連主機斷電也不遺失時開啟 force-on-append。
+ * <p>
+ * 每個 Bot 類型各有自己的目錄、區段與鎖，序列化在鎖外進行，各 Bot 之間的寫入互不阻塞。
+ * 區段寫滿時輪替：新區段先寫入所有未完成的記錄，再刪除舊區段，輪替即壓縮；
+ * 未完成記錄超過區段大小時，新區段會放大到足以容納。
+ * 記錄格式：[int 長度][int CRC32][byte 類型][byte Bot 類型長度][Bot 類型][int updateId][JSON]。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+@Component
+public class UpdateJournal {
+    private static final byte TYPE_UPDATE = 1;
+    private static final byte TYPE_COMPLETE = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private final DurabilityConfig durabilityConfig;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader updateReader;
+    private final Map<BotType, Partition> partitions = new EnumMap<>(BotType.class);
+    private volatile boolean active;
+
+    /**
+     * 建立更新日誌。
+     *
+     * @param durabilityConfig 持久化設定
+     * @param objectMapper     JSON 序列化工具
+     */
+    public UpdateJournal(DurabilityConfig durabilityConfig, ObjectMapper objectMapper) {
+        this.durabilityConfig = durabilityConfig;
+        this.objectMapper = objectMapper;
+        this.updateReader = objectMapper.readerFor(Update.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * 啟動時讀回既有區段（含舊版放在根目錄、不分 Bot 的區段），還原未完成的記錄並輪替到新區段。
+     */
+    @PostConstruct
+    public void init() {
+        if (!durabilityConfig.isJournalEnabled()) {
+            return;
+        }
+        try {
+            Path root = Paths.get(durabilityConfig.getJournalDir());
+            Files.createDirectories(root);
+            for (BotType botType : BotType.values()) {
+                partitions.put(botType, new Partition(root.resolve(botType.name().toLowerCase())));
+            }
+            List<Path> legacySegments = listSegments(root);
+            for (Path segment : legacySegments) {
+                recoverSegment(segment, null);
+            }
+            int restored = 0;
+            for (Partition partition : partitions.values()) {
+                partition.open();
+                restored += partition.pending.size();
+            }
+            for (Path segment : legacySegments) {
+                Files.deleteIfExists(segment);
+            }
+            active = true;
+            if (restored > 0) {
+                log.warn("更新日誌還原 {} 筆未完成更新", restored);
+            }
+        } catch (IOException e) {
+            log.error("更新日誌初始化失敗，本次不啟用日誌", e);
+        }
+    }
+
+    /**
+     * 處理前寫入原始更新；同一筆更新已在未完成清單中時不重複寫入（重播情境）。
+     *
+     * @param botType Bot 類型
+     * @param update  Telegram 更新
+     * @return false 表示寫入失敗，呼叫端不應向 Telegram 確認這筆更新
+     */
+    public boolean append(BotType botType, Update update) {
+        if (!active || update == null || update.getUpdateId() == null) {
+            return true;
+        }
+        Partition partition = partitions.get(botType);
+        if (partition.isPending(update.getUpdateId())) {
+            return true;
+        }
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(update);
+        } catch (JsonProcessingException e) {
+            log.warn("無法序列化更新寫入日誌，updateId={}", update.getUpdateId(), e);
+            return false;
+        }
+        PendingEntry entry = new PendingEntry(botType, update.getUpdateId(), payload);
+        byte[] body = encodeBody(TYPE_UPDATE, botType, entry.updateId, payload);
+        return partition.appendUpdate(entry, body);
+    }
+
+    /**
+     * 寫入一批原始更新，開啟 force-on-append 時整批只同步一次。
+     *
+     * @param botType Bot 類型
+     * @param updates Telegram 更新
+     * @return false 表示至少一筆寫入失敗
+     */
+    public boolean appendAll(BotType botType, List<Update> updates) {
+        if (!active || updates.isEmpty()) {
+            return true;
+        }
+        boolean stored = true;
+        for (Update update : updates) {
+            stored &= append(botType, update);
+        }
+        if (durabilityConfig.isJournalForceOnAppend()) {
+            partitions.get(botType).force();
+        }
+        return stored;
+    }
+
+    /**
+     * 寫入完成標記。
+     *
+     * @param botType  Bot 類型
+     * @param updateId 更新 ID
+     */
+    public void complete(BotType botType, Integer updateId) {
+        if (!active || updateId == null) {
+            return;
+        }
+        partitions.get(botType).complete(updateId, encodeBody(TYPE_COMPLETE, botType, updateId, new byte[0]));
+    }
+
+    /**
+     * 將指定 Bot 未完成的更新依原順序重新交給 consumer。
+     *
+     * @param botType  Bot 類型
+     * @param consumer 單筆更新消費者
+     */
+    public void replay(BotType botType, LongPollingSingleThreadUpdateConsumer consumer) {
+        if (!active) {
+            return;
+        }
+        List<PendingEntry> entries = partitions.get(botType).snapshot();
+        if (entries.isEmpty()) {
+            return;
+        }
+        log.info("機器人 {} 重播 {} 筆未完成更新", botType, entries.size());
+        for (PendingEntry entry : entries) {
+            try {
+                consumer.consume((Update) updateReader.readValue(entry.payload));
+            } catch (Exception e) {
+                log.error("重播更新失敗，updateId={}", entry.updateId, e);
+                complete(botType, entry.updateId);
+            }
+        }
+    }
+
+    /**
+     * 取得目前未完成的更新數量。
+     *
+     * @return 未完成數量
+     */
+    public int getPendingCount() {
+        int count = 0;
+        for (Partition partition : partitions.values()) {
+            count += partition.pendingCount();
+        }
+        return count;
+    }
+
+    /**
+     * 關閉時將映射內容寫回磁碟。
+     */
+    @PreDestroy
+    public void close() {
+        if (!active) {
+            return;
+        }
+        active = false;
+        partitions.values().forEach(Partition::close);
+    }
+
+    private void recoverSegment(Path segment, Partition target) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt();
+                int crc = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                byte[] body = new byte[length];
+                buffer.get(body);
+                if (crc(body) != crc) {
+                    log.warn("更新日誌 {} 記錄損毀，停止讀取該區段", segment.getFileName());
+                    break;
+                }
+                applyRecoveredRecord(body, target);
+            }
+        }
+    }
+
+    /**
+     * 套用讀回的記錄；target 為 null 時（舊版區段）依記錄中的 Bot 類型分配。
+     */
+    private void applyRecoveredRecord(byte[] body, Partition target) {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        byte type = buffer.get();
+        byte[] botTypeBytes = new byte[buffer.get()];
+        buffer.get(botTypeBytes);
+        BotType botType = BotType.valueOf(new String(botTypeBytes, StandardCharsets.US_ASCII));
+        int updateId = buffer.getInt();
+        Partition partition = target != null ? target : partitions.get(botType);
+        if (type == TYPE_COMPLETE) {
+            partition.pending.remove(updateId);
+            return;
+        }
+        byte[] payload = new byte[buffer.remaining()];
+        buffer.get(payload);
+        partition.pending.put(updateId, new PendingEntry(botType, updateId, payload));
+    }
+
+    private static void putRecord(ByteBuffer target, byte[] body) {
+        target.putInt(body.length);
+        target.putInt(crc(body));
+        target.put(body);
+    }
+
+    private static byte[] encodeBody(byte type, BotType botType, int updateId, byte[] payload) {
+        byte[] botTypeBytes = botType.name().getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 1 + botTypeBytes.length + 4 + payload.length);
+        buffer.put(type);
+        buffer.put((byte) botTypeBytes.length);
+        buffer.put(botTypeBytes);
+        buffer.putInt(updateId);
+        buffer.put(payload);
+        return buffer.array();
+    }
+
+    private static int crc(byte[] body) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(body);
+        return (int) crc32.getValue();
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return Files.isRegularFile(path) && name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private static long parseSegmentSeq(Path segment) {
+        String name = segment.getFileName().toString();
+        String number = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+        try {
+            return Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * 單一 Bot 類型的區段與未完成清單，所有欄位皆以物件本身為鎖保護。
+     */
+    private final class Partition {
+        private final Path directory;
+        private final Map<Integer, PendingEntry> pending = new LinkedHashMap<>();
+        private long segmentSeq;
+        private Path segmentPath;
+        private FileChannel segmentChannel;
+        private MappedByteBuffer segmentBuffer;
+
+        private Partition(Path directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * 讀回本 Bot 的既有區段並輪替到新區段。
+         */
+        private synchronized void open() throws IOException {
+            Files.createDirectories(directory);
+            List<Path> segments = listSegments(directory);
+            for (Path segment : segments) {
+                recoverSegment(segment, this);
+                segmentSeq = Math.max(segmentSeq, parseSegmentSeq(segment));
+            }
+            rotate(0);
+            for (Path segment : segments) {
+                Files.deleteIfExists(segment);
+            }
+        }
+
+        private synchronized boolean isPending(int updateId) {
+            return pending.containsKey(updateId);
+        }
+
+        private synchronized boolean appendUpdate(PendingEntry entry, byte[] body) {
+            if (pending.containsKey(entry.updateId)) {
+                return true;
+            }
+            if (!writeRecord(entry.updateId, body)) {
+                return false;
+            }
+            pending.put(entry.updateId, entry);
+            return true;
+        }
+
+        private synchronized void complete(int updateId, byte[] body) {
+            if (pending.remove(updateId) != null) {
+                writeRecord(updateId, body);
+            }
+        }
+
+        private synchronized List<PendingEntry> snapshot() {
+            return new ArrayList<>(pending.values());
+        }
+
+        private synchronized int pendingCount() {
+            return pending.size();
+        }
+
+        private synchronized void force() {
+            if (segmentBuffer != null) {
+                segmentBuffer.force();
+            }
+        }
+
+        private synchronized void close() {
+            if (segmentChannel == null) {
+                return;
+            }
+            segmentBuffer.force();
+            try {
+                segmentChannel.close();
+            } catch (IOException e) {
+                log.warn("關閉更新日誌區段失敗", e);
+            }
+            segmentChannel = null;
+        }
+
+        private boolean writeRecord(int updateId, byte[] body) {
+            if (segmentChannel == null) {
+                return false;
+            }
+            int recordBytes = HEADER_BYTES + body.length;
+            if (recordBytes > durabilityConfig.getJournalSegmentBytes() / 2) {
+                log.warn("更新過大無法寫入日誌，updateId={} bytes={}", updateId, body.length);
+                return false;
+            }
+            try {
+                if (segmentBuffer.remaining() < recordBytes) {
+                    rotate(recordBytes);
+                }
+                putRecord(segmentBuffer, body);
+                return true;
+            } catch (BufferOverflowException e) {
+                // 理論上 rotate 已預留空間，保險起見再以足夠的大小輪替一次
+                try {
+                    rotate(recordBytes);
+                    putRecord(segmentBuffer, body);
+                    return true;
+                } catch (IOException | BufferOverflowException retryError) {
+                    log.error("更新日誌寫入失敗，updateId={}", updateId, retryError);
+                    return false;
+                }
+            } catch (IOException e) {
+                log.error("更新日誌輪替失敗", e);
+                return false;
+            }
+        }
+
+        /**
+         * 開新區段並寫入目前所有未完成記錄，再移除舊區段；區段至少保留 reserveBytes 的剩餘空間。
+         */
+        private void rotate(int reserveBytes) throws IOException {
+            List<byte[]> bodies = new ArrayList<>(pending.size());
+            long required = reserveBytes;
+            for (PendingEntry entry : pending.values()) {
+                byte[] body = encodeBody(TYPE_UPDATE, entry.botType, entry.updateId, entry.payload);
+                bodies.add(body);
+                required += HEADER_BYTES + body.length;
+            }
+            long size = durabilityConfig.getJournalSegmentBytes();
+            while (size < required * 2 && size < Integer.MAX_VALUE / 2) {
+                size *= 2;
+            }
+            Path previousPath = segmentPath;
+            FileChannel previousChannel = segmentChannel;
+            segmentSeq++;
+            segmentPath = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segmentSeq, SEGMENT_SUFFIX));
+            segmentChannel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segmentBuffer = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            for (byte[] body : bodies) {
+                putRecord(segmentBuffer, body);
+            }
+            segmentBuffer.force();
+            if (previousChannel != null) {
+                previousChannel.close();
+                Files.deleteIfExists(previousPath);
+            }
+        }
+    }
+
+    private static class PendingEntry {
+        private final BotType botType;
+        private final int updateId;
+        private final byte[] payload;
+
+        private PendingEntry(BotType botType, int updateId, byte[] payload) {
+            this.botType = botType;
+            this.updateId = updateId;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package io.github.yienruuuuu.service.application.telegram.leader;
+
+import io.github.yienruuuuu.bean.entity.Bot;
+import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.config.IngressConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 以 Postgres session 層級的 advisory lock 為每個 Bot token 選出唯一的長輪詢節點。
+ * 啟用分片時只競選雜湊環分配給本節點的 Bot，分配改變時主動交出不再屬於本節點的 Bot。
+ * <p>
+ * 選主器獨占一條資料庫連線持有所有鎖，鎖跟著 session 存在，待命節點在鎖釋放後的下一次檢查時取得鎖並接手：
+ * <ul>
+ *     <li>正常關閉：{@link #resignAll()} 逐一完成交接（停止輪詢、處理完已收到的更新、送出未收齊的相簿）後才釋放鎖。</li>
+ *     <li>程序當機但主機仍在：作業系統關閉 TCP 連線，Postgres 隨即結束 session 並釋放鎖。</li>
+ *     <li>整台主機當機或網路中斷：Postgres 收不到連線關閉，要等 TCP keepalive 判定對端失效才釋放；
+ *     選主連線以 bot.leader.keepalive-* 縮短這段時間（預設約 25 秒），Postgres 預設沿用作業系統設定，通常要兩小時以上。</li>
+ * </ul>
+ * 本節點偵測到連線失效時先視為失去所有主控權、停止輪詢，再重新連線競選，避免兩個節點同時輪詢同一個 token。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+@Component
+public class BotLeaderElector {
+    private static final String LOCK_NAMESPACE = "tg-bot-long-polling:";
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long RESIGN_MARGIN_MS = 5_000L;
+    private final DataSource dataSource;
+    private final IngressConfig ingressConfig;
+    private final BotShardMembership botShardMembership;
+    private final Map<BotType, Candidate> candidates = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    //只在選主執行緒上存取
+    private Connection lockConnection;
+    private volatile boolean closing;
+
+    /**
+     * 建立選主器並開始定期檢查。
+     *
+     * @param dataSource    資料來源
+     * @param ingressConfig 更新接收設定
+     * @param botShardMembership 節點成員管理
+     */
+    public BotLeaderElector(DataSource dataSource, IngressConfig ingressConfig, BotShardMembership botShardMembership) {
+        this.dataSource = dataSource;
+        this.ingressConfig = ingressConfig;
+        this.botShardMembership = botShardMembership;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bot-leader-elector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = Math.max(100L, ingressConfig.getLeaderCheckIntervalMs());
+        this.scheduler.scheduleWithFixedDelay(this::tick, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 加入 Bot 的主控權競選，立即嘗試一次。
+     *
+     * @param bot      Bot 實體
+     * @param listener 主控權變化回呼
+     */
+    public void join(Bot bot, BotLeadershipListener listener) {
+        candidates.put(bot.getType(), new Candidate(bot, resolveLockKey(bot.getBotToken()), "bot:" + bot.getId(), listener));
+        scheduler.execute(this::tick);
+    }
+
+    /**
+     * 判斷本節點是否持有 Bot 的主控權。
+     *
+     * @param botType Bot 類型
+     * @return true 表示本節點負責長輪詢
+     */
+    public boolean isLeader(BotType botType) {
+        Candidate candidate = candidates.get(botType);
+        return candidate != null && candidate.leader;
+    }
+
+    /**
+     * 取得各 Bot 在本節點的主控狀態。
+     *
+     * @return Bot 類型對應是否為主控
+     */
+    public Map<BotType, Boolean> getLeadership() {
+        Map<BotType, Boolean> result = new LinkedHashMap<>();
+        candidates.forEach((type, candidate) -> result.put(type, candidate.leader));
+        return result;
+    }
+
+    /**
+     * 節點正常關閉時交出所有主控權：在選主執行緒上逐一執行交接回呼後才釋放鎖，之後不再競選。
+     * 由 TelegramBotService 在關閉長輪詢之前呼叫，最多等待每個 Bot 的交接逾時。
+     */
+    public void resignAll() {
+        closing = true;
+        long leaders = candidates.values().stream().filter(candidate -> candidate.leader).count();
+        if (leaders == 0) {
+            return;
+        }
+        Future<?> task;
+        try {
+            task = scheduler.submit(() -> {
+                for (Candidate candidate : candidates.values()) {
+                    if (candidate.leader) {
+                        log.info("節點關閉，交出機器人 {} 的長輪詢主控權", candidate.bot.getType());
+                        resign(candidate);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return;
+        }
+        long timeoutMs = ingressConfig.getLeaderHandoffTimeoutMs() * leaders + RESIGN_MARGIN_MS;
+        try {
+            task.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("交出主控權逾時（{} ms），剩餘的鎖隨連線關閉釋放", timeoutMs);
+        } catch (ExecutionException e) {
+            log.error("交出主控權時發生錯誤", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 停止選主並關閉連線，仍持有的鎖隨 session 一併釋放。
+     * 正常關閉時 TelegramBotService 已先呼叫 {@link #resignAll()} 完成交接，這裡不再呼叫 onLeadershipRevoked。
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        candidates.values().forEach(candidate -> candidate.leader = false);
+        closeConnection();
+    }
+
+    private void tick() {
+        if (candidates.isEmpty() || closing) {
+            return;
+        }
+        try {
+            if (!ensureConnection()) {
+                return;
+            }
+            long now = System.nanoTime();
+            long warmUpNanos = TimeUnit.MILLISECONDS.toNanos(ingressConfig.getLeaderWarmUpIntervalMs());
+            for (Candidate candidate : candidates.values()) {
+                boolean assigned = botShardMembership.owns(candidate.shardKey);
+                if (candidate.leader) {
+                    if (!assigned) {
+                        log.info("機器人 {} 已分配給其他節點，交出長輪詢主控權", candidate.bot.getType());
+                        resign(candidate);
+                    }
+                    continue;
+                }
+                if (assigned && tryLock(candidate.lockKey)) {
+                    acquire(candidate);
+                } else if (now - candidate.lastStandbyNanos >= warmUpNanos) {
+                    candidate.lastStandbyNanos = now;
+                    candidate.listener.onStandby(candidate.bot);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Bot 選主檢查失敗: {}", e.getMessage());
+        }
+    }
+
+    private void acquire(Candidate candidate) {
+        candidate.leader = true;
+        log.info("取得機器人 {} 的長輪詢主控權", candidate.bot.getType());
+        try {
+            candidate.listener.onLeadershipAcquired(candidate.bot);
+        } catch (Exception e) {
+            log.error("機器人 {} 接手失敗，釋放主控權", candidate.bot.getType(), e);
+            candidate.leader = false;
+            unlock(candidate.lockKey);
+        }
+    }
+
+    /**
+     * 主動交出主控權（分片重新分配或節點關閉），處理完手上的工作才釋放鎖，接手節點在鎖釋放後才開始輪詢。
+     */
+    private void resign(Candidate candidate) {
+        candidate.leader = false;
+        try {
+            candidate.listener.onLeadershipRevoked(candidate.bot);
+        } catch (Exception e) {
+            log.error("機器人 {} 交出主控權時發生錯誤", candidate.bot.getType(), e);
+        }
+        unlock(candidate.lockKey);
+    }
+
+    /**
+     * 確認持鎖連線仍有效；失效時所有主控權視為已遺失，先通知停止輪詢再重新連線。
+     *
+     * @return true 表示連線可用
+     */
+    private boolean ensureConnection() {
+        if (lockConnection != null) {
+            if (isValid(lockConnection)) {
+                return true;
+            }
+            log.warn("選主連線中斷，放棄所有主控權");
+            revokeAll();
+            closeConnection();
+        }
+        try {
+            Connection connection = dataSource.getConnection();
+            connection.setAutoCommit(true);
+            applyKeepalive(connection);
+            lockConnection = connection;
+            return true;
+        } catch (SQLException e) {
+            log.warn("無法取得選主連線: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void revokeAll() {
+        for (Candidate candidate : candidates.values()) {
+            if (!candidate.leader) {
+                continue;
+            }
+            candidate.leader = false;
+            try {
+                candidate.listener.onLeadershipRevoked(candidate.bot);
+            } catch (Exception e) {
+                log.error("機器人 {} 交出主控權時發生錯誤", candidate.bot.getType(), e);
+            }
+        }
+    }
+
+    private boolean tryLock(long lockKey) throws SQLException {
+        try (PreparedStatement statement = lockConnection.prepareStatement("select pg_try_advisory_lock(?)")) {
+            statement.setLong(1, lockKey);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    /**
+     * 縮短 Postgres 端偵測本節點失聯的時間：主機整台當機時不會有連線關閉，session 與鎖要等 keepalive 判定失效才結束。
+     * 設定失敗（例如經過不支援的連線池代理）只記錄警告，不影響競選。
+     */
+    private void applyKeepalive(Connection connection) {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("set tcp_keepalives_idle = " + Math.max(1, ingressConfig.getLeaderKeepaliveIdleSeconds()));
+            statement.execute("set tcp_keepalives_interval = " + Math.max(1, ingressConfig.getLeaderKeepaliveIntervalSeconds()));
+            statement.execute("set tcp_keepalives_count = " + Math.max(1, ingressConfig.getLeaderKeepaliveCount()));
+        } catch (SQLException e) {
+            log.warn("無法設定選主連線的 TCP keepalive，主機失聯時鎖可能延遲釋放: {}", e.getMessage());
+        }
+    }
+
+    private void unlock(long lockKey) {
+        if (lockConnection == null) {
+            return;
+        }
+        try (PreparedStatement statement = lockConnection.prepareStatement("select pg_advisory_unlock(?)")) {
+            statement.setLong(1, lockKey);
+            statement.execute();
+        } catch (SQLException e) {
+            log.warn("釋放主控權失敗: {}", e.getMessage());
+        }
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void closeConnection() {
+        if (lockConnection == null) {
+            return;
+        }
+        try {
+            lockConnection.close();
+        } catch (SQLException e) {
+            log.debug("關閉選主連線失敗: {}", e.getMessage());
+        }
+        lockConnection = null;
+    }
+
+    /**
+     * 由 token 推導 advisory lock 的 key，同一 token 在所有節點上得到相同的值，且不把 token 寫進資料庫。
+     */
+    private long resolveLockKey(String botToken) {
+        return UUID.nameUUIDFromBytes((LOCK_NAMESPACE + botToken).getBytes(StandardCharsets.UTF_8)).getMostSignificantBits();
+    }
+
+    /**
+     * 單一 Bot 的競選狀態。
+     */
+    private static final class Candidate {
+        private final Bot bot;
+        private final long lockKey;
+        private final String shardKey;
+        private final BotLeadershipListener listener;
+        private volatile boolean leader;
+        private long lastStandbyNanos;
+
+        private Candidate(Bot bot, long lockKey, String shardKey, BotLeadershipListener listener) {
+            this.bot = bot;
+            this.lockKey = lockKey;
+            this.shardKey = shardKey;
+            this.listener = listener;
+        }
+    }
+}
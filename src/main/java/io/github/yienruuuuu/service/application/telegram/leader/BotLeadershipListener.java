@@ -0,0 +1,33 @@
+package io.github.yienruuuuu.service.application.telegram.leader;
+
+import io.github.yienruuuuu.bean.entity.Bot;
+
+/**
+ * Bot 長輪詢主控權變化的回呼，皆在選主執行緒上依序呼叫。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public interface BotLeadershipListener {
+    /**
+     * 取得主控權，開始接收更新；拋出例外時會立即釋放主控權，交給其他節點。
+     *
+     * @param bot Bot 實體
+     */
+    void onLeadershipAcquired(Bot bot);
+
+    /**
+     * 失去主控權（資料庫連線中斷），需立即停止接收並交出手上的工作。
+     *
+     * @param bot Bot 實體
+     */
+    void onLeadershipRevoked(Bot bot);
+
+    /**
+     * 待命期間定期呼叫，用來保持連線與快取暖機。
+     *
+     * @param bot Bot 實體
+     */
+    default void onStandby(Bot bot) {
+    }
+}
@@ -0,0 +1,153 @@
+package io.github.yienruuuuu.service.application.telegram.leader;
+
+import io.github.yienruuuuu.config.IngressConfig;
+import io.github.yienruuuuu.service.business.BotNodeLeaseService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 節點成員管理：以租約表記錄存活節點，並依存活節點建立一致性雜湊環，決定每個 Bot 由哪個節點負責。
+ * <p>
+ * 節點每隔 heartbeat-interval-ms 續約並重新讀取成員；租約逾期的節點自動被移出環，正常關閉時主動刪除租約。
+ * 環只用來決定誰去競選，實際的獨占仍由 {@link BotLeaderElector} 的 advisory lock 保證，
+ * 換手期間各節點看到的成員短暫不一致也不會重複輪詢。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+@Component
+public class BotShardMembership {
+    private static final long PURGE_GRACE_MS = 3_600_000L;
+    private static final int MAX_HOST_PREFIX = 55;
+    private final BotNodeLeaseService botNodeLeaseService;
+    private final IngressConfig ingressConfig;
+    private final String nodeId;
+    private final String host;
+    private final ScheduledExecutorService scheduler;
+    private volatile ConsistentHashRing ring = ConsistentHashRing.of(List.of(), 1);
+
+    /**
+     * 建立節點成員管理。
+     *
+     * @param botNodeLeaseService 節點租約服務
+     * @param ingressConfig       更新接收設定
+     */
+    public BotShardMembership(BotNodeLeaseService botNodeLeaseService, IngressConfig ingressConfig) {
+        this.botNodeLeaseService = botNodeLeaseService;
+        this.ingressConfig = ingressConfig;
+        this.host = resolveHost();
+        String configuredId = ingressConfig.getShardNodeId();
+        this.nodeId = configuredId == null || configuredId.isBlank()
+                ? (host.length() > MAX_HOST_PREFIX ? host.substring(0, MAX_HOST_PREFIX) : host) + "-" + UUID.randomUUID().toString().substring(0, 8)
+                : configuredId;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bot-shard-membership");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 啟用分片時先同步續約一次，讓啟動後的第一次選主就看得到自己。
+     */
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        heartbeat();
+        long intervalMs = Math.max(100L, ingressConfig.getShardHeartbeatIntervalMs());
+        scheduler.scheduleWithFixedDelay(this::heartbeat, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("節點 {} 加入 Bot 分片", nodeId);
+    }
+
+    /**
+     * 是否啟用分片。
+     *
+     * @return true 表示依雜湊環分配 Bot
+     */
+    public boolean isEnabled() {
+        return ingressConfig.isShardEnabled();
+    }
+
+    /**
+     * 判斷分配鍵是否屬於本節點；未啟用分片時一律回傳 true。
+     *
+     * @param key 分配鍵
+     * @return true 表示由本節點負責
+     */
+    public boolean owns(String key) {
+        if (!isEnabled()) {
+            return true;
+        }
+        return nodeId.equals(ring.ownerOf(key));
+    }
+
+    /**
+     * 取得本節點 ID。
+     *
+     * @return 節點 ID
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 取得目前環上的存活節點。
+     *
+     * @return 節點 ID
+     */
+    public List<String> getLiveNodes() {
+        return ring.getNodes();
+    }
+
+    /**
+     * 停止續約並刪除租約，其他節點下一次續約時即重新分配。
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            botNodeLeaseService.release(nodeId);
+        } catch (Exception e) {
+            log.warn("刪除節點租約失敗，等待租約逾期: {}", e.getMessage());
+        }
+    }
+
+    private void heartbeat() {
+        try {
+            botNodeLeaseService.renew(nodeId, host, ingressConfig.getShardLeaseTtlMs());
+            List<String> liveNodes = botNodeLeaseService.findLiveNodeIds();
+            if (!liveNodes.equals(ring.getNodes())) {
+                log.info("Bot 分片成員變更: {}", liveNodes);
+                ring = ConsistentHashRing.of(liveNodes, ingressConfig.getShardVirtualNodes());
+            }
+            botNodeLeaseService.deleteExpiredLongerThan(PURGE_GRACE_MS);
+        } catch (Exception e) {
+            // 續約失敗時保留上一次的成員，若本節點租約逾期，其他節點會把 Bot 接走，advisory lock 確保不重複輪詢
+            log.warn("節點租約續約失敗: {}", e.getMessage());
+        }
+    }
+
+    private static String resolveHost() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
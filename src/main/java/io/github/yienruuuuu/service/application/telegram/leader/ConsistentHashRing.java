@@ -0,0 +1,75 @@
+package io.github.yienruuuuu.service.application.telegram.leader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * 不可變的一致性雜湊環：每個節點放置多個虛擬節點，鍵落在順時針方向第一個虛擬節點所屬的節點。
+ * 節點加入或離開時只有相鄰區段的鍵會換手。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public final class ConsistentHashRing {
+    private static final ConsistentHashRing EMPTY = new ConsistentHashRing(new TreeMap<>(), List.of());
+    private final NavigableMap<Long, String> ring;
+    private final List<String> nodes;
+
+    private ConsistentHashRing(NavigableMap<Long, String> ring, List<String> nodes) {
+        this.ring = ring;
+        this.nodes = nodes;
+    }
+
+    /**
+     * 以節點列表建立雜湊環。
+     *
+     * @param nodes        節點 ID
+     * @param virtualNodes 每個節點的虛擬節點數
+     * @return 雜湊環
+     */
+    public static ConsistentHashRing of(Collection<String> nodes, int virtualNodes) {
+        if (nodes == null || nodes.isEmpty()) {
+            return EMPTY;
+        }
+        NavigableMap<Long, String> ring = new TreeMap<>();
+        int replicas = Math.max(1, virtualNodes);
+        for (String node : nodes) {
+            for (int i = 0; i < replicas; i++) {
+                ring.putIfAbsent(hash(node + "#" + i), node);
+            }
+        }
+        return new ConsistentHashRing(ring, List.copyOf(nodes));
+    }
+
+    /**
+     * 取得鍵所屬的節點。
+     *
+     * @param key 分配鍵
+     * @return 節點 ID，環為空時回傳 null
+     */
+    public String ownerOf(String key) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        return entry == null ? ring.firstEntry().getValue() : entry.getValue();
+    }
+
+    /**
+     * 取得環上的節點。
+     *
+     * @return 節點 ID
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    private static long hash(String value) {
+        return UUID.nameUUIDFromBytes(value.getBytes(StandardCharsets.UTF_8)).getMostSignificantBits();
+    }
+}
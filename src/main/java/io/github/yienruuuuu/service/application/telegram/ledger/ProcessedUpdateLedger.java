@@ -0,0 +1,236 @@
+package io.github.yienruuuuu.service.application.telegram.ledger;
+
+import io.github.yienruuuuu.bean.entity.ProcessedUpdate;
+import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.config.DurabilityConfig;
+import io.github.yienruuuuu.service.business.ProcessedUpdateService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已處理更新帳本：以 update_id 與（來源 chat, 來源訊息）為鍵，
+ * 在記憶體中保留每個 Bot 最近的有界視窗供 O(1) 查詢，標記時同步寫入資料庫。
+ * 會產生貼文的更新以 {@link #newRecord} 建立記錄，交給貼文服務與貼文、發送匣在同一個交易內寫入，
+ * 提交後再以 {@link #remember} 放進視窗；其餘更新以 {@link #markProcessed} 單獨寫入。
+ * 呼叫端只在寫入成功後才把更新日誌標記完成，兩者之間不會有遺失標記的空窗；
+ * 啟動時從資料庫讀回最近的記錄，重啟後日誌重播或 Telegram 重送的更新可直接略過。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+@Component
+public class ProcessedUpdateLedger {
+    private static final long PRUNE_INTERVAL_MINUTES = 60L;
+    private final ProcessedUpdateService processedUpdateService;
+    private final DurabilityConfig durabilityConfig;
+    private final Map<BotType, Window> windows = new EnumMap<>(BotType.class);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "processed-update-ledger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 建立已處理更新帳本。
+     *
+     * @param processedUpdateService 已處理記錄服務
+     * @param durabilityConfig       持久化設定
+     */
+    public ProcessedUpdateLedger(ProcessedUpdateService processedUpdateService, DurabilityConfig durabilityConfig) {
+        this.processedUpdateService = processedUpdateService;
+        this.durabilityConfig = durabilityConfig;
+        for (BotType botType : BotType.values()) {
+            windows.put(botType, new Window(Math.max(1, durabilityConfig.getLedgerWindowSize())));
+        }
+    }
+
+    /**
+     * 載入最近的已處理記錄並啟動清理排程。
+     */
+    @PostConstruct
+    public void init() {
+        for (BotType botType : List.of(BotType.MAIN, BotType.SUB)) {
+            List<ProcessedUpdate> recent = processedUpdateService.findRecent(botType, durabilityConfig.getLedgerWindowSize());
+            Window window = windows.get(botType);
+            // 由舊到新放入，讓視窗淘汰順序與寫入順序一致
+            for (int i = recent.size() - 1; i >= 0; i--) {
+                ProcessedUpdate record = recent.get(i);
+                window.add(record.getUpdateId(), record.getSourceChatId(), record.getSourceMessageId());
+            }
+            if (!recent.isEmpty()) {
+                log.info("已處理更新帳本載入 {} 筆，BotType: {}", recent.size(), botType);
+            }
+        }
+        scheduler.scheduleWithFixedDelay(this::prune, 1L, PRUNE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 判斷更新是否已處理過；只查詢記憶體視窗。
+     *
+     * @param botType Bot 類型
+     * @param update  Telegram 更新
+     * @return true 表示已處理
+     */
+    public boolean isProcessed(BotType botType, Update update) {
+        Message channelPost = update.getChannelPost();
+        return windows.get(botType).contains(
+                update.getUpdateId(),
+                channelPost == null ? null : channelPost.getChatId(),
+                channelPost == null ? null : channelPost.getMessageId()
+        );
+    }
+
+    /**
+     * 記錄更新已處理完成。
+     *
+     * @param botType     Bot 類型
+     * @param updateId    更新 ID
+     * @param channelPost 來源頻道訊息，非頻道貼文時為 null
+     * @return 是否已寫入資料庫
+     */
+    public boolean markProcessed(BotType botType, Integer updateId, Message channelPost) {
+        return markProcessed(
+                botType,
+                updateId,
+                channelPost == null ? null : channelPost.getChatId(),
+                channelPost == null ? null : channelPost.getMessageId()
+        );
+    }
+
+    /**
+     * 記錄更新已處理完成（來源訊息只保留 chat id 與 message id 時使用）。
+     *
+     * @param botType   Bot 類型
+     * @param updateId  更新 ID
+     * @param chatId    來源 chat id，非頻道貼文時為 null
+     * @param messageId 來源 message id，非頻道貼文時為 null
+     * @return 是否已寫入資料庫；false 時呼叫端不應標記日誌完成，讓重啟後重播
+     */
+    public boolean markProcessed(BotType botType, Integer updateId, Long chatId, Integer messageId) {
+        if (updateId == null) {
+            return true;
+        }
+        ProcessedUpdate record = newRecord(botType, updateId, chatId, messageId);
+        try {
+            processedUpdateService.saveAll(List.of(record));
+            // 寫入成功才放進視窗，失敗時同一程序內的重送仍會重新處理
+            remember(List.of(record));
+            return true;
+        } catch (Exception e) {
+            log.error("已處理更新寫入失敗，保留日誌待重播，BotType: {}, updateId: {}", botType, updateId, e);
+            return false;
+        }
+    }
+
+    /**
+     * 建立已處理記錄，由呼叫端交給貼文服務在貼文的交易內寫入。
+     *
+     * @param botType   Bot 類型
+     * @param updateId  更新 ID
+     * @param chatId    來源 chat id
+     * @param messageId 來源 message id
+     * @return 尚未寫入的記錄
+     */
+    public ProcessedUpdate newRecord(BotType botType, Integer updateId, Long chatId, Integer messageId) {
+        ProcessedUpdate record = new ProcessedUpdate();
+        record.setBotType(botType);
+        record.setUpdateId(updateId);
+        record.setSourceChatId(chatId);
+        record.setSourceMessageId(messageId);
+        return record;
+    }
+
+    /**
+     * 將已提交的記錄放進記憶體視窗，只能在寫入記錄的交易提交後呼叫。
+     *
+     * @param records 已寫入資料庫的記錄
+     */
+    public void remember(List<ProcessedUpdate> records) {
+        for (ProcessedUpdate record : records) {
+            windows.get(record.getBotType()).add(record.getUpdateId(), record.getSourceChatId(), record.getSourceMessageId());
+        }
+    }
+
+    /**
+     * 停止清理排程。
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void prune() {
+        try {
+            Instant before = Instant.now().minus(durabilityConfig.getLedgerRetentionHours(), ChronoUnit.HOURS);
+            int deleted = processedUpdateService.deleteBefore(before);
+            if (deleted > 0) {
+                log.info("已清除 {} 筆過期的已處理更新記錄", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("清除過期已處理更新記錄失敗", e);
+        }
+    }
+
+    /**
+     * 單一 Bot 的有界視窗，超過容量時淘汰最舊的記錄。
+     */
+    private static class Window {
+        private final Map<Integer, Boolean> updateIds;
+        private final Map<String, Boolean> messageKeys;
+
+        private Window(int capacity) {
+            this.updateIds = new BoundedMap<>(capacity);
+            this.messageKeys = new BoundedMap<>(capacity);
+        }
+
+        private synchronized boolean contains(Integer updateId, Long chatId, Integer messageId) {
+            if (updateId != null && updateIds.containsKey(updateId)) {
+                return true;
+            }
+            return chatId != null && messageId != null && messageKeys.containsKey(chatId + ":" + messageId);
+        }
+
+        private synchronized void add(Integer updateId, Long chatId, Integer messageId) {
+            if (updateId != null) {
+                updateIds.put(updateId, Boolean.TRUE);
+            }
+            if (chatId != null && messageId != null) {
+                messageKeys.put(chatId + ":" + messageId, Boolean.TRUE);
+            }
+        }
+    }
+
+    private static class BoundedMap<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+
+        private BoundedMap(int capacity) {
+            super(16, 0.75f, false);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -1,16 +1,23 @@
 package io.github.yienruuuuu.service.application.telegram.main_bot;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.houbb.opencc4j.util.ZhConverterUtil;
 import io.github.yienruuuuu.bean.entity.Bot;
 import io.github.yienruuuuu.bean.entity.ForwardPost;
 import io.github.yienruuuuu.bean.entity.ForwardPostMedia;
+import io.github.yienruuuuu.bean.entity.OutboxMessage;
+import io.github.yienruuuuu.bean.entity.ProcessedUpdate;
 import io.github.yienruuuuu.bean.enums.BotType;
 import io.github.yienruuuuu.config.AppConfig;
 import io.github.yienruuuuu.service.application.telegram.TelegramBotClient;
+import io.github.yienruuuuu.service.application.telegram.journal.UpdateJournal;
+import io.github.yienruuuuu.service.application.telegram.ledger.ProcessedUpdateLedger;
+import io.github.yienruuuuu.service.application.telegram.mediagroup.MediaGroupAssembler;
+import io.github.yienruuuuu.service.application.telegram.mediagroup.MediaGroupItem;
+import io.github.yienruuuuu.service.application.telegram.serial.SerialAllocator;
+import io.github.yienruuuuu.service.application.telegram.text.TextPipelines;
+import io.github.yienruuuuu.service.application.telegram.outbound.StatusMessageEditor;
+import io.github.yienruuuuu.service.application.telegram.outbox.OutboxDispatcher;
+import io.github.yienruuuuu.service.application.telegram.trace.UpdateTracer;
 import io.github.yienruuuuu.service.business.ChannelSuffixService;
-import io.github.yienruuuuu.service.business.BlacklistService;
 import io.github.yienruuuuu.service.business.BotService;
 import io.github.yienruuuuu.service.business.ForwardPostService;
 import io.github.yienruuuuu.service.business.PromoContentService;
@@ -28,8 +35,6 @@ import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
 import org.telegram.telegrambots.meta.api.methods.send.SendVideo;
 import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
-import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageReplyMarkup;
-import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.InputFile;
 import org.telegram.telegrambots.meta.api.objects.PhotoSize;
 import org.telegram.telegrambots.meta.api.objects.Update;
@@ -45,19 +50,17 @@ import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMa
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardRow;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * @author Eric.Lee
@@ -66,78 +69,143 @@ import java.util.concurrent.TimeUnit;
 @Component
 @Slf4j
 public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
-    private static final long MEDIA_GROUP_FLUSH_DELAY_MS = 2000L;
-    private static final DateTimeFormatter SERIAL_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final String CALLBACK_RESEND_ALL = "resend_all";
     private final BotService botService;
-    private final BlacklistService blacklistService;
+    private final TextPipelines textPipelines;
     private final ForwardPostService forwardPostService;
     private final ChannelSuffixService channelSuffixService;
     private final PromoContentService promoContentService;
     private final AppConfig appConfig;
     private final TelegramBotClient telegramBotClient;
-    private final ObjectMapper objectMapper;
-    private final ScheduledExecutorService mediaGroupScheduler = Executors.newSingleThreadScheduledExecutor();
+    private final UpdateTracer updateTracer;
+    private final UpdateJournal updateJournal;
+    private final ProcessedUpdateLedger processedUpdateLedger;
+    private final OutboxDispatcher outboxDispatcher;
+    private final StatusMessageEditor statusMessageEditor;
+    private final MediaGroupAssembler mediaGroupAssembler;
+    private final SerialAllocator serialAllocator;
     private final ScheduledExecutorService resendScheduler = Executors.newSingleThreadScheduledExecutor();
-    private final Map<String, MediaGroupBuffer> mediaGroupBuffers = new ConcurrentHashMap<>();
     private final AtomicBoolean resendRunning = new AtomicBoolean(false);
-    private final Object serialLock = new Object();
-    private LocalDate currentSerialDate = LocalDate.now();
-    private int currentSerial = 0;
+    private volatile Runnable resendHalt;
+    private final Object statusCallLock = new Object();
+    private CompletableFuture<Void> statusCallChain = CompletableFuture.completedFuture(null);
 
     /**
      * 建立主要更新消費者，注入必要的服務與工具。
      *
      * @param botService Bot 服務
-     * @param blacklistService 黑名單服務
+     * @param textPipelines 文字處理管線
      * @param forwardPostService 貼文記錄服務
      * @param appConfig  應用設定
      * @param telegramBotClient Telegram API 呼叫封裝
-     * @param objectMapper JSON 序列化工具
+     * @param updateTracer 更新追蹤器
+     * @param updateJournal 更新日誌
+     * @param processedUpdateLedger 已處理更新帳本
+     * @param outboxDispatcher 發送匣分派器
+     * @param statusMessageEditor 狀態訊息編輯器
+     * @param mediaGroupAssembler media group 組裝器
+     * @param serialAllocator 序號配置器
      */
     @Autowired
     public MainBotConsumer(
             BotService botService,
-            BlacklistService blacklistService,
+            TextPipelines textPipelines,
             ForwardPostService forwardPostService,
             ChannelSuffixService channelSuffixService,
             PromoContentService promoContentService,
             AppConfig appConfig,
             TelegramBotClient telegramBotClient,
-            ObjectMapper objectMapper
+            UpdateTracer updateTracer,
+            UpdateJournal updateJournal,
+            ProcessedUpdateLedger processedUpdateLedger,
+            OutboxDispatcher outboxDispatcher,
+            StatusMessageEditor statusMessageEditor,
+            MediaGroupAssembler mediaGroupAssembler,
+            SerialAllocator serialAllocator
     ) {
         this.botService = botService;
-        this.blacklistService = blacklistService;
+        this.textPipelines = textPipelines;
         this.forwardPostService = forwardPostService;
         this.channelSuffixService = channelSuffixService;
         this.promoContentService = promoContentService;
         this.appConfig = appConfig;
         this.telegramBotClient = telegramBotClient;
-        this.objectMapper = objectMapper;
+        this.updateTracer = updateTracer;
+        this.updateJournal = updateJournal;
+        this.processedUpdateLedger = processedUpdateLedger;
+        this.outboxDispatcher = outboxDispatcher;
+        this.statusMessageEditor = statusMessageEditor;
+        this.mediaGroupAssembler = mediaGroupAssembler;
+        this.serialAllocator = serialAllocator;
     }
 
     @PostConstruct
-    private void initSerialCounter() {
-        synchronized (serialLock) {
-            LocalDate today = LocalDate.now();
-            String prefix = SERIAL_DATE_FORMAT.format(today) + "_";
-            String latestSerial = forwardPostService.findLatestSerialByPrefix(prefix);
-            currentSerialDate = today;
-            currentSerial = parseSerialIndex(latestSerial);
-            if (currentSerial > 0) {
-                log.info("序號初始化完成，最後序號 {}", latestSerial);
-            }
-        }
+    private void registerMediaGroupHandler() {
+        mediaGroupAssembler.register(BotType.MAIN, this::flushMediaGroupCopy);
     }
 
     /**
-     * 處理 Telegram 更新：記錄 JSON、處理回呼、過濾來源頻道並轉送內容。
+     * 處理 Telegram 更新：記錄追蹤與日誌、處理回呼、過濾來源頻道並轉送內容。
      *
      * @param update Telegram 更新
      */
     @Override
     public void consume(Update update) {
-        logIncomingUpdateJson(update);
+        updateTracer.trace(BotType.MAIN, update);
+        if (processedUpdateLedger.isProcessed(BotType.MAIN, update)) {
+            log.info("略過已處理的更新 {}", update.getUpdateId());
+            // 接收端已先寫入日誌，重複的更新也要標記完成
+            updateJournal.complete(BotType.MAIN, update.getUpdateId());
+            return;
+        }
+        updateJournal.append(BotType.MAIN, update);
+        boolean deferred = false;
+        try {
+            deferred = handleUpdate(update);
+        } finally {
+            if (!deferred) {
+                completeUpdate(update.getUpdateId(), update.getChannelPost());
+            }
+        }
+    }
+
+    /**
+     * 記錄更新處理完成：寫入已處理帳本，成功後才標記日誌完成。
+     *
+     * @param updateId    更新 ID
+     * @param channelPost 來源頻道訊息，非頻道貼文時為 null
+     */
+    private void completeUpdate(Integer updateId, Message channelPost) {
+        if (processedUpdateLedger.markProcessed(BotType.MAIN, updateId, channelPost)) {
+            updateJournal.complete(BotType.MAIN, updateId);
+        }
+    }
+
+    private void completeUpdate(Integer updateId, Long chatId, Integer messageId) {
+        if (processedUpdateLedger.markProcessed(BotType.MAIN, updateId, chatId, messageId)) {
+            updateJournal.complete(BotType.MAIN, updateId);
+        }
+    }
+
+    /**
+     * 已處理記錄已隨貼文交易提交：放進帳本視窗並標記日誌完成。
+     *
+     * @param records 已提交的已處理記錄
+     */
+    private void completeCommitted(List<ProcessedUpdate> records) {
+        processedUpdateLedger.remember(records);
+        for (ProcessedUpdate record : records) {
+            updateJournal.complete(BotType.MAIN, record.getUpdateId());
+        }
+    }
+
+    /**
+     * 處理單筆更新。
+     *
+     * @param update Telegram 更新
+     * @return true 表示完成標記不在這裡寫入：已隨貼文交易寫入，或已放入 media group 緩衝、延後到批次發送後寫入
+     */
+    private boolean handleUpdate(Update update) {
         if (update.hasCallbackQuery()) {
             handleCallbackQuery(update);
         }
@@ -145,40 +213,25 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
             handleAdminMessage(update.getMessage());
         }
         if (!update.hasChannelPost()) {
-            return;
+            return false;
         }
 
         Message channelPost = update.getChannelPost();
         String sourceChannelId = String.valueOf(channelPost.getChatId());
         if (!sourceChannelId.equals(appConfig.getBotCommunicateChannelChatId())) {
-            return;
+            return false;
         }
 
         if (isPureText(channelPost)) {
-            sendTextMessage(channelPost, sourceChannelId);
-            return;
+            return sendTextMessage(channelPost, sourceChannelId, update.getUpdateId());
         }
 
         if (channelPost.getMediaGroupId() != null) {
-            bufferMediaGroupCopy(channelPost);
-            return;
+            bufferMediaGroupCopy(channelPost, update.getUpdateId());
+            return true;
         }
 
-        sendSingleMediaMessage(channelPost, sourceChannelId);
-    }
-
-    /**
-     * 以 JSON 格式記錄完整更新內容，方便除錯與追查。
-     *
-     * @param update Telegram 更新
-     */
-    private void logIncomingUpdateJson(Update update) {
-        try {
-            String json = objectMapper.writeValueAsString(update);
-            log.debug("收到更新 json={}", json);
-        } catch (JsonProcessingException e) {
-            log.warn("無法序列化 Update 成 JSON", e);
-        }
+        return sendSingleMediaMessage(channelPost, sourceChannelId, update.getUpdateId());
     }
 
     /**
@@ -186,8 +239,10 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
      *
      * @param channelPost 來源訊息
      * @param sourceChannelId 來源頻道 ID
+     * @param updateId 來源更新 ID，已處理記錄與貼文在同一個交易內寫入
+     * @return true 表示貼文與已處理記錄已提交
      */
-    private void sendTextMessage(Message channelPost, String sourceChannelId) {
+    private boolean sendTextMessage(Message channelPost, String sourceChannelId, Integer updateId) {
         String serial = nextSerial();
         String originalText = channelPost.getText();
         String processedText = processText(originalText);
@@ -205,15 +260,14 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         String suffixKey = firstNonBlank(forwardFromChatId, forwardFromUserId);
         String suffixText = channelSuffixService.pickSuffixByForwardFromChatId(suffixKey);
         String outputText = buildOutputText(processedText, serial, promoText, suffixText);
-        Bot mainBotEntity = botService.findByBotType(BotType.MAIN);
-
-        SendMessage sendMessage = SendMessage.builder()
-                .chatId(appConfig.getBotPublicChannelId())
-                .text(outputText)
-                .build();
-        telegramBotClient.send(sendMessage, mainBotEntity);
+        List<OutboxMessage> outboxMessages = List.of(
+                outboxDispatcher.buildTextMessage(BotType.MAIN, appConfig.getBotPublicChannelId(), outputText, null),
+                buildAcknowledgement(serial, channelPost.getMessageId())
+        );
 
-        ForwardPost post = forwardPostService.createPost(
+        List<ProcessedUpdate> processedUpdates = List.of(
+                processedUpdateLedger.newRecord(BotType.MAIN, updateId, channelPost.getChatId(), channelPost.getMessageId()));
+        forwardPostService.createPost(
                 serial,
                 sourceChannelId,
                 channelPost.getMessageId(),
@@ -226,10 +280,14 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
                 originalText,
                 processedText,
                 outputText,
-                List.of()
+                List.of(),
+                outboxMessages,
+                processedUpdates
         );
-        sendAcknowledgement(serial, post.getId(), channelPost.getMessageId(), mainBotEntity);
-        log.info("已發送文字序號 {} 對應來源 {}，送達 {}", serial, sourceChannelId, appConfig.getBotPublicChannelId());
+        completeCommitted(processedUpdates);
+        outboxDispatcher.wakeUp();
+        log.info("已排入文字序號 {} 對應來源 {}，發送到 {}", serial, sourceChannelId, appConfig.getBotPublicChannelId());
+        return true;
     }
 
     /**
@@ -237,11 +295,13 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
      *
      * @param channelPost 來源訊息
      * @param sourceChannelId 來源頻道 ID
+     * @param updateId 來源更新 ID，已處理記錄與貼文在同一個交易內寫入
+     * @return true 表示貼文與已處理記錄已提交
      */
-    private void sendSingleMediaMessage(Message channelPost, String sourceChannelId) {
+    private boolean sendSingleMediaMessage(Message channelPost, String sourceChannelId, Integer updateId) {
         if (isDuplicateMediaMessage(channelPost)) {
             sendDuplicateNotice(channelPost.getMessageId());
-            return;
+            return false;
         }
         String serial = nextSerial();
         String originalText = channelPost.getCaption();
@@ -267,14 +327,16 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         String outputText = isBotFileNameContent
                 ? buildOutputTextWithoutSerial(processedText, promoText, suffixText)
                 : buildOutputText(processedText, serial, promoText, suffixText);
-        Bot mainBotEntity = botService.findByBotType(BotType.MAIN);
-        boolean sent = sendSingleMedia(channelPost, outputText, mainBotEntity);
-        if (!sent) {
+        List<ForwardPostMediaItem> mediaItems = buildMediaItemsFromMessage(channelPost);
+        OutboxMessage publish = outboxDispatcher.buildMediaMessage(BotType.MAIN, appConfig.getBotPublicChannelId(), outputText, mediaItems);
+        if (publish == null) {
             log.warn("不支援的媒體型別，略過訊息 {}", channelPost.getMessageId());
-            return;
+            return false;
         }
 
-        ForwardPost post = forwardPostService.createPost(
+        List<ProcessedUpdate> processedUpdates = List.of(
+                processedUpdateLedger.newRecord(BotType.MAIN, updateId, channelPost.getChatId(), channelPost.getMessageId()));
+        forwardPostService.createPost(
                 serial,
                 sourceChannelId,
                 channelPost.getMessageId(),
@@ -287,71 +349,98 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
                 originalText,
                 processedText,
                 outputText,
-                buildMediaItemsFromMessage(channelPost)
+                mediaItems,
+                List.of(publish, buildAcknowledgement(serial, channelPost.getMessageId())),
+                processedUpdates
         );
-        sendAcknowledgement(serial, post.getId(), channelPost.getMessageId(), mainBotEntity);
-        log.info("已發送序號 {} 對應來源 {}，送達 {}", serial, sourceChannelId, appConfig.getBotPublicChannelId());
+        completeCommitted(processedUpdates);
+        outboxDispatcher.wakeUp();
+        log.info("已排入序號 {} 對應來源 {}，發送到 {}", serial, sourceChannelId, appConfig.getBotPublicChannelId());
+        return true;
     }
 
     /**
-     * 將同一個 media group 的訊息暫存，並延後 2 秒批次發送。
+     * 將同一個 media group 的訊息交給組裝器暫存，最後一則之後靜默一段時間再批次發送。
      * 發送時以處理後文字、序號與宣傳文字為 caption。
      *
      * @param channelPost 來源訊息
+     * @param updateId    來源更新 ID，批次發送後寫入完成標記
      */
-    private void bufferMediaGroupCopy(Message channelPost) {
-        String mediaGroupId = channelPost.getMediaGroupId();
-        MediaGroupBuffer buffer = mediaGroupBuffers.computeIfAbsent(mediaGroupId, key -> new MediaGroupBuffer());
-        synchronized (buffer) {
-            buffer.messages.add(channelPost);
-            if (buffer.flushFuture != null) {
-                buffer.flushFuture.cancel(false);
-            }
-            buffer.flushFuture = mediaGroupScheduler.schedule(() -> flushMediaGroupCopy(mediaGroupId), MEDIA_GROUP_FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
-        }
+    private void bufferMediaGroupCopy(Message channelPost, Integer updateId) {
+        mediaGroupAssembler.append(BotType.MAIN, channelPost.getMediaGroupId(), toMediaGroupItem(channelPost, updateId));
+    }
+
+    /**
+     * 將來源訊息精簡為相簿項目，只保留組成貼文需要的欄位。
+     *
+     * @param channelPost 來源訊息
+     * @param updateId    來源更新 ID
+     * @return 相簿項目
+     */
+    private MediaGroupItem toMediaGroupItem(Message channelPost, Integer updateId) {
+        ForwardPostMediaItem media = buildMediaItem(channelPost);
+        ForwardFromUserInfo forwardFromUserInfo = extractForwardFromUserInfo(channelPost);
+        String text = !isBlank(channelPost.getCaption()) ? channelPost.getCaption() : channelPost.getText();
+        return MediaGroupItem.builder()
+                .updateId(updateId)
+                .chatId(channelPost.getChatId())
+                .messageId(channelPost.getMessageId())
+                .mediaType(media == null ? null : media.getMediaType())
+                .fileId(media == null ? null : media.getFileId())
+                .caption(isBlank(text) ? null : text)
+                .videoFileName(channelPost.hasVideo() && channelPost.getVideo() != null ? channelPost.getVideo().getFileName() : null)
+                .forwardFromChatId(channelPost.getForwardFromChat() == null ? null : String.valueOf(channelPost.getForwardFromChat().getId()))
+                .forwardFromChatTitle(channelPost.getForwardFromChat() == null ? null : channelPost.getForwardFromChat().getTitle())
+                .forwardFromUserId(forwardFromUserInfo == null ? null : forwardFromUserInfo.id)
+                .forwardFromUserUsername(forwardFromUserInfo == null ? null : forwardFromUserInfo.username)
+                .forwardFromUserName(forwardFromUserInfo == null ? null : forwardFromUserInfo.name)
+                .forwardFromUserBot(forwardFromUserInfo != null && forwardFromUserInfo.isBot)
+                .build();
     }
 
     /**
-     * 將緩衝完成的 media group 一次發送到公開頻道。
+     * 將收齊的 media group 一次發送到公開頻道，在組裝器的 flush 執行緒上執行。
      *
      * @param mediaGroupId media group ID
+     * @param items        依收到順序排列的相簿項目
      */
-    private void flushMediaGroupCopy(String mediaGroupId) {
-        MediaGroupBuffer buffer = mediaGroupBuffers.remove(mediaGroupId);
-        if (buffer == null) {
-            return;
-        }
-        List<Message> messages;
-        synchronized (buffer) {
-            if (buffer.messages.isEmpty()) {
-                return;
+    private void flushMediaGroupCopy(String mediaGroupId, List<MediaGroupItem> items) {
+        boolean committed = false;
+        try {
+            if (!items.isEmpty()) {
+                committed = publishMediaGroup(mediaGroupId, items);
+            }
+        } finally {
+            if (!committed) {
+                for (MediaGroupItem item : items) {
+                    completeUpdate(item.getUpdateId(), item.getChatId(), item.getMessageId());
+                }
             }
-            messages = new ArrayList<>(buffer.messages);
         }
-        if (isDuplicateMediaGroup(messages)) {
-            sendDuplicateNotice(messages.get(0).getMessageId());
-            return;
+    }
+
+    private boolean publishMediaGroup(String mediaGroupId, List<MediaGroupItem> items) {
+        MediaGroupItem firstItem = items.get(0);
+        if (isDuplicateMediaGroup(items)) {
+            sendDuplicateNotice(firstItem.getMessageId());
+            return false;
         }
 
         String serial = nextSerial();
-        String originalText = extractMediaGroupText(messages);
-        ForwardFromUserInfo forwardFromUserInfo = extractForwardFromUserInfo(messages.get(0));
+        String mediaGroupText = extractMediaGroupText(items);
+        String originalText = mediaGroupText;
+        ForwardFromUserInfo forwardFromUserInfo = extractForwardFromUserInfo(firstItem);
         String fileNameContent = null;
         if (isBlank(originalText)) {
-            fileNameContent = resolveForwardedBotFileBaseName(messages, forwardFromUserInfo);
+            fileNameContent = resolveForwardedBotFileBaseName(items, forwardFromUserInfo);
             if (!isBlank(fileNameContent)) {
                 originalText = fileNameContent;
             }
         }
-        boolean isBotFileNameContent = isBlank(extractMediaGroupText(messages)) && !isBlank(fileNameContent);
+        boolean isBotFileNameContent = isBlank(mediaGroupText) && !isBlank(fileNameContent);
         String processedText = processText(originalText);
-        Message firstMessage = messages.get(0);
-        String forwardFromChatId = firstMessage.getForwardFromChat() == null
-                ? null
-                : String.valueOf(firstMessage.getForwardFromChat().getId());
-        String forwardFromChatTitle = firstMessage.getForwardFromChat() == null
-                ? null
-                : firstMessage.getForwardFromChat().getTitle();
+        String forwardFromChatId = firstItem.getForwardFromChatId();
+        String forwardFromChatTitle = firstItem.getForwardFromChatTitle();
         String forwardFromUserId = forwardFromUserInfo == null ? null : forwardFromUserInfo.id;
         String forwardFromUserUsername = forwardFromUserInfo == null ? null : forwardFromUserInfo.username;
         String forwardFromUserName = forwardFromUserInfo == null ? null : forwardFromUserInfo.name;
@@ -361,22 +450,23 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         String outputText = isBotFileNameContent
                 ? buildOutputTextWithoutSerial(processedText, promoText, suffixText)
                 : buildOutputText(processedText, serial, promoText, suffixText);
-        Bot mainBotEntity = botService.findByBotType(BotType.MAIN);
-        List<InputMedia> medias = buildMediaGroupMedias(messages, outputText);
-        if (medias.isEmpty()) {
+        List<ForwardPostMediaItem> mediaItems = buildMediaItemsFromGroup(items);
+        OutboxMessage publish = outboxDispatcher.buildMediaMessage(BotType.MAIN, appConfig.getBotPublicChannelId(), outputText, mediaItems);
+        if (publish == null) {
             log.warn("media group {} 無可用媒體，略過發送", mediaGroupId);
-            return;
+            return false;
         }
-        SendMediaGroup sendMediaGroup = SendMediaGroup.builder()
-                .chatId(appConfig.getBotPublicChannelId())
-                .medias(medias)
-                .build();
-        telegramBotClient.send(sendMediaGroup, mainBotEntity);
 
-        ForwardPost post = forwardPostService.createPost(
+        List<ProcessedUpdate> processedUpdates = new ArrayList<>(items.size());
+        for (MediaGroupItem item : items) {
+            if (item.getUpdateId() != null) {
+                processedUpdates.add(processedUpdateLedger.newRecord(BotType.MAIN, item.getUpdateId(), item.getChatId(), item.getMessageId()));
+            }
+        }
+        forwardPostService.createPost(
                 serial,
-                String.valueOf(messages.get(0).getChatId()),
-                messages.get(0).getMessageId(),
+                String.valueOf(firstItem.getChatId()),
+                firstItem.getMessageId(),
                 mediaGroupId,
                 forwardFromChatId,
                 forwardFromChatTitle,
@@ -386,10 +476,14 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
                 originalText,
                 processedText,
                 outputText,
-                buildMediaItemsFromMessages(messages)
+                mediaItems,
+                List.of(publish, buildAcknowledgement(serial, firstItem.getMessageId())),
+                processedUpdates
         );
-        sendAcknowledgement(serial, post.getId(), messages.get(0).getMessageId(), mainBotEntity);
-        log.info("已發送 media group {} 序號 {}，共 {} 則訊息", mediaGroupId, serial, medias.size());
+        completeCommitted(processedUpdates);
+        outboxDispatcher.wakeUp();
+        log.info("已排入 media group {} 序號 {}，共 {} 則訊息", mediaGroupId, serial, mediaItems.size());
+        return true;
     }
 
     /**
@@ -412,11 +506,6 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
                 || message.hasSticker());
     }
 
-    private static class MediaGroupBuffer {
-        private final List<Message> messages = new ArrayList<>();
-        private ScheduledFuture<?> flushFuture;
-    }
-
     private static class ForwardFromUserInfo {
         private final String id;
         private final String username;
@@ -437,97 +526,7 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
      * @return 序號字串
      */
     private String nextSerial() {
-        synchronized (serialLock) {
-            LocalDate today = LocalDate.now();
-            if (!today.equals(currentSerialDate)) {
-                currentSerialDate = today;
-                currentSerial = 0;
-            }
-            int next = ++currentSerial;
-            return SERIAL_DATE_FORMAT.format(today) + "_" + String.format("%04d", next);
-        }
-    }
-
-    private int parseSerialIndex(String serial) {
-        if (serial == null || serial.isBlank()) {
-            return 0;
-        }
-        int underscoreIndex = serial.lastIndexOf('_');
-        if (underscoreIndex < 0 || underscoreIndex == serial.length() - 1) {
-            return 0;
-        }
-        String number = serial.substring(underscoreIndex + 1);
-        try {
-            return Integer.parseInt(number);
-        } catch (NumberFormatException e) {
-            return 0;
-        }
-    }
-
-    /**
-     * 依訊息類型發送單一媒體，caption 使用處理後文字。
-     *
-     * @param message 來源訊息
-     * @param caption  處理後文字
-     * @param bot     Bot 實體
-     * @return 是否成功送出
-     */
-    private boolean sendSingleMedia(Message message, String caption, Bot bot) {
-        if (message.hasPhoto()) {
-            List<PhotoSize> photos = message.getPhoto();
-            if (photos == null || photos.isEmpty()) {
-                return false;
-            }
-            String fileId = photos.get(photos.size() - 1).getFileId();
-            SendPhoto sendPhoto = SendPhoto.builder()
-                    .chatId(appConfig.getBotPublicChannelId())
-                    .photo(new InputFile(fileId))
-                    .caption(caption)
-                    .build();
-            telegramBotClient.send(sendPhoto, bot);
-            return true;
-        }
-        if (message.hasVideo()) {
-            String fileId = message.getVideo().getFileId();
-            SendVideo sendVideo = SendVideo.builder()
-                    .chatId(appConfig.getBotPublicChannelId())
-                    .video(new InputFile(fileId))
-                    .caption(caption)
-                    .build();
-            telegramBotClient.send(sendVideo, bot);
-            return true;
-        }
-        if (message.hasDocument()) {
-            String fileId = message.getDocument().getFileId();
-            SendDocument sendDocument = SendDocument.builder()
-                    .chatId(appConfig.getBotPublicChannelId())
-                    .document(new InputFile(fileId))
-                    .caption(caption)
-                    .build();
-            telegramBotClient.send(sendDocument, bot);
-            return true;
-        }
-        if (message.hasAudio()) {
-            String fileId = message.getAudio().getFileId();
-            SendAudio sendAudio = SendAudio.builder()
-                    .chatId(appConfig.getBotPublicChannelId())
-                    .audio(new InputFile(fileId))
-                    .caption(caption)
-                    .build();
-            telegramBotClient.send(sendAudio, bot);
-            return true;
-        }
-        if (message.hasAnimation()) {
-            String fileId = message.getAnimation().getFileId();
-            SendAnimation sendAnimation = SendAnimation.builder()
-                    .chatId(appConfig.getBotPublicChannelId())
-                    .animation(new InputFile(fileId))
-                    .caption(caption)
-                    .build();
-            telegramBotClient.send(sendAnimation, bot);
-            return true;
-        }
-        return false;
+        return serialAllocator.next(BotType.MAIN);
     }
 
     /**
@@ -588,31 +587,6 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         return false;
     }
 
-    /**
-     * 將一組訊息轉成 media group，第一則套用處理後 caption。
-     *
-     * @param messages 來源訊息列表
-     * @param caption   處理後文字
-     * @return InputMedia 列表
-     */
-    private List<InputMedia> buildMediaGroupMedias(List<Message> messages, String caption) {
-        List<InputMedia> medias = new ArrayList<>();
-        boolean captionApplied = false;
-        for (Message message : messages) {
-            InputMedia media = buildInputMedia(message);
-            if (media == null) {
-                log.warn("media group 內含不支援媒體，messageId={}", message.getMessageId());
-                continue;
-            }
-            if (!captionApplied) {
-                media.setCaption(caption);
-                captionApplied = true;
-            }
-            medias.add(media);
-        }
-        return medias;
-    }
-
     /**
      * 由媒體記錄建立 media group 的 InputMedia。
      *
@@ -637,36 +611,6 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         return inputMedias;
     }
 
-    /**
-     * 由單一訊息建立對應的 InputMedia。
-     *
-     * @param message 來源訊息
-     * @return InputMedia，若不支援則回傳 null
-     */
-    private InputMedia buildInputMedia(Message message) {
-        if (message.hasPhoto()) {
-            List<PhotoSize> photos = message.getPhoto();
-            if (photos == null || photos.isEmpty()) {
-                return null;
-            }
-            String fileId = photos.get(photos.size() - 1).getFileId();
-            return new InputMediaPhoto(fileId);
-        }
-        if (message.hasVideo()) {
-            return new InputMediaVideo(message.getVideo().getFileId());
-        }
-        if (message.hasDocument()) {
-            return new InputMediaDocument(message.getDocument().getFileId());
-        }
-        if (message.hasAudio()) {
-            return new InputMediaAudio(message.getAudio().getFileId());
-        }
-        if (message.hasAnimation()) {
-            return new InputMediaAnimation(message.getAnimation().getFileId());
-        }
-        return null;
-    }
-
     /**
      * 依媒體類型建立 InputMedia。
      *
@@ -696,31 +640,27 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
     /**
      * 從 media group 中擷取第一筆文字或 caption。
      *
-     * @param messages 來源訊息列表
+     * @param items 相簿項目
      * @return 文字內容或 null
      */
-    private String extractMediaGroupText(List<Message> messages) {
-        for (Message message : messages) {
-            if (message.getCaption() != null && !message.getCaption().isBlank()) {
-                return message.getCaption();
-            }
-            if (message.getText() != null && !message.getText().isBlank()) {
-                return message.getText();
+    private String extractMediaGroupText(List<MediaGroupItem> items) {
+        for (MediaGroupItem item : items) {
+            if (!isBlank(item.getCaption())) {
+                return item.getCaption();
             }
         }
         return null;
     }
 
     /**
-     * 先移除黑名單字串，再進行簡轉繁。
+     * 以主要機器人的文字處理管線處理文字（預設為移除黑名單、簡轉繁、去除前後空白）。
      *
      * @param input 原始文字
      * @return 處理後文字
      */
     private String processText(String input) {
-        String filtered = blacklistService.filter(input);
-        String converted = filtered == null ? null : ZhConverterUtil.toTraditional(filtered);
-        return converted == null ? "" : converted.trim();
+        String processed = textPipelines.get(BotType.MAIN).process(input);
+        return processed == null ? "" : processed;
     }
 
     private ForwardFromUserInfo extractForwardFromUserInfo(Message message) {
@@ -738,6 +678,20 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         return new ForwardFromUserInfo(id, username, name, isBot);
     }
 
+    private ForwardFromUserInfo extractForwardFromUserInfo(MediaGroupItem item) {
+        if (isBlank(item.getForwardFromUserId())
+                && isBlank(item.getForwardFromUserUsername())
+                && isBlank(item.getForwardFromUserName())) {
+            return null;
+        }
+        return new ForwardFromUserInfo(
+                item.getForwardFromUserId(),
+                item.getForwardFromUserUsername(),
+                item.getForwardFromUserName(),
+                item.isForwardFromUserBot()
+        );
+    }
+
     private String buildUserDisplayName(User user) {
         if (user == null) {
             return null;
@@ -767,17 +721,14 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         return trimMp4Extension(fileName);
     }
 
-    private String resolveForwardedBotFileBaseName(List<Message> messages, ForwardFromUserInfo forwardFromUserInfo) {
-        if (messages == null || messages.isEmpty() || forwardFromUserInfo == null || !forwardFromUserInfo.isBot) {
+    private String resolveForwardedBotFileBaseName(List<MediaGroupItem> items, ForwardFromUserInfo forwardFromUserInfo) {
+        if (items == null || items.isEmpty() || forwardFromUserInfo == null || !forwardFromUserInfo.isBot) {
             return null;
         }
-        for (Message message : messages) {
-            if (message != null && message.hasVideo() && message.getVideo() != null) {
-                String fileName = message.getVideo().getFileName();
-                String baseName = trimMp4Extension(fileName);
-                if (!isBlank(baseName)) {
-                    return baseName;
-                }
+        for (MediaGroupItem item : items) {
+            String baseName = trimMp4Extension(item.getVideoFileName());
+            if (!isBlank(baseName)) {
+                return baseName;
             }
         }
         return null;
@@ -813,34 +764,11 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
      * @return 最終輸出文字
      */
     private String buildOutputText(String processedText, String serial, String promoText, String suffixText) {
-        List<String> parts = new ArrayList<>();
-        if (suffixText != null && !suffixText.isBlank()) {
-            parts.add(suffixText);
-        }
-        if (processedText != null && !processedText.isBlank()) {
-            parts.add(processedText);
-        }
-        if (serial != null && !serial.isBlank()) {
-            parts.add(serial);
-        }
-        if (promoText != null && !promoText.isBlank()) {
-            parts.add(promoText);
-        }
-        return String.join(" ", parts);
+        return textPipelines.get(BotType.MAIN).assemble(suffixText, processedText, serial, promoText);
     }
 
     private String buildOutputTextWithoutSerial(String processedText, String promoText, String suffixText) {
-        List<String> parts = new ArrayList<>();
-        if (suffixText != null && !suffixText.isBlank()) {
-            parts.add(suffixText);
-        }
-        if (processedText != null && !processedText.isBlank()) {
-            parts.add(processedText);
-        }
-        if (promoText != null && !promoText.isBlank()) {
-            parts.add(promoText);
-        }
-        return String.join(" ", parts);
+        return textPipelines.get(BotType.MAIN).assemble(suffixText, processedText, promoText);
     }
 
     /**
@@ -859,20 +787,19 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
     }
 
     /**
-     * 建立媒體項目列表（多訊息）。
+     * 建立媒體項目列表（media group）。
      *
-     * @param messages 來源訊息列表
+     * @param items 相簿項目
      * @return 媒體項目列表
      */
-    private List<ForwardPostMediaItem> buildMediaItemsFromMessages(List<Message> messages) {
-        List<ForwardPostMediaItem> items = new ArrayList<>();
-        for (Message message : messages) {
-            ForwardPostMediaItem item = buildMediaItem(message);
-            if (item != null) {
-                items.add(item);
+    private List<ForwardPostMediaItem> buildMediaItemsFromGroup(List<MediaGroupItem> items) {
+        List<ForwardPostMediaItem> mediaItems = new ArrayList<>();
+        for (MediaGroupItem item : items) {
+            if (item.getMediaType() != null) {
+                mediaItems.add(new ForwardPostMediaItem(item.getMediaType(), item.getFileId()));
             }
         }
-        return items;
+        return mediaItems;
     }
 
     /**
@@ -913,9 +840,8 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         return forwardPostService.existsByMediaFileId(item.getFileId());
     }
 
-    private boolean isDuplicateMediaGroup(List<Message> messages) {
-        List<ForwardPostMediaItem> items = buildMediaItemsFromMessages(messages);
-        for (ForwardPostMediaItem item : items) {
+    private boolean isDuplicateMediaGroup(List<MediaGroupItem> items) {
+        for (MediaGroupItem item : items) {
             if (item.getFileId() == null || item.getFileId().isBlank()) {
                 continue;
             }
@@ -927,20 +853,14 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
     }
 
     /**
-     * 在來源群組回覆序號，並附上重送按鈕。
+     * 建立在來源群組回覆序號的待發送記錄。
      *
      * @param serial 序號文字
-     * @param postId 貼文 ID
      * @param replyToMessageId 回覆的訊息 ID
-     * @param bot Bot 實體
+     * @return 待發送記錄
      */
-    private void sendAcknowledgement(String serial, String postId, Integer replyToMessageId, Bot bot) {
-        SendMessage sendMessage = SendMessage.builder()
-                .chatId(appConfig.getBotCommunicateChannelChatId())
-                .text(serial)
-                .replyToMessageId(replyToMessageId)
-                .build();
-        telegramBotClient.send(sendMessage, bot);
+    private OutboxMessage buildAcknowledgement(String serial, Integer replyToMessageId) {
+        return outboxDispatcher.buildTextMessage(BotType.MAIN, appConfig.getBotCommunicateChannelChatId(), serial, replyToMessageId);
     }
 
     private void sendDuplicateNotice(Integer replyToMessageId) {
@@ -950,7 +870,7 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
                 .text("重複轉傳")
                 .replyToMessageId(replyToMessageId)
                 .build();
-        telegramBotClient.send(sendMessage, mainBotEntity);
+        telegramBotClient.sendAsync(sendMessage, mainBotEntity).whenComplete((result, error) -> telegramBotClient.logFailure(error));
     }
 
     /**
@@ -982,20 +902,9 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         if (update.getCallbackQuery().getMessage() != null) {
             String chatId = String.valueOf(update.getCallbackQuery().getMessage().getChatId());
             statusMessageId = update.getCallbackQuery().getMessage().getMessageId();
-            EditMessageText editText = EditMessageText.builder()
-                    .chatId(chatId)
-                    .messageId(statusMessageId)
-                    .text("重送中")
-                    .build();
-            telegramBotClient.send(editText, botService.findByBotType(BotType.MAIN));
-            if (update.getCallbackQuery().getMessage() instanceof Message callbackMessage
-                    && callbackMessage.getReplyMarkup() != null) {
-                EditMessageReplyMarkup clearMarkup = EditMessageReplyMarkup.builder()
-                        .chatId(chatId)
-                        .messageId(statusMessageId)
-                        .build();
-                telegramBotClient.send(clearMarkup, botService.findByBotType(BotType.MAIN));
-            }
+            // 不帶按鈕的 editMessageText 會一併移除重送按鈕
+            Bot botEntity = botService.findByBotType(BotType.MAIN);
+            statusMessageEditor.edit(botEntity, chatId, statusMessageId, "重送中");
         }
         String chatId = update.getCallbackQuery().getMessage() == null
                 ? String.valueOf(update.getCallbackQuery().getFrom().getId())
@@ -1015,7 +924,7 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
                 .callbackQueryId(callbackQueryId)
                 .text(text)
                 .build();
-        telegramBotClient.send(answer, mainBotEntity);
+        telegramBotClient.sendAsync(answer, mainBotEntity).whenComplete((result, error) -> telegramBotClient.logFailure(error));
     }
 
     /**
@@ -1076,7 +985,6 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         }
         Bot mainBotEntity = botService.findByBotType(BotType.MAIN);
         int total = posts.size();
-        int progressStep = Math.max(1, total / 20);
         AtomicInteger index = new AtomicInteger(0);
         if (statusMessageId != null) {
             updateStatusMessage(notifyChatId, statusMessageId, buildProgressText(0, total));
@@ -1097,7 +1005,7 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
                 ForwardPost post = posts.get(current);
                 resendPost(post, mainBotEntity);
                 int sentCount = current + 1;
-                if (statusMessageId != null && (sentCount % progressStep == 0 || sentCount == total)) {
+                if (statusMessageId != null) {
                     updateStatusMessage(notifyChatId, statusMessageId, buildProgressText(sentCount, total));
                 }
             } catch (Exception e) {
@@ -1105,6 +1013,25 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
             }
         }, 0, appConfig.getBotResendIntervalMs(), TimeUnit.MILLISECONDS);
         taskRef.set(task);
+        resendHalt = () -> {
+            if (task.isDone()) {
+                return;
+            }
+            task.cancel(false);
+            resendRunning.set(false);
+            updateStatusMessage(notifyChatId, statusMessageId,
+                    "重送已中止：已交由其他節點接收更新（已送 " + Math.min(index.get(), total) + "/" + total + " 筆），請重新執行 /resend");
+        };
+    }
+
+    /**
+     * 中止進行中的重送：排在重送執行緒上，目前這筆送完後停止並更新狀態訊息。用於交出長輪詢主控權。
+     */
+    public void haltResend() {
+        Runnable halt = resendHalt;
+        if (halt != null) {
+            resendScheduler.execute(halt);
+        }
     }
 
     /**
@@ -1145,39 +1072,40 @@ public class MainBotConsumer implements LongPollingSingleThreadUpdateConsumer {
     }
 
     /**
-     * 發送管理員提示訊息。
+     * 更新狀態訊息，若無可編輯訊息則改為送出新訊息。
      *
      * @param chatId 聊天 ID
+     * @param messageId 訊息 ID
      * @param text 內容
      */
-    private void sendAdminNotice(String chatId, String text) {
+    private void updateStatusMessage(String chatId, Integer messageId, String text) {
         Bot mainBotEntity = botService.findByBotType(BotType.MAIN);
-        SendMessage sendMessage = SendMessage.builder()
-                .chatId(chatId)
-                .text(text)
-                .build();
-        telegramBotClient.send(sendMessage, mainBotEntity);
+        if (messageId == null) {
+            SendMessage sendMessage = SendMessage.builder()
+                    .chatId(chatId)
+                    .text(text)
+                    .build();
+            enqueueStatusCall(() -> telegramBotClient.sendAsync(sendMessage, mainBotEntity));
+            return;
+        }
+        statusMessageEditor.edit(mainBotEntity, chatId, messageId, text);
     }
 
     /**
-     * 更新狀態訊息，若無可編輯訊息則改為送出新訊息。
+     * 將新的狀態訊息串在前一個之後非同步發送，呼叫端不等待，且依呼叫順序送達。
      *
-     * @param chatId 聊天 ID
-     * @param messageId 訊息 ID
-     * @param text 內容
+     * @param call 非同步呼叫
+     * @param <R>  回傳型別
      */
-    private void updateStatusMessage(String chatId, Integer messageId, String text) {
-        if (messageId == null) {
-            sendAdminNotice(chatId, text);
-            return;
+    private <R> void enqueueStatusCall(Supplier<CompletableFuture<R>> call) {
+        synchronized (statusCallLock) {
+            statusCallChain = statusCallChain
+                    .thenCompose(ignored -> call.get())
+                    .handle((result, error) -> {
+                        telegramBotClient.logFailure(error);
+                        return null;
+                    });
         }
-        Bot mainBotEntity = botService.findByBotType(BotType.MAIN);
-        EditMessageText editText = EditMessageText.builder()
-                .chatId(chatId)
-                .messageId(messageId)
-                .text(text)
-                .build();
-        telegramBotClient.send(editText, mainBotEntity);
     }
 
     /**
@@ -0,0 +1,249 @@
+package io.github.yienruuuuu.service.application.telegram.mediagroup;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 雜湊時間輪：以固定刻度推進的環狀桶陣列管理大量逾時，新增、取消與延長逾時都是 O(1)。
+ * <p>
+ * 延長逾時只更新截止時間，不搬動節點；刻度走到原本的桶時發現截止時間已延後，才重新放入對應的桶。
+ * 到期的任務在時間輪執行緒上直接執行，因此任務本身必須很輕（例如只把工作丟給其他執行緒池）。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+public class HashedTimingWheel {
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startNanos;
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Thread workerThread;
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * 建立時間輪並啟動推進執行緒。
+     *
+     * @param name      執行緒名稱
+     * @param tickMs    每個刻度的毫秒數
+     * @param wheelSize 桶數，會調整為 2 的次方
+     */
+    public HashedTimingWheel(String name, long tickMs, int wheelSize) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, tickMs));
+        int size = Integer.highestOneBit(Math.max(2, wheelSize) * 2 - 1);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.startNanos = System.nanoTime();
+        this.workerThread = new Thread(this::run, name);
+        this.workerThread.setDaemon(true);
+        this.workerThread.start();
+    }
+
+    /**
+     * 新增逾時任務。
+     *
+     * @param task    到期時執行的任務
+     * @param delayMs 延遲毫秒數
+     * @return 逾時控制物件
+     */
+    public Timeout newTimeout(Runnable task, long delayMs) {
+        Timeout timeout = new Timeout(task, relativeNow() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, delayMs)));
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 停止推進，尚未到期的任務不再執行。
+     */
+    public void stop() {
+        running = false;
+        workerThread.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = waitForNextTick();
+            if (deadline < 0) {
+                continue;
+            }
+            transferPendingTimeouts();
+            List<Timeout> postponed = new ArrayList<>();
+            wheel[(int) (tick & mask)].expire(deadline, postponed);
+            tick++;
+            // 截止時間已被延後的節點在刻度前進後才重新放入，避免落回剛處理完的桶而多等一輪
+            for (Timeout timeout : postponed) {
+                place(timeout);
+            }
+        }
+    }
+
+    /**
+     * 等待到下一個刻度，回傳該刻度的截止時間（相對於啟動時間）；被中斷時回傳 -1。
+     */
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        long sleepNanos = deadline - relativeNow();
+        if (sleepNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                return -1L;
+            }
+        }
+        return deadline;
+    }
+
+    private void transferPendingTimeouts() {
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (!timeout.isCancelled()) {
+                place(timeout);
+            }
+        }
+    }
+
+    private void place(Timeout timeout) {
+        long calculated = timeout.deadline / tickNanos;
+        timeout.remainingRounds = Math.max(0L, (calculated - tick) / wheel.length);
+        long ticks = Math.max(calculated, tick);
+        wheel[(int) (ticks & mask)].add(timeout);
+    }
+
+    private long relativeNow() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * 逾時控制物件。
+     */
+    public final class Timeout {
+        private static final int ST_PENDING = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(ST_PENDING);
+        private volatile long deadline;
+        private long remainingRounds;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 將截止時間改為從現在起算的延遲，不搬動節點。
+         * 節點只會在原本的桶到期時被檢查，因此只能延後；要提前時會取消本逾時並回傳 false。
+         *
+         * @param delayMs 延遲毫秒數
+         * @return false 表示已到期、已取消或需要提前，呼叫端需另建逾時
+         */
+        public boolean refresh(long delayMs) {
+            if (state.get() != ST_PENDING) {
+                return false;
+            }
+            long newDeadline = relativeNow() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, delayMs));
+            if (newDeadline < deadline) {
+                cancel();
+                return false;
+            }
+            deadline = newDeadline;
+            return state.get() == ST_PENDING;
+        }
+
+        /**
+         * 取消逾時，節點在刻度走到時才移除。
+         *
+         * @return true 表示成功取消
+         */
+        public boolean cancel() {
+            return state.compareAndSet(ST_PENDING, ST_CANCELLED);
+        }
+
+        /**
+         * 判斷是否已取消。
+         *
+         * @return true 表示已取消
+         */
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(ST_PENDING, ST_EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable t) {
+                log.warn("時間輪任務執行失敗", t);
+            }
+        }
+    }
+
+    /**
+     * 單一桶內的雙向鏈結串列，只由時間輪執行緒存取。
+     */
+    private final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        private void expire(long deadline, List<Timeout> postponed) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                } else if (timeout.deadline <= deadline) {
+                    remove(timeout);
+                    timeout.expire();
+                } else {
+                    remove(timeout);
+                    postponed.add(timeout);
+                }
+                timeout = next;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = timeout.next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.yienruuuuu.service.application.telegram.mediagroup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 估計相簿項目之間的到達間隔：保留最近固定數量的樣本，定期重新計算 p50 與 p99。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public class InterArrivalEstimator {
+    private static final int RECOMPUTE_EVERY = 16;
+    private final long[] samples;
+    private int next;
+    private int size;
+    private int sinceRecompute;
+    private volatile long p50Ms = -1L;
+    private volatile long p99Ms = -1L;
+
+    /**
+     * 建立估計器。
+     *
+     * @param capacity 保留的樣本數
+     */
+    public InterArrivalEstimator(int capacity) {
+        this.samples = new long[Math.max(RECOMPUTE_EVERY, capacity)];
+    }
+
+    /**
+     * 記錄一個到達間隔。
+     *
+     * @param intervalNanos 與前一則項目的間隔
+     */
+    public synchronized void record(long intervalNanos) {
+        samples[next] = TimeUnit.NANOSECONDS.toMillis(Math.max(0L, intervalNanos));
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+        if (++sinceRecompute >= RECOMPUTE_EVERY || size < RECOMPUTE_EVERY) {
+            sinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            p50Ms = sorted[percentileIndex(size, 0.50)];
+            p99Ms = sorted[percentileIndex(size, 0.99)];
+        }
+    }
+
+    /**
+     * 取得目前的樣本數。
+     *
+     * @return 樣本數
+     */
+    public synchronized int getSampleCount() {
+        return size;
+    }
+
+    /**
+     * 取得到達間隔中位數。
+     *
+     * @return 毫秒數，尚無樣本時為 -1
+     */
+    public long getP50Ms() {
+        return p50Ms;
+    }
+
+    /**
+     * 取得到達間隔 p99。
+     *
+     * @return 毫秒數，尚無樣本時為 -1
+     */
+    public long getP99Ms() {
+        return p99Ms;
+    }
+
+    private static int percentileIndex(int size, double percentile) {
+        return Math.min(size - 1, (int) Math.ceil(percentile * size) - 1);
+    }
+}
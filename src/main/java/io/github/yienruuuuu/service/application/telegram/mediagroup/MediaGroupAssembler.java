@@ -0,0 +1,656 @@
+package io.github.yienruuuuu.service.application.telegram.mediagroup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.config.MediaGroupConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * media group 組裝器：主、副 Bot 共用。同一相簿的項目收齊（最後一則之後靜默一段時間）才交給發送處理。
+ * <p>
+ * 逾時由雜湊時間輪管理，每收到一則項目只更新截止時間；到期後整組交給該 Bot 專屬的單一 flush 執行緒，
+ * 查詢資料庫與寫入發送匣都在 flush 執行緒上進行，單一相簿處理緩慢不會延誤其他相簿的到期判斷；
+ * 同一 Bot 的相簿依到期順序逐一寫入發送匣，不會因多執行緒並行而前後顛倒。
+ * <p>
+ * 到期時間依情況調整：收滿 Telegram 上限（10 則）立即送出；長輪詢批次顯示 Telegram 端已無待取更新，
+ * 且下一次輪詢回來的批次沒有該相簿的項目（確認後面沒有接續）、已收到的項目也都處理到時，只再等一小段寬限；
+ * 單一批次的邊界不足以判斷，相簿可能剛好被切在兩批之間。其餘情況以觀察到的到達間隔 p99 推算靜默時間，
+ * 樣本不足時退回固定的 flush-delay-ms；相簿送出後才又收到同一相簿的項目時，這段間隔也計入樣本，
+ * 靜默時間會隨之拉長。
+ * <p>
+ * 緩衝只保存精簡的項目欄位；未收齊的相簿數與估算位元組數有上限，超過時最舊的相簿直接送出。
+ * 關閉時未收齊的相簿寫入快照檔，下次啟動在處理器註冊時還原；更新日誌重播的同一則訊息會依 message id 略過。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+@Component
+public class MediaGroupAssembler {
+    private static final int INTER_ARRIVAL_SAMPLES = 512;
+    private static final long OBSERVATION_TTL_MS = 60_000L;
+    private static final TypeReference<List<SnapshotGroup>> SNAPSHOT_TYPE = new TypeReference<>() {
+    };
+    private final MediaGroupConfig mediaGroupConfig;
+    private final ObjectMapper objectMapper;
+    private final HashedTimingWheel timingWheel;
+    private final Map<BotType, ExecutorService> flushExecutors = new EnumMap<>(BotType.class);
+    private final Map<String, GroupBuffer> buffers = new ConcurrentHashMap<>();
+    private final Map<String, BatchObservation> observations = new ConcurrentHashMap<>();
+    //最近送出的相簿最後一則項目的到達時間，用來量測把相簿切斷的間隔
+    private final Map<String, Long> recentlyClosed = new ConcurrentHashMap<>();
+    private final Map<BotType, BiConsumer<String, List<MediaGroupItem>>> handlers = new EnumMap<>(BotType.class);
+    private final Map<BotType, List<SnapshotGroup>> restoredGroups = new EnumMap<>(BotType.class);
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final InterArrivalEstimator interArrivalEstimator = new InterArrivalEstimator(INTER_ARRIVAL_SAMPLES);
+    private final LongAdder flushedBySize = new LongAdder();
+    private final LongAdder flushedByBoundary = new LongAdder();
+    private final LongAdder flushedByQuietPeriod = new LongAdder();
+    private final LongAdder flushedByEviction = new LongAdder();
+    private final LongAdder flushedByHandoff = new LongAdder();
+    private final LongAdder lateItems = new LongAdder();
+
+    /**
+     * 建立 media group 組裝器。
+     *
+     * @param mediaGroupConfig media group 設定
+     * @param objectMapper     快照序列化工具
+     */
+    public MediaGroupAssembler(MediaGroupConfig mediaGroupConfig, ObjectMapper objectMapper) {
+        this.mediaGroupConfig = mediaGroupConfig;
+        this.objectMapper = objectMapper;
+        this.timingWheel = new HashedTimingWheel("media-group-timer", mediaGroupConfig.getTickMs(), mediaGroupConfig.getWheelSize());
+        for (BotType botType : BotType.values()) {
+            String threadName = "media-group-flush-" + botType.name().toLowerCase();
+            flushExecutors.put(botType, Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+    }
+
+    /**
+     * 讀取上次關閉時留下的快照，等對應 Bot 的處理器註冊後再放回緩衝。
+     */
+    @PostConstruct
+    public void loadSnapshot() {
+        if (!mediaGroupConfig.isSnapshotEnabled()) {
+            return;
+        }
+        Path snapshotPath = Paths.get(mediaGroupConfig.getSnapshotFile());
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        try {
+            List<SnapshotGroup> groups = objectMapper.readValue(snapshotPath.toFile(), SNAPSHOT_TYPE);
+            synchronized (this) {
+                for (SnapshotGroup group : groups) {
+                    restoredGroups.computeIfAbsent(group.botType, key -> new ArrayList<>()).add(group);
+                }
+            }
+            Files.deleteIfExists(snapshotPath);
+            log.info("已讀取 media group 快照，共 {} 組", groups.size());
+        } catch (IOException e) {
+            log.warn("讀取 media group 快照失敗，改由更新日誌重播: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 註冊 Bot 的相簿處理器，相簿收齊後在 flush 執行緒上呼叫；同時還原該 Bot 在快照中的相簿。
+     *
+     * @param botType Bot 類型
+     * @param handler 處理器，參數為 media group ID 與依收到順序排列的項目
+     */
+    public synchronized void register(BotType botType, BiConsumer<String, List<MediaGroupItem>> handler) {
+        handlers.put(botType, handler);
+        List<SnapshotGroup> groups = restoredGroups.remove(botType);
+        if (groups == null) {
+            return;
+        }
+        for (SnapshotGroup group : groups) {
+            for (MediaGroupItem item : group.items) {
+                append(botType, group.mediaGroupId, item, false);
+            }
+        }
+        log.info("{} 已還原 {} 組未收齊的 media group", botType, groups.size());
+    }
+
+    /**
+     * 記錄長輪詢取得的一批更新中各相簿的項目數，於更新進入處理管線之前呼叫（空批次也要呼叫）。
+     * 先前批次已到邊界、這一批卻沒有後續項目的相簿，視為確認收齊。
+     *
+     * @param botType     Bot 類型
+     * @param updates     getUpdates 回傳的更新
+     * @param morePending true 表示批次已滿，Telegram 端可能還有未取的更新
+     */
+    public void observeBatch(BotType botType, List<Update> updates, boolean morePending) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Update update : updates) {
+            Message channelPost = update.getChannelPost();
+            if (channelPost == null || channelPost.getMediaGroupId() == null) {
+                continue;
+            }
+            counts.merge(buildKey(botType, channelPost.getMediaGroupId()), 1, Integer::sum);
+        }
+        String prefix = botType.name() + ":";
+        for (Map.Entry<String, BatchObservation> entry : observations.entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(prefix) || counts.containsKey(key)) {
+                continue;
+            }
+            BatchObservation observation = entry.getValue();
+            boolean confirmed;
+            synchronized (observation) {
+                confirmed = observation.boundaryReached && !observation.confirmed;
+                observation.confirmed |= confirmed;
+            }
+            if (confirmed) {
+                expedite(key);
+            }
+        }
+        counts.forEach((key, count) -> {
+            BatchObservation observation = observations.computeIfAbsent(key, this::createObservation);
+            synchronized (observation) {
+                observation.seenCount += count;
+                observation.boundaryReached = !morePending;
+                observation.confirmed = false;
+            }
+        });
+    }
+
+    /**
+     * 加入一則相簿項目並延後該相簿的到期時間。
+     *
+     * @param botType      Bot 類型
+     * @param mediaGroupId media group ID
+     * @param item         精簡後的相簿項目
+     */
+    public void append(BotType botType, String mediaGroupId, MediaGroupItem item) {
+        append(botType, mediaGroupId, item, true);
+    }
+
+    private void append(BotType botType, String mediaGroupId, MediaGroupItem item, boolean recordArrival) {
+        String key = buildKey(botType, mediaGroupId);
+        long now = System.nanoTime();
+        while (true) {
+            GroupBuffer buffer = buffers.computeIfAbsent(key, ignored -> new GroupBuffer(botType, mediaGroupId, now));
+            synchronized (buffer) {
+                if (buffer.closed) {
+                    // 已交出發送，等它從 map 移除後改建新的緩衝
+                    buffers.remove(key, buffer);
+                    continue;
+                }
+                if (buffer.contains(item)) {
+                    // 快照還原後，更新日誌又重播同一則訊息
+                    return;
+                }
+                if (recordArrival && !buffer.items.isEmpty()) {
+                    interArrivalEstimator.record(now - buffer.lastArrivalNanos);
+                } else if (recordArrival) {
+                    recordLateArrival(key, mediaGroupId, now);
+                }
+                buffer.lastArrivalNanos = now;
+                buffer.items.add(item);
+                int itemBytes = item.estimateBytes();
+                buffer.bytes += itemBytes;
+                bufferedBytes.addAndGet(itemBytes);
+                if (buffer.items.size() >= mediaGroupConfig.getMaxItems()) {
+                    if (buffer.timeout != null) {
+                        buffer.timeout.cancel();
+                    }
+                    dispatch(buffer, close(key, buffer, FlushReason.SIZE));
+                    return;
+                }
+                buffer.reason = isBatchComplete(key, buffer.items.size()) ? FlushReason.BOUNDARY : FlushReason.QUIET_PERIOD;
+                long delayMs = buffer.reason == FlushReason.BOUNDARY ? mediaGroupConfig.getBoundaryGraceMs() : resolveQuietPeriodMs();
+                schedule(key, buffer, delayMs);
+            }
+            break;
+        }
+        enforceLimits(key);
+    }
+
+    /**
+     * 下一次輪詢確認相簿沒有後續項目後，若已收到的項目都已處理到，把到期時間縮短為寬限時間。
+     */
+    private void expedite(String key) {
+        GroupBuffer buffer = buffers.get(key);
+        if (buffer == null) {
+            return;
+        }
+        synchronized (buffer) {
+            if (buffer.closed || !isBatchComplete(key, buffer.items.size())) {
+                return;
+            }
+            buffer.reason = FlushReason.BOUNDARY;
+            schedule(key, buffer, mediaGroupConfig.getBoundaryGraceMs());
+        }
+    }
+
+    /**
+     * 設定或更新緩衝的到期時間，呼叫端需持有 buffer 的鎖。
+     */
+    private void schedule(String key, GroupBuffer buffer, long delayMs) {
+        if (buffer.timeout == null || !buffer.timeout.refresh(delayMs)) {
+            buffer.timeout = timingWheel.newTimeout(() -> submitFlush(key, buffer), delayMs);
+        }
+    }
+
+    /**
+     * 相簿已送出後又收到同一相簿的項目：這段間隔比靜默時間長，計入到達間隔樣本讓之後的靜默時間拉長。
+     */
+    private void recordLateArrival(String key, String mediaGroupId, long now) {
+        Long lastArrivalNanos = recentlyClosed.remove(key);
+        if (lastArrivalNanos == null) {
+            return;
+        }
+        long gapNanos = now - lastArrivalNanos;
+        interArrivalEstimator.record(gapNanos);
+        lateItems.increment();
+        log.warn("media group {} 已送出後又收到項目，間隔 {} ms，將分開發送", mediaGroupId, TimeUnit.NANOSECONDS.toMillis(gapNanos));
+    }
+
+    /**
+     * 立即送出 Bot 所有未收齊的相簿，用於交出長輪詢主控權：之後的更新由其他節點接收，
+     * 留在本節點的項目不會再有後續。
+     *
+     * @param botType Bot 類型
+     * @return 送出的相簿數
+     */
+    public int flushAll(BotType botType) {
+        int flushed = 0;
+        for (Map.Entry<String, GroupBuffer> entry : buffers.entrySet()) {
+            GroupBuffer buffer = entry.getValue();
+            if (buffer.botType != botType) {
+                continue;
+            }
+            List<MediaGroupItem> items;
+            synchronized (buffer) {
+                if (buffer.timeout != null) {
+                    buffer.timeout.cancel();
+                }
+                items = close(entry.getKey(), buffer, FlushReason.HANDOFF);
+            }
+            if (items != null) {
+                flushed++;
+            }
+            dispatch(buffer, items);
+        }
+        return flushed;
+    }
+
+    /**
+     * 取得目前尚未收齊的相簿數。
+     *
+     * @return 相簿數
+     */
+    public int getOpenGroupCount() {
+        return buffers.size();
+    }
+
+    /**
+     * 取得緩衝中項目的估算位元組數。
+     *
+     * @return 位元組數
+     */
+    public long getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    /**
+     * 取得目前使用的靜默時間。
+     *
+     * @return 毫秒數
+     */
+    public long getQuietPeriodMs() {
+        return resolveQuietPeriodMs();
+    }
+
+    /**
+     * 取得到達間隔估計器。
+     *
+     * @return 估計器
+     */
+    public InterArrivalEstimator getInterArrivalEstimator() {
+        return interArrivalEstimator;
+    }
+
+    /**
+     * 取得因收滿上限而送出的相簿數。
+     *
+     * @return 相簿數
+     */
+    public long getFlushedBySize() {
+        return flushedBySize.sum();
+    }
+
+    /**
+     * 取得因長輪詢批次邊界而送出的相簿數。
+     *
+     * @return 相簿數
+     */
+    public long getFlushedByBoundary() {
+        return flushedByBoundary.sum();
+    }
+
+    /**
+     * 取得因靜默時間到期而送出的相簿數。
+     *
+     * @return 相簿數
+     */
+    public long getFlushedByQuietPeriod() {
+        return flushedByQuietPeriod.sum();
+    }
+
+    /**
+     * 取得因超出容量上限而提前送出的相簿數。
+     *
+     * @return 相簿數
+     */
+    public long getFlushedByEviction() {
+        return flushedByEviction.sum();
+    }
+
+    /**
+     * 取得因交出主控權而提前送出的相簿數。
+     *
+     * @return 相簿數
+     */
+    public long getFlushedByHandoff() {
+        return flushedByHandoff.sum();
+    }
+
+    /**
+     * 取得相簿送出後才又收到的項目數（相簿被切成兩則發送）。
+     *
+     * @return 項目數
+     */
+    public long getLateItems() {
+        return lateItems.sum();
+    }
+
+    /**
+     * 停止時間輪，將未收齊的相簿寫入快照，再等待 flush 執行緒處理完已交出的相簿。
+     * 這些相簿的更新沒有寫入完成標記，未啟用快照時由更新日誌重播。
+     * 啟用選主時，持有主控權的 Bot 在交出主控權時已用 {@link #flushAll(BotType)} 送出，不會留在本節點的快照裡。
+     */
+    @PreDestroy
+    public void shutdown() {
+        timingWheel.stop();
+        writeSnapshot();
+        flushExecutors.values().forEach(ExecutorService::shutdown);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        try {
+            for (ExecutorService executor : flushExecutors.values()) {
+                if (!executor.awaitTermination(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    executor.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            flushExecutors.values().forEach(ExecutorService::shutdownNow);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submitFlush(String key, GroupBuffer buffer) {
+        try {
+            flushExecutors.get(buffer.botType).execute(() -> {
+                List<MediaGroupItem> items;
+                synchronized (buffer) {
+                    items = close(key, buffer, buffer.reason);
+                }
+                publish(buffer, items);
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("media group {} 到期時組裝器已關閉，留待快照或更新日誌處理", buffer.mediaGroupId);
+        }
+    }
+
+    /**
+     * 關閉緩衝並移出 map，呼叫端需持有 buffer 的鎖。
+     *
+     * @return 相簿項目，已被其他路徑關閉時回傳 null
+     */
+    private List<MediaGroupItem> close(String key, GroupBuffer buffer, FlushReason reason) {
+        if (buffer.closed) {
+            return null;
+        }
+        buffer.closed = true;
+        buffers.remove(key, buffer);
+        observations.remove(key);
+        rememberClosed(key, buffer.lastArrivalNanos);
+        bufferedBytes.addAndGet(-buffer.bytes);
+        recordFlush(reason);
+        return new ArrayList<>(buffer.items);
+    }
+
+    private void dispatch(GroupBuffer buffer, List<MediaGroupItem> items) {
+        if (items == null) {
+            return;
+        }
+        try {
+            flushExecutors.get(buffer.botType).execute(() -> publish(buffer, items));
+        } catch (RejectedExecutionException e) {
+            log.warn("media group {} 送出時組裝器已關閉，留待更新日誌重播", buffer.mediaGroupId);
+        }
+    }
+
+    private void publish(GroupBuffer buffer, List<MediaGroupItem> items) {
+        if (items == null) {
+            return;
+        }
+        BiConsumer<String, List<MediaGroupItem>> handler;
+        synchronized (this) {
+            handler = handlers.get(buffer.botType);
+        }
+        if (handler == null) {
+            log.warn("{} 未註冊 media group 處理器，略過 {}", buffer.botType, buffer.mediaGroupId);
+            return;
+        }
+        try {
+            handler.accept(buffer.mediaGroupId, items);
+        } catch (Exception e) {
+            log.error("media group {} 發送失敗", buffer.mediaGroupId, e);
+        }
+    }
+
+    /**
+     * 未收齊的相簿數或位元組數超過上限時，從最舊的相簿開始提前送出（不含剛加入項目的相簿）。
+     */
+    private void enforceLimits(String currentKey) {
+        while (buffers.size() > mediaGroupConfig.getMaxOpenGroups()
+                || bufferedBytes.get() > mediaGroupConfig.getMaxBufferedBytes()) {
+            String oldestKey = null;
+            GroupBuffer oldest = null;
+            for (Map.Entry<String, GroupBuffer> entry : buffers.entrySet()) {
+                GroupBuffer candidate = entry.getValue();
+                if (entry.getKey().equals(currentKey)) {
+                    continue;
+                }
+                if (oldest == null || candidate.createdNanos < oldest.createdNanos) {
+                    oldestKey = entry.getKey();
+                    oldest = candidate;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            List<MediaGroupItem> items;
+            synchronized (oldest) {
+                if (oldest.timeout != null) {
+                    oldest.timeout.cancel();
+                }
+                items = close(oldestKey, oldest, FlushReason.EVICTION);
+                if (items == null) {
+                    buffers.remove(oldestKey, oldest);
+                }
+            }
+            if (items != null) {
+                log.warn("media group 緩衝超過上限，提前送出 {}（{} 則）", oldest.mediaGroupId, items.size());
+            }
+            dispatch(oldest, items);
+        }
+    }
+
+    private void writeSnapshot() {
+        List<SnapshotGroup> groups = new ArrayList<>();
+        for (Map.Entry<String, GroupBuffer> entry : buffers.entrySet()) {
+            GroupBuffer buffer = entry.getValue();
+            synchronized (buffer) {
+                if (buffer.closed) {
+                    continue;
+                }
+                buffer.closed = true;
+                SnapshotGroup group = new SnapshotGroup();
+                group.botType = buffer.botType;
+                group.mediaGroupId = buffer.mediaGroupId;
+                group.items = new ArrayList<>(buffer.items);
+                groups.add(group);
+            }
+        }
+        buffers.clear();
+        bufferedBytes.set(0L);
+        if (!mediaGroupConfig.isSnapshotEnabled() || groups.isEmpty()) {
+            return;
+        }
+        Path snapshotPath = Paths.get(mediaGroupConfig.getSnapshotFile());
+        Path tempPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try {
+            if (snapshotPath.getParent() != null) {
+                Files.createDirectories(snapshotPath.getParent());
+            }
+            objectMapper.writeValue(tempPath.toFile(), groups);
+            Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("已寫入 media group 快照，共 {} 組", groups.size());
+        } catch (IOException e) {
+            log.warn("寫入 media group 快照失敗，改由更新日誌重播: {}", e.getMessage());
+        }
+    }
+
+    private boolean isBatchComplete(String key, int receivedCount) {
+        BatchObservation observation = observations.get(key);
+        if (observation == null) {
+            return false;
+        }
+        synchronized (observation) {
+            return observation.confirmed && receivedCount >= observation.seenCount;
+        }
+    }
+
+    private long resolveQuietPeriodMs() {
+        long maxQuietMs = mediaGroupConfig.getFlushDelayMs();
+        if (interArrivalEstimator.getSampleCount() < mediaGroupConfig.getMinSamples()) {
+            return maxQuietMs;
+        }
+        long learned = (long) (interArrivalEstimator.getP99Ms() * mediaGroupConfig.getQuietMultiplier()) + mediaGroupConfig.getTickMs();
+        return Math.min(maxQuietMs, Math.max(mediaGroupConfig.getMinQuietMs(), learned));
+    }
+
+    private void recordFlush(FlushReason reason) {
+        if (reason == FlushReason.SIZE) {
+            flushedBySize.increment();
+        } else if (reason == FlushReason.BOUNDARY) {
+            flushedByBoundary.increment();
+        } else if (reason == FlushReason.EVICTION) {
+            flushedByEviction.increment();
+        } else if (reason == FlushReason.HANDOFF) {
+            flushedByHandoff.increment();
+        } else {
+            flushedByQuietPeriod.increment();
+        }
+    }
+
+    private void rememberClosed(String key, long lastArrivalNanos) {
+        recentlyClosed.put(key, lastArrivalNanos);
+        timingWheel.newTimeout(() -> recentlyClosed.remove(key, lastArrivalNanos), OBSERVATION_TTL_MS);
+    }
+
+    private BatchObservation createObservation(String key) {
+        BatchObservation observation = new BatchObservation();
+        // 被來源頻道過濾掉而不會進入組裝器的相簿，由逾時清除
+        timingWheel.newTimeout(() -> observations.remove(key, observation), OBSERVATION_TTL_MS);
+        return observation;
+    }
+
+    private String buildKey(BotType botType, String mediaGroupId) {
+        return botType.name() + ":" + mediaGroupId;
+    }
+
+    private enum FlushReason {
+        SIZE,
+        BOUNDARY,
+        QUIET_PERIOD,
+        EVICTION,
+        HANDOFF
+    }
+
+    /**
+     * 快照檔中的一組未收齊相簿。
+     */
+    static class SnapshotGroup {
+        public BotType botType;
+        public String mediaGroupId;
+        public List<MediaGroupItem> items;
+    }
+
+    private static class BatchObservation {
+        private int seenCount;
+        //最後一次出現的批次沒有更多待取更新
+        private boolean boundaryReached;
+        //之後的輪詢結果沒有該相簿的項目，確認已收齊
+        private boolean confirmed;
+    }
+
+    private static class GroupBuffer {
+        private final BotType botType;
+        private final String mediaGroupId;
+        private final long createdNanos;
+        private final List<MediaGroupItem> items = new ArrayList<>();
+        private HashedTimingWheel.Timeout timeout;
+        private FlushReason reason = FlushReason.QUIET_PERIOD;
+        private long lastArrivalNanos;
+        private long bytes;
+        private boolean closed;
+
+        private GroupBuffer(BotType botType, String mediaGroupId, long createdNanos) {
+            this.botType = botType;
+            this.mediaGroupId = mediaGroupId;
+            this.createdNanos = createdNanos;
+        }
+
+        private boolean contains(MediaGroupItem item) {
+            for (MediaGroupItem existing : items) {
+                if (existing.getMessageId() != null && existing.getMessageId().equals(item.getMessageId())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.yienruuuuu.service.application.telegram.mediagroup;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * media group 中的單一項目，只保留組成貼文需要的欄位（不保存完整的 Message），
+ * 可直接序列化到組裝器的快照檔。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Getter
+@Builder
+@Jacksonized
+public class MediaGroupItem {
+    private static final int FIXED_OVERHEAD_BYTES = 96;
+    private final Integer updateId;
+    private final Long chatId;
+    private final Integer messageId;
+    private final String mediaType;
+    private final String fileId;
+    private final String caption;
+    private final String videoFileName;
+    private final String forwardFromChatId;
+    private final String forwardFromChatTitle;
+    private final String forwardFromUserId;
+    private final String forwardFromUserUsername;
+    private final String forwardFromUserName;
+    private final boolean forwardFromUserBot;
+
+    /**
+     * 估算項目在記憶體中佔用的位元組數，用於組裝器的容量上限。
+     *
+     * @return 估算位元組數
+     */
+    public int estimateBytes() {
+        return FIXED_OVERHEAD_BYTES
+                + sizeOf(mediaType)
+                + sizeOf(fileId)
+                + sizeOf(caption)
+                + sizeOf(videoFileName)
+                + sizeOf(forwardFromChatId)
+                + sizeOf(forwardFromChatTitle)
+                + sizeOf(forwardFromUserId)
+                + sizeOf(forwardFromUserUsername)
+                + sizeOf(forwardFromUserName);
+    }
+
+    private static int sizeOf(String value) {
+        return value == null ? 0 : value.length() * 2;
+    }
+}
@@ -0,0 +1,239 @@
+package io.github.yienruuuuu.service.application.telegram.outbound;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 單一 Bot 與方法類別的熔斷器，以每秒一格的環狀視窗統計呼叫數、失敗數與慢呼叫數。
+ * <ul>
+ *     <li>CLOSED：正常放行；視窗內呼叫數達門檻且失敗率或慢呼叫率超標時轉為 OPEN。</li>
+ *     <li>OPEN：直接拒絕，不占用連線與執行緒；開啟時間到後轉為 HALF_OPEN。</li>
+ *     <li>HALF_OPEN：只放行少量探測呼叫，全部成功才關閉，任一失敗即重新開啟。</li>
+ * </ul>
+ * 每次狀態轉換都會換一個世代編號，許可上帶著取得時的世代；在 CLOSED 時發出、半開後才完成的呼叫
+ * 與本輪探測無關，不計入探測結果。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public class CircuitBreaker {
+    public static final long NO_PERMIT = -1L;
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int windowSeconds;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final double slowCallRateThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final long[] bucketSecond;
+    private final int[] bucketCalls;
+    private final int[] bucketFailures;
+    private final int[] bucketSlowCalls;
+    private State state = State.CLOSED;
+    private long generation;
+    private long openUntilNanos;
+    private int probesIssued;
+    private int probesSucceeded;
+    private long openedCount;
+
+    /**
+     * 建立熔斷器。
+     *
+     * @param windowSeconds         統計視窗秒數
+     * @param minimumCalls          視窗內至少幾次呼叫才判斷
+     * @param failureRatePercent    失敗率門檻（百分比）
+     * @param slowCallMillis        超過此時間視為慢呼叫
+     * @param slowCallRatePercent   慢呼叫率門檻（百分比）
+     * @param openMillis            開啟後維持多久才探測
+     * @param halfOpenProbes        半開狀態的探測次數
+     */
+    public CircuitBreaker(
+            int windowSeconds,
+            int minimumCalls,
+            double failureRatePercent,
+            long slowCallMillis,
+            double slowCallRatePercent,
+            long openMillis,
+            int halfOpenProbes
+    ) {
+        this.windowSeconds = Math.max(1, windowSeconds);
+        this.minimumCalls = Math.max(1, minimumCalls);
+        this.failureRateThreshold = failureRatePercent / 100.0;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.slowCallRateThreshold = slowCallRatePercent / 100.0;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.bucketSecond = new long[this.windowSeconds];
+        this.bucketCalls = new int[this.windowSeconds];
+        this.bucketFailures = new int[this.windowSeconds];
+        this.bucketSlowCalls = new int[this.windowSeconds];
+    }
+
+    /**
+     * 是否會拒絕新的呼叫（開啟且尚未到探測時間，或半開但探測名額已用完），供呼叫端在排隊與預約限速前快速判斷。
+     *
+     * @return true 表示會被拒絕
+     */
+    public synchronized boolean isRejecting() {
+        if (state == State.OPEN) {
+            return System.nanoTime() < openUntilNanos;
+        }
+        return state == State.HALF_OPEN && probesIssued >= halfOpenProbes;
+    }
+
+    /**
+     * 取得呼叫許可；取得後必須以 {@link #record(long, boolean, long)} 帶回許可並回報結果。
+     *
+     * @return 許可（取得時的世代編號），{@link #NO_PERMIT} 表示拒絕
+     */
+    public synchronized long tryAcquire() {
+        long now = System.nanoTime();
+        if (state == State.OPEN) {
+            if (now < openUntilNanos) {
+                return NO_PERMIT;
+            }
+            transition(State.HALF_OPEN);
+            probesIssued = 0;
+            probesSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesIssued >= halfOpenProbes) {
+                return NO_PERMIT;
+            }
+            probesIssued++;
+        }
+        return generation;
+    }
+
+    /**
+     * 回報呼叫結果。
+     *
+     * @param permit        {@link #tryAcquire()} 取得的許可
+     * @param failure       是否為上游故障（網路錯誤、5xx）
+     * @param durationNanos 呼叫耗時
+     */
+    public synchronized void record(long permit, boolean failure, long durationNanos) {
+        long now = System.nanoTime();
+        boolean slow = durationNanos >= slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            if (permit != generation) {
+                // 進入半開前就發出的呼叫，不代表探測結果
+                return;
+            }
+            if (failure || slow) {
+                open(now);
+                return;
+            }
+            if (++probesSucceeded >= halfOpenProbes) {
+                transition(State.CLOSED);
+                resetWindow();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+        int index = touchBucket(now);
+        bucketCalls[index]++;
+        if (failure) {
+            bucketFailures[index]++;
+        }
+        if (slow) {
+            bucketSlowCalls[index]++;
+        }
+        int calls = sum(bucketCalls, now);
+        if (calls < minimumCalls) {
+            return;
+        }
+        if (sum(bucketFailures, now) >= failureRateThreshold * calls
+                || sum(bucketSlowCalls, now) >= slowCallRateThreshold * calls) {
+            open(now);
+        }
+    }
+
+    /**
+     * 取得目前狀態快照。
+     *
+     * @return 狀態快照
+     */
+    public synchronized Snapshot snapshot() {
+        long now = System.nanoTime();
+        State current = state == State.OPEN && now >= openUntilNanos ? State.HALF_OPEN : state;
+        long remainingMs = state == State.OPEN ? Math.max(0L, TimeUnit.NANOSECONDS.toMillis(openUntilNanos - now)) : 0L;
+        return new Snapshot(current, sum(bucketCalls, now), sum(bucketFailures, now), sum(bucketSlowCalls, now), remainingMs, openedCount);
+    }
+
+    private void open(long now) {
+        transition(State.OPEN);
+        openUntilNanos = now + openNanos;
+        openedCount++;
+        resetWindow();
+    }
+
+    private void transition(State next) {
+        state = next;
+        generation++;
+    }
+
+    private void resetWindow() {
+        for (int i = 0; i < windowSeconds; i++) {
+            bucketSecond[i] = 0L;
+            bucketCalls[i] = 0;
+            bucketFailures[i] = 0;
+            bucketSlowCalls[i] = 0;
+        }
+    }
+
+    private int touchBucket(long now) {
+        long second = TimeUnit.NANOSECONDS.toSeconds(now);
+        int index = (int) Math.floorMod(second, (long) windowSeconds);
+        if (bucketSecond[index] != second) {
+            bucketSecond[index] = second;
+            bucketCalls[index] = 0;
+            bucketFailures[index] = 0;
+            bucketSlowCalls[index] = 0;
+        }
+        return index;
+    }
+
+    private int sum(int[] counts, long now) {
+        long oldest = TimeUnit.NANOSECONDS.toSeconds(now) - windowSeconds;
+        int total = 0;
+        for (int i = 0; i < windowSeconds; i++) {
+            if (bucketSecond[i] > oldest) {
+                total += counts[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 熔斷器狀態快照。
+     */
+    @Getter
+    public static class Snapshot {
+        private final State state;
+        private final int calls;
+        private final int failures;
+        private final int slowCalls;
+        private final long openRemainingMs;
+        private final long openedCount;
+
+        private Snapshot(State state, int calls, int failures, int slowCalls, long openRemainingMs, long openedCount) {
+            this.state = state;
+            this.calls = calls;
+            this.failures = failures;
+            this.slowCalls = slowCalls;
+            this.openRemainingMs = openRemainingMs;
+            this.openedCount = openedCount;
+        }
+    }
+}
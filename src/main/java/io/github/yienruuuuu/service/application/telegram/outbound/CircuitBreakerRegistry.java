@@ -0,0 +1,116 @@
+package io.github.yienruuuuu.service.application.telegram.outbound;
+
+import io.github.yienruuuuu.config.OutboundConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 依 Bot 與方法類別（send、edit、other）管理熔斷器。
+ * 只有上游故障（網路錯誤、5xx）與慢呼叫計入，4xx 與 429 屬於請求本身或限速問題，不影響熔斷。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+@Component
+public class CircuitBreakerRegistry {
+    private final OutboundConfig outboundConfig;
+    private final TelegramRetryPolicy telegramRetryPolicy;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public CircuitBreakerRegistry(OutboundConfig outboundConfig, TelegramRetryPolicy telegramRetryPolicy) {
+        this.outboundConfig = outboundConfig;
+        this.telegramRetryPolicy = telegramRetryPolicy;
+    }
+
+    /**
+     * 取得對應的熔斷器。
+     *
+     * @param botId  Bot 主鍵
+     * @param action 方法名稱
+     * @return 熔斷器，未啟用時回傳 null
+     */
+    public CircuitBreaker resolve(Integer botId, String action) {
+        if (!outboundConfig.isBreakerEnabled()) {
+            return null;
+        }
+        return breakers.computeIfAbsent(buildName(botId, action), key -> new CircuitBreaker(
+                outboundConfig.getBreakerWindowSeconds(),
+                outboundConfig.getBreakerMinimumCalls(),
+                outboundConfig.getBreakerFailureRatePercent(),
+                outboundConfig.getBreakerSlowCallMs(),
+                outboundConfig.getBreakerSlowCallRatePercent(),
+                outboundConfig.getBreakerOpenMs(),
+                outboundConfig.getBreakerHalfOpenProbes()
+        ));
+    }
+
+    /**
+     * 回報呼叫結果並在狀態改變時記錄。
+     *
+     * @param breaker       熔斷器
+     * @param name          熔斷器名稱
+     * @param permit        呼叫前取得的許可
+     * @param error         失敗原因，成功時為 null
+     * @param durationNanos 呼叫耗時
+     */
+    public void record(CircuitBreaker breaker, String name, long permit, Throwable error, long durationNanos) {
+        CircuitBreaker.State before = breaker.snapshot().getState();
+        breaker.record(permit, isUpstreamFailure(error), durationNanos);
+        CircuitBreaker.State after = breaker.snapshot().getState();
+        if (before != after) {
+            if (after == CircuitBreaker.State.OPEN) {
+                log.warn("熔斷器 {} 開啟，暫停呼叫 {} ms", name, outboundConfig.getBreakerOpenMs());
+            } else if (after == CircuitBreaker.State.CLOSED) {
+                log.info("熔斷器 {} 恢復", name);
+            }
+        }
+    }
+
+    /**
+     * 取得所有熔斷器狀態，依名稱排序。
+     *
+     * @return 名稱與狀態快照
+     */
+    public Map<String, CircuitBreaker.Snapshot> snapshots() {
+        Map<String, CircuitBreaker.Snapshot> result = new TreeMap<>();
+        breakers.forEach((name, breaker) -> result.put(name, breaker.snapshot()));
+        return result;
+    }
+
+    /**
+     * 組出熔斷器名稱，例如 1:send。
+     *
+     * @param botId  Bot 主鍵
+     * @param action 方法名稱
+     * @return 熔斷器名稱
+     */
+    public String buildName(Integer botId, String action) {
+        return botId + ":" + resolveFamily(action);
+    }
+
+    private String resolveFamily(String action) {
+        if (telegramRetryPolicy.isProducingMessage(action)) {
+            return "send";
+        }
+        if (action.startsWith("edit")) {
+            return "edit";
+        }
+        return "other";
+    }
+
+    private boolean isUpstreamFailure(Throwable error) {
+        if (error == null) {
+            return false;
+        }
+        if (error instanceof TelegramCallException callException) {
+            Integer errorCode = callException.getErrorCode();
+            return errorCode == null || errorCode >= 500;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.yienruuuuu.service.application.telegram.outbound;
+
+import lombok.Getter;
+
+/**
+ * 熔斷器開啟中，請求未送出即被拒絕；呼叫端可放心稍後重送。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Getter
+public class CircuitOpenException extends RuntimeException {
+    private final String action;
+
+    /**
+     * 建立例外。
+     *
+     * @param action  呼叫的方法名稱
+     * @param breaker 熔斷器名稱
+     */
+    public CircuitOpenException(String action, String breaker) {
+        super(action + " 未送出，熔斷器 " + breaker + " 開啟中");
+        this.action = action;
+    }
+}
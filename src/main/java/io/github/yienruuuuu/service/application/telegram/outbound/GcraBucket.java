@@ -0,0 +1,90 @@
+package io.github.yienruuuuu.service.application.telegram.outbound;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 以 GCRA（Generic Cell Rate Algorithm）實作的無鎖令牌桶。
+ * 只保存理論到達時間（TAT），以 CAS 更新；預約一律成功，回傳可送出的時間點，
+ * 因此超出速率的請求會排隊等待而不是失敗。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public class GcraBucket {
+    private final long emissionIntervalNanos;
+    private final long burstWindowNanos;
+    private final int burst;
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * 建立令牌桶。
+     *
+     * @param ratePerSecond 每秒允許的請求數
+     * @param burst         允許的瞬間突發數量
+     */
+    public GcraBucket(double ratePerSecond, int burst) {
+        this.emissionIntervalNanos = Math.max(1L, (long) (1_000_000_000L / Math.max(ratePerSecond, 0.001)));
+        this.burst = Math.max(1, burst);
+        this.burstWindowNanos = emissionIntervalNanos * this.burst;
+    }
+
+    /**
+     * 預約 weight 個令牌；超過突發上限的 weight 以突發上限計，避免單一請求把後續請求推遲過久。
+     *
+     * @param notBeforeNanos 最早可送出的時間（System.nanoTime 基準）
+     * @param weight         令牌數
+     * @return 可送出的時間點
+     */
+    public long reserve(long notBeforeNanos, int weight) {
+        long increment = emissionIntervalNanos * clampWeight(weight);
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long base = tat == Long.MIN_VALUE ? notBeforeNanos : Math.max(tat, notBeforeNanos);
+            long newTat = base + increment;
+            if (theoreticalArrival.compareAndSet(tat, newTat)) {
+                return Math.max(notBeforeNanos, newTat - burstWindowNanos);
+            }
+        }
+    }
+
+    /**
+     * 查詢 weight 個令牌可送出的時間點，不預約。
+     *
+     * @param nowNanos 目前時間
+     * @param weight   令牌數
+     * @return 可送出的時間點
+     */
+    public long peek(long nowNanos, int weight) {
+        long tat = theoreticalArrival.get();
+        if (tat == Long.MIN_VALUE) {
+            return nowNanos;
+        }
+        long newTat = Math.max(tat, nowNanos) + emissionIntervalNanos * clampWeight(weight);
+        return Math.max(nowNanos, newTat - burstWindowNanos);
+    }
+
+    /**
+     * 將下一個可送出的時間推遲到指定時間點之後（收到 429 時使用）。
+     *
+     * @param untilNanos 最早可再送出的時間（System.nanoTime 基準）
+     */
+    public void pushBack(long untilNanos) {
+        long target = untilNanos + burstWindowNanos - emissionIntervalNanos;
+        theoreticalArrival.accumulateAndGet(target, (current, next) -> current == Long.MIN_VALUE ? next : Math.max(current, next));
+    }
+
+    /**
+     * 判斷令牌桶是否已閒置（可回收）。
+     *
+     * @param nowNanos 目前時間
+     * @return true 表示閒置
+     */
+    public boolean isIdle(long nowNanos) {
+        long tat = theoreticalArrival.get();
+        return tat == Long.MIN_VALUE || tat <= nowNanos;
+    }
+
+    private int clampWeight(int weight) {
+        return Math.min(burst, Math.max(1, weight));
+    }
+}
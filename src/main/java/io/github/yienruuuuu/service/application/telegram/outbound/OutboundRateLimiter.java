@@ -0,0 +1,160 @@
+package io.github.yienruuuuu.service.application.telegram.outbound;
+
+import io.github.yienruuuuu.config.OutboundConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 依 Telegram 限制對發送請求限速：每個 Bot 一個全域令牌桶，每個目標 chat 一個令牌桶。
+ * 群組與頻道（負數 chat id）與私人對話使用不同速率。
+ * 超出速率的請求依預約順序延後排程送出，不佔用執行緒等待。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+@Component
+public class OutboundRateLimiter {
+    private static final int CHAT_BUCKET_SWEEP_THRESHOLD = 10_000;
+    private final OutboundConfig outboundConfig;
+    private final Map<Integer, GcraBucket> globalBuckets = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<String, GcraBucket>> chatBuckets = new ConcurrentHashMap<>();
+    private final LongAdder throttledCount = new LongAdder();
+    private final LongAdder throttledNanos = new LongAdder();
+
+    public OutboundRateLimiter(OutboundConfig outboundConfig) {
+        this.outboundConfig = outboundConfig;
+    }
+
+    /**
+     * 預約發送許可並回傳需要等待的時間，由呼叫端以排程延後執行。
+     *
+     * @param botId  Bot 主鍵
+     * @param chatId 目標 chat id，非針對 chat 的請求為 null
+     * @param weight 令牌數（media group 整則相簿計 1）
+     * @return 需要等待的奈秒數，0 表示可立即送出
+     */
+    public long reserveDelay(Integer botId, String chatId, int weight) {
+        if (!outboundConfig.isRateLimitEnabled() || weight <= 0) {
+            return 0L;
+        }
+        long waitNanos = reserve(botId, chatId, weight) - System.nanoTime();
+        if (waitNanos <= 0) {
+            return 0L;
+        }
+        throttledCount.increment();
+        throttledNanos.add(waitNanos);
+        if (log.isDebugEnabled()) {
+            log.debug("botId={} chatId={} 限速等待 {} ms", botId, chatId, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+        return waitNanos;
+    }
+
+    /**
+     * 預約令牌但不等待，回傳可送出的時間點（System.nanoTime 基準）。
+     *
+     * @param botId  Bot 主鍵
+     * @param chatId 目標 chat id，非針對 chat 的請求為 null
+     * @param weight 令牌數
+     * @return 可送出的時間點
+     */
+    public long reserve(Integer botId, String chatId, int weight) {
+        long now = System.nanoTime();
+        long notBefore = now;
+        if (chatId != null) {
+            notBefore = resolveChatBucket(botId, chatId, now).reserve(now, weight);
+        }
+        return resolveGlobalBucket(botId).reserve(notBefore, weight);
+    }
+
+    /**
+     * 查詢目前送出需要等待的時間但不預約，供低優先的請求（例如進度編輯）在有積壓時讓路。
+     *
+     * @param botId  Bot 主鍵
+     * @param chatId 目標 chat id，非針對 chat 的請求為 null
+     * @param weight 令牌數
+     * @return 需要等待的奈秒數，0 表示可立即送出
+     */
+    public long peekDelay(Integer botId, String chatId, int weight) {
+        if (!outboundConfig.isRateLimitEnabled() || weight <= 0) {
+            return 0L;
+        }
+        long now = System.nanoTime();
+        long notBefore = now;
+        if (chatId != null) {
+            notBefore = resolveChatBucket(botId, chatId, now).peek(now, weight);
+        }
+        long globalNotBefore = resolveGlobalBucket(botId).peek(now, weight);
+        return Math.max(0L, Math.max(notBefore, globalNotBefore) - now);
+    }
+
+    /**
+     * Telegram 回應 429 時，讓同一 chat（或整個 Bot）在 retry_after 內的後續請求一併延後。
+     *
+     * @param botId   Bot 主鍵
+     * @param chatId  目標 chat id，非針對 chat 的請求為 null
+     * @param delayMs 延後毫秒數
+     */
+    public void backOff(Integer botId, String chatId, long delayMs) {
+        if (!outboundConfig.isRateLimitEnabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long until = now + TimeUnit.MILLISECONDS.toNanos(delayMs);
+        if (chatId != null) {
+            resolveChatBucket(botId, chatId, now).pushBack(until);
+            return;
+        }
+        resolveGlobalBucket(botId).pushBack(until);
+    }
+
+    /**
+     * 取得因限速而等待的請求數。
+     *
+     * @return 等待次數
+     */
+    public long getThrottledCount() {
+        return throttledCount.sum();
+    }
+
+    /**
+     * 取得因限速累積的等待時間。
+     *
+     * @return 累積等待毫秒數
+     */
+    public long getThrottledMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(throttledNanos.sum());
+    }
+
+    private GcraBucket resolveGlobalBucket(Integer botId) {
+        return globalBuckets.computeIfAbsent(botId,
+                key -> new GcraBucket(outboundConfig.getGlobalPerSecond(), outboundConfig.getGlobalBurst()));
+    }
+
+    private GcraBucket resolveChatBucket(Integer botId, String chatId, long now) {
+        Map<String, GcraBucket> buckets = chatBuckets.computeIfAbsent(botId, key -> new ConcurrentHashMap<>());
+        if (buckets.size() > CHAT_BUCKET_SWEEP_THRESHOLD) {
+            buckets.values().removeIf(bucket -> bucket.isIdle(now));
+        }
+        return buckets.computeIfAbsent(chatId, this::createChatBucket);
+    }
+
+    private GcraBucket createChatBucket(String chatId) {
+        if (isGroupOrChannel(chatId)) {
+            return new GcraBucket(outboundConfig.getGroupPerMinute() / 60.0, outboundConfig.getGroupBurst());
+        }
+        return new GcraBucket(outboundConfig.getPrivatePerSecond(), outboundConfig.getPrivateBurst());
+    }
+
+    /**
+     * 群組與頻道的 chat id 為負數，頻道也可能以 @username 表示。
+     */
+    private boolean isGroupOrChannel(String chatId) {
+        return chatId.startsWith("-") || chatId.startsWith("@");
+    }
+}
@@ -0,0 +1,214 @@
+package io.github.yienruuuuu.service.application.telegram.outbound;
+
+import io.github.yienruuuuu.bean.entity.Bot;
+import io.github.yienruuuuu.config.OutboundConfig;
+import io.github.yienruuuuu.service.application.telegram.TelegramBotClient;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 狀態訊息編輯器：長時間作業（例如重送）的進度訊息只保留每則訊息最新的文字與按鈕，
+ * 每則訊息在同一時間最多一個編輯請求，且兩次編輯之間至少間隔設定的時間，中間的更新直接被覆蓋。
+ * <p>
+ * 文字與按鈕以同一個 editMessageText 送出；未指定按鈕時 Telegram 會移除原本的 inline keyboard，
+ * 不需要再另外呼叫 editMessageReplyMarkup。
+ * 進度編輯屬於低優先流量，同一 chat 在限速器中有積壓時會先讓路，最多延後 max-defer-ms。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+@Component
+public class StatusMessageEditor {
+    private static final long SWEEP_INTERVAL_MS = 60_000L;
+    private static final long IDLE_RETENTION_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private final TelegramBotClient telegramBotClient;
+    private final OutboundRateLimiter outboundRateLimiter;
+    private final OutboundConfig outboundConfig;
+    private final Map<String, PendingEdit> pendingEdits = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flushScheduler;
+
+    /**
+     * 建立狀態訊息編輯器。
+     *
+     * @param telegramBotClient   Telegram API 呼叫封裝
+     * @param outboundRateLimiter 發送限速器
+     * @param outboundConfig      發送相關設定
+     */
+    public StatusMessageEditor(
+            TelegramBotClient telegramBotClient,
+            OutboundRateLimiter outboundRateLimiter,
+            OutboundConfig outboundConfig
+    ) {
+        this.telegramBotClient = telegramBotClient;
+        this.outboundRateLimiter = outboundRateLimiter;
+        this.outboundConfig = outboundConfig;
+        this.flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "status-message-editor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flushScheduler.scheduleWithFixedDelay(this::sweepIdle, SWEEP_INTERVAL_MS, SWEEP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 更新狀態訊息文字並移除按鈕，呼叫端不等待。
+     *
+     * @param bot       Bot 實體
+     * @param chatId    聊天 ID
+     * @param messageId 訊息 ID
+     * @param text      最新文字
+     */
+    public void edit(Bot bot, String chatId, Integer messageId, String text) {
+        edit(bot, chatId, messageId, text, null);
+    }
+
+    /**
+     * 更新狀態訊息文字與按鈕，呼叫端不等待；尚未送出的舊內容會被覆蓋。
+     *
+     * @param bot       Bot 實體
+     * @param chatId    聊天 ID
+     * @param messageId 訊息 ID
+     * @param text      最新文字
+     * @param markup    最新按鈕，null 表示移除
+     */
+    public void edit(Bot bot, String chatId, Integer messageId, String text, InlineKeyboardMarkup markup) {
+        String key = bot.getId() + ":" + chatId + ":" + messageId;
+        PendingEdit pendingEdit = pendingEdits.computeIfAbsent(key, ignored -> new PendingEdit(bot, chatId, messageId, intervalNanos()));
+        synchronized (pendingEdit) {
+            if (!pendingEdit.dirty) {
+                pendingEdit.dirtySince = System.nanoTime();
+            }
+            pendingEdit.bot = bot;
+            pendingEdit.text = text;
+            pendingEdit.markup = markup;
+            pendingEdit.dirty = true;
+            if (!pendingEdit.scheduled && !pendingEdit.inFlight) {
+                long remaining = pendingEdit.lastFlushNanos + intervalNanos() - System.nanoTime();
+                schedule(pendingEdit, Math.max(0L, remaining));
+            }
+        }
+    }
+
+    /**
+     * 關閉排程執行緒，尚未送出的進度更新直接捨棄。
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushScheduler.shutdownNow();
+    }
+
+    private void flush(PendingEdit pendingEdit) {
+        EditMessageText editText;
+        Bot bot;
+        synchronized (pendingEdit) {
+            pendingEdit.scheduled = false;
+            if (!pendingEdit.dirty || pendingEdit.inFlight) {
+                return;
+            }
+            long now = System.nanoTime();
+            long backlogNanos = outboundRateLimiter.peekDelay(pendingEdit.bot.getId(), pendingEdit.chatId, 1);
+            long deferredNanos = now - pendingEdit.dirtySince;
+            if (backlogNanos > 0 && deferredNanos < TimeUnit.MILLISECONDS.toNanos(outboundConfig.getStatusEditMaxDeferMs())) {
+                schedule(pendingEdit, Math.min(backlogNanos, intervalNanos()));
+                return;
+            }
+            pendingEdit.dirty = false;
+            if (Objects.equals(pendingEdit.text, pendingEdit.sentText)
+                    && Objects.equals(pendingEdit.markup, pendingEdit.sentMarkup)) {
+                // 內容未變，Telegram 會回應 message is not modified
+                return;
+            }
+            editText = EditMessageText.builder()
+                    .chatId(pendingEdit.chatId)
+                    .messageId(pendingEdit.messageId)
+                    .text(pendingEdit.text)
+                    .replyMarkup(pendingEdit.markup)
+                    .build();
+            bot = pendingEdit.bot;
+            pendingEdit.sentText = pendingEdit.text;
+            pendingEdit.sentMarkup = pendingEdit.markup;
+            pendingEdit.inFlight = true;
+        }
+        telegramBotClient.sendAsync(editText, bot).whenComplete((result, error) -> {
+            telegramBotClient.logFailure(error);
+            onFlushed(pendingEdit, error);
+        });
+    }
+
+    private void onFlushed(PendingEdit pendingEdit, Throwable error) {
+        synchronized (pendingEdit) {
+            pendingEdit.inFlight = false;
+            pendingEdit.lastFlushNanos = System.nanoTime();
+            if (error != null) {
+                // 無法確定訊息目前內容，下一次更新一律送出
+                pendingEdit.sentText = null;
+                pendingEdit.sentMarkup = null;
+            }
+            if (pendingEdit.dirty && !pendingEdit.scheduled) {
+                schedule(pendingEdit, intervalNanos());
+            }
+        }
+    }
+
+    private void schedule(PendingEdit pendingEdit, long delayNanos) {
+        try {
+            flushScheduler.schedule(() -> flush(pendingEdit), delayNanos, TimeUnit.NANOSECONDS);
+            pendingEdit.scheduled = true;
+        } catch (RejectedExecutionException e) {
+            log.debug("狀態訊息編輯器已關閉，捨棄更新 chatId={} messageId={}", pendingEdit.chatId, pendingEdit.messageId);
+        }
+    }
+
+    private void sweepIdle() {
+        long now = System.nanoTime();
+        pendingEdits.values().removeIf(pendingEdit -> {
+            synchronized (pendingEdit) {
+                return !pendingEdit.dirty
+                        && !pendingEdit.scheduled
+                        && !pendingEdit.inFlight
+                        && now - pendingEdit.lastFlushNanos > IDLE_RETENTION_NANOS;
+            }
+        });
+    }
+
+    private long intervalNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, outboundConfig.getStatusEditIntervalMs()));
+    }
+
+    /**
+     * 單一狀態訊息的待送內容與送出狀態，欄位皆以物件本身為鎖保護。
+     */
+    private static final class PendingEdit {
+        private final String chatId;
+        private final Integer messageId;
+        private Bot bot;
+        private String text;
+        private InlineKeyboardMarkup markup;
+        private String sentText;
+        private InlineKeyboardMarkup sentMarkup;
+        private boolean dirty;
+        private boolean scheduled;
+        private boolean inFlight;
+        private long dirtySince;
+        private long lastFlushNanos;
+
+        private PendingEdit(Bot bot, String chatId, Integer messageId, long intervalNanos) {
+            this.bot = bot;
+            this.chatId = chatId;
+            this.messageId = messageId;
+            this.lastFlushNanos = System.nanoTime() - intervalNanos;
+        }
+    }
+}
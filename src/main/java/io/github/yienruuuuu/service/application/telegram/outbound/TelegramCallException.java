@@ -0,0 +1,48 @@
+package io.github.yienruuuuu.service.application.telegram.outbound;
+
+import lombok.Getter;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+/**
+ * Telegram API 呼叫失敗，保留方法名稱與 Telegram 回傳的錯誤碼。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Getter
+public class TelegramCallException extends RuntimeException {
+    private final String action;
+    private final Integer errorCode;
+    private final Integer retryAfterSeconds;
+
+    /**
+     * 由 Telegram 套件的例外建立。
+     *
+     * @param action 呼叫的方法名稱
+     * @param cause  原始例外
+     */
+    public TelegramCallException(String action, TelegramApiException cause) {
+        super(action + " 呼叫失敗: " + cause.getMessage(), cause);
+        this.action = action;
+        if (cause instanceof TelegramApiRequestException requestException) {
+            this.errorCode = requestException.getErrorCode();
+            this.retryAfterSeconds = requestException.getParameters() == null
+                    ? null
+                    : requestException.getParameters().getRetryAfter();
+        } else {
+            this.errorCode = null;
+            this.retryAfterSeconds = null;
+        }
+    }
+
+    /**
+     * 是否為 Telegram 的「訊息內容未變更」回應，此情況可視為成功。
+     *
+     * @return true 表示內容未變更
+     */
+    public boolean isNotModified() {
+        String message = getCause() == null ? null : getCause().getMessage();
+        return message != null && message.contains("message is not modified");
+    }
+}
@@ -0,0 +1,175 @@
+package io.github.yienruuuuu.service.application.telegram.outbound;
+
+import io.github.yienruuuuu.config.OutboundConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 所有 Bot token 共用的 HTTP 傳輸層：同一個連線池與 dispatcher，
+ * 依方法類別（一般、上傳檔案、長輪詢）衍生不同逾時設定的 OkHttpClient。
+ * 衍生的 client 共用連線與執行緒，多組主/副 Bot 在同一個 JVM 內不會各自建立連線池。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+@Component
+public class TelegramHttpTransport {
+    private static final String TELEGRAM_API_URL = "https://api.telegram.org/";
+    private final OutboundConfig outboundConfig;
+    private final ConnectionPool connectionPool;
+    private final Dispatcher dispatcher;
+    private final OkHttpClient defaultClient;
+    private final OkHttpClient uploadClient;
+    private final OkHttpClient longPollingClient;
+
+    /**
+     * 建立共用傳輸層。
+     *
+     * @param outboundConfig 發送相關設定
+     */
+    public TelegramHttpTransport(OutboundConfig outboundConfig) {
+        this.outboundConfig = outboundConfig;
+        this.connectionPool = new ConnectionPool(
+                Math.max(1, outboundConfig.getHttpMaxIdleConnections()),
+                outboundConfig.getHttpKeepAliveSeconds(),
+                TimeUnit.SECONDS
+        );
+        this.dispatcher = new Dispatcher();
+        this.dispatcher.setMaxRequests(Math.max(1, outboundConfig.getHttpMaxRequests()));
+        this.dispatcher.setMaxRequestsPerHost(Math.max(1, outboundConfig.getHttpMaxRequestsPerHost()));
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                // 保留 OkHttp 預設：閒置後被伺服器關閉的池中連線、HTTP/2 被拒絕的 stream 會自動換連線重送，
+                // 這些情況請求尚未被 Telegram 處理，關掉反而會讓長時間閒置後的第一則訊息直接失敗
+                .retryOnConnectionFailure(true)
+                .connectTimeout(outboundConfig.getHttpConnectTimeoutMs(), TimeUnit.MILLISECONDS)
+                .readTimeout(outboundConfig.getHttpReadTimeoutMs(), TimeUnit.MILLISECONDS)
+                .writeTimeout(outboundConfig.getHttpReadTimeoutMs(), TimeUnit.MILLISECONDS);
+        if (outboundConfig.isHttpHttp2Enabled()) {
+            builder.protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1));
+        } else {
+            builder.protocols(List.of(Protocol.HTTP_1_1));
+        }
+        this.defaultClient = builder.build();
+        this.uploadClient = defaultClient.newBuilder()
+                .readTimeout(outboundConfig.getHttpUploadTimeoutMs(), TimeUnit.MILLISECONDS)
+                .writeTimeout(outboundConfig.getHttpUploadTimeoutMs(), TimeUnit.MILLISECONDS)
+                .build();
+        this.longPollingClient = defaultClient.newBuilder()
+                .readTimeout(outboundConfig.getHttpLongPollingReadTimeoutMs(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 啟動時先建立到 Telegram 的連線（TLS 交握、HTTP/2 協商），第一則訊息不必付出建線成本。
+     */
+    @PostConstruct
+    public void prewarm() {
+        int connections = outboundConfig.getHttpPrewarmConnections();
+        if (connections <= 0) {
+            return;
+        }
+        OkHttpClient prewarmClient = defaultClient.newBuilder().followRedirects(false).build();
+        Request request = new Request.Builder().url(TELEGRAM_API_URL).head().build();
+        for (int i = 0; i < connections; i++) {
+            prewarmClient.newCall(request).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    log.warn("預先建立 Telegram 連線失敗: {}", e.getMessage());
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    log.debug("預先建立 Telegram 連線完成，protocol={}", response.protocol());
+                    response.close();
+                }
+            });
+        }
+    }
+
+    /**
+     * 依方法名稱取得對應逾時設定的 client。
+     *
+     * @param action 方法名稱
+     * @return OkHttpClient
+     */
+    public OkHttpClient clientFor(String action) {
+        return isUpload(action) ? uploadClient : defaultClient;
+    }
+
+    /**
+     * 取得長輪詢使用的 client，讀取逾時需大於 getUpdates 的 timeout。
+     *
+     * @return OkHttpClient
+     */
+    public OkHttpClient getLongPollingClient() {
+        return longPollingClient;
+    }
+
+    /**
+     * 取得連線池中的連線數。
+     *
+     * @return 連線數
+     */
+    public int getConnectionCount() {
+        return connectionPool.connectionCount();
+    }
+
+    /**
+     * 取得連線池中閒置的連線數。
+     *
+     * @return 閒置連線數
+     */
+    public int getIdleConnectionCount() {
+        return connectionPool.idleConnectionCount();
+    }
+
+    /**
+     * 取得 dispatcher 進行中的請求數。
+     *
+     * @return 進行中請求數
+     */
+    public int getRunningCallsCount() {
+        return dispatcher.runningCallsCount();
+    }
+
+    /**
+     * 判斷方法是否會上傳檔案，上傳需要較長的讀寫逾時。
+     *
+     * @param action 方法名稱
+     * @return true 表示上傳類方法
+     */
+    public boolean isUpload(String action) {
+        return "sendPhoto".equals(action)
+                || "sendVideo".equals(action)
+                || "sendDocument".equals(action)
+                || "sendAudio".equals(action)
+                || "sendAnimation".equals(action)
+                || "sendMediaGroup".equals(action);
+    }
+
+    /**
+     * 關閉 dispatcher 執行緒並釋放連線。
+     */
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.executorService().shutdown();
+        connectionPool.evictAll();
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.yienruuuuu.service.application.telegram.outbound;
+
+import io.github.yienruuuuu.config.OutboundConfig;
+import org.springframework.stereotype.Component;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 決定 Telegram 呼叫失敗後是否重試，以及重試前的等待時間。
+ * <ul>
+ *     <li>429：依 retry_after 等待後重試，請求確定未被執行。</li>
+ *     <li>5xx：指數退避加隨機抖動後重試；但 5xx 可能是 Telegram 已執行後才回應失敗（例如閘道逾時），
+ *     會產生訊息的方法不重試，避免重複發送。</li>
+ *     <li>網路錯誤：連線未建立時一律可重試；連線建立後才失敗（逾時、中斷）屬於結果不明，
+ *     會產生訊息的方法不重試，避免重複發送。</li>
+ *     <li>其他 4xx：不重試。</li>
+ * </ul>
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Component
+public class TelegramRetryPolicy {
+    public static final long NO_RETRY = -1L;
+    private static final long RETRY_AFTER_JITTER_MS = 250L;
+    private final OutboundConfig outboundConfig;
+
+    public TelegramRetryPolicy(OutboundConfig outboundConfig) {
+        this.outboundConfig = outboundConfig;
+    }
+
+    /**
+     * 計算下一次重試前的等待時間。
+     *
+     * @param action  呼叫的方法名稱
+     * @param attempt 已嘗試次數（從 1 開始）
+     * @param error   本次失敗原因
+     * @return 等待毫秒數，不重試時回傳 {@link #NO_RETRY}
+     */
+    public long nextDelayMs(String action, int attempt, TelegramCallException error) {
+        if (!outboundConfig.isRetryEnabled() || attempt >= resolveMaxAttempts(action)) {
+            return NO_RETRY;
+        }
+        Integer errorCode = error.getErrorCode();
+        if (error.getRetryAfterSeconds() != null) {
+            if (error.getRetryAfterSeconds() > outboundConfig.getRetryMaxRetryAfterSeconds()) {
+                return NO_RETRY;
+            }
+            return error.getRetryAfterSeconds() * 1000L + ThreadLocalRandom.current().nextLong(RETRY_AFTER_JITTER_MS);
+        }
+        if (errorCode != null) {
+            return errorCode >= 500 && !isProducingMessage(action) ? backoffMs(attempt) : NO_RETRY;
+        }
+        if (isProducingMessage(action) && !isConnectFailure(error)) {
+            return NO_RETRY;
+        }
+        return backoffMs(attempt);
+    }
+
+    /**
+     * 判斷方法是否會產生新內容，重複執行會造成重複訊息或重複資源。
+     *
+     * @param action 方法名稱
+     * @return true 表示非冪等
+     */
+    public boolean isProducingMessage(String action) {
+        return action.startsWith("send")
+                || "copyMessage".equals(action)
+                || "forwardMessage".equals(action)
+                || "createChatInviteLink".equals(action);
+    }
+
+    /**
+     * 判斷失敗的請求之後能否整筆重新送出而不會造成重複訊息（發送匣排程重送使用）。
+     *
+     * @param action 方法名稱
+     * @param error  失敗原因
+     * @return true 表示可稍後重送
+     */
+    public boolean isSafeToResend(String action, TelegramCallException error) {
+        if (error.getRetryAfterSeconds() != null) {
+            return true;
+        }
+        if (error.getErrorCode() != null) {
+            return error.getErrorCode() >= 500 && !isProducingMessage(action);
+        }
+        return !isProducingMessage(action) || isConnectFailure(error);
+    }
+
+    private int resolveMaxAttempts(String action) {
+        if (isProducingMessage(action)) {
+            return outboundConfig.getRetrySendMaxAttempts();
+        }
+        if (action.startsWith("edit")) {
+            return outboundConfig.getRetryEditMaxAttempts();
+        }
+        return outboundConfig.getRetryOtherMaxAttempts();
+    }
+
+    /**
+     * 指數退避加等量抖動：一半固定、一半隨機。
+     */
+    private long backoffMs(int attempt) {
+        long base = Math.max(1L, outboundConfig.getRetryBaseBackoffMs());
+        long exponential = base << Math.min(attempt - 1, 20);
+        long capped = Math.min(exponential, outboundConfig.getRetryMaxBackoffMs());
+        long half = Math.max(1L, capped / 2);
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    /**
+     * 連線階段即失敗，請求不可能送達 Telegram。
+     */
+    private boolean isConnectFailure(Throwable error) {
+        Throwable current = error;
+        while (current != null) {
+            if (current instanceof ConnectException
+                    || current instanceof UnknownHostException
+                    || current instanceof NoRouteToHostException) {
+                return true;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,514 @@
+package io.github.yienruuuuu.service.application.telegram.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.yienruuuuu.bean.entity.Bot;
+import io.github.yienruuuuu.bean.entity.OutboxMessage;
+import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.config.OutboundConfig;
+import io.github.yienruuuuu.service.application.telegram.TelegramBotClient;
+import io.github.yienruuuuu.service.application.telegram.leader.BotLeaderElector;
+import io.github.yienruuuuu.service.application.telegram.leader.BotShardMembership;
+import io.github.yienruuuuu.service.application.telegram.outbound.CircuitOpenException;
+import io.github.yienruuuuu.service.application.telegram.outbound.TelegramCallException;
+import io.github.yienruuuuu.service.application.telegram.outbound.TelegramRetryPolicy;
+import io.github.yienruuuuu.service.business.BotService;
+import io.github.yienruuuuu.service.business.OutboxService;
+import io.github.yienruuuuu.service.business.model.ForwardPostMediaItem;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.send.SendAnimation;
+import org.telegram.telegrambots.meta.api.methods.send.SendAudio;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendMediaGroup;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.methods.send.SendVideo;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.media.InputMedia;
+import org.telegram.telegrambots.meta.api.objects.media.InputMediaAnimation;
+import org.telegram.telegrambots.meta.api.objects.media.InputMediaAudio;
+import org.telegram.telegrambots.meta.api.objects.media.InputMediaDocument;
+import org.telegram.telegrambots.meta.api.objects.media.InputMediaPhoto;
+import org.telegram.telegrambots.meta.api.objects.media.InputMediaVideo;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 發送匣分派器：背景執行緒以 FOR UPDATE SKIP LOCKED 批次取出待發送記錄送到 Telegram，
+ * 回寫送達狀態與 Telegram 訊息 ID。多條執行緒或多個節點可同時取件而不互相阻塞。
+ * <p>
+ * 取件時每個 Bot 與 chat 只取最早一筆未完成的記錄，前一筆有結果後才會取下一筆，
+ * 同一 chat 的發送順序跨批次、跨節點都與建立順序一致；不同 chat 之間並行。
+ * 啟用 Bot 分片時只取本節點持有長輪詢主控權的 Bot 記錄，限速與熔斷狀態都留在負責該 Bot 的節點上。
+ * 結果不明的失敗（已送出但未收到回應、發送途中租約逾期）標記為 UNCERTAIN 待人工確認，
+ * 不會自動重送，避免公開頻道出現重複貼文。
+ * 等待結果期間每隔三分之一租約延長一次租約，用戶端內的限速排隊與 429 重試再久也不會讓仍在發送的記錄逾期；
+ * 只有節點中斷、不再續約時記錄才會逾期。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+    public static final String METHOD_SEND_MESSAGE = "sendMessage";
+    public static final String METHOD_SEND_MEDIA_GROUP = "sendMediaGroup";
+    private static final long PRUNE_INTERVAL_MS = 3_600_000L;
+    private static final long MIN_LEASE_RENEW_MS = 1_000L;
+    private static final long LEASE_MARGIN_SECONDS = 60L;
+    private static final TypeReference<List<Map<String, String>>> MEDIA_LIST_TYPE = new TypeReference<>() {
+    };
+    private final OutboxService outboxService;
+    private final BotService botService;
+    private final TelegramBotClient telegramBotClient;
+    private final TelegramRetryPolicy telegramRetryPolicy;
+    private final OutboundConfig outboundConfig;
+    private final ObjectMapper objectMapper;
+    private final BotShardMembership botShardMembership;
+    private final BotLeaderElector botLeaderElector;
+    private final Object signal = new Object();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+    private volatile long lastPruneAt;
+
+    /**
+     * 建立發送匣分派器。
+     *
+     * @param outboxService       發送匣服務
+     * @param botService          Bot 服務
+     * @param telegramBotClient   Telegram API 呼叫封裝
+     * @param telegramRetryPolicy 重試策略
+     * @param outboundConfig      發送相關設定
+     * @param objectMapper        JSON 序列化工具
+     * @param botShardMembership  節點成員管理
+     * @param botLeaderElector    長輪詢選主器
+     */
+    public OutboxDispatcher(
+            OutboxService outboxService,
+            BotService botService,
+            TelegramBotClient telegramBotClient,
+            TelegramRetryPolicy telegramRetryPolicy,
+            OutboundConfig outboundConfig,
+            ObjectMapper objectMapper,
+            BotShardMembership botShardMembership,
+            BotLeaderElector botLeaderElector
+    ) {
+        this.outboxService = outboxService;
+        this.botService = botService;
+        this.telegramBotClient = telegramBotClient;
+        this.telegramRetryPolicy = telegramRetryPolicy;
+        this.outboundConfig = outboundConfig;
+        this.objectMapper = objectMapper;
+        this.botShardMembership = botShardMembership;
+        this.botLeaderElector = botLeaderElector;
+    }
+
+    /**
+     * 啟動分派執行緒；停用時本節點只寫入發送匣，由其他節點發送。
+     */
+    @PostConstruct
+    public void start() {
+        if (!outboundConfig.isOutboxDispatcherEnabled()) {
+            log.info("發送匣分派未啟用，本節點僅寫入待發送記錄");
+            return;
+        }
+        running = true;
+        for (int i = 0; i < Math.max(1, outboundConfig.getOutboxDispatcherThreads()); i++) {
+            Thread worker = new Thread(this::runLoop, "outbox-dispatcher-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * 新記錄提交後喚醒分派執行緒，不必等到下一次輪詢。
+     */
+    public void wakeUp() {
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+    }
+
+    /**
+     * 建立文字訊息的待發送記錄。
+     *
+     * @param botType          負責發送的 Bot 類型
+     * @param chatId           目標 chat ID
+     * @param text             文字內容
+     * @param replyToMessageId 回覆的訊息 ID，可為 null
+     * @return 待發送記錄
+     */
+    public OutboxMessage buildTextMessage(BotType botType, String chatId, String text, Integer replyToMessageId) {
+        OutboxMessage message = new OutboxMessage();
+        message.setBotType(botType);
+        message.setMethod(METHOD_SEND_MESSAGE);
+        message.setChatId(chatId);
+        message.setText(text);
+        message.setReplyToMessageId(replyToMessageId);
+        return message;
+    }
+
+    /**
+     * 建立媒體訊息的待發送記錄；單一媒體依類型發送，多筆媒體以 media group 發送。
+     *
+     * @param botType    負責發送的 Bot 類型
+     * @param chatId     目標 chat ID
+     * @param caption    caption，套用在第一筆媒體
+     * @param mediaItems 媒體項目
+     * @return 待發送記錄，沒有媒體時回傳 null
+     */
+    public OutboxMessage buildMediaMessage(BotType botType, String chatId, String caption, List<ForwardPostMediaItem> mediaItems) {
+        if (mediaItems == null || mediaItems.isEmpty()) {
+            return null;
+        }
+        List<Map<String, String>> medias = new ArrayList<>();
+        for (ForwardPostMediaItem item : mediaItems) {
+            Map<String, String> media = new LinkedHashMap<>();
+            media.put("mediaType", item.getMediaType());
+            media.put("fileId", item.getFileId());
+            medias.add(media);
+        }
+        OutboxMessage message = new OutboxMessage();
+        message.setBotType(botType);
+        message.setMethod(medias.size() == 1 ? resolveSingleMediaMethod(mediaItems.get(0).getMediaType()) : METHOD_SEND_MEDIA_GROUP);
+        message.setChatId(chatId);
+        message.setText(caption);
+        try {
+            message.setMediaJson(objectMapper.writeValueAsString(medias));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("無法序列化媒體列表", e);
+        }
+        return message;
+    }
+
+    /**
+     * 停止分派執行緒；已取出但未完成的記錄在租約到期後改為結果不明，待人工確認。
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            int dispatched = 0;
+            try {
+                dispatched = dispatchBatch();
+                pruneIfDue();
+            } catch (Exception e) {
+                log.error("發送匣分派失敗", e);
+            }
+            // 每個 chat 每批只取一筆，有送出就立刻取下一批，讓同一 chat 的後續記錄不必等輪詢間隔
+            if (dispatched > 0) {
+                continue;
+            }
+            synchronized (signal) {
+                try {
+                    signal.wait(Math.max(1L, outboundConfig.getOutboxPollIntervalMs()));
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 取出一批記錄發送並等待結果回寫。
+     *
+     * @return 本批筆數
+     */
+    private int dispatchBatch() {
+        int limit = Math.max(1, outboundConfig.getOutboxBatchSize());
+        Duration lease = resolveLease();
+        List<OutboxMessage> batch;
+        if (botShardMembership.isEnabled()) {
+            List<BotType> ownedBotTypes = new ArrayList<>();
+            botLeaderElector.getLeadership().forEach((type, leader) -> {
+                if (leader) {
+                    ownedBotTypes.add(type);
+                }
+            });
+            if (ownedBotTypes.isEmpty()) {
+                return 0;
+            }
+            batch = outboxService.claimBatch(limit, lease, ownedBotTypes);
+        } else {
+            batch = outboxService.claimBatch(limit, lease);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        // 取件已保證每個 Bot 與 chat 最多一筆，整批可並行發送
+        CompletableFuture<?>[] sends = batch.stream().map(this::dispatch).toArray(CompletableFuture[]::new);
+        awaitWithLeaseRenewal(batch, sends, lease);
+        return batch.size();
+    }
+
+    /**
+     * 等待整批發送完成，期間定期延長尚未完成的記錄租約。
+     * 停止時不再等待，未完成的記錄在租約到期後改為結果不明。
+     */
+    private void awaitWithLeaseRenewal(List<OutboxMessage> batch, CompletableFuture<?>[] sends, Duration lease) {
+        CompletableFuture<Void> all = CompletableFuture.allOf(sends);
+        long renewMs = Math.max(MIN_LEASE_RENEW_MS, lease.toMillis() / 3);
+        while (true) {
+            try {
+                all.get(renewMs, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException e) {
+                renewLeases(batch, sends, lease);
+            } catch (ExecutionException e) {
+                // 每筆結果都已在 dispatch 內處理，不會走到這裡
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void renewLeases(List<OutboxMessage> batch, CompletableFuture<?>[] sends, Duration lease) {
+        List<Long> pendingIds = new ArrayList<>();
+        for (int i = 0; i < sends.length; i++) {
+            if (!sends[i].isDone()) {
+                pendingIds.add(batch.get(i).getId());
+            }
+        }
+        try {
+            int renewed = outboxService.renewLeases(pendingIds, lease);
+            if (renewed < pendingIds.size()) {
+                log.warn("發送匣記錄 {} 中有 {} 筆租約已逾期，結果將保留為待人工確認", pendingIds, pendingIds.size() - renewed);
+            }
+        } catch (Exception e) {
+            log.warn("延長發送匣租約失敗，下次再試: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 取得發送租約。未設定時以單筆發送在用戶端內最長可能耗時推算：每次嘗試都用滿上傳逾時，
+     * 每次重試前都等滿 retry_after 上限或退避上限；即使續約寫入暫時失敗，租約本身也足以涵蓋整段重試。
+     */
+    private Duration resolveLease() {
+        if (outboundConfig.getOutboxLeaseSeconds() > 0) {
+            return Duration.ofSeconds(outboundConfig.getOutboxLeaseSeconds());
+        }
+        int attempts = outboundConfig.isRetryEnabled() ? Math.max(1, outboundConfig.getRetrySendMaxAttempts()) : 1;
+        long retryWaitMs = Math.max(outboundConfig.getRetryMaxRetryAfterSeconds() * 1000L, outboundConfig.getRetryMaxBackoffMs());
+        long worstCaseMs = attempts * outboundConfig.getHttpUploadTimeoutMs() + (attempts - 1) * retryWaitMs;
+        return Duration.ofMillis(worstCaseMs).plusSeconds(LEASE_MARGIN_SECONDS);
+    }
+
+    private CompletableFuture<Void> dispatch(OutboxMessage message) {
+        CompletableFuture<List<Integer>> send;
+        try {
+            send = send(message);
+        } catch (RuntimeException e) {
+            send = CompletableFuture.failedFuture(e);
+        }
+        return send.handle((messageIds, error) -> {
+            try {
+                if (error == null) {
+                    outboxService.markSent(message.getId(), messageIds);
+                } else {
+                    recordFailure(message, error);
+                }
+            } catch (Exception e) {
+                log.error("發送匣記錄 {} 狀態回寫失敗", message.getId(), e);
+            }
+            return null;
+        });
+    }
+
+    private void recordFailure(OutboxMessage message, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CircuitOpenException) {
+            outboxService.postpone(message.getId(), Instant.now().plusMillis(outboundConfig.getBreakerOpenMs()));
+            return;
+        }
+        boolean retryable = cause instanceof TelegramCallException callException
+                && telegramRetryPolicy.isSafeToResend(message.getMethod(), callException);
+        if (!retryable && isOutcomeUnknown(cause)) {
+            log.error("發送匣記錄 {} ({}) 結果不明，待人工確認: {}", message.getId(), message.getMethod(), cause.getMessage());
+            outboxService.markUncertain(message.getId(), cause.getMessage());
+            return;
+        }
+        if (!retryable || message.getAttempts() >= outboundConfig.getOutboxMaxAttempts()) {
+            log.error("發送匣記錄 {} ({}) 發送失敗，不再重送: {}", message.getId(), message.getMethod(), cause.getMessage());
+            outboxService.markFailed(message.getId(), cause.getMessage(), null);
+            return;
+        }
+        long backoffMs = outboundConfig.getOutboxRetryBackoffMs() * message.getAttempts();
+        log.warn("發送匣記錄 {} ({}) 第 {} 次發送失敗，{} ms 後重送: {}",
+                message.getId(), message.getMethod(), message.getAttempts(), backoffMs, cause.getMessage());
+        outboxService.markFailed(message.getId(), cause.getMessage(), Instant.now().plusMillis(backoffMs));
+    }
+
+    /**
+     * 沒有收到 Telegram 的明確錯誤碼（連線建立後逾時、中斷）或收到 5xx，請求可能已被執行。
+     */
+    private boolean isOutcomeUnknown(Throwable cause) {
+        if (!(cause instanceof TelegramCallException callException)) {
+            return false;
+        }
+        Integer errorCode = callException.getErrorCode();
+        return errorCode == null || errorCode >= 500;
+    }
+
+    private CompletableFuture<List<Integer>> send(OutboxMessage message) {
+        Bot bot = botService.findByBotType(message.getBotType());
+        if (METHOD_SEND_MESSAGE.equals(message.getMethod())) {
+            SendMessage sendMessage = SendMessage.builder()
+                    .chatId(message.getChatId())
+                    .text(message.getText())
+                    .replyToMessageId(message.getReplyToMessageId())
+                    .build();
+            return telegramBotClient.sendAsync(sendMessage, bot).thenApply(OutboxDispatcher::toMessageIds);
+        }
+        List<Map<String, String>> medias = readMedias(message);
+        if (METHOD_SEND_MEDIA_GROUP.equals(message.getMethod())) {
+            List<InputMedia> inputMedias = new ArrayList<>();
+            for (Map<String, String> media : medias) {
+                InputMedia inputMedia = buildInputMedia(media.get("mediaType"), media.get("fileId"));
+                if (inputMedia == null) {
+                    continue;
+                }
+                if (inputMedias.isEmpty() && !isBlank(message.getText())) {
+                    inputMedia.setCaption(message.getText());
+                }
+                inputMedias.add(inputMedia);
+            }
+            SendMediaGroup sendMediaGroup = SendMediaGroup.builder()
+                    .chatId(message.getChatId())
+                    .medias(inputMedias)
+                    .build();
+            return telegramBotClient.sendAsync(sendMediaGroup, bot).thenApply(messages -> messages.stream()
+                    .map(Message::getMessageId)
+                    .toList());
+        }
+        return sendSingleMedia(message, medias.get(0).get("fileId"), bot).thenApply(OutboxDispatcher::toMessageIds);
+    }
+
+    private CompletableFuture<Message> sendSingleMedia(OutboxMessage message, String fileId, Bot bot) {
+        String caption = isBlank(message.getText()) ? null : message.getText();
+        String method = message.getMethod();
+        if ("sendPhoto".equals(method)) {
+            return telegramBotClient.sendAsync(SendPhoto.builder()
+                    .chatId(message.getChatId())
+                    .photo(new InputFile(fileId))
+                    .caption(caption)
+                    .build(), bot);
+        }
+        if ("sendVideo".equals(method)) {
+            return telegramBotClient.sendAsync(SendVideo.builder()
+                    .chatId(message.getChatId())
+                    .video(new InputFile(fileId))
+                    .caption(caption)
+                    .build(), bot);
+        }
+        if ("sendDocument".equals(method)) {
+            return telegramBotClient.sendAsync(SendDocument.builder()
+                    .chatId(message.getChatId())
+                    .document(new InputFile(fileId))
+                    .caption(caption)
+                    .build(), bot);
+        }
+        if ("sendAudio".equals(method)) {
+            return telegramBotClient.sendAsync(SendAudio.builder()
+                    .chatId(message.getChatId())
+                    .audio(new InputFile(fileId))
+                    .caption(caption)
+                    .build(), bot);
+        }
+        if ("sendAnimation".equals(method)) {
+            return telegramBotClient.sendAsync(SendAnimation.builder()
+                    .chatId(message.getChatId())
+                    .animation(new InputFile(fileId))
+                    .caption(caption)
+                    .build(), bot);
+        }
+        throw new IllegalStateException("不支援的發送方法: " + method);
+    }
+
+    private List<Map<String, String>> readMedias(OutboxMessage message) {
+        try {
+            List<Map<String, String>> medias = objectMapper.readValue(message.getMediaJson(), MEDIA_LIST_TYPE);
+            if (medias == null || medias.isEmpty()) {
+                throw new IllegalStateException("發送匣記錄 " + message.getId() + " 沒有媒體");
+            }
+            return medias;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("發送匣記錄 " + message.getId() + " 媒體格式錯誤", e);
+        }
+    }
+
+    private InputMedia buildInputMedia(String mediaType, String fileId) {
+        if ("photo".equals(mediaType)) {
+            return new InputMediaPhoto(fileId);
+        }
+        if ("video".equals(mediaType)) {
+            return new InputMediaVideo(fileId);
+        }
+        if ("document".equals(mediaType)) {
+            return new InputMediaDocument(fileId);
+        }
+        if ("audio".equals(mediaType)) {
+            return new InputMediaAudio(fileId);
+        }
+        if ("animation".equals(mediaType)) {
+            return new InputMediaAnimation(fileId);
+        }
+        return null;
+    }
+
+    private String resolveSingleMediaMethod(String mediaType) {
+        return switch (mediaType) {
+            case "photo" -> "sendPhoto";
+            case "video" -> "sendVideo";
+            case "document" -> "sendDocument";
+            case "audio" -> "sendAudio";
+            case "animation" -> "sendAnimation";
+            default -> throw new IllegalArgumentException("不支援的媒體類型: " + mediaType);
+        };
+    }
+
+    private void pruneIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastPruneAt < PRUNE_INTERVAL_MS) {
+            return;
+        }
+        lastPruneAt = now;
+        int deleted = outboxService.deleteSentBefore(Instant.now().minus(Duration.ofHours(outboundConfig.getOutboxRetentionHours())));
+        if (deleted > 0) {
+            log.info("清除 {} 筆已送達的發送匣記錄", deleted);
+        }
+    }
+
+    private static List<Integer> toMessageIds(Message message) {
+        return message == null ? List.of() : List.of(message.getMessageId());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.yienruuuuu.service.application.telegram.serial;
+
+import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.config.SerialConfig;
+import io.github.yienruuuuu.service.business.SerialCounterService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 貼文序號配置器：每日序號由資料庫計數器統一管理，各節點一次預留一段序號放在記憶體中發放，
+ * 多個實例同時運作或跨日重啟都不會產生重複序號。
+ * <p>
+ * 區段內的發放只靠 CAS，用完才進資料庫預留下一段；節點重啟時未用完的區段直接放棄，因此序號只保證唯一與同節點內遞增，
+ * 不保證連續。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+@Component
+public class SerialAllocator {
+    private static final DateTimeFormatter SERIAL_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private final SerialCounterService serialCounterService;
+    private final SerialConfig serialConfig;
+    private final Map<BotType, AtomicReference<Block>> blocks = new ConcurrentHashMap<>();
+
+    public SerialAllocator(SerialCounterService serialCounterService, SerialConfig serialConfig) {
+        this.serialCounterService = serialCounterService;
+        this.serialConfig = serialConfig;
+    }
+
+    /**
+     * 取得下一個序號，例如 2026-01-23_0001。
+     *
+     * @param pipeline 序號所屬流程
+     * @return 序號字串
+     */
+    public String next(BotType pipeline) {
+        AtomicReference<Block> current = blocks.computeIfAbsent(pipeline, ignored -> new AtomicReference<>());
+        while (true) {
+            LocalDate today = LocalDate.now();
+            Block block = current.get();
+            if (block != null && block.date.equals(today)) {
+                long value = block.next.getAndIncrement();
+                if (value <= block.last) {
+                    return SERIAL_DATE_FORMAT.format(today) + "_" + String.format("%04d", value);
+                }
+            }
+            synchronized (current) {
+                // 其他執行緒可能已換上新區段
+                if (current.get() == block) {
+                    current.set(reserve(pipeline, today));
+                }
+            }
+        }
+    }
+
+    private Block reserve(BotType pipeline, LocalDate date) {
+        int blockSize = Math.max(1, serialConfig.getBlockSize());
+        long last = serialCounterService.reserveBlock(pipeline, date, blockSize);
+        log.debug("{} 預留序號區段 {} {}~{}", pipeline, date, last - blockSize + 1, last);
+        return new Block(date, last - blockSize + 1, last);
+    }
+
+    /**
+     * 單一日期的已預留序號區段。
+     */
+    private static final class Block {
+        private final LocalDate date;
+        private final AtomicLong next;
+        private final long last;
+
+        private Block(LocalDate date, long first, long last) {
+            this.date = date;
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+    }
+}
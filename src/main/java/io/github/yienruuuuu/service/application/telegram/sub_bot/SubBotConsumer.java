@@ -1,13 +1,22 @@
 package io.github.yienruuuuu.service.application.telegram.sub_bot;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.yienruuuuu.bean.entity.Bot;
+import io.github.yienruuuuu.bean.entity.OutboxMessage;
+import io.github.yienruuuuu.bean.entity.ProcessedUpdate;
 import io.github.yienruuuuu.bean.entity.SubForwardPost;
 import io.github.yienruuuuu.bean.entity.SubForwardPostMedia;
 import io.github.yienruuuuu.bean.enums.BotType;
 import io.github.yienruuuuu.config.AppConfig;
 import io.github.yienruuuuu.service.application.telegram.TelegramBotClient;
+import io.github.yienruuuuu.service.application.telegram.journal.UpdateJournal;
+import io.github.yienruuuuu.service.application.telegram.ledger.ProcessedUpdateLedger;
+import io.github.yienruuuuu.service.application.telegram.mediagroup.MediaGroupAssembler;
+import io.github.yienruuuuu.service.application.telegram.mediagroup.MediaGroupItem;
+import io.github.yienruuuuu.service.application.telegram.serial.SerialAllocator;
+import io.github.yienruuuuu.service.application.telegram.text.TextPipelines;
+import io.github.yienruuuuu.service.application.telegram.outbound.StatusMessageEditor;
+import io.github.yienruuuuu.service.application.telegram.outbox.OutboxDispatcher;
+import io.github.yienruuuuu.service.application.telegram.trace.UpdateTracer;
 import io.github.yienruuuuu.service.business.BotService;
 import io.github.yienruuuuu.service.business.SubForwardPostService;
 import io.github.yienruuuuu.service.business.model.ForwardPostMediaItem;
@@ -24,8 +33,6 @@ import org.telegram.telegrambots.meta.api.methods.send.SendMediaGroup;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
 import org.telegram.telegrambots.meta.api.methods.send.SendVideo;
-import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageReplyMarkup;
-import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.InputFile;
 import org.telegram.telegrambots.meta.api.objects.PhotoSize;
 import org.telegram.telegrambots.meta.api.objects.Update;
@@ -41,12 +48,9 @@ import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMa
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardRow;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -54,6 +58,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * @author Eric.Lee
@@ -62,22 +67,25 @@ import java.util.concurrent.atomic.AtomicReference;
 @Component
 @Slf4j
 public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
-    private static final long MEDIA_GROUP_FLUSH_DELAY_MS = 2000L;
-    private static final DateTimeFormatter SERIAL_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final String SERIAL_PREFIX = "SUB-";
     private static final String CALLBACK_RESEND_ALL = "sub_resend_all";
     private final BotService botService;
     private final SubForwardPostService subForwardPostService;
     private final AppConfig appConfig;
     private final TelegramBotClient telegramBotClient;
-    private final ObjectMapper objectMapper;
-    private final ScheduledExecutorService mediaGroupScheduler = Executors.newSingleThreadScheduledExecutor();
+    private final UpdateTracer updateTracer;
+    private final UpdateJournal updateJournal;
+    private final ProcessedUpdateLedger processedUpdateLedger;
+    private final OutboxDispatcher outboxDispatcher;
+    private final StatusMessageEditor statusMessageEditor;
+    private final MediaGroupAssembler mediaGroupAssembler;
+    private final SerialAllocator serialAllocator;
+    private final TextPipelines textPipelines;
     private final ScheduledExecutorService resendScheduler = Executors.newSingleThreadScheduledExecutor();
-    private final Map<String, MediaGroupBuffer> mediaGroupBuffers = new ConcurrentHashMap<>();
     private final AtomicBoolean resendRunning = new AtomicBoolean(false);
-    private final Object serialLock = new Object();
-    private LocalDate currentSerialDate = LocalDate.now();
-    private int currentSerial = 0;
+    private volatile Runnable resendHalt;
+    private final Object statusCallLock = new Object();
+    private CompletableFuture<Void> statusCallChain = CompletableFuture.completedFuture(null);
 
     @Autowired
     public SubBotConsumer(
@@ -85,32 +93,91 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
             SubForwardPostService subForwardPostService,
             AppConfig appConfig,
             TelegramBotClient telegramBotClient,
-            ObjectMapper objectMapper
+            UpdateTracer updateTracer,
+            UpdateJournal updateJournal,
+            ProcessedUpdateLedger processedUpdateLedger,
+            OutboxDispatcher outboxDispatcher,
+            StatusMessageEditor statusMessageEditor,
+            MediaGroupAssembler mediaGroupAssembler,
+            SerialAllocator serialAllocator,
+            TextPipelines textPipelines
     ) {
         this.botService = botService;
         this.subForwardPostService = subForwardPostService;
         this.appConfig = appConfig;
         this.telegramBotClient = telegramBotClient;
-        this.objectMapper = objectMapper;
+        this.updateTracer = updateTracer;
+        this.updateJournal = updateJournal;
+        this.processedUpdateLedger = processedUpdateLedger;
+        this.outboxDispatcher = outboxDispatcher;
+        this.statusMessageEditor = statusMessageEditor;
+        this.mediaGroupAssembler = mediaGroupAssembler;
+        this.serialAllocator = serialAllocator;
+        this.textPipelines = textPipelines;
     }
 
     @PostConstruct
-    private void initSerialCounter() {
-        synchronized (serialLock) {
-            LocalDate today = LocalDate.now();
-            String prefix = SERIAL_PREFIX + SERIAL_DATE_FORMAT.format(today) + "_";
-            String latestSerial = subForwardPostService.findLatestSerialByPrefix(prefix);
-            currentSerialDate = today;
-            currentSerial = parseSerialIndex(latestSerial);
-            if (currentSerial > 0) {
-                log.info("子機器人序號初始化完成，最後序號 {}", latestSerial);
-            }
-        }
+    private void registerMediaGroupHandler() {
+        mediaGroupAssembler.register(BotType.SUB, this::flushMediaGroupCopy);
     }
 
     @Override
     public void consume(Update update) {
-        logIncomingUpdateJson(update);
+        updateTracer.trace(BotType.SUB, update);
+        if (processedUpdateLedger.isProcessed(BotType.SUB, update)) {
+            log.info("略過已處理的更新 {}", update.getUpdateId());
+            // 接收端已先寫入日誌，重複的更新也要標記完成
+            updateJournal.complete(BotType.SUB, update.getUpdateId());
+            return;
+        }
+        updateJournal.append(BotType.SUB, update);
+        boolean deferred = false;
+        try {
+            deferred = handleUpdate(update);
+        } finally {
+            if (!deferred) {
+                completeUpdate(update.getUpdateId(), update.getChannelPost());
+            }
+        }
+    }
+
+    /**
+     * 記錄更新處理完成：寫入已處理帳本，成功後才標記日誌完成。
+     *
+     * @param updateId    更新 ID
+     * @param channelPost 來源頻道訊息，非頻道貼文時為 null
+     */
+    private void completeUpdate(Integer updateId, Message channelPost) {
+        if (processedUpdateLedger.markProcessed(BotType.SUB, updateId, channelPost)) {
+            updateJournal.complete(BotType.SUB, updateId);
+        }
+    }
+
+    private void completeUpdate(Integer updateId, Long chatId, Integer messageId) {
+        if (processedUpdateLedger.markProcessed(BotType.SUB, updateId, chatId, messageId)) {
+            updateJournal.complete(BotType.SUB, updateId);
+        }
+    }
+
+    /**
+     * 已處理記錄已隨貼文交易提交：放進帳本視窗並標記日誌完成。
+     *
+     * @param records 已提交的已處理記錄
+     */
+    private void completeCommitted(List<ProcessedUpdate> records) {
+        processedUpdateLedger.remember(records);
+        for (ProcessedUpdate record : records) {
+            updateJournal.complete(BotType.SUB, record.getUpdateId());
+        }
+    }
+
+    /**
+     * 處理單筆更新。
+     *
+     * @param update Telegram 更新
+     * @return true 表示完成標記不在這裡寫入：已隨貼文交易寫入，或已放入 media group 緩衝、延後到批次發送後寫入
+     */
+    private boolean handleUpdate(Update update) {
         if (update.hasCallbackQuery()) {
             handleCallbackQuery(update);
         }
@@ -118,48 +185,39 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
             handleAdminMessage(update.getMessage());
         }
         if (!update.hasChannelPost()) {
-            return;
+            return false;
         }
         String communicateChannelId = appConfig.getSubCommunicateChannelChatId();
         if (isBlank(communicateChannelId)) {
-            return;
+            return false;
         }
         String publicChannelId = appConfig.getSubPublicChannelId();
         if (isBlank(publicChannelId)) {
-            return;
+            return false;
         }
         Message channelPost = update.getChannelPost();
         String sourceChannelId = String.valueOf(channelPost.getChatId());
         if (!sourceChannelId.equals(communicateChannelId)) {
-            return;
+            return false;
         }
 
         if (isPureText(channelPost)) {
-            sendTextMessage(channelPost, sourceChannelId);
-            return;
+            return sendTextMessage(channelPost, sourceChannelId, update.getUpdateId());
         }
 
         if (channelPost.getMediaGroupId() != null) {
-            bufferMediaGroupCopy(channelPost);
-            return;
+            bufferMediaGroupCopy(channelPost, update.getUpdateId());
+            return true;
         }
 
-        sendSingleMediaMessage(channelPost, sourceChannelId);
-    }
-
-    private void logIncomingUpdateJson(Update update) {
-        try {
-            String json = objectMapper.writeValueAsString(update);
-            log.debug("收到更新 json={}", json);
-        } catch (JsonProcessingException e) {
-            log.warn("無法序列化 Update 成 JSON", e);
-        }
+        return sendSingleMediaMessage(channelPost, sourceChannelId, update.getUpdateId());
     }
 
-    private void sendTextMessage(Message channelPost, String sourceChannelId) {
+    private boolean sendTextMessage(Message channelPost, String sourceChannelId, Integer updateId) {
         String serial = nextSerial();
         String originalText = channelPost.getText();
-        String outputText = originalText;
+        String processedText = textPipelines.get(BotType.SUB).process(originalText);
+        String outputText = processedText;
         ForwardFromUserInfo forwardFromUserInfo = extractForwardFromUserInfo(channelPost);
         String forwardFromChatId = channelPost.getForwardFromChat() == null
                 ? null
@@ -170,15 +228,14 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         String forwardFromUserId = forwardFromUserInfo == null ? null : forwardFromUserInfo.id;
         String forwardFromUserUsername = forwardFromUserInfo == null ? null : forwardFromUserInfo.username;
         String forwardFromUserName = forwardFromUserInfo == null ? null : forwardFromUserInfo.name;
-        Bot subBotEntity = botService.findByBotType(BotType.SUB);
-
-        SendMessage sendMessage = SendMessage.builder()
-                .chatId(appConfig.getSubPublicChannelId())
-                .text(outputText)
-                .build();
-        telegramBotClient.send(sendMessage, subBotEntity);
+        List<OutboxMessage> outboxMessages = List.of(
+                outboxDispatcher.buildTextMessage(BotType.SUB, appConfig.getSubPublicChannelId(), outputText, null),
+                buildAcknowledgement(serial, channelPost.getMessageId())
+        );
 
-        SubForwardPost post = subForwardPostService.createPost(
+        List<ProcessedUpdate> processedUpdates = List.of(
+                processedUpdateLedger.newRecord(BotType.SUB, updateId, channelPost.getChatId(), channelPost.getMessageId()));
+        subForwardPostService.createPost(
                 serial,
                 sourceChannelId,
                 channelPost.getMessageId(),
@@ -189,22 +246,27 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
                 forwardFromUserUsername,
                 forwardFromUserName,
                 originalText,
-                originalText,
+                processedText,
                 outputText,
-                List.of()
+                List.of(),
+                outboxMessages,
+                processedUpdates
         );
-        sendAcknowledgement(serial, post.getId(), channelPost.getMessageId(), subBotEntity);
-        log.info("子機器人已發送文字序號 {} 對應來源 {}，送達 {}", serial, sourceChannelId, appConfig.getSubPublicChannelId());
+        completeCommitted(processedUpdates);
+        outboxDispatcher.wakeUp();
+        log.info("子機器人已排入文字序號 {} 對應來源 {}，發送到 {}", serial, sourceChannelId, appConfig.getSubPublicChannelId());
+        return true;
     }
 
-    private void sendSingleMediaMessage(Message channelPost, String sourceChannelId) {
+    private boolean sendSingleMediaMessage(Message channelPost, String sourceChannelId, Integer updateId) {
         if (isDuplicateMediaMessage(channelPost)) {
             sendDuplicateNotice(channelPost.getMessageId());
-            return;
+            return false;
         }
         String serial = nextSerial();
         String originalText = channelPost.getCaption();
-        String outputText = originalText;
+        String processedText = textPipelines.get(BotType.SUB).process(originalText);
+        String outputText = processedText;
         ForwardFromUserInfo forwardFromUserInfo = extractForwardFromUserInfo(channelPost);
         String forwardFromChatId = channelPost.getForwardFromChat() == null
                 ? null
@@ -215,14 +277,16 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         String forwardFromUserId = forwardFromUserInfo == null ? null : forwardFromUserInfo.id;
         String forwardFromUserUsername = forwardFromUserInfo == null ? null : forwardFromUserInfo.username;
         String forwardFromUserName = forwardFromUserInfo == null ? null : forwardFromUserInfo.name;
-        Bot subBotEntity = botService.findByBotType(BotType.SUB);
-        boolean sent = sendSingleMedia(channelPost, outputText, subBotEntity);
-        if (!sent) {
+        List<ForwardPostMediaItem> mediaItems = buildMediaItemsFromMessage(channelPost);
+        OutboxMessage publish = outboxDispatcher.buildMediaMessage(BotType.SUB, appConfig.getSubPublicChannelId(), outputText, mediaItems);
+        if (publish == null) {
             log.warn("不支援的媒體型別，略過訊息 {}", channelPost.getMessageId());
-            return;
+            return false;
         }
 
-        SubForwardPost post = subForwardPostService.createPost(
+        List<ProcessedUpdate> processedUpdates = List.of(
+                processedUpdateLedger.newRecord(BotType.SUB, updateId, channelPost.getChatId(), channelPost.getMessageId()));
+        subForwardPostService.createPost(
                 serial,
                 sourceChannelId,
                 channelPost.getMessageId(),
@@ -233,73 +297,91 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
                 forwardFromUserUsername,
                 forwardFromUserName,
                 originalText,
-                originalText,
+                processedText,
                 outputText,
-                buildMediaItemsFromMessage(channelPost)
+                mediaItems,
+                List.of(publish, buildAcknowledgement(serial, channelPost.getMessageId())),
+                processedUpdates
         );
-        sendAcknowledgement(serial, post.getId(), channelPost.getMessageId(), subBotEntity);
-        log.info("子機器人已發送序號 {} 對應來源 {}，送達 {}", serial, sourceChannelId, appConfig.getSubPublicChannelId());
+        completeCommitted(processedUpdates);
+        outboxDispatcher.wakeUp();
+        log.info("子機器人已排入序號 {} 對應來源 {}，發送到 {}", serial, sourceChannelId, appConfig.getSubPublicChannelId());
+        return true;
     }
 
-    private void bufferMediaGroupCopy(Message channelPost) {
-        String mediaGroupId = channelPost.getMediaGroupId();
-        MediaGroupBuffer buffer = mediaGroupBuffers.computeIfAbsent(mediaGroupId, key -> new MediaGroupBuffer());
-        synchronized (buffer) {
-            buffer.messages.add(channelPost);
-            if (buffer.flushFuture != null) {
-                buffer.flushFuture.cancel(false);
-            }
-            buffer.flushFuture = mediaGroupScheduler.schedule(() -> flushMediaGroupCopy(mediaGroupId), MEDIA_GROUP_FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
-        }
+    private void bufferMediaGroupCopy(Message channelPost, Integer updateId) {
+        mediaGroupAssembler.append(BotType.SUB, channelPost.getMediaGroupId(), toMediaGroupItem(channelPost, updateId));
     }
 
-    private void flushMediaGroupCopy(String mediaGroupId) {
-        MediaGroupBuffer buffer = mediaGroupBuffers.remove(mediaGroupId);
-        if (buffer == null) {
-            return;
-        }
-        List<Message> messages;
-        synchronized (buffer) {
-            if (buffer.messages.isEmpty()) {
-                return;
+    private MediaGroupItem toMediaGroupItem(Message channelPost, Integer updateId) {
+        ForwardPostMediaItem media = buildMediaItem(channelPost);
+        ForwardFromUserInfo forwardFromUserInfo = extractForwardFromUserInfo(channelPost);
+        String text = !isBlank(channelPost.getCaption()) ? channelPost.getCaption() : channelPost.getText();
+        return MediaGroupItem.builder()
+                .updateId(updateId)
+                .chatId(channelPost.getChatId())
+                .messageId(channelPost.getMessageId())
+                .mediaType(media == null ? null : media.getMediaType())
+                .fileId(media == null ? null : media.getFileId())
+                .caption(isBlank(text) ? null : text)
+                .forwardFromChatId(channelPost.getForwardFromChat() == null ? null : String.valueOf(channelPost.getForwardFromChat().getId()))
+                .forwardFromChatTitle(channelPost.getForwardFromChat() == null ? null : channelPost.getForwardFromChat().getTitle())
+                .forwardFromUserId(forwardFromUserInfo == null ? null : forwardFromUserInfo.id)
+                .forwardFromUserUsername(forwardFromUserInfo == null ? null : forwardFromUserInfo.username)
+                .forwardFromUserName(forwardFromUserInfo == null ? null : forwardFromUserInfo.name)
+                .forwardFromUserBot(forwardFromUserInfo != null && forwardFromUserInfo.isBot)
+                .build();
+    }
+
+    private void flushMediaGroupCopy(String mediaGroupId, List<MediaGroupItem> items) {
+        boolean committed = false;
+        try {
+            if (!items.isEmpty()) {
+                committed = publishMediaGroup(mediaGroupId, items);
+            }
+        } finally {
+            if (!committed) {
+                for (MediaGroupItem item : items) {
+                    completeUpdate(item.getUpdateId(), item.getChatId(), item.getMessageId());
+                }
             }
-            messages = new ArrayList<>(buffer.messages);
         }
-        if (isDuplicateMediaGroup(messages)) {
-            sendDuplicateNotice(messages.get(0).getMessageId());
-            return;
+    }
+
+    private boolean publishMediaGroup(String mediaGroupId, List<MediaGroupItem> items) {
+        MediaGroupItem firstItem = items.get(0);
+        if (isDuplicateMediaGroup(items)) {
+            sendDuplicateNotice(firstItem.getMessageId());
+            return false;
         }
 
         String serial = nextSerial();
-        String originalText = extractMediaGroupText(messages);
-        String outputText = originalText;
-        ForwardFromUserInfo forwardFromUserInfo = extractForwardFromUserInfo(messages.get(0));
-        Message firstMessage = messages.get(0);
-        String forwardFromChatId = firstMessage.getForwardFromChat() == null
-                ? null
-                : String.valueOf(firstMessage.getForwardFromChat().getId());
-        String forwardFromChatTitle = firstMessage.getForwardFromChat() == null
-                ? null
-                : firstMessage.getForwardFromChat().getTitle();
+        String originalText = extractMediaGroupText(items);
+        String processedText = textPipelines.get(BotType.SUB).process(originalText);
+        String outputText = processedText;
+        ForwardFromUserInfo forwardFromUserInfo = extractForwardFromUserInfo(firstItem);
+        String forwardFromChatId = firstItem.getForwardFromChatId();
+        String forwardFromChatTitle = firstItem.getForwardFromChatTitle();
         String forwardFromUserId = forwardFromUserInfo == null ? null : forwardFromUserInfo.id;
         String forwardFromUserUsername = forwardFromUserInfo == null ? null : forwardFromUserInfo.username;
         String forwardFromUserName = forwardFromUserInfo == null ? null : forwardFromUserInfo.name;
-        Bot subBotEntity = botService.findByBotType(BotType.SUB);
-        List<InputMedia> medias = buildMediaGroupMedias(messages, outputText);
-        if (medias.isEmpty()) {
+        List<ForwardPostMediaItem> mediaItems = buildMediaItemsFromGroup(items);
+        OutboxMessage publish = outboxDispatcher.buildMediaMessage(BotType.SUB, appConfig.getSubPublicChannelId(), outputText, mediaItems);
+        if (publish == null) {
             log.warn("media group {} 無可用媒體，略過發送", mediaGroupId);
-            return;
+            return false;
         }
-        SendMediaGroup sendMediaGroup = SendMediaGroup.builder()
-                .chatId(appConfig.getSubPublicChannelId())
-                .medias(medias)
-                .build();
-        telegramBotClient.send(sendMediaGroup, subBotEntity);
 
-        SubForwardPost post = subForwardPostService.createPost(
+        List<ProcessedUpdate> processedUpdates = new ArrayList<>(items.size());
+        for (MediaGroupItem item : items) {
+            if (item.getUpdateId() != null) {
+                processedUpdates.add(processedUpdateLedger.newRecord(BotType.SUB, item.getUpdateId(), item.getChatId(), item.getMessageId()));
+            }
+        }
+        subForwardPostService.createPost(
                 serial,
-                String.valueOf(messages.get(0).getChatId()),
-                messages.get(0).getMessageId(),
+                String.valueOf(firstItem.getChatId()),
+                firstItem.getMessageId(),
                 mediaGroupId,
                 forwardFromChatId,
                 forwardFromChatTitle,
@@ -307,12 +389,16 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
                 forwardFromUserUsername,
                 forwardFromUserName,
                 originalText,
-                originalText,
+                processedText,
                 outputText,
-                buildMediaItemsFromMessages(messages)
+                mediaItems,
+                List.of(publish, buildAcknowledgement(serial, firstItem.getMessageId())),
+                processedUpdates
         );
-        sendAcknowledgement(serial, post.getId(), messages.get(0).getMessageId(), subBotEntity);
-        log.info("子機器人已發送 media group {} 序號 {}，共 {} 則訊息", mediaGroupId, serial, medias.size());
+        completeCommitted(processedUpdates);
+        outboxDispatcher.wakeUp();
+        log.info("子機器人已排入 media group {} 序號 {}，共 {} 則訊息", mediaGroupId, serial, mediaItems.size());
+        return true;
     }
 
     private boolean isPureText(Message message) {
@@ -329,11 +415,6 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
                 || message.hasSticker());
     }
 
-    private static class MediaGroupBuffer {
-        private final List<Message> messages = new ArrayList<>();
-        private ScheduledFuture<?> flushFuture;
-    }
-
     private static class ForwardFromUserInfo {
         private final String id;
         private final String username;
@@ -349,145 +430,13 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
     }
 
     private String nextSerial() {
-        synchronized (serialLock) {
-            LocalDate today = LocalDate.now();
-            if (!today.equals(currentSerialDate)) {
-                currentSerialDate = today;
-                currentSerial = 0;
-            }
-            int next = ++currentSerial;
-            return SERIAL_PREFIX + SERIAL_DATE_FORMAT.format(today) + "_" + String.format("%04d", next);
-        }
-    }
-
-    private int parseSerialIndex(String serial) {
-        if (serial == null || serial.isBlank()) {
-            return 0;
-        }
-        int underscoreIndex = serial.lastIndexOf('_');
-        if (underscoreIndex < 0 || underscoreIndex == serial.length() - 1) {
-            return 0;
-        }
-        String number = serial.substring(underscoreIndex + 1);
-        try {
-            return Integer.parseInt(number);
-        } catch (NumberFormatException e) {
-            return 0;
-        }
-    }
-
-    private boolean sendSingleMedia(Message message, String caption, Bot bot) {
-        String chatId = appConfig.getSubPublicChannelId();
-        if (message.hasPhoto()) {
-            List<PhotoSize> photos = message.getPhoto();
-            if (photos == null || photos.isEmpty()) {
-                return false;
-            }
-            String fileId = photos.get(photos.size() - 1).getFileId();
-            SendPhoto.SendPhotoBuilder builder = SendPhoto.builder()
-                    .chatId(chatId)
-                    .photo(new InputFile(fileId));
-            if (!isBlank(caption)) {
-                builder.caption(caption);
-            }
-            telegramBotClient.send(builder.build(), bot);
-            return true;
-        }
-        if (message.hasVideo()) {
-            String fileId = message.getVideo().getFileId();
-            SendVideo.SendVideoBuilder builder = SendVideo.builder()
-                    .chatId(chatId)
-                    .video(new InputFile(fileId));
-            if (!isBlank(caption)) {
-                builder.caption(caption);
-            }
-            telegramBotClient.send(builder.build(), bot);
-            return true;
-        }
-        if (message.hasDocument()) {
-            String fileId = message.getDocument().getFileId();
-            SendDocument.SendDocumentBuilder builder = SendDocument.builder()
-                    .chatId(chatId)
-                    .document(new InputFile(fileId));
-            if (!isBlank(caption)) {
-                builder.caption(caption);
-            }
-            telegramBotClient.send(builder.build(), bot);
-            return true;
-        }
-        if (message.hasAudio()) {
-            String fileId = message.getAudio().getFileId();
-            SendAudio.SendAudioBuilder builder = SendAudio.builder()
-                    .chatId(chatId)
-                    .audio(new InputFile(fileId));
-            if (!isBlank(caption)) {
-                builder.caption(caption);
-            }
-            telegramBotClient.send(builder.build(), bot);
-            return true;
-        }
-        if (message.hasAnimation()) {
-            String fileId = message.getAnimation().getFileId();
-            SendAnimation.SendAnimationBuilder builder = SendAnimation.builder()
-                    .chatId(chatId)
-                    .animation(new InputFile(fileId));
-            if (!isBlank(caption)) {
-                builder.caption(caption);
-            }
-            telegramBotClient.send(builder.build(), bot);
-            return true;
-        }
-        return false;
-    }
-
-    private List<InputMedia> buildMediaGroupMedias(List<Message> messages, String caption) {
-        List<InputMedia> medias = new ArrayList<>();
-        boolean captionApplied = false;
-        for (Message message : messages) {
-            InputMedia media = buildInputMedia(message);
-            if (media == null) {
-                continue;
-            }
-            if (!captionApplied && !isBlank(caption)) {
-                media.setCaption(caption);
-                captionApplied = true;
-            }
-            medias.add(media);
-        }
-        return medias;
-    }
-
-    private InputMedia buildInputMedia(Message message) {
-        if (message.hasPhoto()) {
-            List<PhotoSize> photos = message.getPhoto();
-            if (photos == null || photos.isEmpty()) {
-                return null;
-            }
-            String fileId = photos.get(photos.size() - 1).getFileId();
-            return new InputMediaPhoto(fileId);
-        }
-        if (message.hasVideo()) {
-            return new InputMediaVideo(message.getVideo().getFileId());
-        }
-        if (message.hasDocument()) {
-            return new InputMediaDocument(message.getDocument().getFileId());
-        }
-        if (message.hasAudio()) {
-            return new InputMediaAudio(message.getAudio().getFileId());
-        }
-        if (message.hasAnimation()) {
-            return new InputMediaAnimation(message.getAnimation().getFileId());
-        }
-        return null;
+        return SERIAL_PREFIX + serialAllocator.next(BotType.SUB);
     }
 
-    private String extractMediaGroupText(List<Message> messages) {
-        for (Message message : messages) {
-            if (message.getCaption() != null && !message.getCaption().isBlank()) {
-                return message.getCaption();
-            }
-            if (message.getText() != null && !message.getText().isBlank()) {
-                return message.getText();
+    private String extractMediaGroupText(List<MediaGroupItem> items) {
+        for (MediaGroupItem item : items) {
+            if (!isBlank(item.getCaption())) {
+                return item.getCaption();
             }
         }
         return null;
@@ -508,6 +457,20 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         return new ForwardFromUserInfo(id, username, name, isBot);
     }
 
+    private ForwardFromUserInfo extractForwardFromUserInfo(MediaGroupItem item) {
+        if (isBlank(item.getForwardFromUserId())
+                && isBlank(item.getForwardFromUserUsername())
+                && isBlank(item.getForwardFromUserName())) {
+            return null;
+        }
+        return new ForwardFromUserInfo(
+                item.getForwardFromUserId(),
+                item.getForwardFromUserUsername(),
+                item.getForwardFromUserName(),
+                item.isForwardFromUserBot()
+        );
+    }
+
     private String buildUserDisplayName(User user) {
         if (user == null) {
             return null;
@@ -535,15 +498,14 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         return items;
     }
 
-    private List<ForwardPostMediaItem> buildMediaItemsFromMessages(List<Message> messages) {
-        List<ForwardPostMediaItem> items = new ArrayList<>();
-        for (Message message : messages) {
-            ForwardPostMediaItem item = buildMediaItem(message);
-            if (item != null) {
-                items.add(item);
+    private List<ForwardPostMediaItem> buildMediaItemsFromGroup(List<MediaGroupItem> items) {
+        List<ForwardPostMediaItem> mediaItems = new ArrayList<>();
+        for (MediaGroupItem item : items) {
+            if (item.getMediaType() != null) {
+                mediaItems.add(new ForwardPostMediaItem(item.getMediaType(), item.getFileId()));
             }
         }
-        return items;
+        return mediaItems;
     }
 
     private ForwardPostMediaItem buildMediaItem(Message message) {
@@ -578,9 +540,8 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         return subForwardPostService.existsByMediaFileId(item.getFileId());
     }
 
-    private boolean isDuplicateMediaGroup(List<Message> messages) {
-        List<ForwardPostMediaItem> items = buildMediaItemsFromMessages(messages);
-        for (ForwardPostMediaItem item : items) {
+    private boolean isDuplicateMediaGroup(List<MediaGroupItem> items) {
+        for (MediaGroupItem item : items) {
             if (item.getFileId() == null || item.getFileId().isBlank()) {
                 continue;
             }
@@ -591,13 +552,8 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         return false;
     }
 
-    private void sendAcknowledgement(String serial, String postId, Integer replyToMessageId, Bot bot) {
-        SendMessage sendMessage = SendMessage.builder()
-                .chatId(appConfig.getSubCommunicateChannelChatId())
-                .text(serial)
-                .replyToMessageId(replyToMessageId)
-                .build();
-        telegramBotClient.send(sendMessage, bot);
+    private OutboxMessage buildAcknowledgement(String serial, Integer replyToMessageId) {
+        return outboxDispatcher.buildTextMessage(BotType.SUB, appConfig.getSubCommunicateChannelChatId(), serial, replyToMessageId);
     }
 
     private void sendDuplicateNotice(Integer replyToMessageId) {
@@ -607,7 +563,7 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
                 .text("重複轉傳")
                 .replyToMessageId(replyToMessageId)
                 .build();
-        telegramBotClient.send(sendMessage, subBotEntity);
+        telegramBotClient.sendAsync(sendMessage, subBotEntity).whenComplete((result, error) -> telegramBotClient.logFailure(error));
     }
 
     private void handleCallbackQuery(Update update) {
@@ -634,20 +590,9 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         if (update.getCallbackQuery().getMessage() != null) {
             String chatId = String.valueOf(update.getCallbackQuery().getMessage().getChatId());
             statusMessageId = update.getCallbackQuery().getMessage().getMessageId();
-            EditMessageText editText = EditMessageText.builder()
-                    .chatId(chatId)
-                    .messageId(statusMessageId)
-                    .text("重送中")
-                    .build();
-            telegramBotClient.send(editText, botService.findByBotType(BotType.SUB));
-            if (update.getCallbackQuery().getMessage() instanceof Message callbackMessage
-                    && callbackMessage.getReplyMarkup() != null) {
-                EditMessageReplyMarkup clearMarkup = EditMessageReplyMarkup.builder()
-                        .chatId(chatId)
-                        .messageId(statusMessageId)
-                        .build();
-                telegramBotClient.send(clearMarkup, botService.findByBotType(BotType.SUB));
-            }
+            // 不帶按鈕的 editMessageText 會一併移除重送按鈕
+            Bot botEntity = botService.findByBotType(BotType.SUB);
+            statusMessageEditor.edit(botEntity, chatId, statusMessageId, "重送中");
         }
         String chatId = update.getCallbackQuery().getMessage() == null
                 ? String.valueOf(update.getCallbackQuery().getFrom().getId())
@@ -661,7 +606,7 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
                 .callbackQueryId(callbackQueryId)
                 .text(text)
                 .build();
-        telegramBotClient.send(answer, subBotEntity);
+        telegramBotClient.sendAsync(answer, subBotEntity).whenComplete((result, error) -> telegramBotClient.logFailure(error));
     }
 
     private void handleAdminMessage(Message message) {
@@ -717,7 +662,6 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         }
         Bot subBotEntity = botService.findByBotType(BotType.SUB);
         int total = posts.size();
-        int progressStep = Math.max(1, total / 20);
         AtomicInteger index = new AtomicInteger(0);
         if (statusMessageId != null) {
             updateStatusMessage(notifyChatId, statusMessageId, buildProgressText(0, total));
@@ -738,7 +682,7 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
                 SubForwardPost post = posts.get(current);
                 resendPost(post, subBotEntity);
                 int sentCount = current + 1;
-                if (statusMessageId != null && (sentCount % progressStep == 0 || sentCount == total)) {
+                if (statusMessageId != null) {
                     updateStatusMessage(notifyChatId, statusMessageId, buildProgressText(sentCount, total));
                 }
             } catch (Exception e) {
@@ -746,6 +690,25 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
             }
         }, 0, appConfig.getBotResendIntervalMs(), TimeUnit.MILLISECONDS);
         taskRef.set(task);
+        resendHalt = () -> {
+            if (task.isDone()) {
+                return;
+            }
+            task.cancel(false);
+            resendRunning.set(false);
+            updateStatusMessage(notifyChatId, statusMessageId,
+                    "重送已中止：已交由其他節點接收更新（已送 " + Math.min(index.get(), total) + "/" + total + " 筆），請重新執行 /resend");
+        };
+    }
+
+    /**
+     * 中止進行中的重送：排在重送執行緒上，目前這筆送完後停止並更新狀態訊息。用於交出長輪詢主控權。
+     */
+    public void haltResend() {
+        Runnable halt = resendHalt;
+        if (halt != null) {
+            resendScheduler.execute(halt);
+        }
     }
 
     private void resendPost(SubForwardPost post, Bot bot) {
@@ -872,27 +835,34 @@ public class SubBotConsumer implements LongPollingSingleThreadUpdateConsumer {
         return null;
     }
 
-    private void sendAdminNotice(String chatId, String text) {
-        Bot subBotEntity = botService.findByBotType(BotType.SUB);
-        SendMessage sendMessage = SendMessage.builder()
-                .chatId(chatId)
-                .text(text)
-                .build();
-        telegramBotClient.send(sendMessage, subBotEntity);
-    }
-
     private void updateStatusMessage(String chatId, Integer messageId, String text) {
+        Bot subBotEntity = botService.findByBotType(BotType.SUB);
         if (messageId == null) {
-            sendAdminNotice(chatId, text);
+            SendMessage sendMessage = SendMessage.builder()
+                    .chatId(chatId)
+                    .text(text)
+                    .build();
+            enqueueStatusCall(() -> telegramBotClient.sendAsync(sendMessage, subBotEntity));
             return;
         }
-        Bot subBotEntity = botService.findByBotType(BotType.SUB);
-        EditMessageText editText = EditMessageText.builder()
-                .chatId(chatId)
-                .messageId(messageId)
-                .text(text)
-                .build();
-        telegramBotClient.send(editText, subBotEntity);
+        statusMessageEditor.edit(subBotEntity, chatId, messageId, text);
+    }
+
+    /**
+     * 將新的狀態訊息串在前一個之後非同步發送，呼叫端不等待，且依呼叫順序送達。
+     *
+     * @param call 非同步呼叫
+     * @param <R>  回傳型別
+     */
+    private <R> void enqueueStatusCall(Supplier<CompletableFuture<R>> call) {
+        synchronized (statusCallLock) {
+            statusCallChain = statusCallChain
+                    .thenCompose(ignored -> call.get())
+                    .handle((result, error) -> {
+                        telegramBotClient.logFailure(error);
+                        return null;
+                    });
+        }
     }
 
     private String buildProgressText(int current, int total) {
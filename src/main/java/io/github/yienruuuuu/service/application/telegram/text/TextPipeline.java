@@ -0,0 +1,206 @@
+package io.github.yienruuuuu.service.application.telegram.text;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.github.yienruuuuu.bean.enums.TextStage;
+import io.github.yienruuuuu.service.business.BlacklistService;
+import io.github.yienruuuuu.service.business.ChineseConvertService;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 貼文文字處理管線：依設定順序執行各步驟，再把處理後文字與前綴、序號、宣傳文字組成輸出。
+ * <p>
+ * 各步驟在執行緒共用的兩個 StringBuilder 之間交替讀寫，只有內容真的改變時才寫入；
+ * 整條管線只在結尾產生一次處理後文字，組裝輸出時也只產生一次輸出文字，不再經過中間的 List 與 String.join。
+ * 多數貼文不含黑名單也不需轉換，此時直接回傳原字串。
+ * <p>
+ * 同一段文字常被重複轉傳，處理結果以「文字的 64 位元雜湊 + 黑名單版本」為鍵快取（Caffeine，W-TinyLFU 淘汰）；
+ * 黑名單變更後版本改變，舊結果不再命中並整批清除。詞典在程序存活期間不變，不需納入版本。
+ * 項目保留原文，命中時比對原文，雜湊碰撞也不會回傳錯誤結果。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public final class TextPipeline {
+    private static final int MAX_RETAINED_BUFFER = 16 * 1024;
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+    private final TextStage[] stages;
+    private final BlacklistService blacklistService;
+    private final ChineseConvertService chineseConvertService;
+    private final boolean versionedByBlacklist;
+    private final Cache<Long, CachedText> cache;
+    private volatile long cachedVersion;
+
+    /**
+     * 建立處理管線。
+     *
+     * @param stages                步驟，依序執行
+     * @param blacklistService      黑名單服務
+     * @param chineseConvertService 簡轉繁服務
+     * @param cacheSize             快取筆數上限，0 表示不快取
+     */
+    public TextPipeline(List<TextStage> stages, BlacklistService blacklistService, ChineseConvertService chineseConvertService, long cacheSize) {
+        this.stages = stages == null ? new TextStage[0] : stages.toArray(new TextStage[0]);
+        this.blacklistService = blacklistService;
+        this.chineseConvertService = chineseConvertService;
+        this.versionedByBlacklist = Arrays.asList(this.stages).contains(TextStage.BLACKLIST);
+        this.cache = cacheSize > 0 && this.stages.length > 0
+                ? Caffeine.newBuilder().maximumSize(cacheSize).recordStats().build()
+                : null;
+    }
+
+    /**
+     * 依序執行各步驟，相同文字在黑名單未變更前直接取用快取結果。
+     *
+     * @param input 原始文字
+     * @return 處理後文字，input 為 null 時回傳 null；沒有任何步驟改變內容時回傳原字串
+     */
+    public String process(String input) {
+        if (input == null || stages.length == 0) {
+            return input;
+        }
+        if (cache == null) {
+            return run(input);
+        }
+        long version = versionedByBlacklist ? blacklistService.getVersion() : 0L;
+        if (version != cachedVersion) {
+            cachedVersion = version;
+            cache.invalidateAll();
+        }
+        long key = hash(input, version);
+        CachedText cached = cache.getIfPresent(key);
+        if (cached != null && cached.version == version && cached.input.equals(input)) {
+            return cached.output;
+        }
+        String output = run(input);
+        cache.put(key, new CachedText(version, input, output));
+        return output;
+    }
+
+    /**
+     * 取得快取統計。
+     *
+     * @return 統計，未啟用快取時回傳 null
+     */
+    public CacheStats getCacheStats() {
+        return cache == null ? null : cache.stats();
+    }
+
+    /**
+     * 取得快取目前的筆數（估計值）。
+     *
+     * @return 筆數
+     */
+    public long getCacheSize() {
+        return cache == null ? 0L : cache.estimatedSize();
+    }
+
+    private String run(String input) {
+        Buffers buffers = BUFFERS.get();
+        CharSequence current = input;
+        StringBuilder target = buffers.first;
+        for (TextStage stage : stages) {
+            target.setLength(0);
+            if (apply(stage, current, target)) {
+                current = target;
+                target = target == buffers.first ? buffers.second : buffers.first;
+            }
+        }
+        String result = current == input ? input : current.toString();
+        buffers.release();
+        return result;
+    }
+
+    /**
+     * 以空白串接非空白的部分，例如前綴、處理後文字、序號與宣傳文字。
+     *
+     * @param parts 各部分，null 或空白會略過
+     * @return 輸出文字
+     */
+    public String assemble(String... parts) {
+        Buffers buffers = BUFFERS.get();
+        StringBuilder output = buffers.first;
+        output.setLength(0);
+        for (String part : parts) {
+            if (part == null || part.isBlank()) {
+                continue;
+            }
+            if (output.length() > 0) {
+                output.append(' ');
+            }
+            output.append(part);
+        }
+        String result = output.toString();
+        buffers.release();
+        return result;
+    }
+
+    private boolean apply(TextStage stage, CharSequence input, StringBuilder out) {
+        return switch (stage) {
+            case BLACKLIST -> blacklistService.filter(input, out);
+            case CONVERT -> chineseConvertService.toTraditional(input, out);
+            case TRIM -> trim(input, out);
+        };
+    }
+
+    private boolean trim(CharSequence input, StringBuilder out) {
+        int start = 0;
+        int end = input.length();
+        while (start < end && input.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && input.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == 0 && end == input.length()) {
+            return false;
+        }
+        out.append(input, start, end);
+        return true;
+    }
+
+    /**
+     * 以版本為種子的 64 位元 FNV-1a 雜湊。
+     */
+    private static long hash(String text, long version) {
+        long hash = 0xcbf29ce484222325L ^ (version * 0x9e3779b97f4a7c15L);
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * 快取的處理結果。
+     */
+    private static final class CachedText {
+        private final long version;
+        private final String input;
+        private final String output;
+
+        private CachedText(long version, String input, String output) {
+            this.version = version;
+            this.input = input;
+            this.output = output;
+        }
+    }
+
+    /**
+     * 單一執行緒的兩個交替使用的緩衝。
+     */
+    private static final class Buffers {
+        private final StringBuilder first = new StringBuilder(1024);
+        private final StringBuilder second = new StringBuilder(1024);
+
+        private void release() {
+            if (first.capacity() > MAX_RETAINED_BUFFER || second.capacity() > MAX_RETAINED_BUFFER) {
+                // 偶發的超長文字不長期佔用執行緒的緩衝
+                BUFFERS.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.yienruuuuu.service.application.telegram.text;
+
+import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.bean.enums.TextStage;
+import io.github.yienruuuuu.config.TextConfig;
+import io.github.yienruuuuu.service.business.BlacklistService;
+import io.github.yienruuuuu.service.business.ChineseConvertService;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 依 Bot 類型提供文字處理管線，步驟順序由 bot.text.*-stages 設定，每條管線各自快取處理結果。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Component
+public class TextPipelines {
+    private final Map<BotType, TextPipeline> pipelines = new EnumMap<>(BotType.class);
+
+    /**
+     * 建立各 Bot 類型的管線，未設定的類型不做任何處理。
+     *
+     * @param textConfig            文字處理設定
+     * @param blacklistService      黑名單服務
+     * @param chineseConvertService 簡轉繁服務
+     */
+    public TextPipelines(TextConfig textConfig, BlacklistService blacklistService, ChineseConvertService chineseConvertService) {
+        for (BotType type : BotType.values()) {
+            List<TextStage> stages = switch (type) {
+                case MAIN -> textConfig.getMainStages();
+                case SUB -> textConfig.getSubStages();
+                default -> List.of();
+            };
+            pipelines.put(type, new TextPipeline(stages, blacklistService, chineseConvertService, textConfig.getCacheSize()));
+        }
+    }
+
+    /**
+     * 取得對應 Bot 類型的管線。
+     *
+     * @param type Bot 類型
+     * @return 處理管線
+     */
+    public TextPipeline get(BotType type) {
+        return pipelines.get(type);
+    }
+}
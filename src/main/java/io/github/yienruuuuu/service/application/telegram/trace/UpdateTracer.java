@@ -0,0 +1,175 @@
+package io.github.yienruuuuu.service.application.telegram.trace;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.config.UpdateTraceConfig;
+import io.github.yienruuuuu.service.application.telegram.consumer.UpdateLaneDispatcher;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 更新追蹤：在熱路徑上只做等級、類型、chat 與取樣判斷，
+ * 通過的更新放入有界佇列，由背景執行緒序列化並寫入獨立的追蹤 logger。
+ * 佇列滿時直接丟棄並計數，不阻塞消費執行緒。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+@Component
+public class UpdateTracer {
+    private static final Logger TRACE_LOG = LoggerFactory.getLogger("io.github.yienruuuuu.update-trace");
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final double sampleRate;
+    private final Set<String> updateTypes;
+    private final Set<Long> chatIds;
+    private final BlockingQueue<TraceEntry> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    /**
+     * 建立更新追蹤器並啟動背景序列化執行緒。
+     *
+     * @param updateTraceConfig 追蹤設定
+     * @param objectMapper      JSON 序列化工具
+     */
+    public UpdateTracer(UpdateTraceConfig updateTraceConfig, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.enabled = updateTraceConfig.isEnabled();
+        this.sampleRate = Math.max(0.0, Math.min(1.0, updateTraceConfig.getSampleRate()));
+        this.updateTypes = splitToSet(updateTraceConfig.getUpdateTypes());
+        this.chatIds = splitToSet(updateTraceConfig.getChatIds()).stream()
+                .map(Long::valueOf)
+                .collect(Collectors.toUnmodifiableSet());
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, updateTraceConfig.getQueueCapacity()));
+        this.worker = new Thread(this::runLoop, "update-tracer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 記錄收到的更新；未啟用或未通過篩選時不產生任何序列化成本。
+     *
+     * @param botType 收到更新的 Bot 類型
+     * @param update  Telegram 更新
+     */
+    public void trace(BotType botType, Update update) {
+        if (!enabled || update == null || !TRACE_LOG.isDebugEnabled()) {
+            return;
+        }
+        String updateType = resolveUpdateType(update);
+        if (!updateTypes.isEmpty() && !updateTypes.contains(updateType)) {
+            return;
+        }
+        Long chatId = UpdateLaneDispatcher.resolveChatId(update);
+        if (!chatIds.isEmpty() && (chatId == null || !chatIds.contains(chatId))) {
+            return;
+        }
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        if (!queue.offer(new TraceEntry(botType, updateType, chatId, update))) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * 取得因佇列已滿而丟棄的追蹤筆數。
+     *
+     * @return 丟棄筆數
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * 停止背景執行緒。
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                write(queue.take());
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void write(TraceEntry entry) {
+        try {
+            String json = objectMapper.writeValueAsString(entry.update);
+            TRACE_LOG.debug("收到更新 bot={} type={} chatId={} json={}", entry.botType, entry.updateType, entry.chatId, json);
+        } catch (JsonProcessingException e) {
+            log.warn("無法序列化 Update 成 JSON", e);
+        }
+    }
+
+    private String resolveUpdateType(Update update) {
+        if (update.hasChannelPost()) {
+            return "channel_post";
+        }
+        if (update.hasMessage()) {
+            return "message";
+        }
+        if (update.hasCallbackQuery()) {
+            return "callback_query";
+        }
+        if (update.hasEditedChannelPost()) {
+            return "edited_channel_post";
+        }
+        if (update.hasEditedMessage()) {
+            return "edited_message";
+        }
+        if (update.hasPreCheckoutQuery()) {
+            return "pre_checkout_query";
+        }
+        return "other";
+    }
+
+    private static Set<String> splitToSet(String value) {
+        if (value == null || value.isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static class TraceEntry {
+        private final BotType botType;
+        private final String updateType;
+        private final Long chatId;
+        private final Update update;
+
+        private TraceEntry(BotType botType, String updateType, Long chatId, Update update) {
+            this.botType = botType;
+            this.updateType = updateType;
+            this.chatId = chatId;
+            this.update = update;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package io.github.yienruuuuu.service.application.telegram.webhook;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.github.yienruuuuu.bean.entity.Bot;
+import io.github.yienruuuuu.config.IngressConfig;
+import io.github.yienruuuuu.repository.BotRepository;
+import io.github.yienruuuuu.service.application.telegram.TelegramBotClient;
+import io.github.yienruuuuu.service.application.telegram.journal.UpdateJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.longpolling.interfaces.LongPollingUpdateConsumer;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 管理 webhook 模式下各 Bot 的註冊、secret token 驗證與更新分派。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+@Service
+public class TelegramWebhookService {
+    private static final String WEBHOOK_PATH = "/telegram/webhook/";
+    private static final int SECRET_BYTES = 32;
+    private final TelegramBotClient telegramBotClient;
+    private final BotRepository botRepository;
+    private final IngressConfig ingressConfig;
+    private final ObjectReader updateReader;
+    private final ObjectReader updateListReader;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Map<Integer, Registration> registrations = new ConcurrentHashMap<>();
+
+    /**
+     * 建立 webhook 服務。
+     *
+     * @param telegramBotClient Telegram API 呼叫封裝
+     * @param botRepository     Bot 資料存取物件
+     * @param ingressConfig     更新接收設定
+     * @param objectMapper      JSON 序列化工具
+     */
+    public TelegramWebhookService(
+            TelegramBotClient telegramBotClient,
+            BotRepository botRepository,
+            IngressConfig ingressConfig,
+            ObjectMapper objectMapper
+    ) {
+        this.telegramBotClient = telegramBotClient;
+        this.botRepository = botRepository;
+        this.ingressConfig = ingressConfig;
+        this.updateReader = objectMapper.readerFor(Update.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.updateListReader = objectMapper.readerForListOf(Update.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * 為 Bot 設定 webhook，並建立對應的批次處理器。
+     *
+     * @param bot           Bot 實體
+     * @param pipeline      更新處理管線
+     * @param updateJournal 更新日誌，不需日誌的 Bot 傳 null
+     * @return 是否註冊成功
+     */
+    public boolean register(Bot bot, LongPollingUpdateConsumer pipeline, UpdateJournal updateJournal) {
+        String baseUrl = ingressConfig.getWebhookBaseUrl();
+        if (baseUrl == null || baseUrl.isBlank()) {
+            log.warn("未設定 bot.webhook.base-url，無法註冊 webhook，BotType: {}", bot.getType());
+            return false;
+        }
+        String secret = ensureSecret(bot);
+        WebhookUpdateBatcher batcher = new WebhookUpdateBatcher(
+                bot.getType(),
+                updateJournal,
+                pipeline,
+                ingressConfig.getWebhookQueueCapacity(),
+                ingressConfig.getWebhookBatchSize(),
+                ingressConfig.getWebhookBatchLingerMs()
+        );
+        Registration previous = registrations.put(bot.getId(), new Registration(secret, batcher));
+        if (previous != null) {
+            previous.batcher.shutdown();
+        }
+        SetWebhook setWebhook = SetWebhook.builder()
+                .url(buildWebhookUrl(baseUrl, bot.getId()))
+                .secretToken(secret)
+                .maxConnections(ingressConfig.getWebhookMaxConnections())
+                .build();
+        Boolean ok = telegramBotClient.send(setWebhook, bot);
+        if (!Boolean.TRUE.equals(ok)) {
+            log.error("機器人 {} 設定 webhook 失敗", bot.getType());
+            Registration failed = registrations.remove(bot.getId());
+            if (failed != null) {
+                failed.batcher.shutdown();
+            }
+            return false;
+        }
+        log.info("機器人 {} webhook 註冊完成", bot.getType());
+        return true;
+    }
+
+    /**
+     * 驗證 secret token 後，將 webhook 內容轉為更新並交給批次器。
+     *
+     * @param botId       Bot 主鍵
+     * @param secretToken Telegram 帶入的 secret token
+     * @param body        更新 JSON
+     * @return 處理結果
+     */
+    public WebhookResult accept(Integer botId, String secretToken, String body) {
+        Registration registration = registrations.get(botId);
+        if (registration == null) {
+            return WebhookResult.NOT_FOUND;
+        }
+        if (!secretMatches(registration.secret, secretToken)) {
+            log.warn("webhook secret 驗證失敗，botId={}", botId);
+            return WebhookResult.FORBIDDEN;
+        }
+        try {
+            Update update = updateReader.readValue(body);
+            if (!registration.batcher.submit(update)) {
+                log.warn("webhook 佇列已滿或日誌寫入失敗，暫不收下更新，botId={}", botId);
+                return WebhookResult.UNAVAILABLE;
+            }
+            return WebhookResult.ACCEPTED;
+        } catch (JsonProcessingException e) {
+            log.warn("無法解析 webhook 更新，botId={}", botId, e);
+            return WebhookResult.IGNORED;
+        }
+    }
+
+    /**
+     * 略過 secret 驗證，直接重播一批更新（本機測試用）。
+     *
+     * @param botId Bot 主鍵
+     * @param body  更新 JSON 陣列
+     * @return 處理結果
+     */
+    public WebhookResult replay(Integer botId, String body) {
+        Registration registration = registrations.get(botId);
+        if (registration == null) {
+            return WebhookResult.NOT_FOUND;
+        }
+        try {
+            List<Update> updates = updateListReader.readValue(body);
+            for (Update update : updates) {
+                if (!registration.batcher.submit(update)) {
+                    log.warn("重播中止，webhook 佇列已滿或日誌寫入失敗，botId={}", botId);
+                    return WebhookResult.UNAVAILABLE;
+                }
+            }
+            log.info("重播 {} 筆更新至 botId={}", updates.size(), botId);
+            return WebhookResult.ACCEPTED;
+        } catch (JsonProcessingException e) {
+            log.warn("無法解析重播更新，botId={}", botId, e);
+            return WebhookResult.IGNORED;
+        }
+    }
+
+    /**
+     * 取得各 Bot webhook 批次器的佇列深度。
+     *
+     * @return Bot 主鍵對應佇列深度
+     */
+    public Map<Integer, Integer> getQueueDepths() {
+        Map<Integer, Integer> depths = new ConcurrentHashMap<>();
+        registrations.forEach((botId, registration) -> depths.put(botId, registration.batcher.getDepth()));
+        return depths;
+    }
+
+    /**
+     * 停止所有批次器。已回應 200 的更新不會再由 Telegram 重送，靠更新日誌在重啟後重播；
+     * Webhook 設定保留在 Telegram，停機期間送不進來的新更新才由 Telegram 重試。
+     */
+    public void shutdown() {
+        registrations.values().forEach(registration -> registration.batcher.shutdown());
+        registrations.clear();
+    }
+
+    private String ensureSecret(Bot bot) {
+        if (bot.getWebhookSecret() != null && !bot.getWebhookSecret().isBlank()) {
+            return bot.getWebhookSecret();
+        }
+        byte[] bytes = new byte[SECRET_BYTES];
+        secureRandom.nextBytes(bytes);
+        String secret = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        bot.setWebhookSecret(secret);
+        botRepository.save(bot);
+        return secret;
+    }
+
+    private boolean secretMatches(String expected, String actual) {
+        if (actual == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8),
+                actual.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    private String buildWebhookUrl(String baseUrl, Integer botId) {
+        String trimmed = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        return trimmed + WEBHOOK_PATH + botId;
+    }
+
+    /**
+     * Webhook 處理結果。
+     */
+    public enum WebhookResult {
+        ACCEPTED,
+        IGNORED,
+        NOT_FOUND,
+        FORBIDDEN,
+        UNAVAILABLE
+    }
+
+    private static class Registration {
+        private final String secret;
+        private final WebhookUpdateBatcher batcher;
+
+        private Registration(String secret, WebhookUpdateBatcher batcher) {
+            this.secret = secret;
+            this.batcher = batcher;
+        }
+    }
+}
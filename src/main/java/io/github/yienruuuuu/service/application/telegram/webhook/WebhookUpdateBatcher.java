@@ -0,0 +1,146 @@
+package io.github.yienruuuuu.service.application.telegram.webhook;
+
+import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.service.application.telegram.journal.UpdateJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.longpolling.interfaces.LongPollingUpdateConsumer;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 將 webhook 逐筆收到的更新聚合成批次，再交給與長輪詢相同的處理管線。
+ * HTTP 執行緒只負責寫入日誌與入列，實際處理在專屬執行緒進行，webhook 可立即回應。
+ * 佇列有上限，滿載或日誌寫入失敗時拒收，由呼叫端回 503 讓 Telegram 稍後重送；一旦回 200，Telegram 就不會再送同一筆更新。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+public class WebhookUpdateBatcher {
+    private final String name;
+    private final BotType botType;
+    private final UpdateJournal updateJournal;
+    private final LongPollingUpdateConsumer downstream;
+    private final int batchSize;
+    private final long lingerMs;
+    private final LinkedBlockingQueue<Update> queue;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    /**
+     * 建立批次器並啟動處理執行緒。
+     *
+     * @param botType       Bot 類型
+     * @param updateJournal 更新日誌，不需日誌的 Bot 傳 null
+     * @param downstream    下游處理管線
+     * @param capacity      佇列容量
+     * @param batchSize     單批最大筆數
+     * @param lingerMs      收到第一筆後等待湊批的時間（毫秒）
+     */
+    public WebhookUpdateBatcher(
+            BotType botType,
+            UpdateJournal updateJournal,
+            LongPollingUpdateConsumer downstream,
+            int capacity,
+            int batchSize,
+            long lingerMs
+    ) {
+        this.name = botType.name();
+        this.botType = botType;
+        this.updateJournal = updateJournal;
+        this.downstream = downstream;
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, capacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerMs = Math.max(0L, lingerMs);
+        this.worker = new Thread(this::runLoop, name + "-webhook-batcher");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 先把更新寫入日誌，再放入待處理佇列。回傳 true 之後才可回應 Telegram 200。
+     *
+     * @param update Telegram 更新
+     * @return 是否收下；佇列已滿或日誌寫入失敗時為 false
+     */
+    public boolean submit(Update update) {
+        if (update == null) {
+            return true;
+        }
+        if (!running || queue.remainingCapacity() == 0) {
+            return false;
+        }
+        if (updateJournal != null && !updateJournal.appendAll(botType, List.of(update))) {
+            return false;
+        }
+        if (!queue.offer(update)) {
+            // 已寫入日誌但沒入列：Telegram 重送時再處理一次，重啟則由日誌重播，兩者都經處理紀錄去重
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 取得目前待處理的更新數量。
+     *
+     * @return 佇列深度
+     */
+    public int getDepth() {
+        return queue.size();
+    }
+
+    /**
+     * 停止處理執行緒，並把剩餘更新交給下游。這些更新已回應 Telegram 200，不會重送，
+     * 下游來不及處理的部分由更新日誌在下次啟動時重播。
+     */
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(5_000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Update> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            deliver(remaining);
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                Update first = queue.take();
+                List<Update> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Update next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                deliver(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void deliver(List<Update> batch) {
+        try {
+            downstream.consume(batch);
+        } catch (Exception e) {
+            log.error("{} webhook 批次處理失敗，共 {} 筆", name, batch.size(), e);
+        }
+    }
+}
@@ -12,4 +12,25 @@ public interface BlacklistService {
      * @return 移除黑名單後的文字
      */
     String filter(String input);
+
+    /**
+     * 移除黑名單字串並將結果附加到 out；不含任何黑名單字串時不寫入 out。
+     *
+     * @param input 原始文字
+     * @param out   輸出緩衝
+     * @return true 表示有移除，結果已寫入 out
+     */
+    boolean filter(CharSequence input, StringBuilder out);
+
+    /**
+     * 重新讀取黑名單並重建比對器。
+     */
+    void reload();
+
+    /**
+     * 取得目前黑名單的版本，黑名單變更後遞增，可作為快取失效的依據。
+     *
+     * @return 版本
+     */
+    long getVersion();
 }
@@ -0,0 +1,40 @@
+package io.github.yienruuuuu.service.business;
+
+import java.util.List;
+
+/**
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public interface BotNodeLeaseService {
+    /**
+     * 新增或續約節點租約。
+     *
+     * @param nodeId 節點 ID
+     * @param host   主機名稱
+     * @param ttlMs  租約長度（毫秒）
+     */
+    void renew(String nodeId, String host, long ttlMs);
+
+    /**
+     * 取得租約未到期的節點，依節點 ID 排序。
+     *
+     * @return 節點 ID 列表
+     */
+    List<String> findLiveNodeIds();
+
+    /**
+     * 移除節點租約，節點正常關閉時呼叫，讓其他節點立即重新分配。
+     *
+     * @param nodeId 節點 ID
+     */
+    void release(String nodeId);
+
+    /**
+     * 刪除到期超過指定時間的租約。
+     *
+     * @param graceMs 到期後保留的毫秒數
+     * @return 刪除筆數
+     */
+    int deleteExpiredLongerThan(long graceMs);
+}
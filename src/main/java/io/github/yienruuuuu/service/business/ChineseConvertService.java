@@ -0,0 +1,78 @@
+package io.github.yienruuuuu.service.business;
+
+import io.github.yienruuuuu.bean.enums.ConverterEngine;
+
+/**
+ * 簡體轉繁體服務。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public interface ChineseConvertService {
+    /**
+     * 簡體轉繁體。
+     *
+     * @param input 原始文字
+     * @return 轉換後文字，input 為 null 時回傳 null
+     */
+    String toTraditional(String input);
+
+    /**
+     * 簡體轉繁體並將結果附加到 out；不含任何可轉換字元時不寫入 out。
+     *
+     * @param input 原始文字
+     * @param out   輸出緩衝
+     * @return true 表示已將結果寫入 out
+     */
+    boolean toTraditional(CharSequence input, StringBuilder out);
+
+    /**
+     * 單一字元繁轉簡，只用於比對時把繁簡寫法折成同一個字形。
+     *
+     * @param c 字元
+     * @return 對應的簡體字元，沒有一對一對照時原樣回傳
+     */
+    char toSimplified(char c);
+
+    /**
+     * 取得目前實際使用的引擎（字典載入失敗時會退回 OPENCC）。
+     *
+     * @return 引擎
+     */
+    ConverterEngine getActiveEngine();
+
+    /**
+     * 取得轉換次數。
+     *
+     * @return 轉換次數
+     */
+    long getConversions();
+
+    /**
+     * 取得不含可轉換字元而直接略過的次數。
+     *
+     * @return 略過次數
+     */
+    long getSkipped();
+
+    /**
+     * 取得略過轉換估算省下的時間。
+     *
+     * @return 毫秒數
+     */
+    long getTimeSavedMs();
+
+    /**
+     * 取得抽樣比對 opencc4j 的次數。
+     *
+     * @return 抽樣次數
+     */
+    long getVerified();
+
+    /**
+     * 取得抽樣比對結果不一致的次數。
+     *
+     * @return 不一致次數
+     */
+    long getMismatches();
+}
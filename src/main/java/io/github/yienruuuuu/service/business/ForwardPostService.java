@@ -2,6 +2,8 @@ package io.github.yienruuuuu.service.business;
 
 import io.github.yienruuuuu.bean.entity.ForwardPost;
 import io.github.yienruuuuu.bean.entity.ForwardPostMedia;
+import io.github.yienruuuuu.bean.entity.OutboxMessage;
+import io.github.yienruuuuu.bean.entity.ProcessedUpdate;
 import io.github.yienruuuuu.service.business.model.ForwardPostMediaItem;
 
 import java.util.List;
@@ -28,6 +30,8 @@ public interface ForwardPostService {
      * @param processedText 處理後文字
      * @param outputText 最終輸出文字
      * @param mediaItems 媒體項目
+     * @param outboxMessages 待發送記錄，與貼文在同一個交易內寫入
+     * @param processedUpdates 來源更新的已處理記錄，與貼文在同一個交易內寫入，重播時據此略過
      * @return 建立完成的貼文
      */
     ForwardPost createPost(
@@ -43,7 +47,9 @@ public interface ForwardPostService {
             String originalText,
             String processedText,
             String outputText,
-            List<ForwardPostMediaItem> mediaItems
+            List<ForwardPostMediaItem> mediaItems,
+            List<OutboxMessage> outboxMessages,
+            List<ProcessedUpdate> processedUpdates
     );
 
     /**
@@ -69,14 +75,6 @@ public interface ForwardPostService {
      */
     List<ForwardPost> findAllOrderByCreatedAtAsc();
 
-    /**
-     * 取得指定前綴最新的序號。
-     *
-     * @param serialPrefix 序號前綴 (yyyy-MM-dd_)
-     * @return 序號字串，若無資料回傳 null
-     */
-    String findLatestSerialByPrefix(String serialPrefix);
-
     /**
      * 判斷媒體檔案是否已存在。
      *
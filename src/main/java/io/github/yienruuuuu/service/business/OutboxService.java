@@ -0,0 +1,105 @@
+package io.github.yienruuuuu.service.business;
+
+import io.github.yienruuuuu.bean.entity.OutboxMessage;
+import io.github.yienruuuuu.bean.enums.BotType;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public interface OutboxService {
+    /**
+     * 寫入待發送記錄，需在呼叫端的交易內執行才能與貼文一起提交。
+     *
+     * @param messages 待發送記錄
+     */
+    void saveAll(List<OutboxMessage> messages);
+
+    /**
+     * 取得一批可發送的記錄並標記為發送中，每個 Bot 與 chat 最多一筆。
+     *
+     * @param limit 批次大小
+     * @param lease 發送租約時間，逾期未回報結果的記錄改為結果不明，不再重送
+     * @return 取得的記錄，依建立順序排列
+     */
+    List<OutboxMessage> claimBatch(int limit, Duration lease);
+
+    /**
+     * 取得一批指定 Bot 類型的可發送記錄並標記為發送中，每個 Bot 與 chat 最多一筆。
+     *
+     * @param limit    批次大小
+     * @param lease    發送租約時間
+     * @param botTypes 只取這些 Bot 的記錄
+     * @return 取得的記錄，依建立順序排列
+     */
+    List<OutboxMessage> claimBatch(int limit, Duration lease, Collection<BotType> botTypes);
+
+    /**
+     * 延長發送中記錄的租約，發送端在等待結果期間定期呼叫。
+     *
+     * @param ids   記錄 ID
+     * @param lease 自現在起的租約時間
+     * @return 成功延長的筆數；少於 ids 筆數表示有記錄已不在發送中
+     */
+    int renewLeases(Collection<Long> ids, Duration lease);
+
+    /**
+     * 標記記錄已送達；記錄已不在發送中（租約逾期改為結果不明）時只補上訊息 ID，狀態留待人工確認。
+     *
+     * @param id         記錄 ID
+     * @param messageIds Telegram 回傳的訊息 ID
+     */
+    void markSent(Long id, List<Integer> messageIds);
+
+    /**
+     * 標記記錄發送失敗；記錄已不在發送中時不變更。
+     *
+     * @param id            記錄 ID
+     * @param error         失敗原因
+     * @param nextAttemptAt 下次發送時間，null 表示不再重送
+     */
+    void markFailed(Long id, String error, Instant nextAttemptAt);
+
+    /**
+     * 標記記錄結果不明：請求可能已被 Telegram 執行，不自動重送，待人工確認；記錄已不在發送中時不變更。
+     *
+     * @param id    記錄 ID
+     * @param error 失敗原因
+     */
+    void markUncertain(Long id, String error);
+
+    /**
+     * 記錄未送出即被擋下（例如熔斷器開啟），延後發送且不計入嘗試次數；記錄已不在發送中時不變更。
+     *
+     * @param id            記錄 ID
+     * @param nextAttemptAt 下次發送時間
+     */
+    void postpone(Long id, Instant nextAttemptAt);
+
+    /**
+     * 取得等待發送的記錄數。
+     *
+     * @return 記錄數
+     */
+    long countPending();
+
+    /**
+     * 取得結果不明、待人工確認的記錄數。
+     *
+     * @return 記錄數
+     */
+    long countUncertain();
+
+    /**
+     * 刪除指定時間前已送達的記錄。
+     *
+     * @param before 時間點
+     * @return 刪除筆數
+     */
+    int deleteSentBefore(Instant before);
+}
@@ -0,0 +1,19 @@
+package io.github.yienruuuuu.service.business;
+
+import io.github.yienruuuuu.bean.entity.ProcessedUpdate;
+import io.github.yienruuuuu.bean.enums.BotType;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public interface ProcessedUpdateService {
+    void saveAll(List<ProcessedUpdate> records);
+
+    List<ProcessedUpdate> findRecent(BotType botType, int limit);
+
+    int deleteBefore(Instant before);
+}
@@ -0,0 +1,21 @@
+package io.github.yienruuuuu.service.business;
+
+import io.github.yienruuuuu.bean.enums.BotType;
+
+import java.time.LocalDate;
+
+/**
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public interface SerialCounterService {
+    /**
+     * 預留一段連續序號。
+     *
+     * @param pipeline   序號所屬流程
+     * @param serialDate 序號日期
+     * @param blockSize  預留數量
+     * @return 預留區段的最後一個序號，區段為 (回傳值 - blockSize, 回傳值]
+     */
+    long reserveBlock(BotType pipeline, LocalDate serialDate, int blockSize);
+}
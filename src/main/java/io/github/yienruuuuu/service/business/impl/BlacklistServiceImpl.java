@@ -1,31 +1,65 @@
 package io.github.yienruuuuu.service.business.impl;
 
 import io.github.yienruuuuu.bean.entity.BlacklistTerm;
+import io.github.yienruuuuu.config.AppConfig;
 import io.github.yienruuuuu.repository.BlacklistTermRepository;
 import io.github.yienruuuuu.service.business.BlacklistService;
+import io.github.yienruuuuu.service.business.ChineseConvertService;
+import io.github.yienruuuuu.service.business.text.AhoCorasickMatcher;
+import io.github.yienruuuuu.service.business.text.TextNormalizer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Eric.Lee
  * Date: 2026/01/23
  */
+@Slf4j
 @Service("blacklistService")
 public class BlacklistServiceImpl implements BlacklistService {
+    private static final int MAX_NORMALIZED_ROUNDS = 8;
     private final BlacklistTermRepository blacklistTermRepository;
+    private final AppConfig appConfig;
+    private final TextNormalizer normalizer;
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final AtomicLong versions = new AtomicLong();
+    private volatile MatcherSnapshot snapshot;
+    private volatile long nextCheckNanos;
 
     /**
      * 建立黑名單服務。
      *
      * @param blacklistTermRepository 黑名單資料存取物件
+     * @param appConfig               應用設定
+     * @param chineseConvertService   簡轉繁服務，提供正規化比對時的繁簡字形折疊
      */
-    public BlacklistServiceImpl(BlacklistTermRepository blacklistTermRepository) {
+    public BlacklistServiceImpl(
+            BlacklistTermRepository blacklistTermRepository,
+            AppConfig appConfig,
+            ChineseConvertService chineseConvertService
+    ) {
         this.blacklistTermRepository = blacklistTermRepository;
+        this.appConfig = appConfig;
+        this.normalizer = appConfig.isBlacklistNormalizedMatching()
+                ? TextNormalizer.build(c -> chineseConvertService.toSimplified((char) c))
+                : null;
     }
 
     /**
-     * 依照資料庫黑名單字串逐一移除。
+     * 移除黑名單字串，結果與依 id 順序逐一 {@link String#replace} 相同。
+     * <p>
+     * 逐一取代時，輪到某個字串而它不在目前文字中就不會有任何變化，因此只需找出「編號在上一次取代之後、
+     * 且出現在目前文字中」的最小編號字串取代即可；取代後產生的新組合也會在下一輪被找到，與逐一取代的連鎖效果一致。
+     * 每輪以預先建好的比對器掃描一次，多數貼文不含黑名單，只需掃描一次。
+     * 啟用 normalized-matching 時改為在正規化後的文字上比對，見 {@link #removeNormalized}。
      *
      * @param input 原始文字
      * @return 移除黑名單後的文字
@@ -35,14 +69,164 @@ public class BlacklistServiceImpl implements BlacklistService {
         if (input == null || input.isBlank()) {
             return input;
         }
-        List<BlacklistTerm> terms = blacklistTermRepository.findAll();
+        AhoCorasickMatcher matcher = currentSnapshot().matcher;
+        if (normalizer != null) {
+            return removeNormalized(matcher, input);
+        }
+        int first = matcher.firstMatch(input, -1);
+        return first < 0 ? input : replaceFrom(matcher, input, first);
+    }
+
+    @Override
+    public boolean filter(CharSequence input, StringBuilder out) {
+        if (input == null || isBlank(input)) {
+            return false;
+        }
+        AhoCorasickMatcher matcher = currentSnapshot().matcher;
+        if (normalizer != null) {
+            String text = input.toString();
+            String result = removeNormalized(matcher, text);
+            if (result == text) {
+                return false;
+            }
+            out.append(result);
+            return true;
+        }
+        int first = matcher.firstMatch(input, -1);
+        if (first < 0) {
+            return false;
+        }
+        out.append(replaceFrom(matcher, input.toString(), first));
+        return true;
+    }
+
+    /**
+     * 重新讀取黑名單並以新的比對器整個替換，進行中的過濾繼續使用舊的比對器。
+     */
+    @Override
+    public void reload() {
+        String fingerprint = blacklistTermRepository.findFingerprint();
+        List<String> terms = new ArrayList<>();
+        for (BlacklistTerm term : blacklistTermRepository.findAllByOrderByIdAsc()) {
+            String value = term.getTerm();
+            terms.add(normalizer == null || value == null ? value : normalizer.normalize(value));
+        }
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.build(terms);
+        snapshot = new MatcherSnapshot(matcher, fingerprint, versions.incrementAndGet());
+        if (normalizer == null) {
+            log.info("黑名單比對器已重建，共 {} 筆", matcher.size());
+        } else {
+            log.info("黑名單比對器已重建（正規化比對），共 {} 筆，正規化後不重複 {} 筆", matcher.size(), new HashSet<>(terms).size());
+        }
+    }
+
+    /**
+     * 在正規化後的文字（NFKC、全半形、大小寫、零寬字元、繁簡字形）上比對黑名單，
+     * 再把比對到的區段換算回原文移除，原文其餘部分保持原樣。
+     * 重疊或相鄰的比對結果合併成一段；移除後若拼出新的黑名單字串，下一輪繼續移除。
+     *
+     * @return 移除後文字，沒有任何比對時回傳原字串
+     */
+    private String removeNormalized(AhoCorasickMatcher matcher, String input) {
         String result = input;
-        for (BlacklistTerm term : terms) {
-            if (term.getTerm() == null || term.getTerm().isBlank()) {
-                continue;
+        for (int round = 0; round < MAX_NORMALIZED_ROUNDS; round++) {
+            TextNormalizer.Projection projection = normalizer.project(result);
+            int[] spans = matcher.matchSpans(projection.getText());
+            if (spans.length == 0) {
+                break;
             }
-            result = result.replace(term.getTerm(), "");
+            StringBuilder builder = new StringBuilder(result.length());
+            int cursor = 0;
+            for (int i = 0; i < spans.length; i += 2) {
+                int start = projection.originStart(spans[i]);
+                int end = projection.originEnd(spans[i + 1] - 1);
+                // 同一個原文字元展開成多個字元時，前後兩段可能落在同一個原文字元上
+                if (start > cursor) {
+                    builder.append(result, cursor, start);
+                }
+                cursor = Math.max(cursor, end);
+            }
+            builder.append(result, cursor, result.length());
+            result = builder.toString();
+        }
+        return result;
+    }
+
+    private String replaceFrom(AhoCorasickMatcher matcher, String input, int first) {
+        String result = input;
+        int next = first;
+        while (next >= 0) {
+            result = result.replace(matcher.getPattern(next), "");
+            next = matcher.firstMatch(result, next);
         }
         return result;
     }
+
+    private boolean isBlank(CharSequence input) {
+        for (int i = 0; i < input.length(); i++) {
+            if (!Character.isWhitespace(input.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 取得目前黑名單的版本，同時觸發與過濾相同的變更檢查。
+     *
+     * @return 版本，每次重建比對器加一
+     */
+    @Override
+    public long getVersion() {
+        return currentSnapshot().version;
+    }
+
+    /**
+     * 取得目前的比對器；每隔 refresh-interval-ms 由一條執行緒比對指紋，內容變更才重建。
+     */
+    private MatcherSnapshot currentSnapshot() {
+        MatcherSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                    nextCheckNanos = System.nanoTime() + refreshIntervalNanos();
+                }
+                return snapshot;
+            }
+        }
+        if (System.nanoTime() - nextCheckNanos >= 0 && refreshing.compareAndSet(false, true)) {
+            try {
+                nextCheckNanos = System.nanoTime() + refreshIntervalNanos();
+                if (!Objects.equals(current.fingerprint, blacklistTermRepository.findFingerprint())) {
+                    reload();
+                }
+            } catch (Exception e) {
+                log.warn("檢查黑名單變更失敗，沿用目前的比對器: {}", e.getMessage());
+            } finally {
+                refreshing.set(false);
+            }
+            return snapshot;
+        }
+        return current;
+    }
+
+    private long refreshIntervalNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, appConfig.getBlacklistRefreshIntervalMs()));
+    }
+
+    /**
+     * 比對器、建立時的黑名單指紋與版本。
+     */
+    private static final class MatcherSnapshot {
+        private final AhoCorasickMatcher matcher;
+        private final String fingerprint;
+        private final long version;
+
+        private MatcherSnapshot(AhoCorasickMatcher matcher, String fingerprint, long version) {
+            this.matcher = matcher;
+            this.fingerprint = fingerprint;
+            this.version = version;
+        }
+    }
 }
@@ -0,0 +1,44 @@
+package io.github.yienruuuuu.service.business.impl;
+
+import io.github.yienruuuuu.repository.BotNodeLeaseRepository;
+import io.github.yienruuuuu.service.business.BotNodeLeaseService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Service
+public class BotNodeLeaseServiceImpl implements BotNodeLeaseService {
+    private final BotNodeLeaseRepository botNodeLeaseRepository;
+
+    public BotNodeLeaseServiceImpl(BotNodeLeaseRepository botNodeLeaseRepository) {
+        this.botNodeLeaseRepository = botNodeLeaseRepository;
+    }
+
+    @Override
+    @Transactional
+    public void renew(String nodeId, String host, long ttlMs) {
+        botNodeLeaseRepository.renew(nodeId, host, ttlMs);
+    }
+
+    @Override
+    public List<String> findLiveNodeIds() {
+        return botNodeLeaseRepository.findLiveNodeIds();
+    }
+
+    @Override
+    @Transactional
+    public void release(String nodeId) {
+        botNodeLeaseRepository.deleteById(nodeId);
+    }
+
+    @Override
+    @Transactional
+    public int deleteExpiredLongerThan(long graceMs) {
+        return botNodeLeaseRepository.deleteExpiredLongerThan(graceMs);
+    }
+}
@@ -0,0 +1,267 @@
+package io.github.yienruuuuu.service.business.impl;
+
+import com.github.houbb.opencc4j.util.ZhConverterUtil;
+import io.github.yienruuuuu.bean.enums.ConverterEngine;
+import io.github.yienruuuuu.config.TextConfig;
+import io.github.yienruuuuu.service.business.ChineseConvertService;
+import io.github.yienruuuuu.service.business.text.ConversionTrie;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 簡體轉繁體服務。
+ * <p>
+ * 預設在啟動時讀取 opencc4j 附帶的 OpenCC 詞典（單字表先載入，詞組表後載入覆蓋），建成 {@link ConversionTrie}，
+ * 每次轉換只掃描一次原文並寫入執行緒共用的緩衝，不再經過 opencc4j 的分詞與逐詞查表。
+ * 依 verify-sample-rate 抽樣同時以 opencc4j 轉換比對，不一致時記錄並以 opencc4j 的結果為準。
+ * 不論引擎為何，完全不含可轉換字元的文字（純繁體、ASCII、網址、emoji）都直接回傳原字串。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Slf4j
+@Service("chineseConvertService")
+public class ChineseConvertServiceImpl implements ChineseConvertService {
+    private static final int MAX_RETAINED_BUFFER = 16 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+    private final TextConfig textConfig;
+    private final ConversionTrie trie;
+    private final ConverterEngine activeEngine;
+    private final char[] simplifiedChars;
+    private final AtomicLong conversions = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong skippedChars = new AtomicLong();
+    private final AtomicLong skipScanNanos = new AtomicLong();
+    private final AtomicLong convertedChars = new AtomicLong();
+    private final AtomicLong convertNanos = new AtomicLong();
+    private final AtomicLong verified = new AtomicLong();
+    private final AtomicLong mismatches = new AtomicLong();
+
+    /**
+     * 建立轉換服務並載入詞典；引擎為 OPENCC 時詞典只用於判斷是否需要轉換。
+     *
+     * @param textConfig 文字處理設定
+     */
+    public ChineseConvertServiceImpl(TextConfig textConfig) {
+        this.textConfig = textConfig;
+        this.trie = loadTrie();
+        this.activeEngine = trie == null ? ConverterEngine.OPENCC : textConfig.getConverterEngine();
+        this.simplifiedChars = loadSimplifiedChars();
+    }
+
+    /**
+     * 簡體轉繁體，不含任何可轉換字元時直接回傳原字串。
+     *
+     * @param input 原始文字
+     * @return 轉換後文字
+     */
+    @Override
+    public String toTraditional(String input) {
+        if (input == null || input.isEmpty()) {
+            return input;
+        }
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        String result = toTraditional(input, buffer) ? buffer.toString() : input;
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            // 偶發的超長文字不長期佔用執行緒的緩衝
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    /**
+     * 簡體轉繁體。先以位元集掃描一次，沒有任何可轉換字元時不寫入 out，也不配置任何物件；
+     * 字典樹引擎只轉換可轉換字元開頭的區段，其餘區段整段複製。
+     *
+     * @param input 原始文字
+     * @param out   輸出緩衝
+     * @return true 表示已將結果寫入 out
+     */
+    @Override
+    public boolean toTraditional(CharSequence input, StringBuilder out) {
+        if (input == null || input.length() == 0) {
+            return false;
+        }
+        conversions.incrementAndGet();
+        if (trie == null) {
+            out.append(ZhConverterUtil.toTraditional(input.toString()));
+            return true;
+        }
+        long start = System.nanoTime();
+        int first = trie.indexOfConvertible(input, 0, input.length());
+        if (first < 0) {
+            skipped.incrementAndGet();
+            skippedChars.addAndGet(input.length());
+            skipScanNanos.addAndGet(System.nanoTime() - start);
+            return false;
+        }
+        int outStart = out.length();
+        if (activeEngine == ConverterEngine.TRIE) {
+            out.append(input, 0, first);
+            trie.convert(input, first, input.length(), out);
+        } else {
+            out.append(ZhConverterUtil.toTraditional(input.toString()));
+        }
+        convertedChars.addAndGet(input.length());
+        convertNanos.addAndGet(System.nanoTime() - start);
+        if (activeEngine == ConverterEngine.TRIE) {
+            verify(input, out, outStart);
+        }
+        return true;
+    }
+
+    @Override
+    public char toSimplified(char c) {
+        if (simplifiedChars == null) {
+            return c;
+        }
+        char mapped = simplifiedChars[c];
+        return mapped == 0 ? c : mapped;
+    }
+
+    @Override
+    public ConverterEngine getActiveEngine() {
+        return activeEngine;
+    }
+
+    @Override
+    public long getConversions() {
+        return conversions.get();
+    }
+
+    @Override
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * 以實際轉換的平均每字元耗時，估算略過的文字省下的時間，再扣除略過前的掃描時間。
+     *
+     * @return 估算省下的毫秒數
+     */
+    @Override
+    public long getTimeSavedMs() {
+        long chars = convertedChars.get();
+        if (chars == 0) {
+            return 0L;
+        }
+        double nanosPerChar = (double) convertNanos.get() / chars;
+        long savedNanos = (long) (skippedChars.get() * nanosPerChar) - skipScanNanos.get();
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(savedNanos));
+    }
+
+    @Override
+    public long getVerified() {
+        return verified.get();
+    }
+
+    @Override
+    public long getMismatches() {
+        return mismatches.get();
+    }
+
+    /**
+     * 抽樣以 opencc4j 重新轉換，不一致時以 opencc4j 的結果取代 out 中 outStart 之後的內容。
+     */
+    private void verify(CharSequence input, StringBuilder out, int outStart) {
+        double sampleRate = textConfig.getVerifySampleRate();
+        if (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        verified.incrementAndGet();
+        String expected = ZhConverterUtil.toTraditional(input.toString());
+        CharSequence converted = out.subSequence(outStart, out.length());
+        if (!expected.contentEquals(converted)) {
+            mismatches.incrementAndGet();
+            // 只記錄長度、雜湊與第一個差異位置，不把貼文內容寫進日誌
+            String trieResult = converted.toString();
+            log.warn("簡轉繁結果與 opencc4j 不一致，改用 opencc4j 結果 inputLength={} inputHash={} firstDiff={} trieLength={} trieHash={} openccLength={} openccHash={}",
+                    input.length(), Integer.toHexString(input.toString().hashCode()), firstDifference(trieResult, expected),
+                    trieResult.length(), Integer.toHexString(trieResult.hashCode()),
+                    expected.length(), Integer.toHexString(expected.hashCode()));
+            out.setLength(outStart);
+            out.append(expected);
+        }
+    }
+
+    private static int firstDifference(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    private ConversionTrie loadTrie() {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try {
+            readDictionary(textConfig.getStCharactersResource(), entries);
+            readDictionary(textConfig.getStPhrasesResource(), entries);
+        } catch (IOException e) {
+            log.warn("讀取簡轉繁詞典失敗，改用 opencc4j 轉換且不略過任何文字", e);
+            return null;
+        }
+        ConversionTrie loaded = ConversionTrie.build(entries);
+        log.info("簡轉繁字典樹載入完成，詞條 {} 筆", loaded.size());
+        return loaded;
+    }
+
+    /**
+     * 讀取繁轉簡單字表，只保留一對一的對照。
+     */
+    private char[] loadSimplifiedChars() {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try {
+            readDictionary(textConfig.getTsCharactersResource(), entries);
+        } catch (IOException e) {
+            log.warn("讀取繁轉簡單字表失敗，比對時不折疊繁簡字形", e);
+            return null;
+        }
+        char[] table = new char[Character.MAX_VALUE + 1];
+        entries.forEach((key, value) -> {
+            if (key.length() == 1 && value.length() == 1) {
+                table[key.charAt(0)] = value.charAt(0);
+            }
+        });
+        return table;
+    }
+
+    /**
+     * 讀取 OpenCC 格式的詞典：每行「原文\t候選1 候選2 ...」，取第一個候選。
+     */
+    private void readDictionary(String resource, Map<String, String> entries) throws IOException {
+        InputStream stream = ChineseConvertServiceImpl.class.getClassLoader().getResourceAsStream(resource);
+        if (stream == null) {
+            throw new IOException("找不到詞典 " + resource);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0) {
+                    continue;
+                }
+                String candidates = line.substring(tab + 1).trim();
+                int space = candidates.indexOf(' ');
+                String value = space < 0 ? candidates : candidates.substring(0, space);
+                if (!value.isEmpty()) {
+                    entries.put(line.substring(0, tab), value);
+                }
+            }
+        }
+    }
+}
@@ -2,11 +2,16 @@ package io.github.yienruuuuu.service.business.impl;
 
 import io.github.yienruuuuu.bean.entity.ForwardPost;
 import io.github.yienruuuuu.bean.entity.ForwardPostMedia;
+import io.github.yienruuuuu.bean.entity.OutboxMessage;
+import io.github.yienruuuuu.bean.entity.ProcessedUpdate;
 import io.github.yienruuuuu.repository.ForwardPostMediaRepository;
 import io.github.yienruuuuu.repository.ForwardPostRepository;
 import io.github.yienruuuuu.service.business.ForwardPostService;
+import io.github.yienruuuuu.service.business.OutboxService;
+import io.github.yienruuuuu.service.business.ProcessedUpdateService;
 import io.github.yienruuuuu.service.business.model.ForwardPostMediaItem;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -20,16 +25,27 @@ import java.util.UUID;
 public class ForwardPostServiceImpl implements ForwardPostService {
     private final ForwardPostRepository forwardPostRepository;
     private final ForwardPostMediaRepository forwardPostMediaRepository;
+    private final OutboxService outboxService;
+    private final ProcessedUpdateService processedUpdateService;
 
     /**
      * 建立貼文服務。
      *
      * @param forwardPostRepository 貼文資料存取物件
      * @param forwardPostMediaRepository 媒體資料存取物件
+     * @param outboxService 發送匣服務
+     * @param processedUpdateService 已處理記錄服務
      */
-    public ForwardPostServiceImpl(ForwardPostRepository forwardPostRepository, ForwardPostMediaRepository forwardPostMediaRepository) {
+    public ForwardPostServiceImpl(
+            ForwardPostRepository forwardPostRepository,
+            ForwardPostMediaRepository forwardPostMediaRepository,
+            OutboxService outboxService,
+            ProcessedUpdateService processedUpdateService
+    ) {
         this.forwardPostRepository = forwardPostRepository;
         this.forwardPostMediaRepository = forwardPostMediaRepository;
+        this.outboxService = outboxService;
+        this.processedUpdateService = processedUpdateService;
     }
 
     /**
@@ -48,9 +64,12 @@ public class ForwardPostServiceImpl implements ForwardPostService {
      * @param processedText 處理後文字
      * @param outputText 最終輸出文字
      * @param mediaItems 媒體項目
+     * @param outboxMessages 待發送記錄，與貼文在同一個交易內寫入
+     * @param processedUpdates 來源更新的已處理記錄，與貼文在同一個交易內寫入，重播時據此略過
      * @return 建立完成的貼文
      */
     @Override
+    @Transactional
     public ForwardPost createPost(
             String serial,
             String sourceChatId,
@@ -64,7 +83,9 @@ public class ForwardPostServiceImpl implements ForwardPostService {
             String originalText,
             String processedText,
             String outputText,
-            List<ForwardPostMediaItem> mediaItems
+            List<ForwardPostMediaItem> mediaItems,
+            List<OutboxMessage> outboxMessages,
+            List<ProcessedUpdate> processedUpdates
     ) {
         ForwardPost post = new ForwardPost();
         post.setId(UUID.randomUUID().toString());
@@ -93,6 +114,15 @@ public class ForwardPostServiceImpl implements ForwardPostService {
                 forwardPostMediaRepository.save(media);
             }
         }
+        if (outboxMessages != null && !outboxMessages.isEmpty()) {
+            for (OutboxMessage outboxMessage : outboxMessages) {
+                outboxMessage.setPostId(post.getId());
+            }
+            outboxService.saveAll(outboxMessages);
+        }
+        if (processedUpdates != null && !processedUpdates.isEmpty()) {
+            processedUpdateService.saveAll(processedUpdates);
+        }
         return post;
     }
 
@@ -135,13 +165,4 @@ public class ForwardPostServiceImpl implements ForwardPostService {
         }
         return forwardPostMediaRepository.existsByFileId(fileId);
     }
-
-    @Override
-    public String findLatestSerialByPrefix(String serialPrefix) {
-        if (serialPrefix == null || serialPrefix.isBlank()) {
-            return null;
-        }
-        ForwardPost post = forwardPostRepository.findTopBySerialStartingWithOrderBySerialDesc(serialPrefix);
-        return post == null ? null : post.getSerial();
-    }
 }
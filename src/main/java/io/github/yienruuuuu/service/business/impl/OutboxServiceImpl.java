@@ -0,0 +1,168 @@
+package io.github.yienruuuuu.service.business.impl;
+
+import io.github.yienruuuuu.bean.entity.OutboxMessage;
+import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.bean.enums.OutboxStatus;
+import io.github.yienruuuuu.repository.OutboxMessageRepository;
+import io.github.yienruuuuu.service.business.OutboxService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Service
+public class OutboxServiceImpl implements OutboxService {
+    private static final String LEASE_EXPIRED_REASON = "發送租約逾期，無法確認是否已送達";
+    private final OutboxMessageRepository outboxMessageRepository;
+
+    public OutboxServiceImpl(OutboxMessageRepository outboxMessageRepository) {
+        this.outboxMessageRepository = outboxMessageRepository;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void saveAll(List<OutboxMessage> messages) {
+        Instant now = Instant.now();
+        for (OutboxMessage message : messages) {
+            message.setStatus(OutboxStatus.PENDING);
+            message.setAttempts(0);
+            message.setNextAttemptAt(now);
+        }
+        outboxMessageRepository.saveAll(messages);
+    }
+
+    /**
+     * 先把租約逾期的發送中記錄改為結果不明，再以 FOR UPDATE SKIP LOCKED 鎖定一批記錄改為發送中並寫入租約，
+     * 交易提交後即釋放列鎖，其他發送端靠狀態判斷不重複取件，也不會取到同一 chat 的下一筆。
+     *
+     * @param limit 批次大小
+     * @param lease 發送租約時間
+     * @return 取得的記錄
+     */
+    @Override
+    @Transactional
+    public List<OutboxMessage> claimBatch(int limit, Duration lease) {
+        Instant now = Instant.now();
+        outboxMessageRepository.markExpiredLeasesUncertain(now, LEASE_EXPIRED_REASON);
+        return markSending(outboxMessageRepository.lockNextBatch(limit, now), now, lease);
+    }
+
+    @Override
+    @Transactional
+    public List<OutboxMessage> claimBatch(int limit, Duration lease, Collection<BotType> botTypes) {
+        List<String> types = botTypes.stream().map(BotType::name).collect(Collectors.toList());
+        Instant now = Instant.now();
+        outboxMessageRepository.markExpiredLeasesUncertainForBotTypes(now, LEASE_EXPIRED_REASON, types);
+        return markSending(outboxMessageRepository.lockNextBatchForBotTypes(limit, now, types), now, lease);
+    }
+
+    private List<OutboxMessage> markSending(List<OutboxMessage> batch, Instant now, Duration lease) {
+        Instant lockedUntil = now.plus(lease);
+        for (OutboxMessage message : batch) {
+            message.setStatus(OutboxStatus.SENDING);
+            message.setAttempts(message.getAttempts() + 1);
+            message.setLockedUntil(lockedUntil);
+        }
+        return outboxMessageRepository.saveAll(batch);
+    }
+
+    @Override
+    @Transactional
+    public int renewLeases(Collection<Long> ids, Duration lease) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        return outboxMessageRepository.extendLeases(ids, now.plus(lease), now);
+    }
+
+    /**
+     * 標記記錄已送達。租約逾期後已改為結果不明的記錄，同一 chat 的下一筆可能已經送出，
+     * 狀態維持 UNCERTAIN 交由人工確認，只補上實際送達的訊息 ID 與時間作為依據。
+     */
+    @Override
+    @Transactional
+    public void markSent(Long id, List<Integer> messageIds) {
+        outboxMessageRepository.findById(id).ifPresent(message -> {
+            message.setSentAt(Instant.now());
+            message.setTelegramMessageIds(messageIds == null ? null : messageIds.stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(",")));
+            if (message.getStatus() != OutboxStatus.SENDING) {
+                return;
+            }
+            message.setStatus(OutboxStatus.SENT);
+            message.setLockedUntil(null);
+            message.setLastError(null);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void markFailed(Long id, String error, Instant nextAttemptAt) {
+        outboxMessageRepository.findById(id).filter(OutboxServiceImpl::isSending).ifPresent(message -> {
+            message.setLockedUntil(null);
+            message.setLastError(error);
+            if (nextAttemptAt == null) {
+                message.setStatus(OutboxStatus.FAILED);
+                return;
+            }
+            message.setStatus(OutboxStatus.PENDING);
+            message.setNextAttemptAt(nextAttemptAt);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void markUncertain(Long id, String error) {
+        outboxMessageRepository.findById(id).filter(OutboxServiceImpl::isSending).ifPresent(message -> {
+            message.setStatus(OutboxStatus.UNCERTAIN);
+            message.setLockedUntil(null);
+            message.setLastError(error);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void postpone(Long id, Instant nextAttemptAt) {
+        outboxMessageRepository.findById(id).filter(OutboxServiceImpl::isSending).ifPresent(message -> {
+            message.setStatus(OutboxStatus.PENDING);
+            message.setAttempts(Math.max(0, message.getAttempts() - 1));
+            message.setLockedUntil(null);
+            message.setNextAttemptAt(nextAttemptAt);
+        });
+    }
+
+    @Override
+    public long countPending() {
+        return outboxMessageRepository.countByStatus(OutboxStatus.PENDING)
+                + outboxMessageRepository.countByStatus(OutboxStatus.SENDING);
+    }
+
+    @Override
+    public long countUncertain() {
+        return outboxMessageRepository.countByStatus(OutboxStatus.UNCERTAIN);
+    }
+
+    @Override
+    @Transactional
+    public int deleteSentBefore(Instant before) {
+        return outboxMessageRepository.deleteByStatusAndUpdatedAtBefore(OutboxStatus.SENT, before);
+    }
+
+    /**
+     * 發送結果只回寫到仍在發送中的記錄，租約逾期後已改為結果不明的記錄不會被改回待發送。
+     */
+    private static boolean isSending(OutboxMessage message) {
+        return message.getStatus() == OutboxStatus.SENDING;
+    }
+}
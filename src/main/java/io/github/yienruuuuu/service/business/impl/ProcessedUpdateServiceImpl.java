@@ -0,0 +1,57 @@
+package io.github.yienruuuuu.service.business.impl;
+
+import io.github.yienruuuuu.bean.entity.ProcessedUpdate;
+import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.repository.ProcessedUpdateRepository;
+import io.github.yienruuuuu.service.business.ProcessedUpdateService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Service
+public class ProcessedUpdateServiceImpl implements ProcessedUpdateService {
+    private final ProcessedUpdateRepository processedUpdateRepository;
+
+    public ProcessedUpdateServiceImpl(ProcessedUpdateRepository processedUpdateRepository) {
+        this.processedUpdateRepository = processedUpdateRepository;
+    }
+
+    /**
+     * 批次寫入已處理記錄，已存在的 update_id 直接略過。
+     *
+     * @param records 已處理記錄
+     */
+    @Override
+    @Transactional
+    public void saveAll(List<ProcessedUpdate> records) {
+        // 時間由應用端帶入，與其他欄位一樣經 hibernate.jdbc.time_zone 轉換，清理時的比較才一致
+        Instant now = Instant.now();
+        for (ProcessedUpdate record : records) {
+            processedUpdateRepository.insertIfAbsent(
+                    record.getBotType().name(),
+                    record.getUpdateId(),
+                    record.getSourceChatId(),
+                    record.getSourceMessageId(),
+                    now
+            );
+        }
+    }
+
+    @Override
+    public List<ProcessedUpdate> findRecent(BotType botType, int limit) {
+        return processedUpdateRepository.findByBotTypeOrderByIdDesc(botType, PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Transactional
+    public int deleteBefore(Instant before) {
+        return processedUpdateRepository.deleteByCreatedAtBefore(before);
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.yienruuuuu.service.business.impl;
+
+import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.repository.SerialCounterRepository;
+import io.github.yienruuuuu.service.business.SerialCounterService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+/**
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+@Service
+public class SerialCounterServiceImpl implements SerialCounterService {
+    private final SerialCounterRepository serialCounterRepository;
+
+    public SerialCounterServiceImpl(SerialCounterRepository serialCounterRepository) {
+        this.serialCounterRepository = serialCounterRepository;
+    }
+
+    /**
+     * 以獨立交易預留序號，避免呼叫端交易持有計數器列鎖；呼叫端回滾時區段直接作廢，只會留下跳號。
+     *
+     * @param pipeline   序號所屬流程
+     * @param serialDate 序號日期
+     * @param blockSize  預留數量
+     * @return 預留區段的最後一個序號
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long reserveBlock(BotType pipeline, LocalDate serialDate, int blockSize) {
+        return serialCounterRepository.advance(pipeline.name(), serialDate, Math.max(1, blockSize));
+    }
+}
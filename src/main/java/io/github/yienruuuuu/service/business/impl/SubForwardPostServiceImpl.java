@@ -1,12 +1,17 @@
 package io.github.yienruuuuu.service.business.impl;
 
+import io.github.yienruuuuu.bean.entity.OutboxMessage;
+import io.github.yienruuuuu.bean.entity.ProcessedUpdate;
 import io.github.yienruuuuu.bean.entity.SubForwardPost;
 import io.github.yienruuuuu.bean.entity.SubForwardPostMedia;
 import io.github.yienruuuuu.repository.SubForwardPostMediaRepository;
 import io.github.yienruuuuu.repository.SubForwardPostRepository;
+import io.github.yienruuuuu.service.business.OutboxService;
+import io.github.yienruuuuu.service.business.ProcessedUpdateService;
 import io.github.yienruuuuu.service.business.SubForwardPostService;
 import io.github.yienruuuuu.service.business.model.ForwardPostMediaItem;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -20,16 +25,23 @@ import java.util.UUID;
 public class SubForwardPostServiceImpl implements SubForwardPostService {
     private final SubForwardPostRepository subForwardPostRepository;
     private final SubForwardPostMediaRepository subForwardPostMediaRepository;
+    private final OutboxService outboxService;
+    private final ProcessedUpdateService processedUpdateService;
 
     public SubForwardPostServiceImpl(
             SubForwardPostRepository subForwardPostRepository,
-            SubForwardPostMediaRepository subForwardPostMediaRepository
+            SubForwardPostMediaRepository subForwardPostMediaRepository,
+            OutboxService outboxService,
+            ProcessedUpdateService processedUpdateService
     ) {
         this.subForwardPostRepository = subForwardPostRepository;
         this.subForwardPostMediaRepository = subForwardPostMediaRepository;
+        this.outboxService = outboxService;
+        this.processedUpdateService = processedUpdateService;
     }
 
     @Override
+    @Transactional
     public SubForwardPost createPost(
             String serial,
             String sourceChatId,
@@ -43,7 +55,9 @@ public class SubForwardPostServiceImpl implements SubForwardPostService {
             String originalText,
             String processedText,
             String outputText,
-            List<ForwardPostMediaItem> mediaItems
+            List<ForwardPostMediaItem> mediaItems,
+            List<OutboxMessage> outboxMessages,
+            List<ProcessedUpdate> processedUpdates
     ) {
         SubForwardPost post = new SubForwardPost();
         post.setId(UUID.randomUUID().toString());
@@ -72,6 +86,15 @@ public class SubForwardPostServiceImpl implements SubForwardPostService {
                 subForwardPostMediaRepository.save(media);
             }
         }
+        if (outboxMessages != null && !outboxMessages.isEmpty()) {
+            for (OutboxMessage outboxMessage : outboxMessages) {
+                outboxMessage.setPostId(post.getId());
+            }
+            outboxService.saveAll(outboxMessages);
+        }
+        if (processedUpdates != null && !processedUpdates.isEmpty()) {
+            processedUpdateService.saveAll(processedUpdates);
+        }
         return post;
     }
 
@@ -97,13 +120,4 @@ public class SubForwardPostServiceImpl implements SubForwardPostService {
         }
         return subForwardPostMediaRepository.existsByFileId(fileId);
     }
-
-    @Override
-    public String findLatestSerialByPrefix(String serialPrefix) {
-        if (serialPrefix == null || serialPrefix.isBlank()) {
-            return null;
-        }
-        SubForwardPost post = subForwardPostRepository.findTopBySerialStartingWithOrderBySerialDesc(serialPrefix);
-        return post == null ? null : post.getSerial();
-    }
 }
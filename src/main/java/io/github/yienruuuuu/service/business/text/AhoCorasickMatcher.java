@@ -0,0 +1,243 @@
+package io.github.yienruuuuu.service.business.text;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho–Corasick 多字串比對器：建好後不可變，可在多執行緒間共用。
+ * <p>
+ * 字串依建立時的順序編號（空白字串會被略過，重複的字串保留各自的編號），比對以 UTF-16 char 為單位，與 {@link String#replace} 一致。
+ * 每個節點的轉移以排序後的字元陣列保存並以二分搜尋查找，數千個字串也只佔用少量記憶體。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public final class AhoCorasickMatcher {
+    private static final int ROOT = 0;
+    private static final int[] NO_SPANS = new int[0];
+    private final String[] patterns;
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    //節點本身對應的字串編號（遞增排列），null 表示不是字串結尾
+    private final int[][] output;
+    //沿失敗鏈往上第一個有輸出的節點，-1 表示沒有
+    private final int[] dictLink;
+
+    private AhoCorasickMatcher(String[] patterns, char[][] edgeChars, int[][] edgeTargets, int[] fail, int[][] output, int[] dictLink) {
+        this.patterns = patterns;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.output = output;
+        this.dictLink = dictLink;
+    }
+
+    /**
+     * 建立比對器。
+     *
+     * @param terms 字串，依優先順序排列
+     * @return 比對器
+     */
+    public static AhoCorasickMatcher build(List<String> terms) {
+        List<String> accepted = new ArrayList<>();
+        for (String term : terms) {
+            if (term != null && !term.isBlank()) {
+                accepted.add(term);
+            }
+        }
+        String[] patterns = accepted.toArray(new String[0]);
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<List<Integer>> outputs = new ArrayList<>();
+        children.add(new TreeMap<>());
+        outputs.add(null);
+        for (int index = 0; index < patterns.length; index++) {
+            int state = ROOT;
+            for (char c : patterns[index].toCharArray()) {
+                Integer next = children.get(state).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    outputs.add(null);
+                    children.get(state).put(c, next);
+                }
+                state = next;
+            }
+            if (outputs.get(state) == null) {
+                outputs.set(state, new ArrayList<>());
+            }
+            outputs.get(state).add(index);
+        }
+        int size = children.size();
+        char[][] edgeChars = new char[size][];
+        int[][] edgeTargets = new int[size][];
+        int[][] output = new int[size][];
+        for (int state = 0; state < size; state++) {
+            Map<Character, Integer> edges = children.get(state);
+            edgeChars[state] = new char[edges.size()];
+            edgeTargets[state] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[state][i] = edge.getKey();
+                edgeTargets[state][i] = edge.getValue();
+                i++;
+            }
+            List<Integer> indexes = outputs.get(state);
+            output[state] = indexes == null ? null : indexes.stream().mapToInt(Integer::intValue).toArray();
+        }
+        int[] fail = new int[size];
+        int[] dictLink = new int[size];
+        Arrays.fill(dictLink, -1);
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[ROOT]) {
+            fail[child] = ROOT;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < edgeChars[state].length; i++) {
+                char c = edgeChars[state][i];
+                int child = edgeTargets[state][i];
+                int f = fail[state];
+                while (f != ROOT && findEdge(edgeChars, edgeTargets, f, c) < 0) {
+                    f = fail[f];
+                }
+                int target = findEdge(edgeChars, edgeTargets, f, c);
+                fail[child] = target < 0 || target == child ? ROOT : target;
+                int failState = fail[child];
+                dictLink[child] = output[failState] != null ? failState : dictLink[failState];
+                queue.add(child);
+            }
+        }
+        return new AhoCorasickMatcher(patterns, edgeChars, edgeTargets, fail, output, dictLink);
+    }
+
+    /**
+     * 掃描一次文字，找出出現在文字中、編號大於 afterIndex 的最小字串編號。
+     *
+     * @param text       文字
+     * @param afterIndex 只考慮編號大於此值的字串，-1 表示全部
+     * @return 字串編號，沒有符合時回傳 -1
+     */
+    public int firstMatch(CharSequence text, int afterIndex) {
+        int best = -1;
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, text.charAt(i));
+            int candidate = output[state] != null ? state : dictLink[state];
+            while (candidate >= 0) {
+                int index = firstAfter(output[candidate], afterIndex);
+                if (index >= 0 && (best < 0 || index < best)) {
+                    best = index;
+                    if (best == afterIndex + 1) {
+                        return best;
+                    }
+                }
+                candidate = dictLink[candidate];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 掃描一次文字，找出所有字串出現的區段，重疊或相鄰的區段合併。
+     *
+     * @param text 文字
+     * @return 依序排列的區段，每兩個值為一組 [start, end)；沒有符合時回傳空陣列
+     */
+    public int[] matchSpans(CharSequence text) {
+        int[] spans = NO_SPANS;
+        int count = 0;
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, text.charAt(i));
+            // 節點本身的字串最長，沿 dictLink 往上只會更短，起點取本身即可涵蓋
+            int candidate = output[state] != null ? state : dictLink[state];
+            if (candidate < 0) {
+                continue;
+            }
+            int start = i + 1 - patterns[output[candidate][0]].length();
+            // 較長的字串可能從前面區段之前開始，一路往回合併
+            while (count > 0 && start <= spans[count - 1]) {
+                start = Math.min(start, spans[count - 2]);
+                count -= 2;
+            }
+            if (count == spans.length) {
+                spans = Arrays.copyOf(spans, Math.max(8, count * 2));
+            }
+            spans[count++] = start;
+            spans[count++] = i + 1;
+        }
+        return count == spans.length ? spans : Arrays.copyOf(spans, count);
+    }
+
+    /**
+     * 判斷文字中是否出現任一字串。
+     *
+     * @param text 文字
+     * @return true 表示至少出現一個
+     */
+    public boolean containsAny(CharSequence text) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, text.charAt(i));
+            if (output[state] != null || dictLink[state] >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 取得指定編號的字串。
+     *
+     * @param index 字串編號
+     * @return 字串
+     */
+    public String getPattern(int index) {
+        return patterns[index];
+    }
+
+    /**
+     * 取得字串數（不含空白字串）。
+     *
+     * @return 字串數
+     */
+    public int size() {
+        return patterns.length;
+    }
+
+    private int step(int state, char c) {
+        while (true) {
+            int next = findEdge(edgeChars, edgeTargets, state, c);
+            if (next >= 0) {
+                return next;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = fail[state];
+        }
+    }
+
+    /**
+     * 在遞增排列的編號中找出第一個大於 afterIndex 的值，沒有時回傳 -1。
+     */
+    private static int firstAfter(int[] indexes, int afterIndex) {
+        int position = Arrays.binarySearch(indexes, afterIndex + 1);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        return position < indexes.length ? indexes[position] : -1;
+    }
+
+    private static int findEdge(char[][] edgeChars, int[][] edgeTargets, int state, char c) {
+        int index = Arrays.binarySearch(edgeChars[state], c);
+        return index < 0 ? -1 : edgeTargets[state][index];
+    }
+}
@@ -0,0 +1,195 @@
+package io.github.yienruuuuu.service.business.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 詞組轉換用的字典樹：建好後不可變，可在多執行緒間共用。
+ * <p>
+ * 所有節點的轉移攤平成連續的 char / int 陣列，每個節點只記錄自己在陣列中的區段並以二分搜尋查找；
+ * 根節點另外以 65536 長度的陣列直接索引，第一個字元不需搜尋。轉換時從每個位置做最長匹配，
+ * 沒有詞條的字元原樣輸出，結果直接寫入呼叫端提供的 StringBuilder。
+ * 另以 8 KB 的位元集記錄「是某個詞條開頭」的字元，用於快速判斷整段文字是否需要轉換，以及整段複製不需轉換的區段。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public final class ConversionTrie {
+    private static final int ROOT = 0;
+    private final int[] rootTargets;
+    private final long[] convertible;
+    private final int[] edgeStart;
+    private final int[] edgeEnd;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final String[] values;
+    private final int entryCount;
+
+    private ConversionTrie(int[] rootTargets, int[] edgeStart, int[] edgeEnd, char[] edgeChars, int[] edgeTargets, String[] values, int entryCount) {
+        this.rootTargets = rootTargets;
+        this.convertible = new long[(Character.MAX_VALUE + 1) >>> 6];
+        for (int c = 0; c < rootTargets.length; c++) {
+            if (rootTargets[c] != ROOT) {
+                convertible[c >>> 6] |= 1L << c;
+            }
+        }
+        this.edgeStart = edgeStart;
+        this.edgeEnd = edgeEnd;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.values = values;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * 建立字典樹；同一個鍵出現多次時以後加入的為準。
+     *
+     * @param entries 原文對應轉換結果
+     * @return 字典樹
+     */
+    public static ConversionTrie build(Map<String, String> entries) {
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<String> nodeValues = new ArrayList<>();
+        children.add(new TreeMap<>());
+        nodeValues.add(null);
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            String key = entry.getKey();
+            if (key == null || key.isEmpty() || entry.getValue() == null) {
+                continue;
+            }
+            int state = ROOT;
+            for (int i = 0; i < key.length(); i++) {
+                Integer next = children.get(state).get(key.charAt(i));
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    nodeValues.add(null);
+                    children.get(state).put(key.charAt(i), next);
+                }
+                state = next;
+            }
+            nodeValues.set(state, entry.getValue());
+        }
+        int size = children.size();
+        int[] edgeStart = new int[size];
+        int[] edgeEnd = new int[size];
+        int edgeCount = 0;
+        for (TreeMap<Character, Integer> edges : children) {
+            edgeCount += edges.size();
+        }
+        char[] edgeChars = new char[edgeCount];
+        int[] edgeTargets = new int[edgeCount];
+        int[] rootTargets = new int[Character.MAX_VALUE + 1];
+        int offset = 0;
+        for (int state = 0; state < size; state++) {
+            edgeStart[state] = offset;
+            for (Map.Entry<Character, Integer> edge : children.get(state).entrySet()) {
+                edgeChars[offset] = edge.getKey();
+                edgeTargets[offset] = edge.getValue();
+                offset++;
+            }
+            edgeEnd[state] = offset;
+        }
+        children.get(ROOT).forEach((c, target) -> rootTargets[c] = target);
+        return new ConversionTrie(rootTargets, edgeStart, edgeEnd, edgeChars, edgeTargets,
+                nodeValues.toArray(new String[0]), entries.size());
+    }
+
+    /**
+     * 轉換 [start, end) 區段並附加到 out。
+     *
+     * @param input 原文
+     * @param start 起始位置（含）
+     * @param end   結束位置（不含）
+     * @param out   輸出緩衝
+     */
+    public void convert(CharSequence input, int start, int end, StringBuilder out) {
+        int i = start;
+        while (i < end) {
+            char c = input.charAt(i);
+            int state = rootTargets[c];
+            if (state == ROOT) {
+                int next = indexOfConvertible(input, i + 1, end);
+                int copyEnd = next < 0 ? end : next;
+                out.append(input, i, copyEnd);
+                i = copyEnd;
+                continue;
+            }
+            int matchState = values[state] != null ? state : -1;
+            int matchEnd = i + 1;
+            for (int j = i + 1; j < end; j++) {
+                state = child(state, input.charAt(j));
+                if (state < 0) {
+                    break;
+                }
+                if (values[state] != null) {
+                    matchState = state;
+                    matchEnd = j + 1;
+                }
+            }
+            if (matchState < 0) {
+                out.append(c);
+                i++;
+            } else {
+                out.append(values[matchState]);
+                i = matchEnd;
+            }
+        }
+    }
+
+    /**
+     * 判斷字元是否為某個詞條的開頭。
+     *
+     * @param c 字元
+     * @return true 表示可能需要轉換
+     */
+    public boolean startsEntry(char c) {
+        return (convertible[c >>> 6] & (1L << c)) != 0;
+    }
+
+    /**
+     * 找出 [start, end) 中第一個可能需要轉換的位置。
+     *
+     * @param input 原文
+     * @param start 起始位置（含）
+     * @param end   結束位置（不含）
+     * @return 位置，整段都不需轉換時回傳 -1
+     */
+    public int indexOfConvertible(CharSequence input, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if ((convertible[c >>> 6] & (1L << c)) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 取得詞條數。
+     *
+     * @return 詞條數
+     */
+    public int size() {
+        return entryCount;
+    }
+
+    private int child(int state, char c) {
+        int low = edgeStart[state];
+        int high = edgeEnd[state] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = edgeChars[mid];
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.yienruuuuu.service.business.text;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * 比對用的文字正規化：NFKC（含全形轉半形與相容字元）、轉小寫、移除零寬與格式字元、異體選擇符，
+ * 最後以字元對照表把繁體折成簡體，讓各種寫法都落在同一個形式。
+ * <p>
+ * BMP 字元的結果在建立時算好放進查表，比對時不再呼叫 {@link Normalizer}；只有補充平面的字元（例如數學粗體字母）才即時計算。
+ * {@link #project(CharSequence)} 另外記錄每個正規化字元來自原文的哪個區段，比對到的區段可以換算回原文移除。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+public final class TextNormalizer {
+    //查表中代表「整個移除」與「結果超過一個字元」的記號，兩者本身都是非字元碼位
+    private static final char REMOVED = '\uFFFF';
+    private static final char EXPANDED = '\uFFFE';
+    private final char[] folded;
+    private final Map<Character, String> expansions;
+    private final IntUnaryOperator charFolding;
+
+    private TextNormalizer(char[] folded, Map<Character, String> expansions, IntUnaryOperator charFolding) {
+        this.folded = folded;
+        this.expansions = expansions;
+        this.charFolding = charFolding;
+    }
+
+    /**
+     * 建立正規化器。
+     *
+     * @param charFolding 正規化後再套用的字元對照（例如繁體折成簡體），不需對照時原樣回傳
+     * @return 正規化器
+     */
+    public static TextNormalizer build(IntUnaryOperator charFolding) {
+        char[] folded = new char[Character.MAX_VALUE + 1];
+        Map<Character, String> expansions = new HashMap<>();
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (Character.isSurrogate((char) c)) {
+                folded[c] = (char) c;
+                continue;
+            }
+            if (c == REMOVED || c == EXPANDED) {
+                folded[c] = REMOVED;
+                continue;
+            }
+            String value = foldCodePoint(c, charFolding);
+            if (value.isEmpty()) {
+                folded[c] = REMOVED;
+            } else if (value.length() == 1) {
+                folded[c] = value.charAt(0);
+            } else {
+                folded[c] = EXPANDED;
+                expansions.put((char) c, value);
+            }
+        }
+        return new TextNormalizer(folded, expansions, charFolding);
+    }
+
+    /**
+     * 正規化文字，用於黑名單字串本身。
+     *
+     * @param text 文字
+     * @return 正規化後文字
+     */
+    public String normalize(CharSequence text) {
+        return project(text).getText();
+    }
+
+    /**
+     * 正規化文字並記錄每個字元在原文的來源區段。
+     *
+     * @param text 原文
+     * @return 正規化結果
+     */
+    public Projection project(CharSequence text) {
+        int length = text.length();
+        StringBuilder normalized = new StringBuilder(length);
+        int[] starts = new int[length];
+        int[] ends = new int[length];
+        int count = 0;
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            int width = 1;
+            String value = null;
+            char single = folded[c];
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                width = 2;
+                value = foldCodePoint(Character.toCodePoint(c, text.charAt(i + 1)), charFolding);
+            } else if (single == EXPANDED) {
+                value = expansions.get(c);
+            } else if (single == REMOVED) {
+                value = "";
+            }
+            int produced = value == null ? 1 : value.length();
+            if (count + produced > starts.length) {
+                int capacity = Math.max(count + produced, starts.length * 2);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+            }
+            if (value == null) {
+                normalized.append(single);
+            } else {
+                normalized.append(value);
+            }
+            for (int k = 0; k < produced; k++) {
+                starts[count] = i;
+                ends[count] = i + width;
+                count++;
+            }
+            i += width;
+        }
+        return new Projection(normalized.toString(), starts, ends);
+    }
+
+    private static String foldCodePoint(int codePoint, IntUnaryOperator charFolding) {
+        if (isIgnorable(codePoint)) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(new String(Character.toChars(codePoint)), Normalizer.Form.NFKC)
+                .toLowerCase(Locale.ROOT);
+        StringBuilder result = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); ) {
+            int cp = normalized.codePointAt(i);
+            i += Character.charCount(cp);
+            if (!isIgnorable(cp)) {
+                result.appendCodePoint(cp < Character.MIN_SUPPLEMENTARY_CODE_POINT ? charFolding.applyAsInt(cp) : cp);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * 零寬字元、方向控制等格式字元與異體選擇符，不影響顯示內容，比對時直接略過。
+     */
+    private static boolean isIgnorable(int codePoint) {
+        return Character.getType(codePoint) == Character.FORMAT
+                || (codePoint >= 0xFE00 && codePoint <= 0xFE0F)
+                || (codePoint >= 0xE0100 && codePoint <= 0xE01EF);
+    }
+
+    /**
+     * 正規化後的文字與每個字元在原文的來源區段。
+     */
+    public static final class Projection {
+        private final String text;
+        private final int[] starts;
+        private final int[] ends;
+
+        private Projection(String text, int[] starts, int[] ends) {
+            this.text = text;
+            this.starts = starts;
+            this.ends = ends;
+        }
+
+        /**
+         * 取得正規化後文字。
+         *
+         * @return 文字
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * 取得正規化後第 index 個字元在原文的起點（含）。
+         *
+         * @param index 正規化後位置
+         * @return 原文位置
+         */
+        public int originStart(int index) {
+            return starts[index];
+        }
+
+        /**
+         * 取得正規化後第 index 個字元在原文的終點（不含）。
+         *
+         * @param index 正規化後位置
+         * @return 原文位置
+         */
+        public int originEnd(int index) {
+            return ends[index];
+        }
+    }
+}
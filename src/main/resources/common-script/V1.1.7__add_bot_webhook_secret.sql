@@ -0,0 +1,4 @@
+ALTER TABLE tg_manager_bot.bot
+    ADD COLUMN IF NOT EXISTS webhook_secret VARCHAR(256);
+
+COMMENT ON COLUMN tg_manager_bot.bot.webhook_secret IS 'Webhook 驗證用 secret token';
@@ -0,0 +1,24 @@
+CREATE TABLE IF NOT EXISTS tg_manager_bot.processed_update
+(
+    id                BIGSERIAL PRIMARY KEY,
+    bot_type          VARCHAR(50) NOT NULL,
+    update_id         INTEGER NOT NULL,
+    source_chat_id    BIGINT,
+    source_message_id INTEGER,
+    created_at        TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at        TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_processed_update_bot_update
+    ON tg_manager_bot.processed_update (bot_type, update_id);
+
+CREATE INDEX IF NOT EXISTS idx_processed_update_created_at
+    ON tg_manager_bot.processed_update (created_at);
+
+COMMENT ON COLUMN tg_manager_bot.processed_update.id IS '主鍵';
+COMMENT ON COLUMN tg_manager_bot.processed_update.bot_type IS '處理更新的 Bot 類型';
+COMMENT ON COLUMN tg_manager_bot.processed_update.update_id IS 'Telegram update_id';
+COMMENT ON COLUMN tg_manager_bot.processed_update.source_chat_id IS '來源頻道 chat ID';
+COMMENT ON COLUMN tg_manager_bot.processed_update.source_message_id IS '來源訊息 ID';
+COMMENT ON COLUMN tg_manager_bot.processed_update.created_at IS '資料建立時間';
+COMMENT ON COLUMN tg_manager_bot.processed_update.updated_at IS '資料更新時間';
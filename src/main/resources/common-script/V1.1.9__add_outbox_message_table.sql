@@ -0,0 +1,45 @@
+CREATE TABLE IF NOT EXISTS tg_manager_bot.outbox_message
+(
+    id                   BIGSERIAL PRIMARY KEY,
+    bot_type             VARCHAR(50) NOT NULL,
+    post_id              VARCHAR(36),
+    method               VARCHAR(32) NOT NULL,
+    chat_id              VARCHAR(64) NOT NULL,
+    text                 TEXT,
+    media_json           TEXT,
+    reply_to_message_id  INTEGER,
+    status               VARCHAR(16) NOT NULL,
+    attempts             INTEGER DEFAULT 0 NOT NULL,
+    next_attempt_at      TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    locked_until         TIMESTAMP,
+    telegram_message_ids VARCHAR(512),
+    last_error           TEXT,
+    sent_at              TIMESTAMP,
+    created_at           TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at           TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_message_pending
+    ON tg_manager_bot.outbox_message (next_attempt_at, id)
+    WHERE status IN ('PENDING', 'SENDING');
+
+CREATE INDEX IF NOT EXISTS idx_outbox_message_post_id
+    ON tg_manager_bot.outbox_message (post_id);
+
+COMMENT ON COLUMN tg_manager_bot.outbox_message.id IS '主鍵，同時決定發送順序';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.bot_type IS '負責發送的 Bot 類型';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.post_id IS '對應的貼文 ID（forward_post 或 sub_forward_post）';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.method IS 'Telegram 方法名稱，例如 sendMessage、sendPhoto、sendMediaGroup';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.chat_id IS '目標 chat ID';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.text IS '文字內容或 caption';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.media_json IS '媒體列表 JSON（mediaType、fileId）';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.reply_to_message_id IS '回覆的訊息 ID';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.status IS '狀態：PENDING、SENDING、SENT、FAILED';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.attempts IS '已嘗試次數';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.next_attempt_at IS '下次可發送時間';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.locked_until IS '取得發送權的租約到期時間，逾期視為發送端已中斷';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.telegram_message_ids IS 'Telegram 回傳的訊息 ID，以逗號分隔';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.last_error IS '最後一次失敗原因';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.sent_at IS '送達時間';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.created_at IS '資料建立時間';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.updated_at IS '資料更新時間';
@@ -0,0 +1,53 @@
+CREATE TABLE IF NOT EXISTS tg_manager_bot.serial_counter
+(
+    id          BIGSERIAL PRIMARY KEY,
+    pipeline    VARCHAR(50) NOT NULL,
+    serial_date DATE        NOT NULL,
+    last_value  BIGINT      NOT NULL,
+    created_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT uk_serial_counter_pipeline_date UNIQUE (pipeline, serial_date)
+);
+
+COMMENT ON COLUMN tg_manager_bot.serial_counter.id IS '主鍵';
+COMMENT ON COLUMN tg_manager_bot.serial_counter.pipeline IS '序號所屬流程（Bot 類型）';
+COMMENT ON COLUMN tg_manager_bot.serial_counter.serial_date IS '序號日期';
+COMMENT ON COLUMN tg_manager_bot.serial_counter.last_value IS '已預留出去的最大序號';
+COMMENT ON COLUMN tg_manager_bot.serial_counter.created_at IS '資料建立時間';
+COMMENT ON COLUMN tg_manager_bot.serial_counter.updated_at IS '資料更新時間';
+
+-- 以既有貼文的最大序號作為計數器起點
+INSERT INTO tg_manager_bot.serial_counter (pipeline, serial_date, last_value)
+SELECT 'MAIN', TO_DATE(SPLIT_PART(serial, '_', 1), 'YYYY-MM-DD'), MAX(SPLIT_PART(serial, '_', 2)::BIGINT)
+FROM tg_manager_bot.forward_post
+WHERE serial ~ '^\d{4}-\d{2}-\d{2}_\d+$'
+GROUP BY 2
+ON CONFLICT (pipeline, serial_date) DO NOTHING;
+
+INSERT INTO tg_manager_bot.serial_counter (pipeline, serial_date, last_value)
+SELECT 'SUB', TO_DATE(SUBSTRING(serial FROM 5 FOR 10), 'YYYY-MM-DD'), MAX(SPLIT_PART(serial, '_', 2)::BIGINT)
+FROM tg_manager_bot.sub_forward_post
+WHERE serial ~ '^SUB-\d{4}-\d{2}-\d{2}_\d+$'
+GROUP BY 2
+ON CONFLICT (pipeline, serial_date) DO NOTHING;
+
+-- 既有的重複序號保留 id 最小的一筆，其餘加上 id 後綴，才能建立唯一索引
+UPDATE tg_manager_bot.forward_post p
+SET serial = LEFT(p.serial, 23) || '#' || LEFT(p.id, 8)
+WHERE EXISTS (SELECT 1
+              FROM tg_manager_bot.forward_post o
+              WHERE o.serial = p.serial
+                AND o.id < p.id);
+
+UPDATE tg_manager_bot.sub_forward_post p
+SET serial = LEFT(p.serial, 23) || '#' || LEFT(p.id, 8)
+WHERE EXISTS (SELECT 1
+              FROM tg_manager_bot.sub_forward_post o
+              WHERE o.serial = p.serial
+                AND o.id < p.id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_forward_post_serial
+    ON tg_manager_bot.forward_post (serial);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_sub_forward_post_serial
+    ON tg_manager_bot.sub_forward_post (serial);
@@ -0,0 +1,17 @@
+CREATE TABLE IF NOT EXISTS tg_manager_bot.bot_node_lease
+(
+    node_id    VARCHAR(64) PRIMARY KEY,
+    host       VARCHAR(255),
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_bot_node_lease_expires_at
+    ON tg_manager_bot.bot_node_lease (expires_at);
+
+COMMENT ON COLUMN tg_manager_bot.bot_node_lease.node_id IS '節點 ID，啟動時產生';
+COMMENT ON COLUMN tg_manager_bot.bot_node_lease.host IS '節點主機名稱，僅供查閱';
+COMMENT ON COLUMN tg_manager_bot.bot_node_lease.expires_at IS '租約到期時間，逾期視為節點已離開';
+COMMENT ON COLUMN tg_manager_bot.bot_node_lease.created_at IS '資料建立時間';
+COMMENT ON COLUMN tg_manager_bot.bot_node_lease.updated_at IS '資料更新時間';
@@ -0,0 +1,7 @@
+-- 取件時依 Bot 與 chat 檢查是否有更早的未完成記錄
+CREATE INDEX IF NOT EXISTS idx_outbox_message_chat_unfinished
+    ON tg_manager_bot.outbox_message (bot_type, chat_id, id)
+    WHERE status IN ('PENDING', 'SENDING');
+
+COMMENT ON COLUMN tg_manager_bot.outbox_message.status IS '狀態：PENDING、SENDING、SENT、FAILED、UNCERTAIN（結果不明，待人工確認）';
+COMMENT ON COLUMN tg_manager_bot.outbox_message.locked_until IS '取得發送權的租約到期時間，逾期視為發送端已中斷，記錄改為 UNCERTAIN';
@@ -0,0 +1,148 @@
+package io.github.yienruuuuu.service.application.telegram.mediagroup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.yienruuuuu.bean.enums.BotType;
+import io.github.yienruuuuu.config.MediaGroupConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 相簿被長輪詢切成兩批時，批次邊界不能單獨觸發送出。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+class MediaGroupAssemblerTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final String MEDIA_GROUP_ID = "album-1";
+    private static final long CHAT_ID = -1001234567890L;
+    //靜默時間設得很長，測試期間的送出只可能來自批次邊界
+    private static final long QUIET_PERIOD_MS = 10_000L;
+    private static final long BOUNDARY_GRACE_MS = 300L;
+    private final List<List<MediaGroupItem>> published = new CopyOnWriteArrayList<>();
+    private MediaGroupAssembler assembler;
+
+    @BeforeEach
+    void setUp() {
+        MediaGroupConfig config = new MediaGroupConfig();
+        ReflectionTestUtils.setField(config, "flushDelayMs", QUIET_PERIOD_MS);
+        ReflectionTestUtils.setField(config, "maxItems", 10);
+        ReflectionTestUtils.setField(config, "boundaryGraceMs", BOUNDARY_GRACE_MS);
+        ReflectionTestUtils.setField(config, "minQuietMs", 300L);
+        ReflectionTestUtils.setField(config, "quietMultiplier", 2.0);
+        ReflectionTestUtils.setField(config, "minSamples", 20);
+        ReflectionTestUtils.setField(config, "tickMs", 10L);
+        ReflectionTestUtils.setField(config, "wheelSize", 64);
+        ReflectionTestUtils.setField(config, "maxOpenGroups", 500);
+        ReflectionTestUtils.setField(config, "maxBufferedBytes", 1_048_576L);
+        ReflectionTestUtils.setField(config, "snapshotEnabled", false);
+        ReflectionTestUtils.setField(config, "snapshotFile", "unused");
+        assembler = new MediaGroupAssembler(config, OBJECT_MAPPER);
+        assembler.register(BotType.MAIN, (mediaGroupId, items) -> published.add(items));
+    }
+
+    @AfterEach
+    void tearDown() {
+        assembler.shutdown();
+    }
+
+    @Test
+    void albumSplitAcrossTwoBatchesIsPublishedOnce() throws Exception {
+        // 第一批只帶到相簿前兩則，且 Telegram 端當下沒有待取更新
+        receive(albumPost(1, 101), albumPost(2, 102));
+        Thread.sleep(BOUNDARY_GRACE_MS * 3);
+        assertTrue(published.isEmpty(), "只有單一批次邊界時不應送出相簿");
+
+        // 後兩則在下一批才到
+        receive(albumPost(3, 103), albumPost(4, 104));
+        Thread.sleep(BOUNDARY_GRACE_MS * 3);
+        assertTrue(published.isEmpty(), "下一批仍帶有相簿項目，不應送出");
+
+        // 再下一次輪詢沒有該相簿的項目，確認收齊
+        receive(textPost(5, 105));
+        awaitPublished();
+        Thread.sleep(BOUNDARY_GRACE_MS);
+
+        assertEquals(1, published.size());
+        assertEquals(List.of(101, 102, 103, 104), messageIds(published.get(0)));
+        assertEquals(0L, assembler.getLateItems());
+    }
+
+    @Test
+    void itemArrivingAfterFlushIsSampledAsLateGap() throws Exception {
+        receive(albumPost(1, 101), albumPost(2, 102));
+        receive();
+        awaitPublished();
+        int samplesBefore = assembler.getInterArrivalEstimator().getSampleCount();
+
+        receive(albumPost(3, 103));
+
+        assertEquals(1L, assembler.getLateItems());
+        assertEquals(samplesBefore + 1, assembler.getInterArrivalEstimator().getSampleCount());
+    }
+
+    /**
+     * 模擬一次長輪詢：先記錄批次，再依序交給組裝器，與實際處理管線的順序相同。
+     */
+    private void receive(Update... updates) {
+        List<Update> batch = List.of(updates);
+        assembler.observeBatch(BotType.MAIN, batch, false);
+        for (Update update : batch) {
+            Message channelPost = update.getChannelPost();
+            if (channelPost.getMediaGroupId() == null) {
+                continue;
+            }
+            assembler.append(BotType.MAIN, channelPost.getMediaGroupId(), MediaGroupItem.builder()
+                    .updateId(update.getUpdateId())
+                    .chatId(channelPost.getChatId())
+                    .messageId(channelPost.getMessageId())
+                    .mediaType("photo")
+                    .fileId("file-" + channelPost.getMessageId())
+                    .build());
+        }
+    }
+
+    private void awaitPublished() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + QUIET_PERIOD_MS / 2;
+        while (published.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals(1, published.size(), "確認收齊後應在寬限時間內送出");
+    }
+
+    private static Update albumPost(int updateId, int messageId) throws JsonProcessingException {
+        return readUpdate(updateId, messageId, ",\"media_group_id\":\"" + MEDIA_GROUP_ID + "\"");
+    }
+
+    private static Update textPost(int updateId, int messageId) throws JsonProcessingException {
+        return readUpdate(updateId, messageId, ",\"text\":\"hello\"");
+    }
+
+    private static Update readUpdate(int updateId, int messageId, String extraFields) throws JsonProcessingException {
+        String json = "{\"update_id\":" + updateId + ",\"channel_post\":{\"message_id\":" + messageId
+                + ",\"date\":0,\"chat\":{\"id\":" + CHAT_ID + ",\"type\":\"channel\"}" + extraFields + "}}";
+        return OBJECT_MAPPER.readValue(json, Update.class);
+    }
+
+    private static List<Integer> messageIds(List<MediaGroupItem> items) {
+        List<Integer> ids = new ArrayList<>();
+        for (MediaGroupItem item : items) {
+            ids.add(item.getMessageId());
+        }
+        return ids;
+    }
+}
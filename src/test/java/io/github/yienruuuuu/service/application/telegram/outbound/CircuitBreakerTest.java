@@ -0,0 +1,109 @@
+package io.github.yienruuuuu.service.application.telegram.outbound;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 熔斷器的狀態轉換與半開探測計數；舊世代的許可在半開時完成，不能影響探測結果。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+class CircuitBreakerTest {
+    private static final int MINIMUM_CALLS = 4;
+    private static final int HALF_OPEN_PROBES = 2;
+    private static final long FAST_CALL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void opensWhenFailureRateIsReachedAndRejectsWhileOpen() {
+        CircuitBreaker breaker = newBreaker(60_000L);
+        call(breaker, false);
+        call(breaker, true);
+        call(breaker, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.snapshot().getState(), "未達最少呼叫數前不判斷");
+
+        call(breaker, true);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.snapshot().getState());
+        assertTrue(breaker.isRejecting());
+        assertEquals(CircuitBreaker.NO_PERMIT, breaker.tryAcquire());
+        assertEquals(1L, breaker.snapshot().getOpenedCount());
+    }
+
+    @Test
+    void olderPermitFinishingDuringHalfOpenDoesNotDecideTheProbes() {
+        // 開啟時間為 0：開啟後下一次取許可就進入半開，不必等待
+        CircuitBreaker breaker = newBreaker(0L);
+        long inFlightSuccess = breaker.tryAcquire();
+        long inFlightFailure = breaker.tryAcquire();
+        trip(breaker);
+
+        long firstProbe = breaker.tryAcquire();
+        long secondProbe = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.snapshot().getState());
+        assertNotEquals(CircuitBreaker.NO_PERMIT, firstProbe);
+        assertNotEquals(CircuitBreaker.NO_PERMIT, secondProbe);
+        assertNotEquals(inFlightSuccess, firstProbe, "半開後發出的許可屬於新的世代");
+        assertTrue(breaker.isRejecting(), "探測名額用完後應拒絕");
+        assertEquals(CircuitBreaker.NO_PERMIT, breaker.tryAcquire());
+
+        // CLOSED 時發出的呼叫失敗，不會重新開啟
+        breaker.record(inFlightFailure, true, FAST_CALL_NANOS);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.snapshot().getState());
+        assertEquals(1L, breaker.snapshot().getOpenedCount());
+
+        // 一個探測成功加上一個舊許可成功，不足以關閉
+        breaker.record(firstProbe, false, FAST_CALL_NANOS);
+        breaker.record(inFlightSuccess, false, FAST_CALL_NANOS);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.snapshot().getState());
+        assertTrue(breaker.isRejecting());
+
+        breaker.record(secondProbe, false, FAST_CALL_NANOS);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.snapshot().getState());
+        assertFalse(breaker.isRejecting());
+        assertEquals(0, breaker.snapshot().getCalls(), "關閉時重新統計");
+        assertNotEquals(CircuitBreaker.NO_PERMIT, breaker.tryAcquire());
+    }
+
+    @Test
+    void failedProbeReopensTheBreaker() {
+        CircuitBreaker breaker = newBreaker(0L);
+        trip(breaker);
+        long probe = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.snapshot().getState());
+
+        breaker.record(probe, true, FAST_CALL_NANOS);
+
+        assertEquals(2L, breaker.snapshot().getOpenedCount());
+        long nextProbe = breaker.tryAcquire();
+        assertNotEquals(probe, nextProbe, "重新開啟後的探測屬於新的世代");
+        // 上一輪探測遲到的成功不計入這一輪
+        breaker.record(probe, false, FAST_CALL_NANOS);
+        breaker.record(nextProbe, false, FAST_CALL_NANOS);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.snapshot().getState());
+    }
+
+    private static CircuitBreaker newBreaker(long openMillis) {
+        return new CircuitBreaker(30, MINIMUM_CALLS, 50.0, 5_000L, 80.0, openMillis, HALF_OPEN_PROBES);
+    }
+
+    private static void trip(CircuitBreaker breaker) {
+        for (int i = 0; i < MINIMUM_CALLS; i++) {
+            call(breaker, true);
+        }
+        assertEquals(1L, breaker.snapshot().getOpenedCount());
+    }
+
+    private static void call(CircuitBreaker breaker, boolean failure) {
+        long permit = breaker.tryAcquire();
+        assertNotEquals(CircuitBreaker.NO_PERMIT, permit);
+        breaker.record(permit, failure, FAST_CALL_NANOS);
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.yienruuuuu.service.application.telegram.outbound;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 以明確的時間點驗證令牌桶：突發放行、依發送間隔排隊、權重上限與 429 後的推遲。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+class GcraBucketTest {
+    //每秒 10 次即每 100 ms 一個令牌，突發 3
+    private static final double RATE_PER_SECOND = 10.0;
+    private static final int BURST = 3;
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long NOW = TimeUnit.SECONDS.toNanos(1_000);
+
+    @Test
+    void burstIsAdmittedImmediatelyThenSpacedAtEmissionInterval() {
+        GcraBucket bucket = new GcraBucket(RATE_PER_SECOND, BURST);
+
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(NOW, bucket.reserve(NOW, 1), "突發內第 " + (i + 1) + " 筆應立即放行");
+        }
+        assertEquals(NOW + INTERVAL, bucket.reserve(NOW, 1));
+        assertEquals(NOW + 2 * INTERVAL, bucket.reserve(NOW, 1));
+        assertEquals(NOW + 3 * INTERVAL, bucket.reserve(NOW, 1));
+    }
+
+    @Test
+    void idleBucketRegainsFullBurst() {
+        GcraBucket bucket = new GcraBucket(RATE_PER_SECOND, BURST);
+        for (int i = 0; i < BURST + 2; i++) {
+            bucket.reserve(NOW, 1);
+        }
+
+        long later = NOW + TimeUnit.SECONDS.toNanos(10);
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(later, bucket.reserve(later, 1));
+        }
+        assertEquals(later + INTERVAL, bucket.reserve(later, 1));
+    }
+
+    @Test
+    void weightAboveBurstIsChargedAsFullBurst() {
+        GcraBucket bucket = new GcraBucket(RATE_PER_SECOND, BURST);
+
+        assertEquals(NOW, bucket.reserve(NOW, 10), "超過突發上限的權重以突發上限計，仍可立即送出");
+        // 只扣了 BURST 個令牌，下一筆只需等一個間隔而不是七個
+        assertEquals(NOW + INTERVAL, bucket.reserve(NOW, 1));
+    }
+
+    @Test
+    void nonPositiveWeightCostsOneToken() {
+        GcraBucket bucket = new GcraBucket(RATE_PER_SECOND, BURST);
+
+        bucket.reserve(NOW, 0);
+        bucket.reserve(NOW, -5);
+        assertEquals(NOW, bucket.reserve(NOW, 1));
+        assertEquals(NOW + INTERVAL, bucket.reserve(NOW, 1));
+    }
+
+    @Test
+    void pushBackDefersNextReservationToRetryAfterDeadline() {
+        GcraBucket bucket = new GcraBucket(RATE_PER_SECOND, BURST);
+        bucket.reserve(NOW, 1);
+        long retryAfterDeadline = NOW + TimeUnit.SECONDS.toNanos(5);
+
+        bucket.pushBack(retryAfterDeadline);
+
+        assertEquals(retryAfterDeadline, bucket.peek(NOW, 1), "查詢不預約");
+        assertEquals(retryAfterDeadline, bucket.reserve(NOW, 1));
+        // 推遲後不再給突發，依發送間隔恢復
+        assertEquals(retryAfterDeadline + INTERVAL, bucket.reserve(NOW, 1));
+    }
+
+    @Test
+    void pushBackNeverMovesTheScheduleEarlier() {
+        GcraBucket bucket = new GcraBucket(RATE_PER_SECOND, BURST);
+        for (int i = 0; i < BURST + 5; i++) {
+            bucket.reserve(NOW, 1);
+        }
+        long expected = bucket.peek(NOW, 1);
+
+        bucket.pushBack(NOW);
+
+        assertEquals(expected, bucket.reserve(NOW, 1));
+    }
+}
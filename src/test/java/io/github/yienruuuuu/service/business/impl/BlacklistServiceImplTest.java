@@ -0,0 +1,195 @@
+package io.github.yienruuuuu.service.business.impl;
+
+import io.github.yienruuuuu.bean.entity.BlacklistTerm;
+import io.github.yienruuuuu.config.AppConfig;
+import io.github.yienruuuuu.repository.BlacklistTermRepository;
+import io.github.yienruuuuu.service.business.ChineseConvertService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyChar;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 以比對器過濾黑名單的結果，必須與原本依 id 順序逐一 {@link String#replace} 完全相同；
+ * 正規化比對時只移除原文中對應的區段，前後文字保持原樣。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+class BlacklistServiceImplTest {
+    private static final long SEED = 20261018L;
+    private static final int DICTIONARIES = 2_000;
+    private static final int TEXTS_PER_DICTIONARY = 100;
+    //字母表刻意很小，讓字串彼此重疊、互為前後綴，取代後也容易拼出新的命中
+    private static final String ALPHABET = "abc 黑名";
+    //正規化比對用的繁簡字形對照，只需涵蓋測試用到的字
+    private static final Map<Character, Character> TO_SIMPLIFIED = Map.of('廣', '广', '詐', '诈', '騙', '骗');
+    private final Random random = new Random(SEED);
+    private List<BlacklistTerm> currentTerms = List.of();
+    private BlacklistServiceImpl blacklistService;
+    private BlacklistServiceImpl normalizedService;
+
+    @BeforeEach
+    void setUp() {
+        BlacklistTermRepository repository = mock(BlacklistTermRepository.class);
+        when(repository.findAllByOrderByIdAsc()).thenAnswer(invocation -> currentTerms);
+        when(repository.findFingerprint()).thenReturn("fixed");
+        AppConfig appConfig = new AppConfig();
+        ReflectionTestUtils.setField(appConfig, "blacklistRefreshIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(appConfig, "blacklistNormalizedMatching", false);
+        blacklistService = new BlacklistServiceImpl(repository, appConfig, mock(ChineseConvertService.class));
+
+        AppConfig normalizedConfig = new AppConfig();
+        ReflectionTestUtils.setField(normalizedConfig, "blacklistRefreshIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(normalizedConfig, "blacklistNormalizedMatching", true);
+        // 建立正規化器時會對每個 BMP 字元查詢一次，不記錄呼叫
+        ChineseConvertService chineseConvertService = mock(ChineseConvertService.class, withSettings().stubOnly());
+        when(chineseConvertService.toSimplified(anyChar())).thenAnswer(invocation -> {
+            char c = invocation.getArgument(0);
+            return TO_SIMPLIFIED.getOrDefault(c, c);
+        });
+        normalizedService = new BlacklistServiceImpl(repository, normalizedConfig, chineseConvertService);
+    }
+
+    @Test
+    void filterMatchesSequentialReplaceOnRandomInput() {
+        for (int d = 0; d < DICTIONARIES; d++) {
+            currentTerms = randomTerms();
+            blacklistService.reload();
+            for (int t = 0; t < TEXTS_PER_DICTIONARY; t++) {
+                String text = randomString(0, 30);
+                String expected = sequentialReplace(currentTerms, text);
+                Supplier<String> message = () -> "terms=" + termValues(currentTerms) + " text=[" + text + "]";
+
+                assertEquals(expected, blacklistService.filter(text), message);
+                StringBuilder out = new StringBuilder();
+                String viaBuilder = blacklistService.filter(text, out) ? out.toString() : text;
+                assertEquals(expected, viaBuilder, message);
+            }
+        }
+    }
+
+    @Test
+    void normalizedMatchingRemovesFullWidthAndMixedCaseSpelling() {
+        useNormalizedTerms("spam");
+
+        assertEquals("買  現在", normalizedService.filter("買 ＳＰＡＭ 現在"));
+        assertEquals("買 ,現在", normalizedService.filter("買 SpAm,現在"));
+    }
+
+    @Test
+    void normalizedMatchingRemovesTermSplitByZeroWidthJoiner() {
+        useNormalizedTerms("廣告");
+
+        assertEquals("這是內容", normalizedService.filter("這是廣\u200D告內容"));
+        assertEquals("前\u200D後", normalizedService.filter("前\u200D廣告後"), "比對區段外的零寬字元保留");
+    }
+
+    @Test
+    void normalizedMatchingRemovesTraditionalSpellingOfSimplifiedTerm() {
+        useNormalizedTerms("诈骗");
+
+        assertEquals("小心電話", normalizedService.filter("小心詐騙電話"));
+        assertEquals("小心電話", normalizedService.filter("小心诈騙電話"), "繁簡混寫");
+    }
+
+    @Test
+    void normalizedMatchingRemovesSupplementaryPlaneSpelling() {
+        useNormalizedTerms("spam");
+
+        // 數學粗體字母在補充平面，每個字母佔兩個 char，前後的 emoji 也是
+        assertEquals("free 😀😀!", normalizedService.filter("free 😀𝐬𝐩𝐚𝐦😀!"));
+    }
+
+    @Test
+    void normalizedMatchingReturnsInputWhenNothingMatches() {
+        useNormalizedTerms("spam", "廣告");
+        String text = "ＳＰＡ 廣 告 😀";
+
+        assertSame(text, normalizedService.filter(text));
+        assertFalse(normalizedService.filter(text, new StringBuilder()));
+    }
+
+    private void useNormalizedTerms(String... values) {
+        List<BlacklistTerm> terms = new ArrayList<>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            BlacklistTerm term = new BlacklistTerm();
+            term.setId(i + 1);
+            term.setTerm(values[i]);
+            terms.add(term);
+        }
+        currentTerms = terms;
+        normalizedService.reload();
+    }
+
+    /**
+     * 原本的過濾方式：依 id 順序逐一取代，略過空白字串。
+     */
+    private static String sequentialReplace(List<BlacklistTerm> terms, String input) {
+        if (input == null || input.isBlank()) {
+            return input;
+        }
+        String result = input;
+        for (BlacklistTerm term : terms) {
+            if (term.getTerm() == null || term.getTerm().isBlank()) {
+                continue;
+            }
+            result = result.replace(term.getTerm(), "");
+        }
+        return result;
+    }
+
+    /**
+     * 0 到 8 筆字串，混入重複、空白與互相包含的字串。
+     */
+    private List<BlacklistTerm> randomTerms() {
+        int count = random.nextInt(9);
+        List<BlacklistTerm> terms = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String value;
+            int kind = random.nextInt(10);
+            if (kind == 0 && !terms.isEmpty()) {
+                value = terms.get(random.nextInt(terms.size())).getTerm();
+            } else if (kind == 1) {
+                value = random.nextBoolean() ? "" : " ";
+            } else {
+                value = randomString(1, 4);
+            }
+            BlacklistTerm term = new BlacklistTerm();
+            term.setId(i + 1);
+            term.setTerm(value);
+            terms.add(term);
+        }
+        return terms;
+    }
+
+    private String randomString(int minLength, int maxLength) {
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+
+    private static List<String> termValues(List<BlacklistTerm> terms) {
+        List<String> values = new ArrayList<>(terms.size());
+        for (BlacklistTerm term : terms) {
+            values.add(term.getTerm());
+        }
+        return values;
+    }
+}
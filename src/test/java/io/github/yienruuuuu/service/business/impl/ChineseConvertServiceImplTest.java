@@ -0,0 +1,76 @@
+package io.github.yienruuuuu.service.business.impl;
+
+import com.github.houbb.opencc4j.util.ZhConverterUtil;
+import io.github.yienruuuuu.bean.enums.ConverterEngine;
+import io.github.yienruuuuu.config.TextConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * 字典樹引擎的簡轉繁結果必須與 opencc4j 逐句相同。
+ *
+ * @author Eric.Lee
+ * Date: 2026/10/18
+ */
+class ChineseConvertServiceImplTest {
+    private static final String CORPUS = "text/st-golden-corpus.txt";
+    private ChineseConvertServiceImpl chineseConvertService;
+
+    @BeforeEach
+    void setUp() {
+        TextConfig textConfig = new TextConfig();
+        ReflectionTestUtils.setField(textConfig, "converterEngine", ConverterEngine.TRIE);
+        ReflectionTestUtils.setField(textConfig, "stPhrasesResource", "data/dictionary/STPhrases.txt");
+        ReflectionTestUtils.setField(textConfig, "stCharactersResource", "data/dictionary/STCharacters.txt");
+        ReflectionTestUtils.setField(textConfig, "tsCharactersResource", "data/dictionary/TSCharacters.txt");
+        //不抽樣驗證，否則不一致時會被 opencc4j 的結果蓋掉，測不出差異
+        ReflectionTestUtils.setField(textConfig, "verifySampleRate", 0.0);
+        chineseConvertService = new ChineseConvertServiceImpl(textConfig);
+    }
+
+    @Test
+    void trieMatchesOpenccOnGoldenCorpus() throws IOException {
+        assertEquals(ConverterEngine.TRIE, chineseConvertService.getActiveEngine(), "詞典應能載入");
+        List<String> corpus = readCorpus();
+        assertFalse(corpus.isEmpty());
+        for (String line : corpus) {
+            assertEquals(ZhConverterUtil.toTraditional(line), chineseConvertService.toTraditional(line), line);
+        }
+    }
+
+    @Test
+    void textWithoutConvertibleCharsIsReturnedAsIs() {
+        String text = "Hello, world! https://t.me/example_channel/12345 😀";
+        assertSame(text, chineseConvertService.toTraditional(text));
+        assertEquals(1L, chineseConvertService.getSkipped());
+    }
+
+    private static List<String> readCorpus() throws IOException {
+        InputStream stream = ChineseConvertServiceImplTest.class.getClassLoader().getResourceAsStream(CORPUS);
+        assertNotNull(stream, "找不到語料 " + CORPUS);
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+}